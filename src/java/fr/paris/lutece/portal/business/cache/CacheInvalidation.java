@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.cache;
+
+import java.sql.Timestamp;
+
+/**
+ * This is the business class for the cache invalidations logged by a node of a cluster for the other nodes
+ */
+public class CacheInvalidation
+{
+    // Variables declarations
+    private int _nIdInvalidation;
+    private String _strNodeId;
+    private String _strEntityType;
+    private String _strEntityId;
+    private int _nEventType;
+    private Timestamp _dateCreation;
+
+    /**
+     * Returns the invalidation ID
+     * 
+     * @return The invalidation ID
+     */
+    public int getIdInvalidation( )
+    {
+        return _nIdInvalidation;
+    }
+
+    /**
+     * Sets the invalidation ID
+     * 
+     * @param nIdInvalidation
+     *            The invalidation ID
+     */
+    public void setIdInvalidation( int nIdInvalidation )
+    {
+        _nIdInvalidation = nIdInvalidation;
+    }
+
+    /**
+     * Returns the ID of the node that logged the invalidation
+     * 
+     * @return The node ID
+     */
+    public String getNodeId( )
+    {
+        return _strNodeId;
+    }
+
+    /**
+     * Sets the ID of the node that logged the invalidation
+     * 
+     * @param strNodeId
+     *            The node ID
+     */
+    public void setNodeId( String strNodeId )
+    {
+        _strNodeId = strNodeId;
+    }
+
+    /**
+     * Returns the type of the changed entity
+     * 
+     * @return The entity type
+     */
+    public String getEntityType( )
+    {
+        return _strEntityType;
+    }
+
+    /**
+     * Sets the type of the changed entity
+     * 
+     * @param strEntityType
+     *            The entity type
+     */
+    public void setEntityType( String strEntityType )
+    {
+        _strEntityType = strEntityType;
+    }
+
+    /**
+     * Returns the ID of the changed entity
+     * 
+     * @return The entity ID, or null if the change concerns all the entities of the type
+     */
+    public String getEntityId( )
+    {
+        return _strEntityId;
+    }
+
+    /**
+     * Sets the ID of the changed entity
+     * 
+     * @param strEntityId
+     *            The entity ID
+     */
+    public void setEntityId( String strEntityId )
+    {
+        _strEntityId = strEntityId;
+    }
+
+    /**
+     * Returns the change type
+     * 
+     * @return The change type
+     */
+    public int getEventType( )
+    {
+        return _nEventType;
+    }
+
+    /**
+     * Sets the change type
+     * 
+     * @param nEventType
+     *            The change type
+     */
+    public void setEventType( int nEventType )
+    {
+        _nEventType = nEventType;
+    }
+
+    /**
+     * Returns the creation date
+     * 
+     * @return The creation date
+     */
+    public Timestamp getDateCreation( )
+    {
+        return _dateCreation;
+    }
+
+    /**
+     * Sets the creation date
+     * 
+     * @param dateCreation
+     *            The creation date
+     */
+    public void setDateCreation( Timestamp dateCreation )
+    {
+        _dateCreation = dateCreation;
+    }
+}
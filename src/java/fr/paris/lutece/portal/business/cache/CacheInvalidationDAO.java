@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.cache;
+
+import fr.paris.lutece.util.sql.DAOUtil;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class provides Data Access methods for CacheInvalidation objects
+ */
+public final class CacheInvalidationDAO implements ICacheInvalidationDAO
+{
+    private static final String SQL_QUERY_INSERT = " INSERT INTO core_cache_invalidation ( node_id, entity_type, entity_id, event_type, date_creation ) VALUES ( ?, ?, ?, ?, CURRENT_TIMESTAMP ) ";
+    private static final String SQL_QUERY_SELECT_AFTER = " SELECT id_invalidation, node_id, entity_type, entity_id, event_type, date_creation FROM core_cache_invalidation "
+            + " WHERE id_invalidation > ? AND date_creation >= ? AND node_id <> ? ORDER BY id_invalidation LIMIT ? ";
+    private static final String SQL_QUERY_SELECT_LAST_ID = " SELECT MAX( id_invalidation ) FROM core_cache_invalidation ";
+    private static final String SQL_QUERY_SELECT_CURRENT_DATE = " SELECT CURRENT_TIMESTAMP ";
+    private static final String SQL_QUERY_DELETE_BEFORE = " DELETE FROM core_cache_invalidation WHERE date_creation < ? ";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insert( List<CacheInvalidation> listInvalidations )
+    {
+        if ( listInvalidations.isEmpty( ) )
+        {
+            return;
+        }
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT ) )
+        {
+            for ( CacheInvalidation invalidation : listInvalidations )
+            {
+                int nIndex = 0;
+                daoUtil.setString( ++nIndex, invalidation.getNodeId( ) );
+                daoUtil.setString( ++nIndex, invalidation.getEntityType( ) );
+                daoUtil.setString( ++nIndex, invalidation.getEntityId( ) );
+                daoUtil.setInt( ++nIndex, invalidation.getEventType( ) );
+                daoUtil.addBatch( );
+            }
+
+            daoUtil.executeBatch( );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<CacheInvalidation> selectAfter( int nLastIdInvalidation, Timestamp dateSince, String strNodeId, int nLimit )
+    {
+        List<CacheInvalidation> listInvalidations = new ArrayList<>( );
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_AFTER ) )
+        {
+            daoUtil.setInt( 1, nLastIdInvalidation );
+            daoUtil.setTimestamp( 2, dateSince );
+            daoUtil.setString( 3, strNodeId );
+            daoUtil.setInt( 4, nLimit );
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                int nIndex = 0;
+                CacheInvalidation invalidation = new CacheInvalidation( );
+                invalidation.setIdInvalidation( daoUtil.getInt( ++nIndex ) );
+                invalidation.setNodeId( daoUtil.getString( ++nIndex ) );
+                invalidation.setEntityType( daoUtil.getString( ++nIndex ) );
+                invalidation.setEntityId( daoUtil.getString( ++nIndex ) );
+                invalidation.setEventType( daoUtil.getInt( ++nIndex ) );
+                invalidation.setDateCreation( daoUtil.getTimestamp( ++nIndex ) );
+                listInvalidations.add( invalidation );
+            }
+        }
+
+        return listInvalidations;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int selectLastIdInvalidation( )
+    {
+        int nLastIdInvalidation = 0;
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_LAST_ID ) )
+        {
+            daoUtil.executeQuery( );
+
+            if ( daoUtil.next( ) )
+            {
+                nLastIdInvalidation = daoUtil.getInt( 1 );
+            }
+        }
+
+        return nLastIdInvalidation;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Timestamp selectCurrentDate( )
+    {
+        Timestamp dateCurrent = null;
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_CURRENT_DATE ) )
+        {
+            daoUtil.executeQuery( );
+
+            if ( daoUtil.next( ) )
+            {
+                dateCurrent = daoUtil.getTimestamp( 1 );
+            }
+        }
+
+        return dateCurrent;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteBefore( Timestamp dateLimit )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BEFORE ) )
+        {
+            daoUtil.setTimestamp( 1, dateLimit );
+            daoUtil.executeUpdate( );
+        }
+    }
+}
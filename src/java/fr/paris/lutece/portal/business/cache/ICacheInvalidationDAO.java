@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.cache;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * This interface provides Data Access methods for CacheInvalidation objects
+ */
+public interface ICacheInvalidationDAO
+{
+    /**
+     * Inserts a batch of invalidations. Their creation date is set by the database, so that the dates of all the nodes come from the same clock
+     * 
+     * @param listInvalidations
+     *            The invalidations
+     */
+    void insert( List<CacheInvalidation> listInvalidations );
+
+    /**
+     * Loads the invalidations logged by the other nodes after a given invalidation and since a given date, in the order of their IDs
+     * 
+     * @param nLastIdInvalidation
+     *            The ID after which the invalidations are loaded
+     * @param dateSince
+     *            The date since which the invalidations are loaded
+     * @param strNodeId
+     *            The ID of the reading node, whose own invalidations are skipped
+     * @param nLimit
+     *            The maximum number of invalidations to load
+     * @return The invalidations
+     */
+    List<CacheInvalidation> selectAfter( int nLastIdInvalidation, Timestamp dateSince, String strNodeId, int nLimit );
+
+    /**
+     * Returns the ID of the last logged invalidation
+     * 
+     * @return The ID of the last invalidation, 0 if the log is empty
+     */
+    int selectLastIdInvalidation( );
+
+    /**
+     * Returns the current date of the database, which sets the creation date of the invalidations
+     * 
+     * @return The current date of the database
+     */
+    Timestamp selectCurrentDate( );
+
+    /**
+     * Deletes the invalidations logged before a given date
+     * 
+     * @param dateLimit
+     *            The date
+     */
+    void deleteBefore( Timestamp dateLimit );
+}
@@ -72,4 +72,15 @@ public interface EventRessourceListener extends EventListener
      *            the event for the updated resource
      */
     void updatedResource( ResourceEvent event );
+
+    /**
+     * Tells if the events should be delivered asynchronously. The events are then delivered by worker threads, in order for a given resource, instead of
+     * the thread firing them.
+     *
+     * @return true for an asynchronous delivery, false (the default) for a synchronous one
+     */
+    default boolean isAsynchronous( )
+    {
+        return false;
+    }
 }
@@ -153,4 +153,13 @@ public class ResourceEvent
     {
         return _param;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString( )
+    {
+        return "ResourceEvent[" + _strTypeResource + ":" + _strIdResource + ", portlet=" + _nIdPortlet + "]";
+    }
 }
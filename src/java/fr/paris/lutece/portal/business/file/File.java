@@ -57,6 +57,7 @@ public class File implements Serializable
     private Timestamp _dateCreation;
     private String _url;
     private String _strOrigin;
+    private String _strContentHash;
 
     /**
      * get file key
@@ -259,4 +260,25 @@ public class File implements Serializable
 		this._strOrigin = strOrigin;
 	}
 
+    /**
+     * get the hash of the content, for files whose content is not stored as a physical file
+     * 
+     * @return the SHA-256 hash of the content, or null
+     */
+    public String getContentHash( )
+    {
+        return _strContentHash;
+    }
+
+    /**
+     * set the hash of the content
+     * 
+     * @param strContentHash
+     *            the SHA-256 hash of the content
+     */
+    public void setContentHash( String strContentHash )
+    {
+        _strContentHash = strContentHash;
+    }
+
 }
@@ -38,7 +38,9 @@ import fr.paris.lutece.util.sql.DAOUtil;
 
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 /**
  * This class provides Data Access methods for Field objects
@@ -46,11 +48,19 @@ import java.util.Date;
 public final class FileDAO implements IFileDAO
 {
     // Constants
-    private static final String SQL_QUERY_FIND_BY_PRIMARY_KEY = "SELECT id_file,title,id_physical_file,file_size,mime_type,date_creation,origin"
+    private static final String SQL_QUERY_FIND_BY_PRIMARY_KEY = "SELECT id_file,title,id_physical_file,file_size,mime_type,date_creation,origin,content_hash"
             + " FROM core_file WHERE id_file = ?";
-    private static final String SQL_QUERY_INSERT = "INSERT INTO core_file(title,id_physical_file,file_size,mime_type,date_creation,origin)" + " VALUES(?,?,?,?,?,?)";
+    private static final String SQL_QUERY_INSERT = "INSERT INTO core_file(title,id_physical_file,file_size,mime_type,date_creation,origin,content_hash)"
+            + " VALUES(?,?,?,?,?,?,?)";
     private static final String SQL_QUERY_DELETE = "DELETE FROM core_file WHERE id_file = ? ";
-    private static final String SQL_QUERY_UPDATE = "UPDATE  core_file SET " + "id_file=?,title=?,id_physical_file=?,file_size=?,mime_type=?,origin=? WHERE id_file = ?";
+    private static final String SQL_QUERY_UPDATE = "UPDATE  core_file SET "
+            + "id_file=?,title=?,id_physical_file=?,file_size=?,mime_type=?,origin=?,content_hash=? WHERE id_file = ?";
+    private static final String SQL_QUERY_COUNT_BY_CONTENT_HASH = "SELECT COUNT(*) FROM core_file WHERE content_hash = ?";
+    private static final String SQL_QUERY_SELECT_ID_WITH_PHYSICAL_FILE = "SELECT id_file FROM core_file"
+            + " WHERE origin = ? AND id_physical_file IS NOT NULL AND id_file > ? ORDER BY id_file LIMIT ?";
+    private static final String SQL_QUERY_INSERT_CONTENT = "INSERT INTO core_file_content( content_hash, date_lock ) VALUES( ?, ? )";
+    private static final String SQL_QUERY_LOCK_CONTENT = "UPDATE core_file_content SET date_lock = ? WHERE content_hash = ?";
+    private static final String SQL_QUERY_DELETE_CONTENT = "DELETE FROM core_file_content WHERE content_hash = ?";
 
     /**
      * Insert a new record in the table.
@@ -80,7 +90,8 @@ public final class FileDAO implements IFileDAO
             daoUtil.setInt( nIndex++, file.getSize( ) );
             daoUtil.setString( nIndex++, file.getMimeType( ) );
             daoUtil.setTimestamp( nIndex++, new Timestamp( new Date( ).getTime( ) ) );
-            daoUtil.setString( nIndex, file.getOrigin( ) );
+            daoUtil.setString( nIndex++, file.getOrigin( ) );
+            daoUtil.setString( nIndex, file.getContentHash( ) );
             daoUtil.executeUpdate( );
 
             if ( daoUtil.nextGeneratedKey( ) )
@@ -128,6 +139,7 @@ public final class FileDAO implements IFileDAO
                 file.setMimeType( daoUtil.getString( 5 ) );
                 file.setDateCreation( daoUtil.getTimestamp( 6 ) );
                 file.setOrigin( daoUtil.getString( 7 ) );
+                file.setContentHash( daoUtil.getString( 8 ) );
             }
 
         }
@@ -177,7 +189,100 @@ public final class FileDAO implements IFileDAO
             daoUtil.setInt( 4, file.getSize( ) );
             daoUtil.setString( 5, file.getMimeType( ) );
             daoUtil.setString( 6, file.getOrigin( ) );
-            daoUtil.setInt( 7, file.getIdFile( ) );
+            daoUtil.setString( 7, file.getContentHash( ) );
+            daoUtil.setInt( 8, file.getIdFile( ) );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countByContentHash( String strContentHash )
+    {
+        int nCount = 0;
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_COUNT_BY_CONTENT_HASH ) )
+        {
+            daoUtil.setString( 1, strContentHash );
+            daoUtil.executeQuery( );
+
+            if ( daoUtil.next( ) )
+            {
+                nCount = daoUtil.getInt( 1 );
+            }
+        }
+
+        return nCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Integer> selectIdFilesWithPhysicalFile( String strOrigin, int nAfterIdFile, int nLimit )
+    {
+        List<Integer> listIdFiles = new ArrayList<>( );
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ID_WITH_PHYSICAL_FILE ) )
+        {
+            daoUtil.setString( 1, strOrigin );
+            daoUtil.setInt( 2, nAfterIdFile );
+            daoUtil.setInt( 3, nLimit );
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                listIdFiles.add( daoUtil.getInt( 1 ) );
+            }
+        }
+
+        return listIdFiles;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insertContent( String strContentHash )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT_CONTENT ) )
+        {
+            daoUtil.setString( 1, strContentHash );
+            daoUtil.setTimestamp( 2, new Timestamp( System.currentTimeMillis( ) ) );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean lockContent( String strContentHash )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_LOCK_CONTENT ) )
+        {
+            daoUtil.setTimestamp( 1, new Timestamp( System.currentTimeMillis( ) ) );
+            daoUtil.setString( 2, strContentHash );
+            daoUtil.addBatch( );
+
+            // executed as a batch to get the update count
+            int [ ] updateCounts = daoUtil.executeBatch( );
+
+            return updateCounts [0] > 0 || updateCounts [0] == Statement.SUCCESS_NO_INFO;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteContent( String strContentHash )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_CONTENT ) )
+        {
+            daoUtil.setString( 1, strContentHash );
             daoUtil.executeUpdate( );
         }
     }
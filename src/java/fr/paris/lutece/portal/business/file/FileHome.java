@@ -36,6 +36,8 @@ package fr.paris.lutece.portal.business.file;
 import fr.paris.lutece.portal.business.physicalfile.PhysicalFileHome;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 
+import java.util.List;
+
 /**
  * This class provides instances management methods (create, find, ...) for file objects
  */
@@ -61,7 +63,9 @@ public final class FileHome
      */
     public static int create( File file )
     {
-        if ( file.getPhysicalFile( ) != null )
+        // A physical file without value but with an id has already been stored, for example with PhysicalFileHome.create( InputStream )
+        if ( ( file.getPhysicalFile( ) != null )
+                && ( ( file.getPhysicalFile( ).getValue( ) != null ) || ( file.getPhysicalFile( ).getIdPhysicalFile( ) == 0 ) ) )
         {
             file.getPhysicalFile( ).setIdPhysicalFile( PhysicalFileHome.create( file.getPhysicalFile( ) ) );
         }
@@ -117,4 +121,67 @@ public final class FileHome
     {
         return _dao.load( nKey );
     }
+
+    /**
+     * Count the files whose content has the given hash
+     *
+     * @param strContentHash
+     *            The hash of the content
+     * @return the number of files sharing this content
+     */
+    public static int countByContentHash( String strContentHash )
+    {
+        return _dao.countByContentHash( strContentHash );
+    }
+
+    /**
+     * Returns the identifiers of the files of an origin whose content is stored as a physical file
+     *
+     * @param strOrigin
+     *            The origin of the files
+     * @param nAfterIdFile
+     *            Only the files with a greater identifier are returned, to read the files batch by batch
+     * @param nLimit
+     *            The maximum number of identifiers to return
+     * @return the identifiers of the files, in ascending order
+     */
+    public static List<Integer> findIdFilesWithPhysicalFile( String strOrigin, int nAfterIdFile, int nLimit )
+    {
+        return _dao.selectIdFilesWithPhysicalFile( strOrigin, nAfterIdFile, nLimit );
+    }
+
+    /**
+     * Create the lock row of a content shared by files. It serializes the creation and the deletion of the files using this content, on all the nodes
+     * sharing the database.
+     *
+     * @param strContentHash
+     *            The hash of the content
+     */
+    public static void createContent( String strContentHash )
+    {
+        _dao.insertContent( strContentHash );
+    }
+
+    /**
+     * Lock the row of a content until the end of the current transaction
+     *
+     * @param strContentHash
+     *            The hash of the content
+     * @return true if the content has a lock row, false if it must be created first
+     */
+    public static boolean lockContent( String strContentHash )
+    {
+        return _dao.lockContent( strContentHash );
+    }
+
+    /**
+     * Remove the lock row of a content no longer used by any file
+     *
+     * @param strContentHash
+     *            The hash of the content
+     */
+    public static void removeContent( String strContentHash )
+    {
+        _dao.deleteContent( strContentHash );
+    }
 }
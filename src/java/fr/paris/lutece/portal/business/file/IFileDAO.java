@@ -33,6 +33,8 @@
  */
 package fr.paris.lutece.portal.business.file;
 
+import java.util.List;
+
 /**
  *
  * IFileDAO
@@ -74,4 +76,51 @@ public interface IFileDAO
      *            instance of the File object to update
      */
     void store( File file );
+
+    /**
+     * Count the files whose content has the given hash
+     *
+     * @param strContentHash
+     *            The hash of the content
+     * @return the number of files sharing this content
+     */
+    int countByContentHash( String strContentHash );
+
+    /**
+     * Select the identifiers of the files of an origin whose content is stored as a physical file
+     *
+     * @param strOrigin
+     *            The origin of the files
+     * @param nAfterIdFile
+     *            Only the files with a greater identifier are returned, to read the files batch by batch
+     * @param nLimit
+     *            The maximum number of identifiers to return
+     * @return the identifiers of the files, in ascending order
+     */
+    List<Integer> selectIdFilesWithPhysicalFile( String strOrigin, int nAfterIdFile, int nLimit );
+
+    /**
+     * Insert the lock row of a content
+     *
+     * @param strContentHash
+     *            The hash of the content
+     */
+    void insertContent( String strContentHash );
+
+    /**
+     * Lock the row of a content until the end of the current transaction
+     *
+     * @param strContentHash
+     *            The hash of the content
+     * @return true if the content has a lock row, false otherwise
+     */
+    boolean lockContent( String strContentHash );
+
+    /**
+     * Delete the lock row of a content
+     *
+     * @param strContentHash
+     *            The hash of the content
+     */
+    void deleteContent( String strContentHash );
 }
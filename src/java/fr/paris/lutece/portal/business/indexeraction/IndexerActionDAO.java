@@ -61,6 +61,7 @@ public final class IndexerActionDAO implements IIndexerActionDAO
     private static final String SQL_QUERY_DELETE_ALL = "DELETE FROM core_indexer_action";
     private static final String SQL_QUERY_UPDATE = "UPDATE core_indexer_action SET id_action=?,id_document=?,id_task=?,indexer_name=?,id_portlet=? WHERE id_action = ? ";
     private static final String SQL_QUERY_SELECT = "SELECT id_action,id_document,id_task,indexer_name,id_portlet" + " FROM core_indexer_action  ";
+    private static final String SQL_ORDER_BY_ID_ACTION = " ORDER BY id_action";
     private static final String SQL_FILTER_ID_TASK = " id_task = ? ";
 
     /**
@@ -172,7 +173,7 @@ public final class IndexerActionDAO implements IIndexerActionDAO
             listStrFilter.add( SQL_FILTER_ID_TASK );
         }
 
-        String strSQL = buildRequestWithFilter( SQL_QUERY_SELECT, listStrFilter, null );
+        String strSQL = buildRequestWithFilter( SQL_QUERY_SELECT, listStrFilter, SQL_ORDER_BY_ID_ACTION );
 
         try ( DAOUtil daoUtil = new DAOUtil( strSQL ) )
         {
@@ -211,7 +212,7 @@ public final class IndexerActionDAO implements IIndexerActionDAO
         List<IndexerAction> indexerActionList = new ArrayList<>( );
         IndexerAction indexerAction = null;
 
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT ) )
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT + SQL_ORDER_BY_ID_ACTION ) )
         {
 
             daoUtil.executeQuery( );
@@ -33,6 +33,9 @@
  */
 package fr.paris.lutece.portal.business.mail;
 
+import java.sql.Timestamp;
+import java.util.List;
+
 /**
  * This class provides Data Access methods for MailItemQueue objects
  */
@@ -83,4 +86,38 @@ public interface IMailItemQueueDAO
      *            the id of the mail item to lock
      */
     void lockMailItemQueue( int nIdMailItemQueue );
+
+    /**
+     * Load the oldest unlocked mail items of the table
+     * 
+     * @param nMaxItems
+     *            the maximum number of mail items to load
+     * @return the mail items, ordered by id
+     */
+    List<MailItemQueue> selectUnlockedMailItemQueues( int nMaxItems );
+
+    /**
+     * Lock the mail items that are not already locked
+     * 
+     * @param listIdMailItemQueue
+     *            the ids of the mail items to lock
+     * @return the ids of the mail items locked by this call
+     */
+    List<Integer> lockMailItemQueues( List<Integer> listIdMailItemQueue );
+
+    /**
+     * Delete the mail item records in the table
+     * 
+     * @param listIdMailItemQueue
+     *            The identifiers of the mail items to remove
+     */
+    void delete( List<Integer> listIdMailItemQueue );
+
+    /**
+     * Delete the shared attachments that are no longer referenced by a mail item
+     * 
+     * @param lastUsedBefore
+     *            only the attachments not used since this date are deleted
+     */
+    void deleteUnusedAttachments( Timestamp lastUsedBefore );
 }
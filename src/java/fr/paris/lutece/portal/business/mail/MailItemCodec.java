@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.mail;
+
+import fr.paris.lutece.portal.service.mail.MailItem;
+import fr.paris.lutece.util.mail.FileAttachment;
+import fr.paris.lutece.util.mail.UrlAttachment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.serialization.ValidatingObjectInputStream;
+
+/**
+ * Binary encoding of the mail items stored in the database queue. The encoding starts with a magic number and a version, followed by the deflated fields of
+ * the mail item. The data of the large file attachments is replaced by its SHA-256 hash so that it can be stored once for all the mails sharing it. Mail items
+ * stored with Java serialization by previous versions are still decoded.
+ */
+final class MailItemCodec
+{
+    /** The current version of the encoding */
+    static final int VERSION = 1;
+
+    private static final int MAGIC = 0x4C4D;
+    private static final int MAGIC_JAVA_SERIALIZATION = 0xACED;
+    private static final int NULL_LENGTH = -1;
+    private static final int ATTACHMENT_INLINE = 0;
+    private static final int ATTACHMENT_REFERENCE = 1;
+
+    /**
+     * Private constructor
+     */
+    private MailItemCodec( )
+    {
+    }
+
+    /**
+     * Encodes a mail item
+     * 
+     * @param mail
+     *            the mail item
+     * @param nReferenceThreshold
+     *            the size from which the data of file attachments is stored by reference
+     * @param mapReferencedData
+     *            filled with the data of the attachments stored by reference, by hash
+     * @return the encoded mail item
+     * @throws IOException
+     *             if an error occurs
+     */
+    static byte [ ] encode( MailItem mail, int nReferenceThreshold, Map<String, byte [ ]> mapReferencedData ) throws IOException
+    {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream( );
+        byteArrayOutputStream.write( MAGIC >> 8 );
+        byteArrayOutputStream.write( MAGIC & 0xFF );
+        byteArrayOutputStream.write( VERSION );
+
+        Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+
+        try ( DataOutputStream out = new DataOutputStream( new DeflaterOutputStream( byteArrayOutputStream, deflater ) ) )
+        {
+            writeString( out, mail.getRecipientsTo( ) );
+            writeString( out, mail.getRecipientsCc( ) );
+            writeString( out, mail.getRecipientsBcc( ) );
+            writeString( out, mail.getSenderName( ) );
+            writeString( out, mail.getSenderEmail( ) );
+            writeString( out, mail.getSubject( ) );
+            writeString( out, mail.getMessage( ) );
+            writeString( out, mail.getCalendarMessage( ) );
+            out.writeBoolean( mail.getCreateEvent( ) );
+            out.writeInt( mail.getFormat( ) );
+            out.writeBoolean( mail.isUniqueRecipientTo( ) );
+
+            List<UrlAttachment> listUrlAttachments = mail.getUrlsAttachement( );
+            out.writeInt( ( listUrlAttachments == null ) ? NULL_LENGTH : listUrlAttachments.size( ) );
+
+            if ( listUrlAttachments != null )
+            {
+                for ( UrlAttachment attachment : listUrlAttachments )
+                {
+                    writeString( out, attachment.getContentLocation( ) );
+                    writeString( out, ( attachment.getUrlData( ) == null ) ? null : attachment.getUrlData( ).toExternalForm( ) );
+                }
+            }
+
+            List<FileAttachment> listFileAttachments = mail.getFilesAttachement( );
+            out.writeInt( ( listFileAttachments == null ) ? NULL_LENGTH : listFileAttachments.size( ) );
+
+            if ( listFileAttachments != null )
+            {
+                for ( FileAttachment attachment : listFileAttachments )
+                {
+                    writeString( out, attachment.getFileName( ) );
+                    writeString( out, attachment.getType( ) );
+
+                    byte [ ] data = attachment.getData( );
+
+                    if ( data != null && data.length >= nReferenceThreshold )
+                    {
+                        String strHash = DigestUtils.sha256Hex( data );
+                        mapReferencedData.putIfAbsent( strHash, data );
+                        out.writeByte( ATTACHMENT_REFERENCE );
+                        writeString( out, strHash );
+                    }
+                    else
+                    {
+                        out.writeByte( ATTACHMENT_INLINE );
+                        writeBytes( out, data );
+                    }
+                }
+            }
+        }
+        finally
+        {
+            deflater.end( );
+        }
+
+        return byteArrayOutputStream.toByteArray( );
+    }
+
+    /**
+     * Decodes a mail item
+     * 
+     * @param inputStream
+     *            the encoded mail item
+     * @param attachmentResolver
+     *            gives the data of the attachments stored by reference from their hash
+     * @return the mail item
+     * @throws IOException
+     *             if the mail item can't be decoded
+     */
+    static MailItem decode( InputStream inputStream, Function<String, byte [ ]> attachmentResolver ) throws IOException
+    {
+        PushbackInputStream in = new PushbackInputStream( inputStream, 2 );
+        int nByte1 = in.read( );
+        int nByte2 = in.read( );
+
+        if ( nByte1 < 0 || nByte2 < 0 )
+        {
+            throw new IOException( "Empty mail item" );
+        }
+
+        int nMagic = ( nByte1 << 8 ) | nByte2;
+
+        if ( nMagic == MAGIC_JAVA_SERIALIZATION )
+        {
+            in.unread( nByte2 );
+            in.unread( nByte1 );
+
+            return decodeJavaSerialization( in );
+        }
+
+        if ( nMagic != MAGIC )
+        {
+            throw new IOException( "Unknown mail item encoding" );
+        }
+
+        int nVersion = in.read( );
+
+        if ( nVersion != VERSION )
+        {
+            throw new IOException( "Unsupported mail item encoding version : " + nVersion );
+        }
+
+        try ( DataInputStream dataIn = new DataInputStream( new InflaterInputStream( in ) ) )
+        {
+            MailItem mail = new MailItem( );
+            mail.setRecipientsTo( readString( dataIn ) );
+            mail.setRecipientsCc( readString( dataIn ) );
+            mail.setRecipientsBcc( readString( dataIn ) );
+            mail.setSenderName( readString( dataIn ) );
+            mail.setSenderEmail( readString( dataIn ) );
+            mail.setSubject( readString( dataIn ) );
+            mail.setMessage( readString( dataIn ) );
+            mail.setCalendarMessage( readString( dataIn ) );
+            mail.setCreateEvent( dataIn.readBoolean( ) );
+            mail.setFormat( dataIn.readInt( ) );
+            mail.setUniqueRecipientTo( dataIn.readBoolean( ) );
+
+            int nCount = dataIn.readInt( );
+
+            if ( nCount != NULL_LENGTH )
+            {
+                List<UrlAttachment> listUrlAttachments = new ArrayList<>( nCount );
+
+                for ( int i = 0; i < nCount; i++ )
+                {
+                    String strContentLocation = readString( dataIn );
+                    String strUrl = readString( dataIn );
+                    listUrlAttachments.add( new UrlAttachment( strContentLocation, ( strUrl == null ) ? null : new URL( strUrl ) ) );
+                }
+
+                mail.setUrlsAttachement( listUrlAttachments );
+            }
+
+            nCount = dataIn.readInt( );
+
+            if ( nCount != NULL_LENGTH )
+            {
+                List<FileAttachment> listFileAttachments = new ArrayList<>( nCount );
+
+                for ( int i = 0; i < nCount; i++ )
+                {
+                    String strFileName = readString( dataIn );
+                    String strType = readString( dataIn );
+                    byte [ ] data;
+
+                    if ( dataIn.readByte( ) == ATTACHMENT_REFERENCE )
+                    {
+                        String strHash = readString( dataIn );
+                        data = attachmentResolver.apply( strHash );
+
+                        if ( data == null )
+                        {
+                            throw new IOException( "Missing mail attachment " + strHash );
+                        }
+                    }
+                    else
+                    {
+                        data = readBytes( dataIn );
+                    }
+
+                    listFileAttachments.add( new FileAttachment( strFileName, data, strType ) );
+                }
+
+                mail.setFilesAttachement( listFileAttachments );
+            }
+
+            return mail;
+        }
+    }
+
+    /**
+     * Decodes a mail item stored with Java serialization
+     * 
+     * @param inputStream
+     *            the serialized mail item
+     * @return the mail item
+     * @throws IOException
+     *             if the mail item can't be decoded
+     */
+    private static MailItem decodeJavaSerialization( InputStream inputStream ) throws IOException
+    {
+        try ( ValidatingObjectInputStream objectInputStream = new ValidatingObjectInputStream( inputStream ) )
+        {
+            objectInputStream.accept( MailItem.class, ArrayList.class, byte [ ].class, FileAttachment.class, UrlAttachment.class, FileAttachment [ ].class,
+                    UrlAttachment [ ].class, URL.class );
+
+            return (MailItem) objectInputStream.readObject( );
+        }
+        catch( ClassNotFoundException e )
+        {
+            throw new IOException( e.getMessage( ), e );
+        }
+    }
+
+    private static void writeString( DataOutputStream out, String strValue ) throws IOException
+    {
+        writeBytes( out, ( strValue == null ) ? null : strValue.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    private static String readString( DataInputStream in ) throws IOException
+    {
+        byte [ ] bytes = readBytes( in );
+
+        return ( bytes == null ) ? null : new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    private static void writeBytes( DataOutputStream out, byte [ ] bytes ) throws IOException
+    {
+        if ( bytes == null )
+        {
+            out.writeInt( NULL_LENGTH );
+        }
+        else
+        {
+            out.writeInt( bytes.length );
+            out.write( bytes );
+        }
+    }
+
+    private static byte [ ] readBytes( DataInputStream in ) throws IOException
+    {
+        int nLength = in.readInt( );
+
+        if ( nLength == NULL_LENGTH )
+        {
+            return null;
+        }
+
+        if ( nLength < 0 )
+        {
+            throw new IOException( "Invalid length in mail item : " + nLength );
+        }
+
+        byte [ ] bytes = new byte [ nLength];
+        in.readFully( bytes );
+
+        return bytes;
+    }
+}
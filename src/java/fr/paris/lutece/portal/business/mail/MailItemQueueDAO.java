@@ -34,22 +34,26 @@
 package fr.paris.lutece.portal.business.mail;
 
 import fr.paris.lutece.portal.service.mail.MailItem;
+import fr.paris.lutece.portal.service.util.AppException;
 import fr.paris.lutece.portal.service.util.AppLogService;
-import fr.paris.lutece.util.mail.FileAttachment;
-import fr.paris.lutece.util.mail.UrlAttachment;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.util.sql.DAOUtil;
 import fr.paris.lutece.util.sql.Transaction;
 import fr.paris.lutece.util.sql.TransactionManager;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectOutputStream;
-import java.net.URL;
 import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.ArrayList;
-
-import org.apache.commons.io.serialization.ValidatingObjectInputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * This class provides Data Access methods for MailItemQueue objects
@@ -64,6 +68,24 @@ public class MailItemQueueDAO implements IMailItemQueueDAO
     private static final String SQL_QUERY_LOCK_MAIL_ITEM = " UPDATE core_mail_queue SET is_locked=1 WHERE id_mail_queue= ? ";
     private static final String SQL_QUERY_DELETE = " DELETE FROM core_mail_queue WHERE id_mail_queue = ?";
     private static final String SQL_QUERY_DELETE_MAIL_ITEM = " DELETE FROM core_mail_item WHERE id_mail_queue = ?";
+    private static final String SQL_QUERY_SELECT_UNLOCKED_MAIL_ITEMS = "SELECT q.id_mail_queue, i.mail_item FROM core_mail_queue q"
+            + " INNER JOIN core_mail_item i ON q.id_mail_queue = i.id_mail_queue WHERE q.is_locked = 0 ORDER BY q.id_mail_queue LIMIT ?";
+    private static final String SQL_QUERY_LOCK_UNLOCKED_MAIL_ITEM = " UPDATE core_mail_queue SET is_locked = ? WHERE id_mail_queue = ? AND is_locked=0 ";
+    private static final String SQL_QUERY_SELECT_LOCKED_MAIL_ITEM = " SELECT id_mail_queue FROM core_mail_queue WHERE id_mail_queue = ? AND is_locked = ? ";
+    private static final String SQL_QUERY_TOUCH_ATTACHMENT = " UPDATE core_mail_attachment SET last_used = ? WHERE content_hash = ? ";
+    private static final String SQL_QUERY_INSERT_ATTACHMENT = " INSERT INTO core_mail_attachment( content_hash, attachment_data, last_used ) VALUES( ?, ?, ? ) ";
+    private static final String SQL_QUERY_SELECT_ATTACHMENT_EXISTS = " SELECT content_hash FROM core_mail_attachment WHERE content_hash = ? ";
+    private static final String SQL_QUERY_SELECT_ATTACHMENT = " SELECT attachment_data FROM core_mail_attachment WHERE content_hash = ? ";
+    private static final String SQL_QUERY_INSERT_MAIL_ITEM_ATTACHMENT = " INSERT INTO core_mail_item_attachment( id_mail_queue, content_hash ) VALUES( ?, ? ) ";
+    private static final String SQL_QUERY_DELETE_MAIL_ITEM_ATTACHMENTS = " DELETE FROM core_mail_item_attachment WHERE id_mail_queue = ? ";
+    private static final String SQL_QUERY_DELETE_UNUSED_ATTACHMENTS = " DELETE FROM core_mail_attachment WHERE last_used < ? "
+            + " AND NOT EXISTS ( SELECT 1 FROM core_mail_item_attachment WHERE core_mail_item_attachment.content_hash = core_mail_attachment.content_hash ) ";
+    private static final String PROPERTY_ATTACHMENT_REFERENCE_THRESHOLD = "mail.queue.attachment.referenceThreshold";
+    private static final int DEFAULT_ATTACHMENT_REFERENCE_THRESHOLD = 4096;
+
+    // Lock values written by the batch locks, from 2 to Short.MAX_VALUE : 1 is the lock value of lockMailItemQueue
+    private static final int MIN_LOCK_VALUE = 2;
+    private static final AtomicInteger _nLockValue = new AtomicInteger( ThreadLocalRandom.current( ).nextInt( MIN_LOCK_VALUE, Short.MAX_VALUE ) );
 
     /**
      * return the next mail item queue id
@@ -112,18 +134,21 @@ public class MailItemQueueDAO implements IMailItemQueueDAO
      *            the mail item
      */
     @Override
-    public synchronized void insert( MailItemQueue mailItemQueue )
+    public void insert( MailItemQueue mailItemQueue )
     {
         try
         {
-            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream( );
-            ObjectOutputStream objectOutputStream;
-            objectOutputStream = new ObjectOutputStream( byteArrayOutputStream );
-            objectOutputStream.writeObject( mailItemQueue.getMailItem( ) );
-            objectOutputStream.close( );
-            byteArrayOutputStream.close( );
-
-            doInsertMail( mailItemQueue, byteArrayOutputStream );
+            int nReferenceThreshold = AppPropertiesService.getPropertyInt( PROPERTY_ATTACHMENT_REFERENCE_THRESHOLD, DEFAULT_ATTACHMENT_REFERENCE_THRESHOLD );
+            Map<String, byte [ ]> mapReferencedData = new LinkedHashMap<>( );
+            byte [ ] mailItem = MailItemCodec.encode( mailItemQueue.getMailItem( ), nReferenceThreshold, mapReferencedData );
+
+            // Shared attachments are stored out of the transaction so that concurrent inserts of the same attachment can't fail the mail insertion
+            for ( Map.Entry<String, byte [ ]> entry : mapReferencedData.entrySet( ) )
+            {
+                storeAttachment( entry.getKey( ), entry.getValue( ) );
+            }
+
+            doInsertMail( mailItemQueue, mailItem, mapReferencedData );
         }
         catch( Exception e )
         {
@@ -131,7 +156,7 @@ public class MailItemQueueDAO implements IMailItemQueueDAO
         }
     }
 
-    private void doInsertMail( MailItemQueue mailItemQueue, ByteArrayOutputStream byteArrayOutputStream )
+    private void doInsertMail( MailItemQueue mailItemQueue, byte [ ] mailItem, Map<String, byte [ ]> mapReferencedData )
     {
         TransactionManager.beginTransaction( null );
         try ( DAOUtil daoUtilKey = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS ) ;
@@ -142,8 +167,24 @@ public class MailItemQueueDAO implements IMailItemQueueDAO
             int nNewPrimaryKey = daoUtilKey.getGeneratedKeyInt( 1 );
             mailItemQueue.setIdMailItemQueue( nNewPrimaryKey );
             daoUtil.setInt( 1, nNewPrimaryKey );
-            daoUtil.setBytes( 2, byteArrayOutputStream.toByteArray( ) );
+            daoUtil.setBytes( 2, mailItem );
             daoUtil.executeUpdate( );
+
+            if ( !mapReferencedData.isEmpty( ) )
+            {
+                try ( DAOUtil daoUtilAttachment = new DAOUtil( SQL_QUERY_INSERT_MAIL_ITEM_ATTACHMENT ) )
+                {
+                    for ( String strHash : mapReferencedData.keySet( ) )
+                    {
+                        daoUtilAttachment.setInt( 1, nNewPrimaryKey );
+                        daoUtilAttachment.setString( 2, strHash );
+                        daoUtilAttachment.addBatch( );
+                    }
+
+                    daoUtilAttachment.executeBatch( );
+                }
+            }
+
             TransactionManager.commitTransaction( null );
         }
         catch( Exception e )
@@ -153,6 +194,90 @@ public class MailItemQueueDAO implements IMailItemQueueDAO
         }
     }
 
+    /**
+     * Store the data of an attachment shared by mail items, or refresh its last use date if it is already stored
+     * 
+     * @param strHash
+     *            the hash of the data
+     * @param data
+     *            the data
+     */
+    private void storeAttachment( String strHash, byte [ ] data )
+    {
+        if ( touchAttachment( strHash ) )
+        {
+            return;
+        }
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT_ATTACHMENT ) )
+        {
+            daoUtil.setString( 1, strHash );
+            daoUtil.setBytes( 2, data );
+            daoUtil.setTimestamp( 3, new Timestamp( System.currentTimeMillis( ) ) );
+            daoUtil.executeUpdate( );
+        }
+        catch( AppException e )
+        {
+            // the attachment may have been inserted concurrently
+            if ( !touchAttachment( strHash ) )
+            {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Refresh the last use date of a stored attachment
+     * 
+     * @param strHash
+     *            the hash of the data
+     * @return true if the attachment is stored
+     */
+    private boolean touchAttachment( String strHash )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_TOUCH_ATTACHMENT ) )
+        {
+            daoUtil.setTimestamp( 1, new Timestamp( System.currentTimeMillis( ) ) );
+            daoUtil.setString( 2, strHash );
+            daoUtil.addBatch( );
+
+            // executed as a batch to get the update count
+            int [ ] updateCounts = daoUtil.executeBatch( );
+
+            if ( updateCounts [0] != Statement.SUCCESS_NO_INFO )
+            {
+                return updateCounts [0] > 0;
+            }
+        }
+
+        // The driver doesn't give the update count : the attachment was touched if it exists
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ATTACHMENT_EXISTS ) )
+        {
+            daoUtil.setString( 1, strHash );
+            daoUtil.executeQuery( );
+
+            return daoUtil.next( );
+        }
+    }
+
+    /**
+     * Load the data of an attachment shared by mail items
+     * 
+     * @param strHash
+     *            the hash of the data
+     * @return the data, or null if not found
+     */
+    private byte [ ] loadAttachment( String strHash )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ATTACHMENT ) )
+        {
+            daoUtil.setString( 1, strHash );
+            daoUtil.executeQuery( );
+
+            return daoUtil.next( ) ? daoUtil.getBytes( 1 ) : null;
+        }
+    }
+
     /**
      * return the first mail item in the table
      * 
@@ -165,7 +290,6 @@ public class MailItemQueueDAO implements IMailItemQueueDAO
     {
         MailItemQueue mailItemQueue = null;
         MailItem mailItem = null;
-        InputStream inputStream;
         try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_LOAD_MAIL_ITEM ) )
         {
             daoUtil.setInt( 1, nIdMailItemQueue );
@@ -175,36 +299,203 @@ public class MailItemQueueDAO implements IMailItemQueueDAO
             {
                 mailItemQueue = new MailItemQueue( );
                 mailItemQueue.setIdMailItemQueue( daoUtil.getInt( 1 ) );
-                inputStream = daoUtil.getBinaryStream( 2 );
+                mailItem = readMailItem( daoUtil.getBinaryStream( 2 ), this::loadAttachment );
+                mailItemQueue.setMailItem( mailItem );
+            }
 
-                try ( ValidatingObjectInputStream objectInputStream = new ValidatingObjectInputStream( inputStream ) )
-                {
-                    objectInputStream.accept( MailItem.class, ArrayList.class, byte [ ].class, FileAttachment.class, UrlAttachment.class,
-                            FileAttachment [ ].class, UrlAttachment [ ].class, URL.class );
-                    mailItem = (MailItem) objectInputStream.readObject( );
-                }
-                catch( ClassNotFoundException | IOException e )
-                {
-                    AppLogService.error( e.getMessage( ), e );
-                }
-                finally
+        }
+
+        return mailItemQueue;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MailItemQueue> selectUnlockedMailItemQueues( int nMaxItems )
+    {
+        Map<Integer, byte [ ]> mapMailItems = new LinkedHashMap<>( );
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_UNLOCKED_MAIL_ITEMS ) )
+        {
+            daoUtil.setInt( 1, nMaxItems );
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                mapMailItems.put( daoUtil.getInt( 1 ), daoUtil.getBytes( 2 ) );
+            }
+        }
+
+        // The attachments shared by the mail items of the batch are loaded once
+        Map<String, byte [ ]> mapAttachments = new HashMap<>( );
+        Function<String, byte [ ]> attachmentResolver = strHash -> mapAttachments.computeIfAbsent( strHash, this::loadAttachment );
+        List<MailItemQueue> listMailItemQueues = new ArrayList<>( mapMailItems.size( ) );
+
+        for ( Map.Entry<Integer, byte [ ]> entry : mapMailItems.entrySet( ) )
+        {
+            MailItemQueue mailItemQueue = new MailItemQueue( );
+            mailItemQueue.setIdMailItemQueue( entry.getKey( ) );
+
+            if ( entry.getValue( ) != null )
+            {
+                mailItemQueue.setMailItem( readMailItem( new ByteArrayInputStream( entry.getValue( ) ), attachmentResolver ) );
+            }
+
+            listMailItemQueues.add( mailItemQueue );
+        }
+
+        return listMailItemQueues;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Integer> lockMailItemQueues( List<Integer> listIdMailItemQueue )
+    {
+        List<Integer> listLocked = new ArrayList<>( );
+
+        if ( listIdMailItemQueue.isEmpty( ) )
+        {
+            return listLocked;
+        }
+
+        // Each call writes its own lock value, so that the owner of a row can be read back when the driver doesn't give the update counts
+        int nLockValue = nextLockValue( );
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_LOCK_UNLOCKED_MAIL_ITEM ) )
+        {
+            for ( Integer nIdMailItemQueue : listIdMailItemQueue )
+            {
+                daoUtil.setInt( 1, nLockValue );
+                daoUtil.setInt( 2, nIdMailItemQueue );
+                daoUtil.addBatch( );
+            }
+
+            int [ ] updateCounts = daoUtil.executeBatch( );
+
+            // Only the rows updated by this call belong to the caller, the others were claimed concurrently
+            for ( int i = 0; i < updateCounts.length; i++ )
+            {
+                Integer nIdMailItemQueue = listIdMailItemQueue.get( i );
+
+                if ( ( updateCounts [i] > 0 ) || ( ( updateCounts [i] == Statement.SUCCESS_NO_INFO ) && isLockedBy( nIdMailItemQueue, nLockValue ) ) )
                 {
-                    try
-                    {
-                        inputStream.close( );
-                    }
-                    catch( IOException e )
-                    {
-                        AppLogService.error( e.getMessage( ), e );
-                    }
+                    listLocked.add( nIdMailItemQueue );
                 }
+            }
+        }
 
-                mailItemQueue.setMailItem( mailItem );
+        return listLocked;
+    }
+
+    /**
+     * Returns the lock value of the next batch lock
+     * 
+     * @return the lock value
+     */
+    private static int nextLockValue( )
+    {
+        return _nLockValue.getAndUpdate( n -> ( n >= Short.MAX_VALUE ) ? MIN_LOCK_VALUE : ( n + 1 ) );
+    }
+
+    /**
+     * Checks whether a mail item is locked with a given lock value
+     * 
+     * @param nIdMailItemQueue
+     *            the id of the mail item
+     * @param nLockValue
+     *            the lock value
+     * @return true if the mail item is locked with this value
+     */
+    private boolean isLockedBy( int nIdMailItemQueue, int nLockValue )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_LOCKED_MAIL_ITEM ) )
+        {
+            daoUtil.setInt( 1, nIdMailItemQueue );
+            daoUtil.setInt( 2, nLockValue );
+            daoUtil.executeQuery( );
+
+            return daoUtil.next( );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete( List<Integer> listIdMailItemQueue )
+    {
+        if ( listIdMailItemQueue.isEmpty( ) )
+        {
+            return;
+        }
+
+        TransactionManager.beginTransaction( null );
+
+        try ( DAOUtil daoUtilAttachments = new DAOUtil( SQL_QUERY_DELETE_MAIL_ITEM_ATTACHMENTS ) ;
+                DAOUtil daoUtilItem = new DAOUtil( SQL_QUERY_DELETE_MAIL_ITEM ) ;
+                DAOUtil daoUtilQueue = new DAOUtil( SQL_QUERY_DELETE ) )
+        {
+            for ( Integer nIdMailItemQueue : listIdMailItemQueue )
+            {
+                daoUtilAttachments.setInt( 1, nIdMailItemQueue );
+                daoUtilAttachments.addBatch( );
+                daoUtilItem.setInt( 1, nIdMailItemQueue );
+                daoUtilItem.addBatch( );
+                daoUtilQueue.setInt( 1, nIdMailItemQueue );
+                daoUtilQueue.addBatch( );
             }
 
+            daoUtilAttachments.executeBatch( );
+            daoUtilItem.executeBatch( );
+            daoUtilQueue.executeBatch( );
+            TransactionManager.commitTransaction( null );
         }
+        catch( Exception e )
+        {
+            TransactionManager.rollBack( null );
+            AppLogService.error( e );
+        }
+    }
 
-        return mailItemQueue;
+    /**
+     * Read an encoded mail item
+     * 
+     * @param inputStream
+     *            the encoded mail item
+     * @param attachmentResolver
+     *            gives the data of the shared attachments from their hash
+     * @return the mail item, or null if it can't be read
+     */
+    private MailItem readMailItem( InputStream inputStream, Function<String, byte [ ]> attachmentResolver )
+    {
+        MailItem mailItem = null;
+
+        try ( InputStream in = inputStream )
+        {
+            mailItem = MailItemCodec.decode( in, attachmentResolver );
+        }
+        catch( IOException e )
+        {
+            AppLogService.error( e.getMessage( ), e );
+        }
+
+        return mailItem;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteUnusedAttachments( Timestamp lastUsedBefore )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_UNUSED_ATTACHMENTS ) )
+        {
+            daoUtil.setTimestamp( 1, lastUsedBefore );
+            daoUtil.executeUpdate( );
+        }
     }
 
     /**
@@ -220,6 +511,9 @@ public class MailItemQueueDAO implements IMailItemQueueDAO
 
         try
         {
+            transaction.prepareStatement( SQL_QUERY_DELETE_MAIL_ITEM_ATTACHMENTS );
+            transaction.getStatement( ).setInt( 1, nIdMailItemQueue );
+            transaction.executeStatement( );
             transaction.prepareStatement( SQL_QUERY_DELETE_MAIL_ITEM );
             transaction.getStatement( ).setInt( 1, nIdMailItemQueue );
             transaction.executeStatement( );
@@ -34,12 +34,23 @@
 package fr.paris.lutece.portal.business.mail;
 
 import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.sql.Timestamp;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * This class provides Data Access methods for MailItemQueue objects
  */
 public final class MailItemQueueHome
 {
+    private static final String PROPERTY_ATTACHMENT_RETENTION = "mail.queue.attachment.retention";
+    private static final long DEFAULT_ATTACHMENT_RETENTION = 86400L;
+
     // Static variable pointed at the DAO instance
     private static IMailItemQueueDAO _dao = SpringContextService.getBean( "mailItemQueueDAO" );
 
@@ -101,4 +112,48 @@ public final class MailItemQueueHome
     {
         return _dao.getCountMailItem( );
     }
+
+    /**
+     * Claim the oldest mail items of the queue : the mail items are loaded in one query then locked, and only the ones locked by this call are returned
+     * 
+     * @param nMaxItems
+     *            the maximum number of mail items to claim
+     * @return the claimed mail items, ordered by id
+     */
+    public static List<MailItemQueue> getNextMailItemQueues( int nMaxItems )
+    {
+        List<MailItemQueue> listMailItemQueues = _dao.selectUnlockedMailItemQueues( nMaxItems );
+
+        if ( listMailItemQueues.isEmpty( ) )
+        {
+            return listMailItemQueues;
+        }
+
+        List<Integer> listIds = listMailItemQueues.stream( ).map( MailItemQueue::getIdMailItemQueue ).collect( Collectors.toList( ) );
+        Set<Integer> setLocked = new HashSet<>( _dao.lockMailItemQueues( listIds ) );
+
+        return listMailItemQueues.stream( ).filter( mailItemQueue -> setLocked.contains( mailItemQueue.getIdMailItemQueue( ) ) )
+                .collect( Collectors.toList( ) );
+    }
+
+    /**
+     * Delete the mail items of the queue
+     * 
+     * @param listIdMailItemQueue
+     *            The identifiers of the mail items to remove
+     */
+    public static void delete( List<Integer> listIdMailItemQueue )
+    {
+        _dao.delete( listIdMailItemQueue );
+    }
+
+    /**
+     * Remove the shared attachments no longer referenced by the queue. Attachments used recently are kept so that a mail item being inserted can't lose its
+     * attachments.
+     */
+    public static void removeUnusedAttachments( )
+    {
+        long lRetention = AppPropertiesService.getPropertyLong( PROPERTY_ATTACHMENT_RETENTION, DEFAULT_ATTACHMENT_RETENTION );
+        _dao.deleteUnusedAttachments( new Timestamp( System.currentTimeMillis( ) - lRetention * 1000L ) );
+    }
 }
@@ -117,6 +117,21 @@ public interface IPageDAO
      */
     Collection<Page> selectChildPagesMinimalData( int nParentPageId );
 
+    /**
+     * Select all the pages with only the data describing the page tree : Id, pageParentId, order, name, description, role, status and theme. The image
+     * content is not read.
+     * 
+     * @return The list of objects Page
+     */
+    List<Page> selectAllPagesMinimalData( );
+
+    /**
+     * Select the identifiers of the pages having an image, without reading the image contents
+     * 
+     * @return The list of page identifiers
+     */
+    List<Integer> selectPageIdsWithImage( );
+
     /**
      * Loads all the pages for a portal
      * 
@@ -57,7 +57,7 @@ public final class PageDAO implements IPageDAO
             + "  a.date_update, a.meta_keywords, a.meta_description, a.id_authorization_node, a.display_date_update, a.is_manual_date_update FROM core_page a, core_page_template b WHERE a.id_template = b.id_template AND a.id_page = ? ";
     private static final String SQL_QUERY_SELECT_WITHOUT_IMAGE_CONTENT = "SELECT a.id_parent, a.name, a.description, a.id_template, b.file_name, "
             + " a.page_order, a.status, a.role , a.code_theme , a.node_status , a.mime_type, "
-            + "  a.date_update, a.meta_keywords, a.meta_description FROM core_page a INNER JOIN "
+            + "  a.date_update, a.meta_keywords, a.meta_description, a.id_authorization_node FROM core_page a INNER JOIN "
             + " core_page_template b ON (a.id_template = b.id_template) WHERE a.id_page = ? ";
     private static final String SQL_QUERY_SELECT_BY_ID_PORTLET = "SELECT a.id_page, a.id_parent, a.name, a.description, a.id_template, "
             + " a.page_order, a.status, a.role , a.code_theme , a.node_status , a.image_content, a.mime_type, "
@@ -77,11 +77,12 @@ public final class PageDAO implements IPageDAO
             + " FROM core_page WHERE id_parent = ? ORDER BY page_order";
     private static final String SQL_QUERY_CHILDPAGE_MINIMAL_DATA = "SELECT id_page ,id_parent, name, description, role FROM core_page "
             + " WHERE id_parent = ? ORDER BY page_order";
+    private static final String SQL_QUERY_SELECTALL_MINIMAL_DATA = "SELECT id_page, id_parent, page_order, name, description, role, status, code_theme FROM core_page ";
+    private static final String SQL_QUERY_SELECT_ID_WITH_IMAGE = "SELECT id_page FROM core_page WHERE OCTET_LENGTH( image_content ) > 0 ";
     private static final String SQL_QUERY_SELECTALL = "SELECT id_page , id_parent,  name, description, date_update, "
             + " page_order, status, role, code_theme, image_content, mime_type , meta_keywords, meta_description,id_authorization_node, display_date_update, is_manual_date_update  FROM core_page ";
     private static final String SQL_QUERY_BY_ROLE_KEY = "SELECT id_page , id_parent,  name, description, date_update, "
             + " page_order, status, role, code_theme, image_content, mime_type , meta_keywords, meta_description,id_authorization_node, display_date_update, is_manual_date_update  FROM core_page WHERE role = ? ";
-    private static final String SQL_QUERY_SELECT_PORTLET = "SELECT id_portlet FROM core_portlet WHERE id_page = ? ORDER BY portlet_order";
     private static final String SQL_QUERY_UPDATE_PAGE_DATE = "UPDATE core_page SET date_update = ? WHERE id_page = ?";
     private static final String SQL_QUERY_SELECTALL_NODE_PAGE = "SELECT id_page, name FROM core_page WHERE node_status = 0";
     private static final String SQL_QUERY_NEW_CHILD_PAGE_ORDER = "SELECT max(page_order) FROM core_page WHERE id_parent = ?";
@@ -407,31 +408,7 @@ public final class PageDAO implements IPageDAO
      */
     void loadPortlets( Page page )
     {
-        List<Integer> portletIds = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_PORTLET ) )
-        {
-            daoUtil.setInt( 1, page.getId( ) );
-
-            daoUtil.executeQuery( );
-
-            // Patch perfs : get query responses and close connection before getting portlet
-
-            while ( daoUtil.next( ) )
-            {
-                portletIds.add( Integer.valueOf( daoUtil.getInt( 1 ) ) );
-            }
-
-        }
-
-        ArrayList<Portlet> pageColl = new ArrayList<>( );
-
-        for ( Integer nPortletId : portletIds )
-        {
-            Portlet portlet = PortletHome.findByPrimaryKey( nPortletId );
-            pageColl.add( portlet );
-        }
-
-        page.setPortlets( pageColl );
+        page.setPortlets( PortletHome.findByPageId( page.getId( ) ) );
     }
 
     /**
@@ -509,6 +486,56 @@ public final class PageDAO implements IPageDAO
         return pageList;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public List<Page> selectAllPagesMinimalData( )
+    {
+        List<Page> pageList = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECTALL_MINIMAL_DATA ) )
+        {
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                Page page = new Page( );
+                page.setId( daoUtil.getInt( 1 ) );
+                page.setParentPageId( daoUtil.getInt( 2 ) );
+                page.setOrigParentPageId( daoUtil.getInt( 2 ) );
+                page.setOrder( daoUtil.getInt( 3 ) );
+                page.setName( daoUtil.getString( 4 ) );
+                page.setDescription( daoUtil.getString( 5 ) );
+                page.setRole( daoUtil.getString( 6 ) );
+                page.setStatus( daoUtil.getInt( 7 ) );
+                page.setCodeTheme( daoUtil.getString( 8 ) );
+                pageList.add( page );
+            }
+
+        }
+
+        return pageList;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Integer> selectPageIdsWithImage( )
+    {
+        List<Integer> listIdPage = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ID_WITH_IMAGE ) )
+        {
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                listIdPage.add( daoUtil.getInt( 1 ) );
+            }
+
+        }
+
+        return listIdPage;
+    }
+
     /**
      * {@inheritDoc}
      */
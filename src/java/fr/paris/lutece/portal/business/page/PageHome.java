@@ -38,6 +38,7 @@ import java.util.List;
 
 import fr.paris.lutece.portal.business.portlet.Portlet;
 import fr.paris.lutece.portal.service.cache.CacheService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
 import fr.paris.lutece.portal.service.image.ImageResource;
 import fr.paris.lutece.portal.service.resource.ExtendableResourceRemovalListenerService;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
@@ -68,7 +69,7 @@ public final class PageHome
     public static Page create( Page page )
     {
         _dao.insert( page );
-        CacheService.resetCaches( );
+        CacheService.notifyEntityChange( Page.RESOURCE_TYPE, String.valueOf( page.getId( ) ), EntityChangeEvent.ENTITY_CREATED );
 
         return page;
     }
@@ -93,7 +94,7 @@ public final class PageHome
         // We remove extensions of the removed page if any
         ExtendableResourceRemovalListenerService.doRemoveResourceExtentions( Page.RESOURCE_TYPE, Integer.toString( nPageId ) );
 
-        CacheService.resetCaches( );
+        CacheService.notifyEntityChange( Page.RESOURCE_TYPE, Integer.toString( nPageId ), EntityChangeEvent.ENTITY_REMOVED );
     }
 
     /**
@@ -105,6 +106,7 @@ public final class PageHome
     public static void update( Page page )
     {
         _dao.store( page );
+        CacheService.notifyEntityChange( Page.RESOURCE_TYPE, String.valueOf( page.getId( ) ), EntityChangeEvent.ENTITY_UPDATED );
     }
 
     // /////////////////////////////////////////////////////////////////////////
@@ -182,6 +184,26 @@ public final class PageHome
         return _dao.selectChildPagesMinimalData( nParentPageId );
     }
 
+    /**
+     * Returns the list of all the pages with only the data describing the page tree (no image content)
+     *
+     * @return the list of pages
+     */
+    public static List<Page> getAllPagesMinimalData( )
+    {
+        return _dao.selectAllPagesMinimalData( );
+    }
+
+    /**
+     * Returns the identifiers of the pages having an image
+     *
+     * @return the list of page identifiers
+     */
+    public static List<Integer> getPageIdsWithImage( )
+    {
+        return _dao.selectPageIdsWithImage( );
+    }
+
     /**
      * Return the list of all the pages from a portal identifier
      *
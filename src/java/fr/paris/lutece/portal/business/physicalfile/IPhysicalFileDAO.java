@@ -33,6 +33,9 @@
  */
 package fr.paris.lutece.portal.business.physicalfile;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+
 /**
  *
  * IPhysicalFileDAO
@@ -50,6 +53,15 @@ public interface IPhysicalFileDAO
      */
     int insert( PhysicalFile physicalFile );
 
+    /**
+     * Insert a new record in the table, streaming its value from an input stream instead of a byte array held in memory.
+     *
+     * @param inputStream
+     *            The content of the physical file. The stream is read but not closed.
+     * @return the id of the new physical file
+     */
+    int insert( InputStream inputStream );
+
     /**
      * Load the data of the PhysicalFile from the table
      *
@@ -59,6 +71,17 @@ public interface IPhysicalFileDAO
      */
     PhysicalFile load( int nId );
 
+    /**
+     * Copy the value of the PhysicalFile to an output stream, without loading it entirely in memory
+     *
+     * @param nId
+     *            The identifier of the file
+     * @param outputStream
+     *            The stream to write the value to. The stream is not closed.
+     * @return the number of bytes copied, or -1 if the physical file doesn't exist
+     */
+    long loadValue( int nId, OutputStream outputStream );
+
     /**
      * Delete a record from the table
      *
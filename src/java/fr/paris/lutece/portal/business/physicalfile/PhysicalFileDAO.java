@@ -33,8 +33,15 @@
  */
 package fr.paris.lutece.portal.business.physicalfile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.sql.Statement;
 
+import org.apache.commons.io.IOUtils;
+
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.util.sql.DAOUtil;
 
 /**
@@ -44,9 +51,12 @@ public final class PhysicalFileDAO implements IPhysicalFileDAO
 {
     // Constants
     private static final String SQL_QUERY_FIND_BY_PRIMARY_KEY = "SELECT id_physical_file,file_value" + " FROM core_physical_file WHERE id_physical_file = ?";
+    private static final String SQL_QUERY_SELECT_VALUE = "SELECT file_value FROM core_physical_file WHERE id_physical_file = ?";
     private static final String SQL_QUERY_INSERT = "INSERT INTO core_physical_file(file_value)" + " VALUES(?)";
     private static final String SQL_QUERY_DELETE = "DELETE FROM core_physical_file WHERE id_physical_file = ? ";
     private static final String SQL_QUERY_UPDATE = "UPDATE  core_physical_file SET " + "id_physical_file=?,file_value=? WHERE id_physical_file = ?";
+    private static final String PROPERTY_TRANSFER_BUFFER_SIZE = "lutece.file.database.transferBufferSize";
+    private static final int DEFAULT_TRANSFER_BUFFER_SIZE = 8192;
 
     /**
      * {@inheritDoc}
@@ -67,6 +77,63 @@ public final class PhysicalFileDAO implements IPhysicalFileDAO
         return physicalFile.getIdPhysicalFile( );
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int insert( InputStream inputStream )
+    {
+        int nIdPhysicalFile = 0;
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS ) )
+        {
+            daoUtil.setBinaryStream( 1, inputStream );
+            daoUtil.executeUpdate( );
+
+            if ( daoUtil.nextGeneratedKey( ) )
+            {
+                nIdPhysicalFile = daoUtil.getGeneratedKeyInt( 1 );
+            }
+        }
+
+        return nIdPhysicalFile;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long loadValue( int nId, OutputStream outputStream )
+    {
+        long lCount = -1;
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_VALUE ) )
+        {
+            daoUtil.setInt( 1, nId );
+            daoUtil.executeQuery( );
+
+            if ( daoUtil.next( ) )
+            {
+                lCount = 0;
+
+                try ( InputStream inputStream = daoUtil.getBinaryStream( 1 ) )
+                {
+                    if ( inputStream != null )
+                    {
+                        int nBufferSize = AppPropertiesService.getPropertyInt( PROPERTY_TRANSFER_BUFFER_SIZE, DEFAULT_TRANSFER_BUFFER_SIZE );
+                        lCount = IOUtils.copyLarge( inputStream, outputStream, new byte [ Math.max( 1, nBufferSize )] );
+                    }
+                }
+                catch( IOException e )
+                {
+                    throw new AppException( e.getMessage( ), e );
+                }
+            }
+        }
+
+        return lCount;
+    }
+
     /**
      * {@inheritDoc}
      */
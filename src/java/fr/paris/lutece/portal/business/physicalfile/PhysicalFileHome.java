@@ -33,6 +33,9 @@
  */
 package fr.paris.lutece.portal.business.physicalfile;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 
 /**
@@ -64,6 +67,18 @@ public final class PhysicalFileHome
         return _dao.insert( physicalFile );
     }
 
+    /**
+     * Creation of a physical file whose content is read from a stream, without loading it entirely in memory
+     *
+     * @param inputStream
+     *            The content of the physical file. The stream is read but not closed.
+     * @return the id of the physical file after creation
+     */
+    public static int create( InputStream inputStream )
+    {
+        return _dao.insert( inputStream );
+    }
+
     /**
      * Update of physical file which is specified in parameter
      *
@@ -101,4 +116,18 @@ public final class PhysicalFileHome
     {
         return _dao.load( nKey );
     }
+
+    /**
+     * Copy the content of the physical file whose identifier is specified in parameter to an output stream, without loading it entirely in memory
+     *
+     * @param nKey
+     *            The file primary key
+     * @param outputStream
+     *            The stream to write the content to. The stream is not closed.
+     * @return the number of bytes copied, or -1 if the physical file doesn't exist
+     */
+    public static long copyValue( int nKey, OutputStream outputStream )
+    {
+        return _dao.loadValue( nKey, outputStream );
+    }
 }
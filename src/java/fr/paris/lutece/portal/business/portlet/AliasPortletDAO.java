@@ -35,7 +35,9 @@ package fr.paris.lutece.portal.business.portlet;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import fr.paris.lutece.util.ReferenceList;
 import fr.paris.lutece.util.sql.DAOUtil;
@@ -49,6 +51,7 @@ public final class AliasPortletDAO implements IAliasPortletDAO
     private static final String SQL_QUERY_INSERT = "INSERT INTO core_portlet_alias ( id_portlet , id_alias ) VALUES ( ?, ? )";
     private static final String SQL_QUERY_DELETE = "DELETE FROM core_portlet_alias WHERE id_portlet = ?";
     private static final String SQL_QUERY_SELECT = "SELECT id_alias FROM core_portlet_alias WHERE id_portlet = ? ";
+    private static final String SQL_QUERY_SELECT_BY_PORTLETS = "SELECT id_portlet, id_alias FROM core_portlet_alias WHERE id_portlet IN ( ";
     private static final String SQL_QUERY_UPDATE = "UPDATE core_portlet_alias SET id_alias=? WHERE id_portlet = ?";
     private static final String SQL_QUERY_SELECT_PORTLETS_BY_TYPE = "SELECT  id_portlet, name FROM core_portlet WHERE id_portlet_type = ? ORDER BY name";
     private static final String SQL_QUERY_SELECT_ALIAS_ID = "SELECT id_alias FROM core_portlet_alias WHERE id_portlet= ? ";
@@ -109,6 +112,51 @@ public final class AliasPortletDAO implements IAliasPortletDAO
         return portlet;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, Portlet> loadPortlets( Collection<Integer> listPortletIds )
+    {
+        Map<Integer, Portlet> mapPortlets = new HashMap<>( );
+
+        if ( listPortletIds.isEmpty( ) )
+        {
+            return mapPortlets;
+        }
+
+        StringBuilder sbSQL = new StringBuilder( SQL_QUERY_SELECT_BY_PORTLETS );
+
+        for ( int i = 0; i < listPortletIds.size( ); i++ )
+        {
+            sbSQL.append( ( i == 0 ) ? "?" : ", ?" );
+        }
+
+        sbSQL.append( " )" );
+
+        try ( DAOUtil daoUtil = new DAOUtil( sbSQL.toString( ) ) )
+        {
+            int nIndex = 1;
+
+            for ( Integer nPortletId : listPortletIds )
+            {
+                daoUtil.setInt( nIndex++, nPortletId );
+                // same as load : a portlet without alias row is an empty alias
+                mapPortlets.put( nPortletId, new AliasPortlet( ) );
+            }
+
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                ( (AliasPortlet) mapPortlets.get( daoUtil.getInt( 1 ) ) ).setAliasId( daoUtil.getInt( 2 ) );
+            }
+
+        }
+
+        return mapPortlets;
+    }
+
     /**
      * {@inheritDoc}
      */
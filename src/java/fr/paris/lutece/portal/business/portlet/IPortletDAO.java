@@ -70,6 +70,15 @@ public interface IPortletDAO
      */
     Portlet load( int nPortletId );
 
+    /**
+     * Load the common data of all the portlets of a page with a single query
+     *
+     * @param nPageId
+     *            the page identifier
+     * @return the portlets of the page, sorted by order. The type specific data are not loaded.
+     */
+    List<Portlet> selectPortletsByPage( int nPageId );
+
     /**
      * Update the record in the table
      *
@@ -33,6 +33,10 @@
  */
 package fr.paris.lutece.portal.business.portlet;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * This class represents business objects IPortletInterfaceDAO
  */
@@ -63,6 +67,26 @@ public interface IPortletInterfaceDAO
      */
     Portlet load( int nPortletId );
 
+    /**
+     * Load the portlets whose identifiers are specified in parameter. The default implementation loads them one by one : DAOs should override it to load
+     * the type specific data of all the portlets with a single query.
+     *
+     * @param listPortletIds
+     *            the identifiers of the portlets
+     * @return The portlet instances by identifier
+     */
+    default Map<Integer, Portlet> loadPortlets( Collection<Integer> listPortletIds )
+    {
+        Map<Integer, Portlet> mapPortlets = new HashMap<>( );
+
+        for ( Integer nPortletId : listPortletIds )
+        {
+            mapPortlets.put( nPortletId, load( nPortletId ) );
+        }
+
+        return mapPortlets;
+    }
+
     /**
      * Update the portlet
      *
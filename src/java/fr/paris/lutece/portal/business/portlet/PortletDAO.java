@@ -57,6 +57,10 @@ public final class PortletDAO implements IPortletDAO
             + " b.url_creation, b.url_update, a.date_update, a.column_no, a.portlet_order, "
             + " b.home_class, a.accept_alias , a.role , b.plugin_name , a.display_portlet_title, a.status, a.device_display_flags "
             + " FROM core_portlet a , core_portlet_type b WHERE a.id_portlet_type = b.id_portlet_type AND a.id_portlet = ?";
+    private static final String SQL_QUERY_SELECT_BY_PAGE = " SELECT b.id_portlet_type, a.id_page, a.id_style, a.name , b.name, "
+            + " b.url_creation, b.url_update, a.date_update, a.column_no, a.portlet_order, "
+            + " b.home_class, a.accept_alias , a.role , b.plugin_name , a.display_portlet_title, a.status, a.device_display_flags, a.id_portlet "
+            + " FROM core_portlet a , core_portlet_type b WHERE a.id_portlet_type = b.id_portlet_type AND a.id_page = ? ORDER BY a.portlet_order";
     private static final String SQL_QUERY_SELECT_ALIAS = " SELECT a.id_portlet FROM core_portlet a, core_portlet_alias b "
             + " WHERE a.id_portlet = b.id_portlet AND b.id_alias= ? ";
     private static final String SQL_QUERY_DELETE = "DELETE FROM core_portlet WHERE id_portlet = ?";
@@ -164,23 +168,7 @@ public final class PortletDAO implements IPortletDAO
             if ( daoUtil.next( ) )
             {
                 portlet.setId( nPortletId );
-                portlet.setPortletTypeId( daoUtil.getString( 1 ) );
-                portlet.setPageId( daoUtil.getInt( 2 ) );
-                portlet.setStyleId( daoUtil.getInt( 3 ) );
-                portlet.setName( daoUtil.getString( 4 ) );
-                portlet.setPortletTypeName( daoUtil.getString( 5 ) );
-                portlet.setUrlCreation( daoUtil.getString( 6 ) );
-                portlet.setUrlUpdate( daoUtil.getString( 7 ) );
-                portlet.setDateUpdate( daoUtil.getTimestamp( 8 ) );
-                portlet.setColumn( daoUtil.getInt( 9 ) );
-                portlet.setOrder( daoUtil.getInt( 10 ) );
-                portlet.setHomeClassName( daoUtil.getString( 11 ) );
-                portlet.setAcceptAlias( daoUtil.getInt( 12 ) );
-                portlet.setRole( daoUtil.getString( 13 ) );
-                portlet.setPluginName( daoUtil.getString( 14 ) );
-                portlet.setDisplayPortletTitle( daoUtil.getInt( 15 ) );
-                portlet.setStatus( daoUtil.getInt( 16 ) );
-                portlet.setDeviceDisplayFlags( daoUtil.getInt( 17 ) );
+                readPortlet( daoUtil, portlet );
             }
 
         }
@@ -188,6 +176,60 @@ public final class PortletDAO implements IPortletDAO
         return portlet;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Portlet> selectPortletsByPage( int nPageId )
+    {
+        List<Portlet> listPortlets = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_PAGE ) )
+        {
+            daoUtil.setInt( 1, nPageId );
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                PortletImpl portlet = new PortletImpl( );
+                portlet.setId( daoUtil.getInt( 18 ) );
+                readPortlet( daoUtil, portlet );
+                listPortlets.add( portlet );
+            }
+
+        }
+
+        return listPortlets;
+    }
+
+    /**
+     * Reads the common data of a portlet from the current row of a query
+     *
+     * @param daoUtil
+     *            The daoUtil positioned on the row
+     * @param portlet
+     *            The portlet to fill
+     */
+    private static void readPortlet( DAOUtil daoUtil, PortletImpl portlet )
+    {
+        portlet.setPortletTypeId( daoUtil.getString( 1 ) );
+        portlet.setPageId( daoUtil.getInt( 2 ) );
+        portlet.setStyleId( daoUtil.getInt( 3 ) );
+        portlet.setName( daoUtil.getString( 4 ) );
+        portlet.setPortletTypeName( daoUtil.getString( 5 ) );
+        portlet.setUrlCreation( daoUtil.getString( 6 ) );
+        portlet.setUrlUpdate( daoUtil.getString( 7 ) );
+        portlet.setDateUpdate( daoUtil.getTimestamp( 8 ) );
+        portlet.setColumn( daoUtil.getInt( 9 ) );
+        portlet.setOrder( daoUtil.getInt( 10 ) );
+        portlet.setHomeClassName( daoUtil.getString( 11 ) );
+        portlet.setAcceptAlias( daoUtil.getInt( 12 ) );
+        portlet.setRole( daoUtil.getString( 13 ) );
+        portlet.setPluginName( daoUtil.getString( 14 ) );
+        portlet.setDisplayPortletTitle( daoUtil.getInt( 15 ) );
+        portlet.setStatus( daoUtil.getInt( 16 ) );
+        portlet.setDeviceDisplayFlags( daoUtil.getInt( 17 ) );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -34,6 +34,9 @@
 package fr.paris.lutece.portal.business.portlet;
 
 import fr.paris.lutece.portal.business.stylesheet.StyleSheet;
+import fr.paris.lutece.portal.service.cache.CacheService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
+import fr.paris.lutece.portal.service.page.PortletCacheService;
 import fr.paris.lutece.portal.service.portlet.PortletEvent;
 import fr.paris.lutece.portal.service.portlet.PortletEventListener;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
@@ -41,8 +44,12 @@ import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.util.ReferenceList;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class provides instances management methods (create, find, ...) for Portlet objects
@@ -55,6 +62,9 @@ public abstract class PortletHome implements PortletHomeInterface
     // Static variable pointed at the DAO instance
     private static IPortletDAO _dao = SpringContextService.getBean( "portletDAO" );
 
+    // Home instances of the portlet types by class name
+    private static Map<String, PortletHomeInterface> _mapHomes = new ConcurrentHashMap<>( );
+
     // /////////////////////////////////////////////////////////////////////////
     // Finders
 
@@ -68,21 +78,92 @@ public abstract class PortletHome implements PortletHomeInterface
     public static Portlet findByPrimaryKey( int nKey )
     {
         Portlet portlet = _dao.load( nKey );
-        String strHomeClass = portlet.getHomeClassName( );
+        PortletHomeInterface home = getHome( portlet.getHomeClassName( ) );
         Portlet p = null;
 
-        try
+        if ( home != null )
         {
-            PortletHomeInterface home = (PortletHomeInterface) Class.forName( strHomeClass ).newInstance( );
             p = home.getDAO( ).load( nKey );
             p.copy( portlet );
         }
-        catch( IllegalAccessException | InstantiationException | ClassNotFoundException e )
+
+        return p;
+    }
+
+    /**
+     * Returns the portlets of a page. The common data of the portlets are loaded with a single query, then the type specific data are loaded by portlet
+     * type.
+     *
+     * @param nPageId
+     *            the page identifier
+     * @return The portlets of the page, sorted by order
+     */
+    public static List<Portlet> findByPageId( int nPageId )
+    {
+        List<Portlet> listPortlets = _dao.selectPortletsByPage( nPageId );
+        Map<String, Map<Integer, Portlet>> mapPortletsByHome = new LinkedHashMap<>( );
+
+        for ( Portlet portlet : listPortlets )
         {
-            AppLogService.error( e.getMessage( ), e );
+            mapPortletsByHome.computeIfAbsent( portlet.getHomeClassName( ), h -> new LinkedHashMap<>( ) ).put( portlet.getId( ), null );
         }
 
-        return p;
+        for ( Map.Entry<String, Map<Integer, Portlet>> entry : mapPortletsByHome.entrySet( ) )
+        {
+            PortletHomeInterface home = getHome( entry.getKey( ) );
+
+            if ( home != null )
+            {
+                entry.getValue( ).putAll( home.findPortlets( new ArrayList<>( entry.getValue( ).keySet( ) ) ) );
+            }
+        }
+
+        List<Portlet> listPagePortlets = new ArrayList<>( listPortlets.size( ) );
+
+        for ( Portlet portlet : listPortlets )
+        {
+            Portlet p = mapPortletsByHome.get( portlet.getHomeClassName( ) ).get( portlet.getId( ) );
+
+            if ( p != null )
+            {
+                p.copy( portlet );
+                listPagePortlets.add( p );
+            }
+        }
+
+        return listPagePortlets;
+    }
+
+    /**
+     * Returns the home instance of a portlet type. The instances are created once by class name.
+     *
+     * @param strHomeClass
+     *            the class name of the home
+     * @return The home instance, or null if it can't be instantiated
+     */
+    private static PortletHomeInterface getHome( String strHomeClass )
+    {
+        if ( strHomeClass == null )
+        {
+            return null;
+        }
+
+        PortletHomeInterface home = _mapHomes.get( strHomeClass );
+
+        if ( home == null )
+        {
+            try
+            {
+                home = (PortletHomeInterface) Class.forName( strHomeClass ).newInstance( );
+                _mapHomes.putIfAbsent( strHomeClass, home );
+            }
+            catch( IllegalAccessException | InstantiationException | ClassNotFoundException e )
+            {
+                AppLogService.error( e.getMessage( ), e );
+            }
+        }
+
+        return home;
     }
 
     /**
@@ -213,6 +294,7 @@ public abstract class PortletHome implements PortletHomeInterface
     {
         PortletEvent event = new PortletEvent( PortletEvent.INVALIDATE, portlet.getId( ), portlet.getPageId( ) );
         notifyListeners( event );
+        publishInvalidation( portlet.getId( ) );
 
         // invalidate aliases
         Collection<Portlet> listAliases = getAliasList( portlet.getId( ) );
@@ -221,9 +303,22 @@ public abstract class PortletHome implements PortletHomeInterface
         {
             PortletEvent eventAlias = new PortletEvent( PortletEvent.INVALIDATE, alias.getId( ), alias.getPageId( ) );
             notifyListeners( eventAlias );
+            publishInvalidation( alias.getId( ) );
         }
     }
 
+    /**
+     * Publishes the invalidation of a portlet to the other nodes of the cluster. The local caches are invalidated by the portlet event listeners.
+     *
+     * @param nPortletId
+     *            the portlet identifier
+     */
+    private static void publishInvalidation( int nPortletId )
+    {
+        CacheService.publishEntityChange(
+                new EntityChangeEvent( PortletCacheService.ENTITY_TYPE_PORTLET, String.valueOf( nPortletId ), EntityChangeEvent.ENTITY_UPDATED ) );
+    }
+
     /**
      * Invalidate a portlet whose identifier is specified in paramaeter
      *
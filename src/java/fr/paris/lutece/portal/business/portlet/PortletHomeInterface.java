@@ -33,6 +33,9 @@
  */
 package fr.paris.lutece.portal.business.portlet;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * This interface provides the signature of methods to implement by classes which implements it
  */
@@ -51,4 +54,16 @@ public interface PortletHomeInterface
      * @return the identifier of the portlet
      */
     String getPortletTypeId( );
+
+    /**
+     * Loads the type specific data of several portlets of the type
+     *
+     * @param listPortletIds
+     *            the identifiers of the portlets
+     * @return The portlet instances by identifier
+     */
+    default Map<Integer, Portlet> findPortlets( Collection<Integer> listPortletIds )
+    {
+        return getDAO( ).loadPortlets( listPortletIds );
+    }
 }
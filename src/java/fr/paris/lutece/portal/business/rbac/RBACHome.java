@@ -33,6 +33,7 @@
  */
 package fr.paris.lutece.portal.business.rbac;
 
+import fr.paris.lutece.portal.service.rbac.RBACCacheService;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 
 import java.util.Collection;
@@ -63,6 +64,7 @@ public final class RBACHome
     public static RBAC create( RBAC rBAC )
     {
         _dao.insert( rBAC );
+        RBACCacheService.invalidate( );
 
         return rBAC;
     }
@@ -77,6 +79,7 @@ public final class RBACHome
     public static RBAC update( RBAC rBAC )
     {
         _dao.store( rBAC );
+        RBACCacheService.invalidate( );
 
         return rBAC;
     }
@@ -90,6 +93,7 @@ public final class RBACHome
     public static void remove( int nKey )
     {
         _dao.delete( nKey );
+        RBACCacheService.invalidate( );
     }
 
     // /////////////////////////////////////////////////////////////////////////
@@ -140,6 +144,7 @@ public final class RBACHome
     public static void updateRoleKey( String strOldRoleKey, String strNewRoleKey )
     {
         _dao.updateRoleKey( strOldRoleKey, strNewRoleKey );
+        RBACCacheService.invalidate( );
     }
 
     /**
@@ -199,6 +204,7 @@ public final class RBACHome
     public static void removeForRoleKey( String strRoleKey )
     {
         _dao.deleteForRoleKey( strRoleKey );
+        RBACCacheService.invalidate( );
     }
 
     /**
@@ -212,5 +218,6 @@ public final class RBACHome
     public static void removeForResource( String strResourceType, String strResourceId )
     {
         _dao.deleteForResourceTypeAndId( strResourceType, strResourceId );
+        RBACCacheService.invalidate( );
     }
 }
@@ -35,6 +35,7 @@ package fr.paris.lutece.portal.business.user;
 
 import fr.paris.lutece.portal.business.rbac.RBACRole;
 import fr.paris.lutece.portal.business.right.Right;
+import fr.paris.lutece.portal.business.user.attribute.AdminUserField;
 import fr.paris.lutece.portal.business.user.authentication.LuteceDefaultAdminUser;
 import fr.paris.lutece.util.password.IPassword;
 import fr.paris.lutece.util.password.IPasswordFactory;
@@ -117,8 +118,41 @@ public class AdminUserDAO implements IAdminUserDAO
     private static final String SQL_QUERY_UPDATE_RESET_PASSWORD_LIST_ID = " UPDATE core_admin_user SET reset_password = 1 WHERE id_user IN ( ";
     private static final String SQL_QUERY_UPDATE_REACTIVATE_ACCOUNT = " UPDATE core_admin_user SET nb_alerts_sent = 0, account_max_valid_date = ? WHERE id_user = ? ";
     private static final String SQL_QUERY_UPDATE_DATE_LAST_LOGIN = " UPDATE core_admin_user SET last_login = ? WHERE id_user = ? ";
+    private static final String SQL_QUERY_SELECT_USERS_PAGE_FROM_SEARCH = " SELECT u.id_user, u.access_code, u.last_name, u.first_name, u.email, u.status, u.locale, u.level_user, u.accessibility_mode, "
+            + " u.reset_password, u.password_max_valid_date, u.account_max_valid_date, u.last_login, u.workgroup_key FROM core_admin_user u ";
+    private static final String SQL_QUERY_COUNT_USERS_FROM_SEARCH = " SELECT COUNT(*) FROM core_admin_user u ";
+    private static final String SQL_FILTER_SEARCH = " WHERE u.access_code LIKE ? AND u.last_name LIKE ? AND u.email LIKE ? AND u.first_name LIKE ? ";
+    private static final String SQL_FILTER_STATUS = " AND u.status = ? ";
+    private static final String SQL_FILTER_USER_LEVEL = " AND u.level_user = ? ";
+    private static final String SQL_FILTER_MANAGER_USER_LEVEL = " AND u.level_user > ? ";
+    private static final String SQL_FILTER_VISIBLE_WORKGROUPS = " AND ( u.workgroup_key IS NULL OR u.workgroup_key = '' OR u.workgroup_key = ? ";
+    private static final String SQL_FILTER_MANAGER_WORKGROUPS = " AND ( NOT EXISTS ( SELECT w.id_user FROM core_admin_workgroup_user w WHERE w.id_user = u.id_user ) "
+            + " OR EXISTS ( SELECT w.id_user FROM core_admin_workgroup_user w WHERE w.id_user = u.id_user AND w.workgroup_key IN ( ";
+    private static final String SQL_FILTER_USER_FIELD = " AND u.id_user IN ( SELECT f.id_user FROM core_admin_user_field f "
+            + " WHERE f.id_attribute = ? AND f.id_field = ? AND f.user_field_value LIKE ? ) ";
+    private static final String SQL_OR_WORKGROUP_KEY_IN = " OR u.workgroup_key IN ( ";
+    private static final String SQL_ORDER_BY = " ORDER BY ";
+    private static final String SQL_ASC = " ASC ";
+    private static final String SQL_DESC = " DESC ";
+    private static final String SQL_ORDER_BY_ID_USER = ", u.id_user ";
+    private static final String SQL_LIMIT = " LIMIT ? OFFSET ? ";
+    private static final String SQL_DEFAULT_SORT_COLUMN = "u.last_name";
+    private static final Map<String, String> SORT_COLUMNS = new HashMap<>( );
     private static final String CONSTANT_CLOSE_PARENTHESIS = " ) ";
     private static final String CONSTANT_COMMA = ", ";
+    private static final String CONSTANT_QUESTION_MARK = "?";
+    private static final String CONSTANT_ALL_GROUPS = "all";
+
+    static
+    {
+        SORT_COLUMNS.put( "lastName", SQL_DEFAULT_SORT_COLUMN );
+        SORT_COLUMNS.put( "firstName", "u.first_name" );
+        SORT_COLUMNS.put( "accessCode", "u.access_code" );
+        SORT_COLUMNS.put( "email", "u.email" );
+        SORT_COLUMNS.put( "status", "u.status" );
+        SORT_COLUMNS.put( "userLevel", "u.level_user" );
+        SORT_COLUMNS.put( "dateLastLogin", "u.last_login" );
+    }
 
     @Inject
     private IPasswordFactory _passwordFactory;
@@ -834,6 +868,239 @@ public class AdminUserDAO implements IAdminUserDAO
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AdminUser> selectUsersByFilter( AdminUserFilter auFilter, String strSortedAttributeName, boolean bAscSort, int nOffset, int nLimit )
+    {
+        List<AdminUser> userList = new ArrayList<>( );
+        StringBuilder sbSQL = new StringBuilder( SQL_QUERY_SELECT_USERS_PAGE_FROM_SEARCH );
+        appendFilter( sbSQL, auFilter );
+        sbSQL.append( SQL_ORDER_BY ).append( SORT_COLUMNS.getOrDefault( strSortedAttributeName, SQL_DEFAULT_SORT_COLUMN ) );
+        sbSQL.append( ( ( strSortedAttributeName == null ) || bAscSort ) ? SQL_ASC : SQL_DESC ).append( SQL_ORDER_BY_ID_USER );
+
+        if ( nLimit > 0 )
+        {
+            sbSQL.append( SQL_LIMIT );
+        }
+
+        try ( DAOUtil daoUtil = new DAOUtil( sbSQL.toString( ) ) )
+        {
+            int nIndex = setFilterParameters( daoUtil, auFilter );
+
+            if ( nLimit > 0 )
+            {
+                daoUtil.setInt( ++nIndex, nLimit );
+                daoUtil.setInt( ++nIndex, Math.max( nOffset, 0 ) );
+            }
+
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                AdminUser user = new AdminUser( );
+                user.setUserId( daoUtil.getInt( 1 ) );
+                user.setAccessCode( daoUtil.getString( 2 ) );
+                user.setLastName( daoUtil.getString( 3 ) );
+                user.setFirstName( daoUtil.getString( 4 ) );
+                user.setEmail( daoUtil.getString( 5 ) );
+                user.setStatus( daoUtil.getInt( 6 ) );
+                user.setLocale( new Locale( daoUtil.getString( 7 ) ) );
+                user.setUserLevel( daoUtil.getInt( 8 ) );
+                user.setAccessibilityMode( daoUtil.getBoolean( 9 ) );
+                user.setPasswordReset( daoUtil.getBoolean( 10 ) );
+                user.setPasswordMaxValidDate( daoUtil.getTimestamp( 11 ) );
+
+                long accountTime = daoUtil.getLong( 12 );
+
+                if ( accountTime > 0 )
+                {
+                    user.setAccountMaxValidDate( new Timestamp( accountTime ) );
+                }
+
+                Timestamp dateLastLogin = daoUtil.getTimestamp( 13 );
+
+                if ( ( dateLastLogin != null ) && !dateLastLogin.equals( AdminUser.getDefaultDateLastLogin( ) ) )
+                {
+                    user.setDateLastLogin( dateLastLogin );
+                }
+
+                user.setWorkgroupKey( daoUtil.getString( 14 ) );
+                userList.add( user );
+            }
+
+        }
+
+        return userList;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countUsersByFilter( AdminUserFilter auFilter )
+    {
+        int nCount = 0;
+        StringBuilder sbSQL = new StringBuilder( SQL_QUERY_COUNT_USERS_FROM_SEARCH );
+        appendFilter( sbSQL, auFilter );
+
+        try ( DAOUtil daoUtil = new DAOUtil( sbSQL.toString( ) ) )
+        {
+            setFilterParameters( daoUtil, auFilter );
+            daoUtil.executeQuery( );
+
+            if ( daoUtil.next( ) )
+            {
+                nCount = daoUtil.getInt( 1 );
+            }
+
+        }
+
+        return nCount;
+    }
+
+    /**
+     * Append the where clause of a filter to a query
+     * 
+     * @param sbSQL
+     *            The query
+     * @param auFilter
+     *            The filter
+     */
+    private static void appendFilter( StringBuilder sbSQL, AdminUserFilter auFilter )
+    {
+        sbSQL.append( SQL_FILTER_SEARCH );
+
+        if ( auFilter.getStatus( ) != -1 )
+        {
+            sbSQL.append( SQL_FILTER_STATUS );
+        }
+
+        if ( auFilter.getUserLevel( ) != -1 )
+        {
+            sbSQL.append( SQL_FILTER_USER_LEVEL );
+        }
+
+        if ( auFilter.getManagerUserLevel( ) != -1 )
+        {
+            sbSQL.append( SQL_FILTER_MANAGER_USER_LEVEL );
+        }
+
+        if ( auFilter.getVisibleWorkgroups( ) != null )
+        {
+            sbSQL.append( SQL_FILTER_VISIBLE_WORKGROUPS );
+
+            if ( !auFilter.getVisibleWorkgroups( ).isEmpty( ) )
+            {
+                sbSQL.append( SQL_OR_WORKGROUP_KEY_IN );
+                appendPlaceholders( sbSQL, auFilter.getVisibleWorkgroups( ).size( ) );
+                sbSQL.append( CONSTANT_CLOSE_PARENTHESIS );
+            }
+
+            sbSQL.append( CONSTANT_CLOSE_PARENTHESIS );
+        }
+
+        if ( CollectionUtils.isNotEmpty( auFilter.getManagerWorkgroups( ) ) )
+        {
+            sbSQL.append( SQL_FILTER_MANAGER_WORKGROUPS );
+            appendPlaceholders( sbSQL, auFilter.getManagerWorkgroups( ).size( ) );
+            sbSQL.append( CONSTANT_CLOSE_PARENTHESIS ).append( CONSTANT_CLOSE_PARENTHESIS ).append( CONSTANT_CLOSE_PARENTHESIS );
+        }
+
+        if ( auFilter.getUserFields( ) != null )
+        {
+            for ( int i = 0; i < auFilter.getUserFields( ).size( ); i++ )
+            {
+                sbSQL.append( SQL_FILTER_USER_FIELD );
+            }
+        }
+    }
+
+    /**
+     * Append a list of parameter placeholders to a query
+     * 
+     * @param sbSQL
+     *            The query
+     * @param nCount
+     *            The number of placeholders
+     */
+    private static void appendPlaceholders( StringBuilder sbSQL, int nCount )
+    {
+        for ( int i = 0; i < nCount; i++ )
+        {
+            if ( i > 0 )
+            {
+                sbSQL.append( CONSTANT_COMMA );
+            }
+
+            sbSQL.append( CONSTANT_QUESTION_MARK );
+        }
+    }
+
+    /**
+     * Set the parameters of a filter query
+     * 
+     * @param daoUtil
+     *            The daoUtil
+     * @param auFilter
+     *            The filter
+     * @return The index of the last parameter set
+     */
+    private static int setFilterParameters( DAOUtil daoUtil, AdminUserFilter auFilter )
+    {
+        int nIndex = 0;
+        daoUtil.setString( ++nIndex, CONSTANT_PERCENT + auFilter.getAccessCode( ) + CONSTANT_PERCENT );
+        daoUtil.setString( ++nIndex, CONSTANT_PERCENT + auFilter.getLastName( ) + CONSTANT_PERCENT );
+        daoUtil.setString( ++nIndex, CONSTANT_PERCENT + auFilter.getEmail( ) + CONSTANT_PERCENT );
+        daoUtil.setString( ++nIndex, CONSTANT_PERCENT + auFilter.getFirstName( ) + CONSTANT_PERCENT );
+
+        if ( auFilter.getStatus( ) != -1 )
+        {
+            daoUtil.setInt( ++nIndex, auFilter.getStatus( ) );
+        }
+
+        if ( auFilter.getUserLevel( ) != -1 )
+        {
+            daoUtil.setInt( ++nIndex, auFilter.getUserLevel( ) );
+        }
+
+        if ( auFilter.getManagerUserLevel( ) != -1 )
+        {
+            daoUtil.setInt( ++nIndex, auFilter.getManagerUserLevel( ) );
+        }
+
+        if ( auFilter.getVisibleWorkgroups( ) != null )
+        {
+            daoUtil.setString( ++nIndex, CONSTANT_ALL_GROUPS );
+
+            for ( String strWorkgroup : auFilter.getVisibleWorkgroups( ) )
+            {
+                daoUtil.setString( ++nIndex, strWorkgroup );
+            }
+        }
+
+        if ( CollectionUtils.isNotEmpty( auFilter.getManagerWorkgroups( ) ) )
+        {
+            for ( String strWorkgroup : auFilter.getManagerWorkgroups( ) )
+            {
+                daoUtil.setString( ++nIndex, strWorkgroup );
+            }
+        }
+
+        if ( auFilter.getUserFields( ) != null )
+        {
+            for ( AdminUserField userField : auFilter.getUserFields( ) )
+            {
+                daoUtil.setInt( ++nIndex, userField.getAttribute( ).getIdAttribute( ) );
+                daoUtil.setInt( ++nIndex, userField.getAttributeField( ).getIdField( ) );
+                daoUtil.setString( ++nIndex, CONSTANT_PERCENT + userField.getValue( ) + CONSTANT_PERCENT );
+            }
+        }
+
+        return nIndex;
+    }
+
     /**
      * {@inheritDoc}
      */
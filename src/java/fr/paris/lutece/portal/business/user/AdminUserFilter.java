@@ -33,6 +33,7 @@
  */
 package fr.paris.lutece.portal.business.user;
 
+import fr.paris.lutece.portal.business.user.attribute.AdminUserField;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.util.url.UrlItem;
@@ -44,6 +45,8 @@ import java.io.UnsupportedEncodingException;
 
 import java.net.URLEncoder;
 
+import java.util.List;
+
 import javax.servlet.http.HttpServletRequest;
 
 /**
@@ -76,6 +79,10 @@ public class AdminUserFilter implements Serializable
     private String _strEmail;
     private int _nStatus;
     private int _nUserLevel;
+    private int _nManagerUserLevel = -1;
+    private List<String> _listManagerWorkgroups;
+    private List<String> _listVisibleWorkgroups;
+    private List<AdminUserField> _listUserFields;
 
     /**
      * Constructor
@@ -220,6 +227,98 @@ public class AdminUserFilter implements Serializable
         _nUserLevel = nUserLevel;
     }
 
+    /**
+     * Get the level of the user managing the filtered users
+     * 
+     * @return The level or -1 if the users are not restricted by level
+     * @since 7.0.11
+     */
+    public int getManagerUserLevel( )
+    {
+        return _nManagerUserLevel;
+    }
+
+    /**
+     * Restrict the filtered users to the users with a lower level (ie. a greater level value) than the given one
+     * 
+     * @param nManagerUserLevel
+     *            The level of the user managing the filtered users, -1 for no restriction
+     * @since 7.0.11
+     */
+    public void setManagerUserLevel( int nManagerUserLevel )
+    {
+        _nManagerUserLevel = nManagerUserLevel;
+    }
+
+    /**
+     * Get the workgroups of the user managing the filtered users
+     * 
+     * @return The workgroup keys, or null if the users are not restricted by their workgroups
+     * @since 7.0.11
+     */
+    public List<String> getManagerWorkgroups( )
+    {
+        return _listManagerWorkgroups;
+    }
+
+    /**
+     * Restrict the filtered users to the users belonging to no workgroup or to one of the given workgroups
+     * 
+     * @param listManagerWorkgroups
+     *            The workgroup keys of the user managing the filtered users, null or empty for no restriction
+     * @since 7.0.11
+     */
+    public void setManagerWorkgroups( List<String> listManagerWorkgroups )
+    {
+        _listManagerWorkgroups = listManagerWorkgroups;
+    }
+
+    /**
+     * Get the workgroups the filtered users can be attached to
+     * 
+     * @return The workgroup keys, or null if the users are not restricted by their workgroup key
+     * @since 7.0.11
+     */
+    public List<String> getVisibleWorkgroups( )
+    {
+        return _listVisibleWorkgroups;
+    }
+
+    /**
+     * Restrict the filtered users to the users attached to all the workgroups or to one of the given workgroups
+     * 
+     * @param listVisibleWorkgroups
+     *            The workgroup keys, null for no restriction
+     * @since 7.0.11
+     */
+    public void setVisibleWorkgroups( List<String> listVisibleWorkgroups )
+    {
+        _listVisibleWorkgroups = listVisibleWorkgroups;
+    }
+
+    /**
+     * Get the user fields the filtered users must match
+     * 
+     * @return The user fields, or null if the users are not filtered by their attributes
+     * @since 7.0.11
+     */
+    public List<AdminUserField> getUserFields( )
+    {
+        return _listUserFields;
+    }
+
+    /**
+     * Restrict the filtered users to the users whose attributes match all the given user fields
+     * 
+     * @param listUserFields
+     *            The user fields, null or empty for no restriction
+     * @since 7.0.11
+     */
+    public void setUserFields( List<AdminUserField> listUserFields )
+    {
+        _listUserFields = listUserFields;
+    }
+
     /**
      * Set the value of the AdminUserFilter
      * 
@@ -371,6 +371,41 @@ public final class AdminUserHome
         return _dao.selectUsersByFilter( auFilter );
     }
 
+    /**
+     * Get one page of the users matching a filter. The sort, the offset and the limit are applied by the database.
+     * 
+     * @param auFilter
+     *            The filter
+     * @param strSortedAttributeName
+     *            The name of the attribute to sort on (lastName, firstName, accessCode, email, status, userLevel or dateLastLogin), null to sort by last
+     *            name
+     * @param bAscSort
+     *            true for an ascending sort
+     * @param nOffset
+     *            The index of the first user to return
+     * @param nLimit
+     *            The maximum number of users to return, 0 for all the users
+     * @return A list of AdminUser
+     * @since 7.0.11
+     */
+    public static List<AdminUser> findUserByFilter( AdminUserFilter auFilter, String strSortedAttributeName, boolean bAscSort, int nOffset, int nLimit )
+    {
+        return _dao.selectUsersByFilter( auFilter, strSortedAttributeName, bAscSort, nOffset, nLimit );
+    }
+
+    /**
+     * Count the users matching a filter
+     * 
+     * @param auFilter
+     *            The filter
+     * @return The number of users
+     * @since 7.0.11
+     */
+    public static int countUserByFilter( AdminUserFilter auFilter )
+    {
+        return _dao.countUsersByFilter( auFilter );
+    }
+
     /**
      * Get all users having a given right
      * 
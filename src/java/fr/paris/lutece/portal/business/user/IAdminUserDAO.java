@@ -293,6 +293,35 @@ public interface IAdminUserDAO
      */
     Collection<AdminUser> selectUsersByFilter( AdminUserFilter auFilter );
 
+    /**
+     * Select one page of the users matching a filter
+     * 
+     * @param auFilter
+     *            the filter
+     * @param strSortedAttributeName
+     *            the name of the attribute to sort on (lastName, firstName, accessCode, email, status, userLevel or dateLastLogin), null to sort by last
+     *            name
+     * @param bAscSort
+     *            true for an ascending sort
+     * @param nOffset
+     *            the index of the first user to return
+     * @param nLimit
+     *            the maximum number of users to return, 0 for all the users
+     * @return a list of AdminUser
+     * @since 7.0.11
+     */
+    List<AdminUser> selectUsersByFilter( AdminUserFilter auFilter, String strSortedAttributeName, boolean bAscSort, int nOffset, int nLimit );
+
+    /**
+     * Count the users matching a filter
+     * 
+     * @param auFilter
+     *            the filter
+     * @return the number of users
+     * @since 7.0.11
+     */
+    int countUsersByFilter( AdminUserFilter auFilter );
+
     /**
      * Get all users having a given right
      * 
@@ -89,6 +89,7 @@ import fr.paris.lutece.portal.service.user.attribute.AttributeService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.portal.service.util.CryptoService;
 import fr.paris.lutece.portal.web.l10n.LocaleService;
+import fr.paris.lutece.util.ReferenceItem;
 import fr.paris.lutece.util.ReferenceList;
 import fr.paris.lutece.util.date.DateUtil;
 import fr.paris.lutece.util.html.HtmlTemplate;
@@ -313,23 +314,11 @@ public final class AdminUserService
         AdminUserFilter auFilter = new AdminUserFilter( );
         List<AdminUser> listFilteredUsers = new ArrayList<>( );
         boolean bIsSearch = auFilter.setAdminUserFilter( request );
-        boolean bIsFiltered;
+        Set<Integer> setUserIds = listUsers.stream( ).map( AdminUser::getUserId ).collect( Collectors.toSet( ) );
 
         for ( AdminUser filteredUser : AdminUserHome.findUserByFilter( auFilter ) )
         {
-            bIsFiltered = false;
-
-            for ( AdminUser user : listUsers )
-            {
-                if ( user.getUserId( ) == filteredUser.getUserId( ) )
-                {
-                    bIsFiltered = true;
-
-                    break;
-                }
-            }
-
-            if ( bIsFiltered && ( currentUser.isParent( filteredUser ) || ( currentUser.isAdmin( ) ) ) )
+            if ( setUserIds.contains( filteredUser.getUserId( ) ) && ( currentUser.isParent( filteredUser ) || ( currentUser.isAdmin( ) ) ) )
             {
                 listFilteredUsers.add( filteredUser );
             }
@@ -353,16 +342,99 @@ public final class AdminUserService
             filteredUsers = listFilteredUsers;
         }
 
-        Map<String, List<AdminUserField>> map = new HashMap<>( );
+        putSearchModel( model, url, currentUser, auFilter, auFieldFilter, bIsSearch );
+        putUserFieldsModel( model, filteredUsers );
 
-        for ( AdminUser user : filteredUsers )
-        {
-            auFieldFilter.setIdUser( user.getUserId( ) );
+        return filteredUsers;
+    }
 
-            List<AdminUserField> listAdminUserFields = AdminUserFieldHome.findByFilter( auFieldFilter );
-            map.put( String.valueOf( user.getUserId( ) ), listAdminUserFields );
+    /**
+     * Get the filter of the admin users the current user is allowed to manage, from the search parameters of the request. The level, workgroup and
+     * attribute restrictions are part of the filter so that they are applied by the database, and the search markers are put in the model.
+     * 
+     * @param request
+     *            HttpServletRequest
+     * @param model
+     *            map
+     * @param url
+     *            URL of the current interface
+     * @return The filter to use with {@link #getFilteredUsersPage(AdminUserFilter, String, boolean, int, int, Map)}
+     * @since 7.0.11
+     */
+    public static AdminUserFilter getManageableUsersFilter( HttpServletRequest request, Map<String, Object> model, UrlItem url )
+    {
+        AdminUser currentUser = getAdminUser( request );
+
+        AdminUserFilter auFilter = new AdminUserFilter( );
+        boolean bIsSearch = auFilter.setAdminUserFilter( request );
+
+        AdminUserFieldFilter auFieldFilter = new AdminUserFieldFilter( );
+        auFieldFilter.setAdminUserFieldFilter( request, currentUser.getLocale( ) );
+        auFilter.setUserFields( auFieldFilter.getListUserFields( ) );
+
+        // Workgroup of the user account, as checked by AdminWorkgroupService.isAuthorized
+        List<String> listUserWorkgroups = currentUser.getUserWorkgroups( );
+        auFilter.setVisibleWorkgroups( ( listUserWorkgroups != null ) ? listUserWorkgroups : new ArrayList<>( ) );
+
+        if ( !currentUser.isAdmin( ) )
+        {
+            // Only the users with a lower level, in a common workgroup or in no workgroup can be modified
+            auFilter.setManagerUserLevel( currentUser.getUserLevel( ) );
+            auFilter.setManagerWorkgroups(
+                    AdminWorkgroupHome.getUserWorkgroups( currentUser ).stream( ).map( ReferenceItem::getCode ).collect( Collectors.toList( ) ) );
         }
 
+        putSearchModel( model, url, currentUser, auFilter, auFieldFilter, bIsSearch );
+
+        return auFilter;
+    }
+
+    /**
+     * Get one page of the admin users matching a filter and put their attributes in the model. Only the users of the page are loaded.
+     * 
+     * @param auFilter
+     *            The filter
+     * @param strSortedAttributeName
+     *            The name of the attribute to sort on, null to sort by last name
+     * @param bAscSort
+     *            true for an ascending sort
+     * @param nOffset
+     *            The index of the first user of the page
+     * @param nLimit
+     *            The number of users per page
+     * @param model
+     *            map
+     * @return The users of the page
+     * @since 7.0.11
+     */
+    public static List<AdminUser> getFilteredUsersPage( AdminUserFilter auFilter, String strSortedAttributeName, boolean bAscSort, int nOffset, int nLimit,
+            Map<String, Object> model )
+    {
+        List<AdminUser> listUsers = AdminUserHome.findUserByFilter( auFilter, strSortedAttributeName, bAscSort, nOffset, nLimit );
+        putUserFieldsModel( model, listUsers );
+
+        return listUsers;
+    }
+
+    /**
+     * Put the search markers in the model
+     * 
+     * @param model
+     *            map
+     * @param url
+     *            URL of the current interface
+     * @param currentUser
+     *            The current user
+     * @param auFilter
+     *            The search filter
+     * @param auFieldFilter
+     *            The attributes search filter
+     * @param bIsSearch
+     *            true if a search is submitted
+     */
+    private static void putSearchModel( Map<String, Object> model, UrlItem url, AdminUser currentUser, AdminUserFilter auFilter,
+            AdminUserFieldFilter auFieldFilter, boolean bIsSearch )
+    {
         List<IAttribute> listAttributes = AttributeService.getInstance( ).getAllAttributesWithFields( currentUser.getLocale( ) );
 
         String strSortSearchAttribute = StringUtils.EMPTY;
@@ -380,9 +452,30 @@ public final class AdminUserService
         model.put( MARK_LOCALE, currentUser.getLocale( ) );
         model.put( MARK_ATTRIBUTES_LIST, listAttributes );
         model.put( MARK_SORT_SEARCH_ATTRIBUTE, strSortSearchAttribute );
-        model.put( MARK_MAP_ID_USER_LIST_USER_FIELDS, map );
+    }
 
-        return filteredUsers;
+    /**
+     * Put the attributes of the given users in the model
+     * 
+     * @param model
+     *            map
+     * @param listUsers
+     *            The users
+     */
+    private static void putUserFieldsModel( Map<String, Object> model, Collection<AdminUser> listUsers )
+    {
+        AdminUserFieldFilter auFieldFilter = new AdminUserFieldFilter( );
+        Map<String, List<AdminUserField>> map = new HashMap<>( );
+
+        for ( AdminUser user : listUsers )
+        {
+            auFieldFilter.setIdUser( user.getUserId( ) );
+
+            List<AdminUserField> listAdminUserFields = AdminUserFieldHome.findByFilter( auFieldFilter );
+            map.put( String.valueOf( user.getUserId( ) ), listAdminUserFields );
+        }
+
+        model.put( MARK_MAP_ID_USER_LIST_USER_FIELDS, map );
     }
 
     /**
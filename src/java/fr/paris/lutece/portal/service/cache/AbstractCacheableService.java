@@ -43,7 +43,19 @@ import net.sf.ehcache.Statistics;
 import net.sf.ehcache.event.CacheEventListener;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -53,9 +65,17 @@ import org.apache.logging.log4j.Logger;
  */
 public abstract class AbstractCacheableService implements CacheableService, CacheEventListener
 {
+    private static final int KEY_LOCK_STRIPES = 64;
+    private static final int TAG_GENERATION_STRIPES = 64;
     private Cache _cache;
     private boolean _bEnable;
     private Logger _logger = LogManager.getLogger( "lutece.cache" );
+    private final Map<String, Set<String>> _mapTagKeys = new ConcurrentHashMap<>( );
+    private final Map<String, Set<String>> _mapKeyTags = new ConcurrentHashMap<>( );
+    private final ReentrantLock [ ] _keyLocks = createKeyLocks( );
+    private final AtomicLong _lResetGeneration = new AtomicLong( );
+    private final AtomicLongArray _tagGenerations = new AtomicLongArray( TAG_GENERATION_STRIPES );
+    private final Queue<Object> _queuePendingUntags = new ConcurrentLinkedQueue<>( );
 
     /**
      * Init the cache. Should be called by the service at its initialization.
@@ -100,13 +120,345 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
      */
     public void putInCache( String strKey, Object object )
     {
+        untagPendingKeys( );
+
+        if ( ( _cache != null ) && isCacheEnable( ) )
+        {
+            ReentrantLock lock = getKeyLock( strKey );
+            lock.lock( );
+
+            try
+            {
+                long lResetGeneration = _lResetGeneration.get( );
+                untagKey( strKey );
+
+                Element element = new Element( strKey, object );
+                _cache.put( element );
+
+                if ( lResetGeneration != _lResetGeneration.get( ) )
+                {
+                    // A reset ran during the put : the object may be outdated and may have been missed by the reset
+                    _cache.remove( strKey );
+                }
+            }
+            finally
+            {
+                lock.unlock( );
+            }
+        }
+    }
+
+    /**
+     * Put an object into the cache and associate its key with a set of tags. Tags allow to remove all the objects related to a given entity (eg: a portlet
+     * or a page) without scanning all the keys of the cache.
+     * 
+     * @param strKey
+     *            The key of the object to put into the cache
+     * @param object
+     *            The object to put into the cache
+     * @param collectionTags
+     *            The tags associated to the key
+     * @see #removeByTag(String)
+     * @since 7.0.11
+     */
+    public void putInCache( String strKey, Object object, Collection<String> collectionTags )
+    {
+        if ( ( strKey == null ) || ( collectionTags == null ) || collectionTags.isEmpty( ) )
+        {
+            putInCache( strKey, object );
+
+            return;
+        }
+
+        untagPendingKeys( );
+
         if ( ( _cache != null ) && isCacheEnable( ) )
         {
-            Element element = new Element( strKey, object );
-            _cache.put( element );
+            Set<String> setTags = new HashSet<>( collectionTags );
+            ReentrantLock lock = getKeyLock( strKey );
+            lock.lock( );
+
+            try
+            {
+                long lResetGeneration = _lResetGeneration.get( );
+                long [ ] tagGenerations = getTagGenerations( setTags );
+                untagKey( strKey );
+
+                // The key is indexed before the put so that an eviction following the put always finds it
+                _mapKeyTags.put( strKey, setTags );
+
+                for ( String strTag : setTags )
+                {
+                    _mapTagKeys.compute( strTag, ( t, setKeys ) -> {
+                        Set<String> setTagKeys = ( setKeys != null ) ? setKeys : ConcurrentHashMap.newKeySet( );
+                        setTagKeys.add( strKey );
+
+                        return setTagKeys;
+                    } );
+                }
+
+                Element element = new Element( strKey, object );
+                _cache.put( element );
+
+                if ( ( lResetGeneration != _lResetGeneration.get( ) ) || !Arrays.equals( tagGenerations, getTagGenerations( setTags ) ) )
+                {
+                    // A removal of one of its tags or a reset ran during the put : the object may be outdated and may have been missed by the removal
+                    _cache.remove( strKey );
+                    untagKey( strKey );
+                }
+            }
+            finally
+            {
+                lock.unlock( );
+            }
+        }
+    }
+
+    /**
+     * Remove from the cache all the objects whose key has been associated to a given tag
+     * 
+     * @param strTag
+     *            The tag
+     * @return The number of keys removed
+     * @since 7.0.11
+     */
+    public int removeByTag( String strTag )
+    {
+        if ( strTag == null )
+        {
+            return 0;
+        }
+
+        // Only the puts of keys sharing a stripe with this tag are dropped
+        _tagGenerations.incrementAndGet( getTagStripe( strTag ) );
+        untagPendingKeys( );
+
+        Set<String> setKeys = _mapTagKeys.remove( strTag );
+
+        if ( setKeys == null )
+        {
+            return 0;
+        }
+
+        int nCount = 0;
+
+        for ( String strKey : setKeys )
+        {
+            ReentrantLock lock = getKeyLock( strKey );
+            lock.lock( );
+
+            try
+            {
+                untagKey( strKey );
+
+                if ( ( _cache != null ) && _cache.remove( strKey ) )
+                {
+                    nCount++;
+                }
+            }
+            finally
+            {
+                lock.unlock( );
+            }
+        }
+
+        _logger.debug( "{} object(s) removed from the cache {} for tag {}", nCount, getName( ), strTag );
+
+        return nCount;
+    }
+
+    /**
+     * Gets the keys currently associated to a given tag
+     * 
+     * @param strTag
+     *            The tag
+     * @return An unmodifiable set of keys
+     * @since 7.0.11
+     */
+    public Set<String> getKeysByTag( String strTag )
+    {
+        untagPendingKeys( );
+
+        Set<String> setKeys = ( strTag != null ) ? _mapTagKeys.get( strTag ) : null;
+
+        return ( setKeys != null ) ? Collections.unmodifiableSet( setKeys ) : Collections.emptySet( );
+    }
+
+    /**
+     * Remove a key from the tag index
+     * 
+     * @param key
+     *            The key
+     */
+    private void untagKey( Object key )
+    {
+        if ( key == null )
+        {
+            return;
+        }
+
+        Set<String> setTags = _mapKeyTags.remove( key );
+
+        if ( setTags != null )
+        {
+            for ( String strTag : setTags )
+            {
+                _mapTagKeys.computeIfPresent( strTag, ( t, setKeys ) -> {
+                    setKeys.remove( key );
+
+                    return setKeys.isEmpty( ) ? null : setKeys;
+                } );
+            }
+        }
+    }
+
+    /**
+     * Remove from the tag index a key that has been removed from the cache by Ehcache (eviction, expiry, removal). The listeners may be called while another
+     * key lock is held, so the lock of the key is not waited for : if it is busy, the key is queued and untagged by the next operation on the tag index.
+     * 
+     * @param key
+     *            The key
+     */
+    private void untagRemovedKey( Object key )
+    {
+        if ( key == null )
+        {
+            return;
+        }
+
+        ReentrantLock lock = getKeyLock( key );
+
+        if ( lock.tryLock( ) )
+        {
+            try
+            {
+                untagKeyIfMissing( key );
+            }
+            finally
+            {
+                lock.unlock( );
+            }
+        }
+        else
+        {
+            _queuePendingUntags.offer( key );
+        }
+    }
+
+    /**
+     * Untag the keys removed by Ehcache whose lock was busy. Must be called without holding any key lock.
+     */
+    private void untagPendingKeys( )
+    {
+        Object key;
+
+        while ( ( key = _queuePendingUntags.poll( ) ) != null )
+        {
+            ReentrantLock lock = getKeyLock( key );
+            lock.lock( );
+
+            try
+            {
+                untagKeyIfMissing( key );
+            }
+            finally
+            {
+                lock.unlock( );
+            }
+        }
+    }
+
+    /**
+     * Remove a key from the tag index if it is no longer in the cache. If the key has been put again, its tags are kept. Must be called with the lock of
+     * the key held.
+     * 
+     * @param key
+     *            The key
+     */
+    private void untagKeyIfMissing( Object key )
+    {
+        if ( ( _cache == null ) || !_cache.isKeyInCache( key ) )
+        {
+            untagKey( key );
+        }
+    }
+
+    /**
+     * Clear the tag index after the removal of all the objects. The keys put concurrently stay indexed.
+     */
+    private void clearTags( )
+    {
+        _lResetGeneration.incrementAndGet( );
+
+        for ( String strKey : _mapKeyTags.keySet( ) )
+        {
+            untagRemovedKey( strKey );
         }
     }
 
+    /**
+     * Gets the generations of the stripes of a set of tags
+     * 
+     * @param setTags
+     *            The tags
+     * @return The generations, in the iteration order of the tags
+     */
+    private long [ ] getTagGenerations( Set<String> setTags )
+    {
+        long [ ] tagGenerations = new long [ setTags.size( )];
+        int nIndex = 0;
+
+        for ( String strTag : setTags )
+        {
+            tagGenerations [nIndex++] = _tagGenerations.get( getTagStripe( strTag ) );
+        }
+
+        return tagGenerations;
+    }
+
+    /**
+     * Gets the stripe of the generation of a tag
+     * 
+     * @param strTag
+     *            The tag
+     * @return The stripe
+     */
+    private static int getTagStripe( String strTag )
+    {
+        return ( strTag.hashCode( ) & Integer.MAX_VALUE ) % TAG_GENERATION_STRIPES;
+    }
+
+    /**
+     * Gets the lock serializing the updates of a key and of its tags
+     * 
+     * @param key
+     *            The key
+     * @return The lock
+     */
+    private ReentrantLock getKeyLock( Object key )
+    {
+        int nHash = ( key != null ) ? key.hashCode( ) : 0;
+
+        return _keyLocks [( nHash & Integer.MAX_VALUE ) % KEY_LOCK_STRIPES];
+    }
+
+    /**
+     * Creates the locks of the keys
+     * 
+     * @return The locks
+     */
+    private static ReentrantLock [ ] createKeyLocks( )
+    {
+        ReentrantLock [ ] keyLocks = new ReentrantLock [ KEY_LOCK_STRIPES];
+
+        for ( int i = 0; i < KEY_LOCK_STRIPES; i++ )
+        {
+            keyLocks [i] = new ReentrantLock( );
+        }
+
+        return keyLocks;
+    }
+
     /**
      * Gets an object from the cache
      * 
@@ -155,6 +507,11 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
             _cache.removeAll( );
         }
 
+        if ( !_bEnable )
+        {
+            clearTags( );
+        }
+
         if ( ( _bEnable ) && ( _cache == null ) )
         {
             createCache( getName( ) );
@@ -169,12 +526,17 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     @Override
     public void resetCache( )
     {
+        // The objects being put, with or without tags, are dropped by the put once the reset has started
+        _lResetGeneration.incrementAndGet( );
+
         try
         {
             if ( _cache != null )
             {
                 _cache.removeAll( );
             }
+
+            clearTags( );
         }
         catch( CacheException | IllegalStateException e )
         {
@@ -302,6 +664,7 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     {
         // Remove the element from the cache
         _cache.remove( element.getKey( ) );
+        untagRemovedKey( element.getKey( ) );
         _logger.debug( "Object removed from the cache : {}  - key : {}", cache.getName( ), element.getKey( ) );
     }
 
@@ -311,7 +674,7 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     @Override
     public void notifyElementRemoved( Ehcache ehch, Element elmnt )
     {
-        // Do nothing
+        untagRemovedKey( elmnt.getKey( ) );
     }
 
     /**
@@ -320,7 +683,7 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     @Override
     public void notifyElementEvicted( Ehcache ehch, Element elmnt )
     {
-        // Do nothing
+        untagRemovedKey( elmnt.getKey( ) );
     }
 
     /**
@@ -329,7 +692,7 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     @Override
     public void notifyRemoveAll( Ehcache ehch )
     {
-        // Do nothing
+        clearTags( );
     }
 
     /**
@@ -367,6 +730,19 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
      */
     public void removeKey( String strKey )
     {
-        getCache( ).remove( strKey );
+        untagPendingKeys( );
+
+        ReentrantLock lock = getKeyLock( strKey );
+        lock.lock( );
+
+        try
+        {
+            getCache( ).remove( strKey );
+            untagKey( strKey );
+        }
+        finally
+        {
+            lock.unlock( );
+        }
     }
 }
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Cluster-wide cache invalidation. The entity changes published on a node are coalesced until the next synchronization, then sent by batches to the other
+ * nodes through the {@link ICacheInvalidationBroadcaster}. The changes received from the other nodes are dispatched to the local caches, which evict only
+ * the entries depending on the changed entities.
+ */
+public final class CacheInvalidationService
+{
+    private static final String PROPERTY_ENABLED = "lutece.cache.invalidation.enabled";
+    private static final String PROPERTY_NODE_ID = "lutece.cache.invalidation.nodeId";
+    private static final String PROPERTY_BATCH_SIZE = "lutece.cache.invalidation.batchSize";
+    private static final String BEAN_BROADCASTER = "cacheInvalidationBroadcaster";
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final Set<EntityChangeEvent> _setPendingEvents = ConcurrentHashMap.newKeySet( );
+    private static final LongAdder _counterPublished = new LongAdder( );
+    private static final LongAdder _counterCoalesced = new LongAdder( );
+    private static final LongAdder _counterSent = new LongAdder( );
+    private static final LongAdder _counterReceived = new LongAdder( );
+    private static final LongAdder _counterFailures = new LongAdder( );
+    private static String _strNodeId;
+
+    /**
+     * Private constructor
+     */
+    private CacheInvalidationService( )
+    {
+    }
+
+    /**
+     * Tells if the entity changes are sent to the other nodes
+     * 
+     * @return true if the cluster-wide invalidation is enabled
+     */
+    public static boolean isEnabled( )
+    {
+        return AppPropertiesService.getPropertyBoolean( PROPERTY_ENABLED, false );
+    }
+
+    /**
+     * Returns the ID of this node : the configured one or a random ID generated at startup
+     * 
+     * @return The node ID
+     */
+    public static synchronized String getNodeId( )
+    {
+        if ( _strNodeId == null )
+        {
+            String strNodeId = AppPropertiesService.getProperty( PROPERTY_NODE_ID );
+            _strNodeId = StringUtils.isNotBlank( strNodeId ) ? strNodeId.trim( ) : UUID.randomUUID( ).toString( );
+        }
+
+        return _strNodeId;
+    }
+
+    /**
+     * Returns the maximum number of changes sent or read at once
+     * 
+     * @return The batch size
+     */
+    static int getBatchSize( )
+    {
+        return Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE ) );
+    }
+
+    /**
+     * Publishes a change to the other nodes. The change is queued until the next synchronization : the same change published several times in the meantime
+     * is sent only once.
+     * 
+     * @param event
+     *            The change, already applied to the local caches
+     */
+    public static void publish( EntityChangeEvent event )
+    {
+        if ( !isEnabled( ) )
+        {
+            return;
+        }
+
+        if ( _setPendingEvents.add( event ) )
+        {
+            _counterPublished.increment( );
+        }
+        else
+        {
+            _counterCoalesced.increment( );
+        }
+    }
+
+    /**
+     * Sends the pending changes to the other nodes, then applies the changes received from them to the local caches
+     * 
+     * @return The synchronization logs
+     */
+    public static synchronized String synchronize( )
+    {
+        ICacheInvalidationBroadcaster broadcaster = SpringContextService.getBean( BEAN_BROADCASTER );
+        int nSent = flush( broadcaster );
+        Set<EntityChangeEvent> setReceived = new LinkedHashSet<>( );
+
+        try
+        {
+            setReceived.addAll( broadcaster.receive( getNodeId( ) ) );
+        }
+        catch( RuntimeException e )
+        {
+            _counterFailures.increment( );
+            AppLogService.error( "Unable to receive the cache invalidations of the other nodes", e );
+        }
+
+        CacheService.processRemoteEntityChanges( setReceived );
+        _counterReceived.add( setReceived.size( ) );
+
+        return "CacheInvalidationService - node " + getNodeId( ) + " : " + nSent + " change(s) sent, " + setReceived.size( ) + " change(s) received";
+    }
+
+    /**
+     * Sends the pending changes, for instance before the shutdown of the node
+     */
+    public static synchronized void shutdown( )
+    {
+        if ( isEnabled( ) && !_setPendingEvents.isEmpty( ) )
+        {
+            flush( SpringContextService.getBean( BEAN_BROADCASTER ) );
+        }
+    }
+
+    /**
+     * Sends the pending changes by batches. The changes of a failed batch are queued again for the next synchronization.
+     * 
+     * @param broadcaster
+     *            The broadcaster
+     * @return The number of changes sent
+     */
+    private static int flush( ICacheInvalidationBroadcaster broadcaster )
+    {
+        int nBatchSize = getBatchSize( );
+        int nSent = 0;
+        List<EntityChangeEvent> listBatch = new ArrayList<>( nBatchSize );
+        Iterator<EntityChangeEvent> iterator = _setPendingEvents.iterator( );
+
+        while ( iterator.hasNext( ) )
+        {
+            listBatch.add( iterator.next( ) );
+            iterator.remove( );
+
+            if ( ( listBatch.size( ) == nBatchSize ) || !iterator.hasNext( ) )
+            {
+                if ( !send( broadcaster, listBatch ) )
+                {
+                    return nSent;
+                }
+
+                nSent += listBatch.size( );
+                listBatch.clear( );
+            }
+        }
+
+        return nSent;
+    }
+
+    /**
+     * Sends a batch of changes
+     * 
+     * @param broadcaster
+     *            The broadcaster
+     * @param listBatch
+     *            The changes
+     * @return true if the batch has been sent
+     */
+    private static boolean send( ICacheInvalidationBroadcaster broadcaster, Collection<EntityChangeEvent> listBatch )
+    {
+        try
+        {
+            broadcaster.broadcast( getNodeId( ), listBatch );
+            _counterSent.add( listBatch.size( ) );
+
+            return true;
+        }
+        catch( RuntimeException e )
+        {
+            _counterFailures.increment( );
+            _setPendingEvents.addAll( listBatch );
+            AppLogService.error( "Unable to send {} cache invalidation(s) to the other nodes", listBatch.size( ), e );
+
+            return false;
+        }
+    }
+
+    /**
+     * Returns the statistics of the service
+     * 
+     * @return The statistics
+     */
+    public static String getStatistics( )
+    {
+        return "node = " + getNodeId( ) + ", pending = " + _setPendingEvents.size( ) + ", published = " + _counterPublished.sum( ) + ", coalesced = "
+                + _counterCoalesced.sum( ) + ", sent = " + _counterSent.sum( ) + ", received = " + _counterReceived.sum( ) + ", failures = "
+                + _counterFailures.sum( );
+    }
+}
@@ -38,8 +38,12 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.management.MBeanServer;
 
@@ -74,6 +78,7 @@ public final class CacheService
     private static final String PROPERTY_DISK_EXPIRY = ".diskExpiryThreadIntervalSeconds";
     private static final String PROPERTY_MAX_ELEMENTS_DISK = ".maxElementsOnDisk";
     private static final String PROPERTY_STATISTICS = ".statistics";
+    private static final String PROPERTY_SOFT_TIME_TO_LIVE = ".softTimeToLiveSeconds";
 
     // Datastore
     private static final String KEY_PREFIX = "core.cache.status.";
@@ -95,6 +100,7 @@ public final class CacheService
     private static CacheManager _manager;
 
     private static List<CacheableService> _listCacheableServicesRegistry = new ArrayList<>( );
+    private static Map<String, List<EntityChangeListener>> _mapEntityChangeListeners = new ConcurrentHashMap<>( );
     private int _nDefaultMaxElementsInMemory;
     private boolean _bDefaultEternal;
     private long _lDefaultTimeToIdle;
@@ -104,6 +110,7 @@ public final class CacheService
     private long _lDefaultDiskExpiry;
     private int _nDefaultMaxElementsOnDisk;
     private boolean _bDefaultStatistics;
+    private long _lDefaultSoftTimeToLive;
 
     /**
      * Creates a new instance of CacheService
@@ -178,7 +185,8 @@ public final class CacheService
     }
 
     /**
-     * Reset all caches
+     * Reset all caches. This is an explicit administration action : the business layer should notify entity changes with
+     * {@link #notifyEntityChange(EntityChangeEvent)} so that only the dependent caches are invalidated.
      */
     public static void resetCaches( )
     {
@@ -210,6 +218,113 @@ public final class CacheService
 
         // read cache status from file "caches.dat"
         cs.enableCache( getStatus( cs ) );
+
+        if ( cs instanceof EntityChangeListener )
+        {
+            registerEntityChangeListener( (EntityChangeListener) cs );
+        }
+    }
+
+    /**
+     * Registers a listener for the changes of the entity types it depends on. Cacheable services implementing {@link EntityChangeListener} are registered
+     * by {@link #registerCacheableService(CacheableService)}.
+     *
+     * @param listener
+     *            The listener
+     */
+    public static void registerEntityChangeListener( EntityChangeListener listener )
+    {
+        for ( String strEntityType : listener.getEntityDependencies( ) )
+        {
+            List<EntityChangeListener> listListeners = _mapEntityChangeListeners.computeIfAbsent( strEntityType, t -> new CopyOnWriteArrayList<>( ) );
+
+            if ( !listListeners.contains( listener ) )
+            {
+                listListeners.add( listener );
+            }
+        }
+    }
+
+    /**
+     * Notifies an entity change to the caches depending on the entity type. The other caches are left untouched. The change is also published to the other
+     * nodes of the cluster if the cluster-wide invalidation is enabled.
+     *
+     * @param event
+     *            The entity change event
+     */
+    public static void notifyEntityChange( EntityChangeEvent event )
+    {
+        dispatchEntityChange( event );
+        CacheInvalidationService.publish( event );
+    }
+
+    /**
+     * Publishes an entity change to the other nodes of the cluster only. To be used for the changes that are applied to the local caches by other
+     * listeners.
+     *
+     * @param event
+     *            The entity change event
+     */
+    public static void publishEntityChange( EntityChangeEvent event )
+    {
+        CacheInvalidationService.publish( event );
+    }
+
+    /**
+     * Applies the entity changes received from the other nodes of the cluster to the local caches, without publishing them again
+     *
+     * @param listEvents
+     *            The entity change events
+     */
+    public static void processRemoteEntityChanges( Collection<EntityChangeEvent> listEvents )
+    {
+        for ( EntityChangeEvent event : listEvents )
+        {
+            dispatchEntityChange( event );
+        }
+    }
+
+    /**
+     * Dispatches an entity change to the local caches depending on the entity type
+     *
+     * @param event
+     *            The entity change event
+     */
+    private static void dispatchEntityChange( EntityChangeEvent event )
+    {
+        List<EntityChangeListener> listListeners = _mapEntityChangeListeners.get( event.getEntityType( ) );
+
+        if ( listListeners == null )
+        {
+            return;
+        }
+
+        for ( EntityChangeListener listener : listListeners )
+        {
+            try
+            {
+                listener.processEntityChange( event );
+            }
+            catch( RuntimeException e )
+            {
+                AppLogService.error( "Error processing {} by {}", event, listener, e );
+            }
+        }
+    }
+
+    /**
+     * Notifies an entity change to the caches depending on the entity type
+     *
+     * @param strEntityType
+     *            The entity type
+     * @param strEntityId
+     *            The entity id
+     * @param nType
+     *            The change type
+     */
+    public static void notifyEntityChange( String strEntityType, String strEntityId, int nType )
+    {
+        notifyEntityChange( new EntityChangeEvent( strEntityType, strEntityId, nType ) );
     }
 
     /**
@@ -271,6 +386,7 @@ public final class CacheService
         _lDefaultDiskExpiry = AppPropertiesService.getPropertyLong( PREFIX_DEFAULT + PROPERTY_DISK_EXPIRY, 120L );
         _nDefaultMaxElementsOnDisk = AppPropertiesService.getPropertyInt( PREFIX_DEFAULT + PROPERTY_MAX_ELEMENTS_DISK, 10000 );
         _bDefaultStatistics = AppPropertiesService.getPropertyBoolean( PREFIX_DEFAULT + PROPERTY_STATISTICS, false );
+        _lDefaultSoftTimeToLive = AppPropertiesService.getPropertyLong( PREFIX_DEFAULT + PROPERTY_SOFT_TIME_TO_LIVE, 0L );
     }
 
     /**
@@ -384,6 +500,20 @@ public final class CacheService
         return config;
     }
 
+    /**
+     * Returns the soft time to live of a cache. Once this delay is over, a cached object is considered as stale : it can still be served while it is being
+     * rebuilt, until it expires after the time to live (hard time to live) of the cache.
+     *
+     * @param strCacheName
+     *            The cache name
+     * @return The soft time to live in seconds, 0 if the cache doesn't use stale objects
+     * @since 7.0.11
+     */
+    public long getSoftTimeToLive( String strCacheName )
+    {
+        return getLongProperty( strCacheName, PROPERTY_SOFT_TIME_TO_LIVE, _lDefaultSoftTimeToLive );
+    }
+
     /**
      * Read an Integer property
      *
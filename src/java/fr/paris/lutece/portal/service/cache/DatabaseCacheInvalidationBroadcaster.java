@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import fr.paris.lutece.portal.business.cache.CacheInvalidation;
+import fr.paris.lutece.portal.business.cache.CacheInvalidationHome;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache invalidation broadcaster using the database shared by the nodes : the changes are logged in the core_cache_invalidation table, which is polled by
+ * each node. It needs no other infrastructure, but the changes reach the other nodes with the delay of the polling daemon. <br>
+ * The IDs are assigned when the rows are inserted, not when they are committed : a row may become visible after a row with a greater ID. Each poll therefore
+ * reads again the rows logged during an overlap window, and skips the rows already read. The rows are dated by the database and the window is computed
+ * from its current date, so that the clocks of the nodes do not need to be synchronized.
+ */
+public class DatabaseCacheInvalidationBroadcaster implements ICacheInvalidationBroadcaster
+{
+    private static final String PROPERTY_RETENTION = "lutece.cache.invalidation.database.retention";
+    private static final long DEFAULT_RETENTION = 3600L;
+    private static final String PROPERTY_OVERLAP = "lutece.cache.invalidation.database.overlap";
+    private static final long DEFAULT_OVERLAP = 60L;
+    private static final long PURGE_INTERVAL = 60000L;
+
+    private int _nStartIdInvalidation = -1;
+    private final Map<Integer, Long> _mapReadInvalidations = new HashMap<>( );
+    private long _lLastPurge;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void broadcast( String strNodeId, Collection<EntityChangeEvent> listEvents )
+    {
+        List<CacheInvalidation> listInvalidations = new ArrayList<>( listEvents.size( ) );
+
+        for ( EntityChangeEvent event : listEvents )
+        {
+            CacheInvalidation invalidation = new CacheInvalidation( );
+            invalidation.setNodeId( strNodeId );
+            invalidation.setEntityType( event.getEntityType( ) );
+            invalidation.setEntityId( event.getEntityId( ) );
+            invalidation.setEventType( event.getEventType( ) );
+            listInvalidations.add( invalidation );
+        }
+
+        CacheInvalidationHome.create( listInvalidations );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized Collection<EntityChangeEvent> receive( String strNodeId )
+    {
+        List<EntityChangeEvent> listEvents = new ArrayList<>( );
+        long lNow = CacheInvalidationHome.getCurrentDate( ).getTime( );
+
+        if ( _nStartIdInvalidation < 0 )
+        {
+            // The caches of a starting node are empty : only the next changes matter
+            _nStartIdInvalidation = CacheInvalidationHome.getLastIdInvalidation( );
+        }
+        else
+        {
+            long lOverlap = AppPropertiesService.getPropertyLong( PROPERTY_OVERLAP, DEFAULT_OVERLAP );
+            Timestamp dateSince = new Timestamp( lNow - ( lOverlap * 1000L ) );
+            int nBatchSize = CacheInvalidationService.getBatchSize( );
+            int nLastIdInvalidation = _nStartIdInvalidation;
+            List<CacheInvalidation> listInvalidations;
+
+            do
+            {
+                listInvalidations = CacheInvalidationHome.findAfter( nLastIdInvalidation, dateSince, strNodeId, nBatchSize );
+
+                for ( CacheInvalidation invalidation : listInvalidations )
+                {
+                    nLastIdInvalidation = invalidation.getIdInvalidation( );
+
+                    if ( _mapReadInvalidations.putIfAbsent( invalidation.getIdInvalidation( ), invalidation.getDateCreation( ).getTime( ) ) == null )
+                    {
+                        listEvents.add( new EntityChangeEvent( invalidation.getEntityType( ), invalidation.getEntityId( ), invalidation.getEventType( ) ) );
+                    }
+                }
+            }
+            while ( listInvalidations.size( ) == nBatchSize );
+
+            // The rows older than the overlap window are not read again
+            _mapReadInvalidations.values( ).removeIf( lDateCreation -> lDateCreation < dateSince.getTime( ) );
+        }
+
+        purge( lNow );
+
+        return listEvents;
+    }
+
+    /**
+     * Removes the invalidations older than the retention delay. Every node purges the log, at most once per minute.
+     * 
+     * @param lNow
+     *            The current date of the database
+     */
+    private void purge( long lNow )
+    {
+        if ( ( lNow - _lLastPurge ) > PURGE_INTERVAL )
+        {
+            long lRetention = AppPropertiesService.getPropertyLong( PROPERTY_RETENTION, DEFAULT_RETENTION );
+            CacheInvalidationHome.removeBefore( new Timestamp( lNow - ( lRetention * 1000L ) ) );
+            _lLastPurge = lNow;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import java.util.Objects;
+
+/**
+ * Typed change event published by the business layer when an entity is created, updated or removed. It is dispatched by the {@link CacheService} to the
+ * caches depending on the entity type.
+ */
+public class EntityChangeEvent
+{
+    public static final int ENTITY_CREATED = 1;
+    public static final int ENTITY_UPDATED = 2;
+    public static final int ENTITY_REMOVED = 3;
+
+    // Variables declarations
+    private final String _strEntityType;
+    private final String _strEntityId;
+    private final int _nType;
+
+    /**
+     * Creates a new instance of EntityChangeEvent
+     * 
+     * @param strEntityType
+     *            The entity type (ie: the resource type of the entity)
+     * @param strEntityId
+     *            The entity id, or null if the change concerns all the entities of the type
+     * @param nType
+     *            The change type
+     */
+    public EntityChangeEvent( String strEntityType, String strEntityId, int nType )
+    {
+        _strEntityType = strEntityType;
+        _strEntityId = strEntityId;
+        _nType = nType;
+    }
+
+    /**
+     * Returns the entity type
+     *
+     * @return The entity type
+     */
+    public String getEntityType( )
+    {
+        return _strEntityType;
+    }
+
+    /**
+     * Returns the entity id
+     *
+     * @return The entity id, or null if the change concerns all the entities of the type
+     */
+    public String getEntityId( )
+    {
+        return _strEntityId;
+    }
+
+    /**
+     * Returns the change type
+     *
+     * @return The change type
+     */
+    public int getEventType( )
+    {
+        return _nType;
+    }
+
+    /**
+     * {@inheritDoc} Two events are equal if they concern the same entity and the same change, so that repeated changes can be coalesced.
+     */
+    @Override
+    public boolean equals( Object object )
+    {
+        if ( this == object )
+        {
+            return true;
+        }
+
+        if ( !( object instanceof EntityChangeEvent ) )
+        {
+            return false;
+        }
+
+        EntityChangeEvent event = (EntityChangeEvent) object;
+
+        return ( _nType == event._nType ) && Objects.equals( _strEntityType, event._strEntityType ) && Objects.equals( _strEntityId, event._strEntityId );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode( )
+    {
+        return Objects.hash( _strEntityType, _strEntityId, _nType );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString( )
+    {
+        return "EntityChangeEvent[" + _strEntityType + ":" + _strEntityId + ", type=" + _nType + "]";
+    }
+}
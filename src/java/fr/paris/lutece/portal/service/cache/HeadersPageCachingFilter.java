@@ -33,6 +33,8 @@
  */
 package fr.paris.lutece.portal.service.cache;
 
+import fr.paris.lutece.portal.business.page.Page;
+import fr.paris.lutece.portal.service.page.PageCacheService;
 import fr.paris.lutece.portal.service.page.PageEvent;
 import fr.paris.lutece.portal.service.page.PageEventListener;
 import fr.paris.lutece.portal.service.page.PageService;
@@ -48,6 +50,8 @@ import net.sf.ehcache.constructs.web.AlreadyGzippedException;
 import net.sf.ehcache.constructs.web.filter.FilterNonReentrantException;
 import net.sf.ehcache.constructs.web.filter.SimpleCachingHeadersPageCachingFilter;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 import javax.servlet.FilterChain;
@@ -61,7 +65,7 @@ import org.apache.logging.log4j.Logger;
 /**
  * Headers Page Caching Filter based on EHCACHE WEB
  */
-public class HeadersPageCachingFilter extends SimpleCachingHeadersPageCachingFilter implements CacheableService, PageEventListener
+public class HeadersPageCachingFilter extends SimpleCachingHeadersPageCachingFilter implements CacheableService, PageEventListener, EntityChangeListener
 {
     private static final String BLOCKING_TIMEOUT_MILLIS = "blockingTimeoutMillis";
     private static final String INIT_PARAM_CACHE_NAME = "cacheName";
@@ -299,11 +303,56 @@ public class HeadersPageCachingFilter extends SimpleCachingHeadersPageCachingFil
     @Override
     public void processPageEvent( PageEvent event )
     {
-        String strPattern = "page_id=" + event.getPage( ).getId( );
+        if ( event.getEventType( ) != PageEvent.PAGE_CREATED )
+        {
+            removePage( String.valueOf( event.getPage( ).getId( ) ) );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Collection<String> getEntityDependencies( )
+    {
+        return Arrays.asList( Page.RESOURCE_TYPE, PageCacheService.ENTITY_TYPE_PAGE_CONTENT );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void processEntityChange( EntityChangeEvent event )
+    {
+        if ( blockingCache == null )
+        {
+            return;
+        }
+
+        if ( ( event.getEventType( ) == EntityChangeEvent.ENTITY_UPDATED ) && ( event.getEntityId( ) != null ) )
+        {
+            removePage( event.getEntityId( ) );
+        }
+        else
+        {
+            // the page tree has changed : the menus of all the cached pages may be outdated
+            resetCache( );
+        }
+    }
+
+    /**
+     * Removes the cached responses of a page
+     *
+     * @param strPageId
+     *            The page ID
+     */
+    private void removePage( String strPageId )
+    {
+        String strPattern = "page_id=" + strPageId;
 
         for ( String strKey : (List<String>) blockingCache.getKeys( ) )
         {
-            if ( strKey.contains( strPattern ) && ( event.getEventType( ) != PageEvent.PAGE_CREATED ) )
+            if ( strKey.contains( strPattern ) )
             {
                 blockingCache.remove( strKey );
             }
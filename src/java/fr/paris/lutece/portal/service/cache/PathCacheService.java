@@ -33,10 +33,14 @@
  */
 package fr.paris.lutece.portal.service.cache;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.lang3.StringUtils;
 
+import fr.paris.lutece.portal.business.page.Page;
 import fr.paris.lutece.portal.service.page.PageEvent;
 import fr.paris.lutece.portal.service.page.PageEventListener;
 import fr.paris.lutece.portal.service.page.PageService;
@@ -45,7 +49,7 @@ import fr.paris.lutece.portal.web.constants.Parameters;
 /**
  * XPage path cache service
  */
-public class PathCacheService extends AbstractCacheableService implements IPathCacheService, PageEventListener
+public class PathCacheService extends AbstractCacheableService implements IPathCacheService, PageEventListener, EntityChangeListener
 {
 
     /**
@@ -123,4 +127,26 @@ public class PathCacheService extends AbstractCacheableService implements IPathC
         }
     }
 
+    /**
+     * {@inheritDoc } The cached paths depend on the names and the hierarchy of the pages.
+     */
+    @Override
+    public Collection<String> getEntityDependencies( )
+    {
+        return Collections.singletonList( Page.RESOURCE_TYPE );
+    }
+
+    /**
+     * {@inheritDoc } Receives the page changes of this node and of the other nodes of the cluster.
+     */
+    @Override
+    public void processEntityChange( EntityChangeEvent event )
+    {
+        if ( isCacheEnable( ) && event.getEventType( ) != EntityChangeEvent.ENTITY_CREATED )
+        {
+            // same as page events : a new page is not yet in any cached path
+            resetCache( );
+        }
+    }
+
 }
@@ -34,12 +34,19 @@
 package fr.paris.lutece.portal.service.datastore;
 
 import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
+import fr.paris.lutece.portal.service.cache.EntityChangeListener;
+
+import java.util.Collection;
+import java.util.Collections;
 
 /**
  * Datastore Cache Service
  */
-public class DatastoreCacheService extends AbstractCacheableService
+public class DatastoreCacheService extends AbstractCacheableService implements EntityChangeListener
 {
+    /** Entity type of the changes of a datastore key published to the other nodes */
+    public static final String ENTITY_TYPE = "DATASTORE";
     private static final String CACHE_SERVICE_NAME = "Datastore Cache Service";
 
     /** Constructor */
@@ -58,4 +65,29 @@ public class DatastoreCacheService extends AbstractCacheableService
     {
         return CACHE_SERVICE_NAME;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<String> getEntityDependencies( )
+    {
+        return Collections.singletonList( ENTITY_TYPE );
+    }
+
+    /**
+     * {@inheritDoc} The changes of the datastore keys come from the other nodes : the local changes are evicted by the {@link DatastoreService}.
+     */
+    @Override
+    public void processEntityChange( EntityChangeEvent event )
+    {
+        if ( event.getEntityId( ) != null )
+        {
+            removeKey( event.getEntityId( ) );
+        }
+        else
+        {
+            resetCache( );
+        }
+    }
 }
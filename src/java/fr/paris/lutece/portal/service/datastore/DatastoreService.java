@@ -36,6 +36,8 @@ package fr.paris.lutece.portal.service.datastore;
 import fr.paris.lutece.portal.business.datastore.DataEntity;
 import fr.paris.lutece.portal.business.datastore.DataEntityHome;
 import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.cache.CacheService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
 import fr.paris.lutece.portal.service.template.FreeMarkerTemplateService;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPathService;
@@ -163,6 +165,8 @@ public final class DatastoreService
                     {
                         _cache.removeKey( strKey );
                     }
+
+                    CacheService.publishEntityChange( new EntityChangeEvent( DatastoreCacheService.ENTITY_TYPE, strKey, EntityChangeEvent.ENTITY_UPDATED ) );
                 }
                 else
                 {
@@ -208,6 +212,8 @@ public final class DatastoreService
                 {
                     _cache.removeKey( strKey );
                 }
+
+                CacheService.publishEntityChange( new EntityChangeEvent( DatastoreCacheService.ENTITY_TYPE, strKey, EntityChangeEvent.ENTITY_REMOVED ) );
             }
         }
         catch( NoDatabaseException e )
@@ -338,15 +344,7 @@ public final class DatastoreService
 
                 do
                 {
-                    String strKey = matcher.group( 1 );
-                    String strValue = DatastoreService.getDataValue( strKey, VALUE_MISSING );
-
-                    if ( VALUE_MISSING.equals( strValue ) )
-                    {
-                        AppLogService.error( "Datastore Key missing : {} - Please fix to avoid performance issues.", strKey );
-                    }
-
-                    matcher.appendReplacement( sb, strValue );
+                    matcher.appendReplacement( sb, getDataValueForTemplate( matcher.group( 1 ) ) );
                 }
                 while ( matcher.find( ) );
 
@@ -358,6 +356,26 @@ public final class DatastoreService
         return result;
     }
 
+    /**
+     * Get the value of a datastore key found in a template. A missing key is logged.
+     *
+     * @param strKey
+     *            The key
+     * @return The value, or a message if the key is missing
+     * @since 7.0.11
+     */
+    public static String getDataValueForTemplate( String strKey )
+    {
+        String strValue = getDataValue( strKey, VALUE_MISSING );
+
+        if ( VALUE_MISSING.equals( strValue ) )
+        {
+            AppLogService.error( "Datastore Key missing : {} - Please fix to avoid performance issues.", strKey );
+        }
+
+        return strValue;
+    }
+
     /**
      * Check if a key is available in the datastore
      *
@@ -1,40 +1,117 @@
 package fr.paris.lutece.portal.service.event;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import fr.paris.lutece.portal.business.event.AbstractLuteceEvent;
 import fr.paris.lutece.portal.service.util.AppLogService;
 
-public  abstract class  AbstractEventManager <T extends AbstractLuteceEvent> 
+public abstract class AbstractEventManager<T extends AbstractLuteceEvent>
 {
+    private Map<String, Consumer<T>> _listeners = new ConcurrentHashMap<>( );
+    private Map<String, AsynchronousEventQueue> _queues = new ConcurrentHashMap<>( );
 
-	private Map<String, Consumer<T>> _listeners = new HashMap<>( );
-   
     /**
-     * Subscribe to this listener.
+     * Subscribe to this listener. The events are delivered synchronously.
      *
-     * @param listener
+     * @param strName
+     *            the listener name
+     * @param consumerFunction
      *            the listener
      */
-	public void register( String strName, Consumer<T> consumerFunction )
+    public void register( String strName, Consumer<T> consumerFunction )
     {
-    	_listeners.put( strName, consumerFunction );
-        AppLogService.info( "New Lutece event listener registered : {}", strName );
+        register( strName, consumerFunction, false );
     }
-    
+
     /**
      * Subscribe to this listener.
      *
-     * @param listener
+     * @param strName
+     *            the listener name
+     * @param consumerFunction
      *            the listener
+     * @param bAsynchronous
+     *            true if the events should be delivered by worker threads, in order for a given ordering key, instead of the thread notifying them
+     */
+    public void register( String strName, Consumer<T> consumerFunction, boolean bAsynchronous )
+    {
+        Consumer<T> listener = consumerFunction;
+        AsynchronousEventQueue queue = null;
+
+        if ( bAsynchronous && AsynchronousEventQueue.isEnabled( ) )
+        {
+            AsynchronousEventQueue asynchronousQueue = new AsynchronousEventQueue( strName );
+            listener = event -> asynchronousQueue.submit( getOrderingKey( event ), event, ( ) -> consumerFunction.accept( event ) );
+            queue = asynchronousQueue;
+        }
+
+        _listeners.put( strName, listener );
+
+        AsynchronousEventQueue previousQueue = ( queue == null ) ? _queues.remove( strName ) : _queues.put( strName, queue );
+
+        if ( previousQueue != null )
+        {
+            previousQueue.shutdown( );
+        }
+
+        AppLogService.info( "New Lutece event listener registered : {}", strName );
+    }
+
+    /**
+     * Notify the event to the listeners
+     *
+     * @param event
+     *            the event
      */
-	public void notifyListeners( T event )
+    public void notifyListeners( T event )
     {
-        for ( String key : _listeners.keySet( ) )
+        for ( Consumer<T> listener : _listeners.values( ) )
         {
-        	_listeners.get( key ).accept( event );            
+            listener.accept( event );
         }
     }
+
+    /**
+     * Returns the key ordering the asynchronous deliveries : the events of a same key are delivered in order
+     *
+     * @param event
+     *            the event
+     * @return the ordering key
+     */
+    protected Object getOrderingKey( T event )
+    {
+        return event.getParam( );
+    }
+
+    /**
+     * Returns the statistics of the asynchronous deliveries
+     *
+     * @return The statistics, one line per asynchronous listener
+     */
+    public String getStatistics( )
+    {
+        StringBuilder sbStatistics = new StringBuilder( );
+
+        for ( AsynchronousEventQueue queue : _queues.values( ) )
+        {
+            sbStatistics.append( queue.getStatistics( ) ).append( '\n' );
+        }
+
+        return sbStatistics.toString( );
+    }
+
+    /**
+     * Stops the asynchronous deliveries. Should be called when the webapp is stopped.
+     */
+    public void shutdown( )
+    {
+        for ( AsynchronousEventQueue queue : _queues.values( ) )
+        {
+            queue.shutdown( );
+        }
+
+        _queues.clear( );
+    }
 }
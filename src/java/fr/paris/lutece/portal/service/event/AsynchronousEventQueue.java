@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Asynchronous delivery of events to a listener. The events are dispatched on lanes by ordering key : each lane has its own bounded queue and worker
+ * thread, so the events of a same key (ie: the same resource) are delivered in order while the events of different keys are delivered in parallel. When a
+ * lane is full the producer waits for a free slot up to a timeout, then the event is logged as a dead letter.
+ */
+final class AsynchronousEventQueue
+{
+    private static final String PROPERTY_PREFIX = "event.async.";
+    private static final String PROPERTY_ENABLED = "event.async.enabled";
+    private static final String PROPERTY_THREADS = "threads";
+    private static final String PROPERTY_QUEUE_SIZE = "queueSize";
+    private static final String PROPERTY_OFFER_TIMEOUT = "offerTimeout";
+    private static final int DEFAULT_THREADS = 2;
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+    private static final long DEFAULT_OFFER_TIMEOUT = 1000L;
+    private static final String THREAD_NAME_PREFIX = "Lutece-Event-";
+
+    private final String _strListenerName;
+    private final List<Lane> _listLanes;
+    private final long _lOfferTimeout;
+    private final LongAdder _counterDelivered = new LongAdder( );
+    private final LongAdder _counterFailed = new LongAdder( );
+    private final LongAdder _counterRejected = new LongAdder( );
+    private volatile boolean _bShutdown;
+
+    /**
+     * Creates a queue configured with the properties event.async.threads, event.async.queueSize and event.async.offerTimeout. Each of them can be
+     * overridden for a listener with event.async.&lt;listener name&gt;.&lt;property&gt;
+     *
+     * @param strListenerName
+     *            The listener name
+     */
+    AsynchronousEventQueue( String strListenerName )
+    {
+        this( strListenerName, getProperty( strListenerName, PROPERTY_THREADS, DEFAULT_THREADS ),
+                getProperty( strListenerName, PROPERTY_QUEUE_SIZE, DEFAULT_QUEUE_SIZE ),
+                getProperty( strListenerName, PROPERTY_OFFER_TIMEOUT, DEFAULT_OFFER_TIMEOUT ) );
+    }
+
+    /**
+     * Creates a queue
+     *
+     * @param strListenerName
+     *            The listener name
+     * @param nThreads
+     *            The number of lanes
+     * @param nQueueSize
+     *            The capacity of each lane
+     * @param lOfferTimeout
+     *            The time in ms a producer waits for a free slot in a full lane
+     */
+    AsynchronousEventQueue( String strListenerName, int nThreads, int nQueueSize, long lOfferTimeout )
+    {
+        _strListenerName = strListenerName;
+        _lOfferTimeout = Math.max( 0L, lOfferTimeout );
+        _listLanes = new ArrayList<>( );
+
+        for ( int i = 0; i < Math.max( 1, nThreads ); i++ )
+        {
+            Lane lane = new Lane( Math.max( 1, nQueueSize ) );
+            Thread thread = new Thread( lane, THREAD_NAME_PREFIX + strListenerName + "-" + i );
+            thread.setDaemon( true );
+            lane._thread = thread;
+            _listLanes.add( lane );
+            thread.start( );
+        }
+    }
+
+    /**
+     * Tells if the asynchronous delivery is enabled. If not, the listeners asking for it are notified synchronously.
+     *
+     * @return true if enabled
+     */
+    static boolean isEnabled( )
+    {
+        return AppPropertiesService.getPropertyBoolean( PROPERTY_ENABLED, true );
+    }
+
+    /**
+     * Queues the delivery of an event
+     *
+     * @param key
+     *            The ordering key : the events of a same key are delivered in order. May be null.
+     * @param event
+     *            The event, used for logging
+     * @param delivery
+     *            The delivery of the event to the listener
+     * @return true if the event has been queued
+     */
+    boolean submit( Object key, Object event, Runnable delivery )
+    {
+        if ( _bShutdown )
+        {
+            deadLetter( event, "the queue is shut down", null );
+
+            return false;
+        }
+
+        int nHash = ( key == null ) ? 0 : key.hashCode( );
+        Lane lane = _listLanes.get( Math.floorMod( nHash ^ ( nHash >>> 16 ), _listLanes.size( ) ) );
+
+        try
+        {
+            if ( lane._queue.offer( new Delivery( event, delivery ), _lOfferTimeout, TimeUnit.MILLISECONDS ) )
+            {
+                return true;
+            }
+
+            deadLetter( event, "the queue is full", null );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            deadLetter( event, "the producer was interrupted", null );
+        }
+
+        return false;
+    }
+
+    /**
+     * Stops the workers. The pending events are logged as dead letters.
+     */
+    void shutdown( )
+    {
+        _bShutdown = true;
+
+        for ( Lane lane : _listLanes )
+        {
+            lane._thread.interrupt( );
+        }
+    }
+
+    /**
+     * Returns the number of events waiting for delivery
+     *
+     * @return The number of pending events
+     */
+    int getPendingCount( )
+    {
+        int nCount = 0;
+
+        for ( Lane lane : _listLanes )
+        {
+            nCount += lane._queue.size( );
+        }
+
+        return nCount;
+    }
+
+    /**
+     * Returns the statistics of the queue
+     *
+     * @return The statistics
+     */
+    String getStatistics( )
+    {
+        return _strListenerName + " : lanes = " + _listLanes.size( ) + ", pending = " + getPendingCount( ) + ", delivered = " + _counterDelivered.sum( )
+                + ", failed = " + _counterFailed.sum( ) + ", rejected = " + _counterRejected.sum( );
+    }
+
+    /**
+     * Logs an event that could not be delivered
+     *
+     * @param event
+     *            The event
+     * @param strReason
+     *            The reason
+     * @param e
+     *            The exception if any
+     */
+    private void deadLetter( Object event, String strReason, Throwable e )
+    {
+        if ( e == null )
+        {
+            _counterRejected.increment( );
+            AppLogService.error( "Event not delivered to listener {} ({}) : {}", _strListenerName, strReason, event );
+        }
+        else
+        {
+            _counterFailed.increment( );
+            AppLogService.error( "Event not delivered to listener {} ({}) : {}", _strListenerName, strReason, event, e );
+        }
+    }
+
+    /**
+     * Reads an integer property of the queue
+     *
+     * @param strListenerName
+     *            The listener name
+     * @param strProperty
+     *            The property
+     * @param nDefault
+     *            The default value
+     * @return The value
+     */
+    private static int getProperty( String strListenerName, String strProperty, int nDefault )
+    {
+        int nValue = AppPropertiesService.getPropertyInt( PROPERTY_PREFIX + strProperty, nDefault );
+
+        return AppPropertiesService.getPropertyInt( PROPERTY_PREFIX + strListenerName + "." + strProperty, nValue );
+    }
+
+    /**
+     * Reads a long property of the queue
+     *
+     * @param strListenerName
+     *            The listener name
+     * @param strProperty
+     *            The property
+     * @param lDefault
+     *            The default value
+     * @return The value
+     */
+    private static long getProperty( String strListenerName, String strProperty, long lDefault )
+    {
+        long lValue = AppPropertiesService.getPropertyLong( PROPERTY_PREFIX + strProperty, lDefault );
+
+        return AppPropertiesService.getPropertyLong( PROPERTY_PREFIX + strListenerName + "." + strProperty, lValue );
+    }
+
+    /**
+     * A queued event
+     */
+    private static final class Delivery
+    {
+        private final Object _event;
+        private final Runnable _delivery;
+
+        /**
+         * Constructor
+         *
+         * @param event
+         *            The event
+         * @param delivery
+         *            The delivery
+         */
+        Delivery( Object event, Runnable delivery )
+        {
+            _event = event;
+            _delivery = delivery;
+        }
+    }
+
+    /**
+     * A lane : a bounded queue consumed by a single worker
+     */
+    private final class Lane implements Runnable
+    {
+        private final BlockingQueue<Delivery> _queue;
+        private Thread _thread;
+
+        /**
+         * Constructor
+         *
+         * @param nCapacity
+         *            The capacity of the queue
+         */
+        Lane( int nCapacity )
+        {
+            _queue = new ArrayBlockingQueue<>( nCapacity );
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run( )
+        {
+            while ( !_bShutdown )
+            {
+                Delivery delivery;
+
+                try
+                {
+                    delivery = _queue.take( );
+                }
+                catch( InterruptedException e )
+                {
+                    break;
+                }
+
+                try
+                {
+                    delivery._delivery.run( );
+                    _counterDelivered.increment( );
+                }
+                catch( RuntimeException e )
+                {
+                    deadLetter( delivery._event, "the listener failed", e );
+                }
+            }
+
+            for ( Delivery delivery = _queue.poll( ); delivery != null; delivery = _queue.poll( ) )
+            {
+                deadLetter( delivery._event, "the queue is shut down", null );
+            }
+        }
+    }
+}
@@ -1,28 +1,35 @@
 package fr.paris.lutece.portal.service.event;
 
 import fr.paris.lutece.portal.business.event.LuteceUserEvent;
+import fr.paris.lutece.portal.service.security.LuteceUser;
 
 public class LuteceUserEventManager extends AbstractEventManager<LuteceUserEvent>
 {
 
     private static LuteceUserEventManager _instance = null;
 
-	/**
-	 * get service
-	 * @return the service
-	 */
-	public static LuteceUserEventManager getInstance( ) 
-	{
-		if ( _instance == null )
-		{
-			_instance = new LuteceUserEventManager( );
-		}
-		
-		return _instance;
-	}
-	
-	 
-}
+    /**
+     * get service
+     * @return the service
+     */
+    public static synchronized LuteceUserEventManager getInstance( )
+    {
+        if ( _instance == null )
+        {
+            _instance = new LuteceUserEventManager( );
+        }
 
+        return _instance;
+    }
 
+    /**
+     * {@inheritDoc} The events of a user are delivered in order.
+     */
+    @Override
+    protected Object getOrderingKey( LuteceUserEvent event )
+    {
+        LuteceUser user = event.getParam( );
 
+        return ( user == null ) ? null : user.getName( );
+    }
+}
@@ -37,17 +37,22 @@ import fr.paris.lutece.portal.business.event.EventRessourceListener;
 import fr.paris.lutece.portal.business.event.ResourceEvent;
 import fr.paris.lutece.portal.service.util.AppLogService;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  *
- * ResourceEventManager
+ * ResourceEventManager. Listeners are notified on the thread firing the event, unless they ask for an asynchronous delivery : their events are then
+ * queued and delivered by worker threads, in order for a given resource.
  *
  */
 public final class ResourceEventManager
 {
-    private static List<EventRessourceListener> _lstListeners = new ArrayList<>( );
+    private static List<EventRessourceListener> _lstListeners = new CopyOnWriteArrayList<>( );
+    private static Map<EventRessourceListener, AsynchronousEventQueue> _mapQueues = new ConcurrentHashMap<>( );
 
     /**
      * Private constructor - this class need not be instantiated
@@ -64,6 +69,11 @@ public final class ResourceEventManager
      */
     public static void register( EventRessourceListener listener )
     {
+        if ( listener.isAsynchronous( ) && AsynchronousEventQueue.isEnabled( ) )
+        {
+            _mapQueues.computeIfAbsent( listener, l -> new AsynchronousEventQueue( l.getName( ) ) );
+        }
+
         _lstListeners.add( listener );
         AppLogService.info( "New resource evnt listener registered : {}", listener.getName( ) );
     }
@@ -78,7 +88,7 @@ public final class ResourceEventManager
     {
         for ( EventRessourceListener listener : _lstListeners )
         {
-            listener.addedResource( event );
+            deliver( listener, event, listener::addedResource );
         }
     }
 
@@ -92,7 +102,7 @@ public final class ResourceEventManager
     {
         for ( EventRessourceListener listener : _lstListeners )
         {
-            listener.updatedResource( event );
+            deliver( listener, event, listener::updatedResource );
         }
     }
 
@@ -106,7 +116,62 @@ public final class ResourceEventManager
     {
         for ( EventRessourceListener listener : _lstListeners )
         {
-            listener.deletedResource( event );
+            deliver( listener, event, listener::deletedResource );
+        }
+    }
+
+    /**
+     * Returns the statistics of the asynchronous deliveries
+     *
+     * @return The statistics, one line per asynchronous listener
+     */
+    public static String getStatistics( )
+    {
+        StringBuilder sbStatistics = new StringBuilder( );
+
+        for ( AsynchronousEventQueue queue : _mapQueues.values( ) )
+        {
+            sbStatistics.append( queue.getStatistics( ) ).append( '\n' );
+        }
+
+        return sbStatistics.toString( );
+    }
+
+    /**
+     * Stops the asynchronous deliveries. Should be called when the webapp is stopped.
+     */
+    public static void shutdown( )
+    {
+        for ( AsynchronousEventQueue queue : _mapQueues.values( ) )
+        {
+            queue.shutdown( );
+        }
+
+        _mapQueues.clear( );
+    }
+
+    /**
+     * Delivers an event to a listener, synchronously or through its queue
+     *
+     * @param listener
+     *            the listener
+     * @param event
+     *            the event
+     * @param method
+     *            the method of the listener to call
+     */
+    private static void deliver( EventRessourceListener listener, ResourceEvent event, Consumer<ResourceEvent> method )
+    {
+        AsynchronousEventQueue queue = _mapQueues.get( listener );
+
+        if ( queue == null )
+        {
+            method.accept( event );
+        }
+        else
+        {
+            // the events of a resource are delivered in order
+            queue.submit( event.getTypeResource( ) + ":" + event.getIdResource( ), event, ( ) -> method.accept( event ) );
         }
     }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.file;
+
+import fr.paris.lutece.portal.business.file.FileHome;
+import fr.paris.lutece.portal.service.daemon.Daemon;
+import fr.paris.lutece.portal.service.file.implementation.LocalDatabaseFileService;
+import fr.paris.lutece.portal.service.file.implementation.LocalFileSystemFileService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.List;
+
+/**
+ * Daemon moving the contents of the files stored in the core_physical_file table by a {@link LocalDatabaseFileService} to its file system store, batch by
+ * batch. The migrated files keep their origin and their download links : the database provider reads their content from the file system store.
+ * <p>
+ * The daemon isn't declared in core.xml and must be declared to be used.
+ * </p>
+ */
+public class FileStoreMigrationDaemon extends Daemon
+{
+    private static final String PROPERTY_PROVIDER = "daemon.fileStoreMigrationDaemon.provider";
+    private static final String PROPERTY_BATCH_SIZE = "daemon.fileStoreMigrationDaemon.batchSize";
+    private static final String DEFAULT_PROVIDER = "defaultDatabaseFileStoreProvider";
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run( )
+    {
+        String strProvider = AppPropertiesService.getProperty( PROPERTY_PROVIDER, DEFAULT_PROVIDER );
+        int nBatchSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE ) );
+
+        IFileStoreServiceProvider provider = FileService.getInstance( ).getFileStoreServiceProvider( strProvider );
+
+        // Only the files of a provider able to read them back from the file system are moved
+        if ( !( provider instanceof LocalDatabaseFileService ) || ( ( (LocalDatabaseFileService) provider ).getFileSystemStore( ) == null ) )
+        {
+            setLastRunLogs( "FileStoreMigrationDaemon - No database file store provider with a file system store named " + strProvider );
+
+            return;
+        }
+
+        LocalFileSystemFileService fileSystemStore = ( (LocalDatabaseFileService) provider ).getFileSystemStore( );
+        int nMigrated = 0;
+        int nFailed = 0;
+        int nLastIdFile = 0;
+        List<Integer> listIdFiles;
+
+        do
+        {
+            listIdFiles = FileHome.findIdFilesWithPhysicalFile( strProvider, nLastIdFile, nBatchSize );
+
+            for ( Integer nIdFile : listIdFiles )
+            {
+                try
+                {
+                    if ( fileSystemStore.importPhysicalFile( nIdFile ) )
+                    {
+                        nMigrated++;
+                    }
+                }
+                catch( RuntimeException e )
+                {
+                    // The file keeps its physical file and will be tried again on the next run
+                    nFailed++;
+                    AppLogService.error( "FileStoreMigrationDaemon - Unable to migrate the file {}", nIdFile, e );
+                }
+
+                nLastIdFile = nIdFile;
+            }
+        }
+        while ( listIdFiles.size( ) == nBatchSize );
+
+        StringBuilder sbLogs = new StringBuilder( "FileStoreMigrationDaemon - " );
+        sbLogs.append( nMigrated ).append( " file(s) of " ).append( strProvider ).append( " moved to the file system" );
+        sbLogs.append( ", " ).append( nFailed ).append( " failure(s)" );
+        AppLogService.info( sbLogs );
+        setLastRunLogs( sbLogs.toString( ) );
+    }
+}
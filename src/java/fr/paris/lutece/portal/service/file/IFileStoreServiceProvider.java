@@ -38,8 +38,11 @@ import fr.paris.lutece.portal.business.file.File;
 import fr.paris.lutece.portal.service.admin.AccessDeniedException;
 import fr.paris.lutece.portal.service.security.UserNotSignedException;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 import org.apache.commons.fileupload.FileItem;
@@ -128,6 +131,36 @@ public interface IFileStoreServiceProvider extends Serializable
      */
     InputStream getInputStream( String strKey );
 
+    /**
+     * Write the content of a file returned by this provider to a channel. Providers that don't hold the content in memory can override this method to
+     * stream it.
+     * 
+     * @param file
+     *            The file, as returned by {@link #getFile(String)} or the getFileFromRequest methods
+     * @param channel
+     *            The channel to write the content to. The channel is not closed.
+     * @return the number of bytes written
+     * @throws IOException
+     *             If an error occurs while writing the content
+     * @since 7.0.11
+     */
+    default long transferTo( File file, WritableByteChannel channel ) throws IOException
+    {
+        if ( ( file.getPhysicalFile( ) == null ) || ( file.getPhysicalFile( ).getValue( ) == null ) )
+        {
+            return 0;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap( file.getPhysicalFile( ).getValue( ) );
+
+        while ( buffer.hasRemaining( ) )
+        {
+            channel.write( buffer );
+        }
+
+        return buffer.capacity( );
+    }
+
     /**
      * Delete a blob
      * 
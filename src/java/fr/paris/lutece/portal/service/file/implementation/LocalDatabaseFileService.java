@@ -36,12 +36,16 @@ package fr.paris.lutece.portal.service.file.implementation;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.fileupload.FileItem;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.apache.commons.lang3.StringUtils;
 
 import fr.paris.lutece.api.user.User;
@@ -59,6 +63,8 @@ import fr.paris.lutece.portal.service.file.IFileStoreServiceProvider;
 import fr.paris.lutece.portal.service.security.SecurityService;
 import fr.paris.lutece.portal.service.security.UserNotSignedException;
 import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 
 /**
  * 
@@ -68,11 +74,16 @@ import fr.paris.lutece.portal.service.util.AppException;
 public class LocalDatabaseFileService implements IFileStoreServiceProvider
 {
     private static final long serialVersionUID = 1L;
+    private static final String PROPERTY_MEMORY_THRESHOLD = "lutece.file.database.memoryThreshold";
+    private static final int DEFAULT_MEMORY_THRESHOLD = 1048576;
+    private static final String TEMP_FILE_PREFIX = "lutece-file-";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
 
     private IFileDownloadUrlService _fileDownloadUrlService;
     private IFileRBACService _fileRBACService;
     private String _strName;
     private boolean _bDefault;
+    private LocalFileSystemFileService _fileSystemStore;
 
     /**
      * init
@@ -127,6 +138,28 @@ public class LocalDatabaseFileService implements IFileStoreServiceProvider
         _fileDownloadUrlService = downloadUrlService;
     }
 
+    /**
+     * Get the store of the contents moved to the file system
+     * 
+     * @return the store, or null if the contents of this provider can't be moved
+     */
+    public LocalFileSystemFileService getFileSystemStore( )
+    {
+        return _fileSystemStore;
+    }
+
+    /**
+     * Set the store of the contents moved to the file system by the FileStoreMigrationDaemon. The moved files keep this provider as origin, and their content
+     * is read from this store.
+     * 
+     * @param fileSystemStore
+     *            The store
+     */
+    public void setFileSystemStore( LocalFileSystemFileService fileSystemStore )
+    {
+        _fileSystemStore = fileSystemStore;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -143,6 +176,16 @@ public class LocalDatabaseFileService implements IFileStoreServiceProvider
     public void delete( String strKey )
     {
         int nfileId = Integer.parseInt( strKey );
+        File file = FileHome.findByPrimaryKey( nfileId );
+
+        if ( ( file != null ) && ( file.getContentHash( ) != null ) )
+        {
+            // content moved to the file system
+            getFileSystemStore( file ).deleteFile( file );
+
+            return;
+        }
+
         FileHome.remove( nfileId );
 
     }
@@ -190,6 +233,17 @@ public class LocalDatabaseFileService implements IFileStoreServiceProvider
             	return null;
             }
             
+            if ( file.getContentHash( ) != null )
+            {
+                // content moved to the file system
+                if ( withPhysicalFile )
+                {
+                    file.setPhysicalFile( getFileSystemStore( file ).getStoredPhysicalFile( file.getContentHash( ) ) );
+                }
+
+                return file;
+            }
+
             if ( withPhysicalFile )
             {
                 // get file content
@@ -226,24 +280,10 @@ public class LocalDatabaseFileService implements IFileStoreServiceProvider
     public String storeInputStream( InputStream inputStream )
     {
         File file = new File( );
-        PhysicalFile physicalFile = new PhysicalFile( );
-
-        byte [ ] buffer;
-
-        try
-        {
-            buffer = new byte [ inputStream.available( )];
-        }
-        catch( IOException ex )
-        {
-            throw new AppException( ex.getMessage( ), ex );
-        }
-
-        physicalFile.setValue( buffer );
-        file.setPhysicalFile( physicalFile );
-
         file.setOrigin( getName( ) );
 
+        storePhysicalFile( file, inputStream );
+
         int nFileId = FileHome.create( file );
 
         return String.valueOf( nFileId );
@@ -258,32 +298,44 @@ public class LocalDatabaseFileService implements IFileStoreServiceProvider
 
         File file = new File( );
         file.setTitle( fileItem.getName( ) );
-        file.setSize( (int) fileItem.getSize( ) );
         file.setMimeType( fileItem.getContentType( ) );
 
         file.setOrigin( getName( ) );
-        
-        PhysicalFile physicalFile = new PhysicalFile( );
-
-        byte [ ] byteArray;
 
-        try
+        try ( InputStream inputStream = fileItem.getInputStream( ) )
         {
-            byteArray = IOUtils.toByteArray( fileItem.getInputStream( ) );
+            storePhysicalFile( file, inputStream );
         }
         catch( IOException ex )
         {
             throw new AppException( ex.getMessage( ), ex );
         }
 
-        physicalFile.setValue( byteArray );
-        file.setPhysicalFile( physicalFile );
-
         int nFileId = FileHome.create( file );
 
         return String.valueOf( nFileId );
     }
 
+    /**
+     * Stream the content of a file to the database and set the physical file and the size of the file
+     * 
+     * @param file
+     *            The file
+     * @param inputStream
+     *            The content of the file
+     */
+    private void storePhysicalFile( File file, InputStream inputStream )
+    {
+        CountingInputStream countingInputStream = new CountingInputStream( inputStream );
+
+        PhysicalFile physicalFile = new PhysicalFile( );
+        physicalFile.setIdPhysicalFile( PhysicalFileHome.create( countingInputStream ) );
+        file.setPhysicalFile( physicalFile );
+        file.setSize( (int) countingInputStream.getByteCount( ) );
+
+        AppLogService.debug( "Physical file {} written to the database : {} bytes", physicalFile.getIdPhysicalFile( ), countingInputStream.getByteCount( ) );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -322,10 +374,118 @@ public class LocalDatabaseFileService implements IFileStoreServiceProvider
     @Override
     public InputStream getInputStream( String strKey )
     {
+        File file = getFile( strKey, false );
+
+        if ( ( file != null ) && ( file.getContentHash( ) != null ) )
+        {
+            return getFileSystemStore( file ).openContent( file.getContentHash( ) );
+        }
+
+        if ( ( file == null ) || ( file.getPhysicalFile( ) == null ) )
+        {
+            return null;
+        }
+
+        // Small files are kept in memory, larger ones are spooled to a temporary file deleted when the stream is closed
+        DeferredFileOutputStream outputStream = new DeferredFileOutputStream( AppPropertiesService.getPropertyInt( PROPERTY_MEMORY_THRESHOLD,
+                DEFAULT_MEMORY_THRESHOLD ), TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX, null );
+
+        boolean bKeepTempFile = false;
+
+        try
+        {
+            long lCount;
+
+            try
+            {
+                lCount = PhysicalFileHome.copyValue( file.getPhysicalFile( ).getIdPhysicalFile( ), outputStream );
+            }
+            finally
+            {
+                outputStream.close( );
+            }
+
+            AppLogService.debug( "Physical file {} read from the database : {} bytes", file.getPhysicalFile( ).getIdPhysicalFile( ), lCount );
+
+            if ( lCount < 0 )
+            {
+                return null;
+            }
+
+            if ( outputStream.isInMemory( ) )
+            {
+                return new ByteArrayInputStream( outputStream.getData( ) );
+            }
+
+            InputStream inputStream = Files.newInputStream( outputStream.getFile( ).toPath( ), StandardOpenOption.DELETE_ON_CLOSE );
+            bKeepTempFile = true;
+
+            return inputStream;
+        }
+        catch( IOException ex )
+        {
+            throw new AppException( ex.getMessage( ), ex );
+        }
+        finally
+        {
+            if ( !bKeepTempFile )
+            {
+                deleteTempFile( outputStream );
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long transferTo( File file, WritableByteChannel channel ) throws IOException
+    {
+        if ( file.getContentHash( ) != null )
+        {
+            return getFileSystemStore( file ).transferTo( file, channel );
+        }
+
+        return IFileStoreServiceProvider.super.transferTo( file, channel );
+    }
+
+    /**
+     * Get the store of a file whose content has been moved to the file system
+     * 
+     * @param file
+     *            The file
+     * @return the store
+     */
+    private LocalFileSystemFileService getFileSystemStore( File file )
+    {
+        if ( _fileSystemStore == null )
+        {
+            throw new AppException( "The content of the file " + file.getIdFile( ) + " has been moved to the file system but the provider " + getName( )
+                    + " has no file system store" );
+        }
 
-        File file = getFile( strKey );
+        return _fileSystemStore;
+    }
 
-        return new ByteArrayInputStream( file.getPhysicalFile( ).getValue( ) );
+    /**
+     * Delete the temporary file of a spooled stream, if any
+     * 
+     * @param outputStream
+     *            The stream
+     */
+    private static void deleteTempFile( DeferredFileOutputStream outputStream )
+    {
+        if ( ( outputStream.getFile( ) != null ) && !outputStream.isInMemory( ) )
+        {
+            try
+            {
+                Files.deleteIfExists( outputStream.getFile( ).toPath( ) );
+            }
+            catch( IOException ex )
+            {
+                AppLogService.error( ex.getMessage( ), ex );
+            }
+        }
     }
 
     /**
@@ -0,0 +1,960 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.file.implementation;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.lang3.StringUtils;
+
+import fr.paris.lutece.api.user.User;
+import fr.paris.lutece.portal.business.file.File;
+import fr.paris.lutece.portal.business.file.FileHome;
+import fr.paris.lutece.portal.business.physicalfile.PhysicalFile;
+import fr.paris.lutece.portal.business.physicalfile.PhysicalFileHome;
+import fr.paris.lutece.portal.service.admin.AccessDeniedException;
+import fr.paris.lutece.portal.service.admin.AdminAuthenticationService;
+import fr.paris.lutece.portal.service.file.ExpiredLinkException;
+import fr.paris.lutece.portal.service.file.FileService;
+import fr.paris.lutece.portal.service.file.IFileDownloadUrlService;
+import fr.paris.lutece.portal.service.file.IFileRBACService;
+import fr.paris.lutece.portal.service.file.IFileStoreServiceProvider;
+import fr.paris.lutece.portal.service.security.SecurityService;
+import fr.paris.lutece.portal.service.security.UserNotSignedException;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPathService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.util.sql.TransactionManager;
+
+/**
+ * File store provider keeping the content of the files on the local file system and their metadata in the core_file table.
+ * <p>
+ * Contents are stored once per SHA-256 hash under <code>root/ab/cd/abcd...</code> : files with the same content share the same stored file, which is deleted
+ * with the last file referencing it. The creation and the deletion of the files using a content are serialized by a lock row of the core_file_content table,
+ * so that the nodes sharing the database and the directory don't delete a content being referenced.
+ * </p>
+ * <p>
+ * The root directory must be an absolute path outside the webapp. The provider is disabled while it is not set.
+ * </p>
+ * 
+ * @since 7.0.11
+ */
+public class LocalFileSystemFileService implements IFileStoreServiceProvider
+{
+    private static final long serialVersionUID = 1L;
+    private static final String PROPERTY_ROOT_DIRECTORY = "lutece.file.fileSystem.rootDirectory";
+    private static final String TEMP_DIRECTORY = "tmp";
+    private static final String TEMP_FILE_PREFIX = "upload-";
+    private static final String DELETED_FILE_PREFIX = "delete-";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int MAX_LOCK_ATTEMPTS = 3;
+
+    private IFileDownloadUrlService _fileDownloadUrlService;
+    private IFileRBACService _fileRBACService;
+    private String _strName;
+    private boolean _bDefault;
+    private String _strRootDirectory;
+
+    /**
+     * init
+     * 
+     * @param fileDownloadUrlService
+     *            The download url service
+     * @param fileRBACService
+     *            The RBAC service
+     */
+    public LocalFileSystemFileService( IFileDownloadUrlService fileDownloadUrlService, IFileRBACService fileRBACService )
+    {
+        _fileDownloadUrlService = fileDownloadUrlService;
+        _fileRBACService = fileRBACService;
+    }
+
+    /**
+     * get the FileRBACService
+     * 
+     * @return the FileRBACService
+     */
+    public IFileRBACService getFileRBACService( )
+    {
+        return _fileRBACService;
+    }
+
+    /**
+     * set the FileRBACService
+     * 
+     * @param fileRBACService
+     *            the FileRBACService
+     */
+    public void setFileRBACService( IFileRBACService fileRBACService )
+    {
+        _fileRBACService = fileRBACService;
+    }
+
+    /**
+     * Get the downloadService
+     * 
+     * @return the downloadService
+     */
+    public IFileDownloadUrlService getDownloadUrlService( )
+    {
+        return _fileDownloadUrlService;
+    }
+
+    /**
+     * Sets the downloadService
+     * 
+     * @param downloadUrlService
+     *            downloadService
+     */
+    public void setDownloadUrlService( IFileDownloadUrlService downloadUrlService )
+    {
+        _fileDownloadUrlService = downloadUrlService;
+    }
+
+    /**
+     * Set the directory of the stored contents. If not set, the property lutece.file.fileSystem.rootDirectory is used. It must be an absolute path outside
+     * the webapp.
+     * 
+     * @param strRootDirectory
+     *            The directory
+     */
+    public void setRootDirectory( String strRootDirectory )
+    {
+        _strRootDirectory = strRootDirectory;
+    }
+
+    /**
+     * Check the root directory at startup, so that a misconfigured store fails before storing files that would be lost on the next redeployment. The default
+     * provider requires it, the others are disabled while it isn't set.
+     */
+    public void init( )
+    {
+        if ( StringUtils.isBlank( getRootDirectory( ) ) )
+        {
+            if ( _bDefault )
+            {
+                throw new AppException( "The property " + PROPERTY_ROOT_DIRECTORY + " must be set for the default file store provider " + getName( ) );
+            }
+
+            AppLogService.info( "File store provider {} disabled : the property {} is not set", getName( ), PROPERTY_ROOT_DIRECTORY );
+
+            return;
+        }
+
+        Path rootPath = getRootPath( );
+
+        try
+        {
+            Files.createDirectories( rootPath );
+        }
+        catch( IOException ex )
+        {
+            throw new AppException( "Unable to create the directory " + rootPath + " of the file store provider " + getName( ), ex );
+        }
+
+        if ( !Files.isWritable( rootPath ) )
+        {
+            throw new AppException( "The directory " + rootPath + " of the file store provider " + getName( ) + " is not writable" );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName( )
+    {
+        return _strName;
+    }
+
+    /**
+     * Set the name of the provider
+     * 
+     * @param strName
+     *            The name
+     */
+    public void setName( String strName )
+    {
+        _strName = strName;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isDefault( )
+    {
+        return _bDefault;
+    }
+
+    /**
+     * Set the default provider flag
+     * 
+     * @param bDefault
+     *            true if this provider is the default one
+     */
+    public void setDefault( boolean bDefault )
+    {
+        _bDefault = bDefault;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete( String strKey )
+    {
+        File file = getFile( strKey, false );
+
+        if ( file != null )
+        {
+            deleteFile( file );
+        }
+    }
+
+    /**
+     * Delete a file, and its content if no other file uses it. The content is moved aside during the transaction, and only deleted once the transaction is
+     * committed : it is put back if the transaction fails.
+     * 
+     * @param file
+     *            The file, with its content hash
+     */
+    void deleteFile( File file )
+    {
+        String strContentHash = file.getContentHash( );
+        Path contentPath = getContentPath( strContentHash );
+        Path [ ] deletedContent = new Path [ 1];
+
+        try
+        {
+            runLocked( strContentHash, ( ) -> {
+                FileHome.remove( file.getIdFile( ) );
+
+                if ( FileHome.countByContentHash( strContentHash ) == 0 )
+                {
+                    FileHome.removeContent( strContentHash );
+
+                    if ( Files.exists( contentPath ) )
+                    {
+                        Path tempDirectory = getRootPath( ).resolve( TEMP_DIRECTORY );
+                        Files.createDirectories( tempDirectory );
+                        Path deletedPath = Files.createTempFile( tempDirectory, DELETED_FILE_PREFIX, TEMP_FILE_SUFFIX );
+                        moveFile( contentPath, deletedPath );
+                        deletedContent [0] = deletedPath;
+                    }
+                }
+            } );
+        }
+        catch( RuntimeException ex )
+        {
+            restoreContent( deletedContent [0], contentPath );
+            throw ex;
+        }
+
+        deleteTempFile( deletedContent [0] );
+    }
+
+    /**
+     * Put back a content moved aside by a deletion that failed
+     * 
+     * @param deletedPath
+     *            The path where the content was moved, or null if it was not moved
+     * @param contentPath
+     *            The path of the content
+     */
+    private static void restoreContent( Path deletedPath, Path contentPath )
+    {
+        if ( deletedPath == null )
+        {
+            return;
+        }
+
+        try
+        {
+            if ( Files.exists( contentPath ) )
+            {
+                // the same content has been stored again meanwhile
+                Files.deleteIfExists( deletedPath );
+            }
+            else
+            {
+                moveFile( deletedPath, contentPath );
+            }
+        }
+        catch( IOException ex )
+        {
+            AppLogService.error( "Unable to restore the content {} from {}", contentPath, deletedPath, ex );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public File getFile( String strKey )
+    {
+        return getFile( strKey, true );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public File getFileMetaData( String strKey )
+    {
+        return getFile( strKey, false );
+    }
+
+    /**
+     * get file
+     * 
+     * @param strKey
+     *            The key of the file
+     * @param bWithContent
+     *            true to give access to the content of the file through its physical file
+     * @return the file, or null if it doesn't exist or wasn't stored with this provider
+     */
+    public File getFile( String strKey, boolean bWithContent )
+    {
+        if ( StringUtils.isBlank( strKey ) )
+        {
+            return null;
+        }
+
+        File file = FileHome.findByPrimaryKey( Integer.parseInt( strKey ) );
+
+        if ( ( file == null ) || !StringUtils.equals( file.getOrigin( ), getName( ) ) || ( file.getContentHash( ) == null ) )
+        {
+            return null;
+        }
+
+        if ( bWithContent )
+        {
+            file.setPhysicalFile( getStoredPhysicalFile( file.getContentHash( ) ) );
+        }
+
+        return file;
+    }
+
+    /**
+     * Get a physical file giving access to a stored content
+     * 
+     * @param strContentHash
+     *            The hash of the content
+     * @return the physical file, whose value is read from the store on the first request
+     */
+    PhysicalFile getStoredPhysicalFile( String strContentHash )
+    {
+        return new StoredPhysicalFile( getContentPath( strContentHash ).toString( ) );
+    }
+
+    /**
+     * Open a stored content
+     * 
+     * @param strContentHash
+     *            The hash of the content
+     * @return the stream of the content
+     */
+    InputStream openContent( String strContentHash )
+    {
+        try
+        {
+            return Files.newInputStream( getContentPath( strContentHash ) );
+        }
+        catch( IOException ex )
+        {
+            throw new AppException( ex.getMessage( ), ex );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getInputStream( String strKey )
+    {
+        File file = getFile( strKey, false );
+
+        if ( file == null )
+        {
+            return null;
+        }
+
+        return openContent( file.getContentHash( ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long transferTo( File file, WritableByteChannel channel ) throws IOException
+    {
+        if ( file.getContentHash( ) == null )
+        {
+            return IFileStoreServiceProvider.super.transferTo( file, channel );
+        }
+
+        // The content is sent with FileChannel.transferTo, without being copied through the heap
+        try ( FileChannel fileChannel = FileChannel.open( getContentPath( file.getContentHash( ) ), StandardOpenOption.READ ) )
+        {
+            long lSize = fileChannel.size( );
+            long lPosition = 0;
+
+            while ( lPosition < lSize )
+            {
+                lPosition += fileChannel.transferTo( lPosition, lSize - lPosition, channel );
+            }
+
+            return lSize;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String storeBytes( byte [ ] blob )
+    {
+        return storeInputStream( new ByteArrayInputStream( blob ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String storeInputStream( InputStream inputStream )
+    {
+        File file = new File( );
+        file.setOrigin( getName( ) );
+
+        store( file, outputStream -> IOUtils.copyLarge( inputStream, outputStream ), true );
+
+        return String.valueOf( file.getIdFile( ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String storeFileItem( FileItem fileItem )
+    {
+        File file = new File( );
+        file.setTitle( fileItem.getName( ) );
+        file.setMimeType( fileItem.getContentType( ) );
+        file.setOrigin( getName( ) );
+
+        try ( InputStream inputStream = fileItem.getInputStream( ) )
+        {
+            store( file, outputStream -> IOUtils.copyLarge( inputStream, outputStream ), true );
+        }
+        catch( IOException ex )
+        {
+            throw new AppException( ex.getMessage( ), ex );
+        }
+
+        return String.valueOf( file.getIdFile( ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String storeFile( File file )
+    {
+        file.setOrigin( getName( ) );
+
+        if ( ( file.getPhysicalFile( ) == null ) || ( file.getPhysicalFile( ).getValue( ) == null ) )
+        {
+            // Metadata only
+            return String.valueOf( FileHome.create( file ) );
+        }
+
+        byte [ ] content = file.getPhysicalFile( ).getValue( );
+        store( file, outputStream -> outputStream.write( content ), true );
+
+        return String.valueOf( file.getIdFile( ) );
+    }
+
+    /**
+     * Move the content of a file from the core_physical_file table to the file system. The file keeps its origin : it must belong to a
+     * {@link LocalDatabaseFileService} using this store, which reads the moved content from it.
+     * 
+     * @param nIdFile
+     *            The identifier of the file
+     * @return true if the file has been moved, false if it has no physical file
+     */
+    public boolean importPhysicalFile( int nIdFile )
+    {
+        File file = FileHome.findByPrimaryKey( nIdFile );
+
+        if ( ( file == null ) || ( file.getPhysicalFile( ) == null ) )
+        {
+            return false;
+        }
+
+        int nIdPhysicalFile = file.getPhysicalFile( ).getIdPhysicalFile( );
+
+        store( file, outputStream -> {
+            if ( PhysicalFileHome.copyValue( nIdPhysicalFile, outputStream ) < 0 )
+            {
+                throw new IOException( "Physical file " + nIdPhysicalFile + " not found" );
+            }
+        }, false );
+
+        PhysicalFileHome.remove( nIdPhysicalFile );
+
+        return true;
+    }
+
+    /**
+     * Write a content to the store and create or update the file referencing it
+     * 
+     * @param file
+     *            The file. Its content hash and size are set from the content, and its physical file is removed.
+     * @param writer
+     *            The writer of the content
+     * @param bCreate
+     *            true to create the file, false to update it
+     */
+    private void store( File file, ContentWriter writer, boolean bCreate )
+    {
+        Path tempFile = null;
+
+        try
+        {
+            Path tempDirectory = getRootPath( ).resolve( TEMP_DIRECTORY );
+            Files.createDirectories( tempDirectory );
+            tempFile = Files.createTempFile( tempDirectory, TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX );
+
+            MessageDigest digest = MessageDigest.getInstance( DIGEST_ALGORITHM );
+            long lSize;
+
+            try ( CountingOutputStream outputStream = new CountingOutputStream( new DigestOutputStream( Files.newOutputStream( tempFile ), digest ) ) )
+            {
+                writer.write( outputStream );
+                lSize = outputStream.getByteCount( );
+            }
+
+            if ( lSize > Integer.MAX_VALUE )
+            {
+                // the size of a file is stored as an int
+                throw new AppException( "The file " + file.getTitle( ) + " is too large : " + lSize + " bytes, the maximum is " + Integer.MAX_VALUE );
+            }
+
+            String strContentHash = Hex.encodeHexString( digest.digest( ) );
+            file.setContentHash( strContentHash );
+            file.setSize( (int) lSize );
+            file.setPhysicalFile( null );
+
+            Path source = tempFile;
+
+            runLocked( strContentHash, ( ) -> {
+                Path contentPath = getContentPath( strContentHash );
+
+                if ( !Files.exists( contentPath ) )
+                {
+                    Files.createDirectories( contentPath.getParent( ) );
+                    moveFile( source, contentPath );
+                }
+
+                if ( bCreate )
+                {
+                    FileHome.create( file );
+                }
+                else
+                {
+                    FileHome.update( file );
+                }
+            } );
+
+            AppLogService.debug( "File {} stored in {} : {} bytes", file.getIdFile( ), strContentHash, lSize );
+        }
+        catch( IOException | NoSuchAlgorithmException ex )
+        {
+            throw new AppException( ex.getMessage( ), ex );
+        }
+        finally
+        {
+            deleteTempFile( tempFile );
+        }
+    }
+
+    /**
+     * Move a temporary file to its final place, atomically if the file system supports it
+     * 
+     * @param source
+     *            The temporary file
+     * @param target
+     *            The final path
+     * @throws IOException
+     *             If the file can't be moved
+     */
+    private static void moveFile( Path source, Path target ) throws IOException
+    {
+        try
+        {
+            Files.move( source, target, StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch( AtomicMoveNotSupportedException ex )
+        {
+            Files.move( source, target, StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+
+    /**
+     * Delete a temporary file if it still exists
+     * 
+     * @param tempFile
+     *            The temporary file, or null
+     */
+    private static void deleteTempFile( Path tempFile )
+    {
+        if ( tempFile != null )
+        {
+            try
+            {
+                Files.deleteIfExists( tempFile );
+            }
+            catch( IOException ex )
+            {
+                AppLogService.error( ex.getMessage( ), ex );
+            }
+        }
+    }
+
+    /**
+     * Run an action on a content in a transaction holding the lock row of the content. The lock row is created if the content is new or has been deleted
+     * meanwhile.
+     * 
+     * @param strContentHash
+     *            The hash of the content
+     * @param action
+     *            The action
+     */
+    private static void runLocked( String strContentHash, ContentAction action )
+    {
+        for ( int nAttempt = 0; nAttempt < MAX_LOCK_ATTEMPTS; nAttempt++ )
+        {
+            TransactionManager.beginTransaction( null );
+
+            try
+            {
+                boolean bLocked = FileHome.lockContent( strContentHash );
+
+                if ( bLocked )
+                {
+                    action.run( );
+                }
+
+                TransactionManager.commitTransaction( null );
+
+                if ( bLocked )
+                {
+                    return;
+                }
+            }
+            catch( IOException ex )
+            {
+                TransactionManager.rollBack( null, ex );
+                throw new AppException( ex.getMessage( ), ex );
+            }
+            catch( RuntimeException ex )
+            {
+                TransactionManager.rollBack( null, ex );
+                throw ex;
+            }
+
+            try
+            {
+                FileHome.createContent( strContentHash );
+            }
+            catch( AppException ex )
+            {
+                // created concurrently by another node : it is locked on the next attempt
+                AppLogService.debug( "Lock row of the content {} created concurrently", strContentHash );
+            }
+        }
+
+        throw new AppException( "Unable to lock the content " + strContentHash );
+    }
+
+    /**
+     * Get the path of a stored content
+     * 
+     * @param strContentHash
+     *            The hash of the content
+     * @return the path
+     */
+    private Path getContentPath( String strContentHash )
+    {
+        return getRootPath( ).resolve( strContentHash.substring( 0, 2 ) ).resolve( strContentHash.substring( 2, 4 ) ).resolve( strContentHash );
+    }
+
+    /**
+     * Get the directory of the stored contents
+     * 
+     * @return the directory
+     */
+    private Path getRootPath( )
+    {
+        String strRootDirectory = getRootDirectory( );
+
+        if ( StringUtils.isBlank( strRootDirectory ) )
+        {
+            throw new AppException( "The file store provider " + getName( ) + " is disabled : the property " + PROPERTY_ROOT_DIRECTORY + " is not set" );
+        }
+
+        Path rootPath = Paths.get( strRootDirectory ).normalize( );
+
+        if ( !rootPath.isAbsolute( ) )
+        {
+            throw new AppException( "The directory " + strRootDirectory + " of the file store provider " + getName( ) + " must be an absolute path" );
+        }
+
+        String strWebAppPath = AppPathService.getWebAppPath( );
+
+        // the webapp directory is replaced on redeployment
+        if ( ( strWebAppPath != null ) && rootPath.startsWith( Paths.get( strWebAppPath ).toAbsolutePath( ).normalize( ) ) )
+        {
+            throw new AppException( "The directory " + strRootDirectory + " of the file store provider " + getName( ) + " must be outside the webapp" );
+        }
+
+        return rootPath;
+    }
+
+    /**
+     * Get the configured directory of the stored contents
+     * 
+     * @return the directory, or null if not set
+     */
+    private String getRootDirectory( )
+    {
+        if ( StringUtils.isNotBlank( _strRootDirectory ) )
+        {
+            return _strRootDirectory;
+        }
+
+        return AppPropertiesService.getProperty( PROPERTY_ROOT_DIRECTORY );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getFileDownloadUrlFO( String strKey )
+    {
+        return _fileDownloadUrlService.getFileDownloadUrlFO( strKey, getName( ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getFileDownloadUrlFO( String strKey, Map<String, String> additionnalData )
+    {
+        return _fileDownloadUrlService.getFileDownloadUrlFO( strKey, additionnalData, getName( ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getFileDownloadUrlBO( String strKey )
+    {
+        return _fileDownloadUrlService.getFileDownloadUrlBO( strKey, getName( ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getFileDownloadUrlBO( String strKey, Map<String, String> additionnalData )
+    {
+        return _fileDownloadUrlService.getFileDownloadUrlBO( strKey, additionnalData, getName( ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void checkAccessRights( Map<String, String> fileData, User user ) throws AccessDeniedException, UserNotSignedException
+    {
+        if ( _fileRBACService != null )
+        {
+            _fileRBACService.checkAccessRights( fileData, user );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void checkLinkValidity( Map<String, String> fileData ) throws ExpiredLinkException
+    {
+        _fileDownloadUrlService.checkLinkValidity( fileData );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public File getFileFromRequestBO( HttpServletRequest request ) throws AccessDeniedException, ExpiredLinkException, UserNotSignedException
+    {
+        Map<String, String> fileData = _fileDownloadUrlService.getRequestDataBO( request );
+
+        // check access rights
+        checkAccessRights( fileData, AdminAuthenticationService.getInstance( ).getRegisteredUser( request ) );
+
+        // check validity
+        checkLinkValidity( fileData );
+
+        return getFile( fileData.get( FileService.PARAMETER_FILE_ID ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public File getFileFromRequestFO( HttpServletRequest request ) throws AccessDeniedException, ExpiredLinkException, UserNotSignedException
+    {
+        Map<String, String> fileData = _fileDownloadUrlService.getRequestDataFO( request );
+
+        // check access rights
+        checkAccessRights( fileData, SecurityService.getInstance( ).getRegisteredUser( request ) );
+
+        // check validity
+        checkLinkValidity( fileData );
+
+        return getFile( fileData.get( FileService.PARAMETER_FILE_ID ) );
+    }
+
+    /**
+     * Writer of the content of a file
+     */
+    @FunctionalInterface
+    private interface ContentWriter
+    {
+        /**
+         * Write the content
+         * 
+         * @param outputStream
+         *            The stream to write the content to
+         * @throws IOException
+         *             If the content can't be written
+         */
+        void write( OutputStream outputStream ) throws IOException;
+    }
+
+    /**
+     * Action run while holding the lock of a content
+     */
+    @FunctionalInterface
+    private interface ContentAction
+    {
+        /**
+         * Run the action
+         * 
+         * @throws IOException
+         *             If the stored content can't be written or deleted
+         */
+        void run( ) throws IOException;
+    }
+
+    /**
+     * Physical file whose value is read from the store on the first request and then kept, so that the content isn't loaded when the file is only streamed
+     */
+    private static final class StoredPhysicalFile extends PhysicalFile
+    {
+        private static final long serialVersionUID = 1L;
+        private final String _strPath;
+
+        /**
+         * Constructor
+         * 
+         * @param strPath
+         *            The path of the stored content
+         */
+        StoredPhysicalFile( String strPath )
+        {
+            _strPath = strPath;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public byte [ ] getValue( )
+        {
+            byte [ ] value = super.getValue( );
+
+            if ( value == null )
+            {
+                try
+                {
+                    value = Files.readAllBytes( Paths.get( _strPath ) );
+                }
+                catch( IOException ex )
+                {
+                    throw new AppException( ex.getMessage( ), ex );
+                }
+
+                setValue( value );
+            }
+
+            return value;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.filter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dispatch table of the plugins filters. The url patterns of the installed filters are compiled once into an exact match map, a path prefix trie and an
+ * extension map so that a request only looks up the filters that apply to its servlet path. Matching follows the same rules as
+ * {@link MainFilter#matchFilterUrl(String, String)}.
+ */
+final class FilterDispatcher
+{
+    private static final String PATTERN_ALL = "/*";
+    private static final String PATTERN_PATH_SUFFIX = "/*";
+    private static final String PATTERN_EXTENSION_PREFIX = "*.";
+    private static final String PATH_SEPARATOR = "/";
+    private static final LuteceFilter [ ] EMPTY = new LuteceFilter [ 0];
+
+    // The filters in their execution order
+    private final LuteceFilter [ ] _filters;
+    private final BitSet _allPaths = new BitSet( );
+    private final Map<String, BitSet> _mapExactPaths = new HashMap<>( );
+    private final Map<String, BitSet> _mapExtensions = new HashMap<>( );
+    private final PathNode _rootPath = new PathNode( );
+
+    /**
+     * Compiles the dispatch table
+     *
+     * @param listFilters
+     *            The installed filters, in their execution order
+     */
+    FilterDispatcher( List<LuteceFilter> listFilters )
+    {
+        _filters = listFilters.toArray( EMPTY );
+
+        for ( int i = 0; i < _filters.length; i++ )
+        {
+            String strPattern = _filters [i].getMappingUrlPattern( );
+
+            if ( strPattern == null )
+            {
+                continue;
+            }
+
+            _mapExactPaths.computeIfAbsent( strPattern, k -> new BitSet( ) ).set( i );
+
+            if ( strPattern.equals( PATTERN_ALL ) )
+            {
+                _allPaths.set( i );
+            }
+            else
+                if ( strPattern.endsWith( PATTERN_PATH_SUFFIX ) )
+                {
+                    // Path patterns only match servlet paths, which always start with a slash
+                    if ( strPattern.startsWith( PATH_SEPARATOR ) )
+                    {
+                        String strPrefix = strPattern.substring( 0, strPattern.length( ) - PATTERN_PATH_SUFFIX.length( ) );
+                        _rootPath.getOrCreateNode( strPrefix ).getFilters( ).set( i );
+                    }
+                }
+                else
+                    if ( strPattern.startsWith( PATTERN_EXTENSION_PREFIX ) )
+                    {
+                        _mapExtensions.computeIfAbsent( strPattern.substring( PATTERN_EXTENSION_PREFIX.length( ) ), k -> new BitSet( ) ).set( i );
+                    }
+        }
+    }
+
+    /**
+     * Gets the filters matching a servlet path
+     *
+     * @param strServletPath
+     *            The servlet path
+     * @return The filters in their execution order
+     */
+    LuteceFilter [ ] getFilters( String strServletPath )
+    {
+        if ( _filters.length == 0 )
+        {
+            return EMPTY;
+        }
+
+        BitSet matches = (BitSet) _allPaths.clone( );
+        String strPath = ( strServletPath == null ) ? "" : strServletPath;
+
+        BitSet exact = _mapExactPaths.get( strPath );
+
+        if ( exact != null )
+        {
+            matches.or( exact );
+        }
+
+        _rootPath.collect( strPath, matches );
+
+        if ( !_mapExtensions.isEmpty( ) )
+        {
+            int nSlash = strPath.lastIndexOf( '/' );
+            int nPeriod = strPath.lastIndexOf( '.' );
+
+            if ( nSlash >= 0 && nPeriod > nSlash && nPeriod != strPath.length( ) - 1 )
+            {
+                BitSet extension = _mapExtensions.get( strPath.substring( nPeriod + 1 ) );
+
+                if ( extension != null )
+                {
+                    matches.or( extension );
+                }
+            }
+        }
+
+        if ( matches.isEmpty( ) )
+        {
+            return EMPTY;
+        }
+
+        LuteceFilter [ ] filters = new LuteceFilter [ matches.cardinality( )];
+        int nIndex = 0;
+
+        for ( int i = matches.nextSetBit( 0 ); i >= 0; i = matches.nextSetBit( i + 1 ) )
+        {
+            filters [nIndex++] = _filters [i];
+        }
+
+        return filters;
+    }
+
+    /**
+     * Gets all the filters of the dispatch table
+     *
+     * @return The filters in their execution order
+     */
+    List<LuteceFilter> getAllFilters( )
+    {
+        List<LuteceFilter> listFilters = new ArrayList<>( _filters.length );
+
+        for ( LuteceFilter filter : _filters )
+        {
+            listFilters.add( filter );
+        }
+
+        return listFilters;
+    }
+
+    /**
+     * Node of the path prefix trie, one level per path segment
+     */
+    private static final class PathNode
+    {
+        private final Map<String, PathNode> _mapChildren = new HashMap<>( );
+        private final BitSet _filters = new BitSet( );
+
+        BitSet getFilters( )
+        {
+            return _filters;
+        }
+
+        /**
+         * Gets the node of a path prefix, creating the missing ones
+         *
+         * @param strPrefix
+         *            The path prefix, starting with a slash
+         * @return The node
+         */
+        PathNode getOrCreateNode( String strPrefix )
+        {
+            PathNode node = this;
+            int nStart = 1;
+
+            while ( nStart <= strPrefix.length( ) )
+            {
+                int nEnd = strPrefix.indexOf( '/', nStart );
+
+                if ( nEnd < 0 )
+                {
+                    nEnd = strPrefix.length( );
+                }
+
+                node = node._mapChildren.computeIfAbsent( strPrefix.substring( nStart, nEnd ), k -> new PathNode( ) );
+                nStart = nEnd + 1;
+            }
+
+            return node;
+        }
+
+        /**
+         * Collects the filters of all the prefixes of a path
+         *
+         * @param strPath
+         *            The path, starting with a slash
+         * @param matches
+         *            The matching filters
+         */
+        void collect( String strPath, BitSet matches )
+        {
+            PathNode node = this;
+            int nStart = 1;
+
+            while ( nStart <= strPath.length( ) && !node._mapChildren.isEmpty( ) )
+            {
+                int nEnd = strPath.indexOf( '/', nStart );
+
+                if ( nEnd < 0 )
+                {
+                    nEnd = strPath.length( );
+                }
+
+                node = node._mapChildren.get( strPath.substring( nStart, nEnd ) );
+
+                if ( node == null )
+                {
+                    return;
+                }
+
+                matches.or( node._filters );
+                nStart = nEnd + 1;
+            }
+        }
+    }
+}
@@ -35,11 +35,18 @@ package fr.paris.lutece.portal.service.filter;
 
 import fr.paris.lutece.portal.service.init.LuteceInitException;
 import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginEvent;
+import fr.paris.lutece.portal.service.plugin.PluginEventListener;
+import fr.paris.lutece.portal.service.plugin.PluginService;
 import fr.paris.lutece.portal.service.util.AppLogService;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import javax.servlet.Filter;
 import javax.servlet.ServletContext;
@@ -47,12 +54,16 @@ import javax.servlet.ServletContext;
 /**
  * FilterService
  */
-public final class FilterService
+public final class FilterService implements PluginEventListener
 {
     private static FilterService _singleton = new FilterService( );
     private static ServletContext _context;
     private List<LuteceFilter> _listFilters = new ArrayList<>( );
 
+    // Dispatch table of the installed filters, compiled on demand
+    private final AtomicReference<FilterDispatcher> _dispatcher = new AtomicReference<>( );
+    private final AtomicLong _lDispatcherGeneration = new AtomicLong( );
+
     /**
      * Private constructor
      */
@@ -86,6 +97,7 @@ public final class FilterService
             LuteceFilter f = new LuteceFilter( entry.getName( ), filter, entry.getMappingUrlPattern( ), plugin, entry.getInitParameters( ) );
             f.setOrder( entry.getOrder( ) );
             _listFilters.add( f );
+            invalidateDispatcher( );
             AppLogService.info( "New Filter registered : {}", entry.getName( ) );
 
             for ( String strKey : entry.getInitParameters( ).keySet( ) )
@@ -122,6 +134,7 @@ public final class FilterService
     {
         _context = context;
         AppLogService.info( "Initialize plugins filters" );
+        PluginService.registerPluginEventListener( _singleton );
 
         for ( LuteceFilter filter : FilterService.getInstance( ).getFilters( ) )
         {
@@ -163,6 +176,7 @@ public final class FilterService
     {
         // sort the filter's list
         Collections.sort( FilterService.getInstance( ).getFilters( ) );
+        _singleton.invalidateDispatcher( );
     }
 
     /**
@@ -174,4 +188,86 @@ public final class FilterService
     {
         return _listFilters;
     }
+
+    /**
+     * Gives the installed filters matching a servlet path. The filters are looked up in a dispatch table that is rebuilt when filters are registered or
+     * plugins are installed or uninstalled.
+     * 
+     * @param strServletPath
+     *            The servlet path of the request
+     * @return The filters to execute, in their execution order
+     */
+    public LuteceFilter [ ] getMatchingFilters( String strServletPath )
+    {
+        return getDispatcher( ).getFilters( strServletPath );
+    }
+
+    /**
+     * Gives the execution statistics of the installed filters
+     * 
+     * @return The statistics
+     */
+    public String getStatistics( )
+    {
+        StringBuilder sbStats = new StringBuilder( );
+
+        for ( LuteceFilter filter : getDispatcher( ).getAllFilters( ) )
+        {
+            long lCount = filter.getExecutionCount( );
+            long lTime = TimeUnit.NANOSECONDS.toMicros( filter.getExecutionTime( ) );
+            sbStats.append( filter.getName( ) ).append( " [" ).append( filter.getMappingUrlPattern( ) ).append( "] executions = " ).append( lCount )
+                    .append( ", totalTime = " ).append( lTime ).append( " us, meanTime = " ).append( ( lCount == 0 ) ? 0 : ( lTime / lCount ) )
+                    .append( " us\n" );
+        }
+
+        return sbStats.toString( );
+    }
+
+    /**
+     * Gives the dispatch table, compiling it if needed
+     * 
+     * @return The dispatch table
+     */
+    private FilterDispatcher getDispatcher( )
+    {
+        FilterDispatcher dispatcher = _dispatcher.get( );
+
+        if ( dispatcher == null )
+        {
+            long lGeneration = _lDispatcherGeneration.get( );
+            List<LuteceFilter> listInstalledFilters = new ArrayList<>( _listFilters ).stream( )
+                    .filter( filter -> filter.getPlugin( ) != null && filter.getPlugin( ).isInstalled( ) ).collect( Collectors.toList( ) );
+            dispatcher = new FilterDispatcher( listInstalledFilters );
+
+            // An invalidation during the compilation withdraws the table : the next request compiles it again
+            if ( _dispatcher.compareAndSet( null, dispatcher ) && ( _lDispatcherGeneration.get( ) != lGeneration ) )
+            {
+                _dispatcher.compareAndSet( dispatcher, null );
+            }
+        }
+
+        return dispatcher;
+    }
+
+    /**
+     * Invalidates the dispatch table. The generation is incremented before the table is withdrawn, so that a table compiled concurrently from the previous
+     * filters is never kept.
+     */
+    private void invalidateDispatcher( )
+    {
+        _lDispatcherGeneration.incrementAndGet( );
+        _dispatcher.set( null );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void processPluginEvent( PluginEvent event )
+    {
+        if ( event.getEventType( ) == PluginEvent.PLUGIN_INSTALLED || event.getEventType( ) == PluginEvent.PLUGIN_UNINSTALLED )
+        {
+            invalidateDispatcher( );
+        }
+    }
 }
@@ -36,6 +36,7 @@ package fr.paris.lutece.portal.service.filter;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.servlet.Filter;
 
@@ -51,6 +52,8 @@ public class LuteceFilter implements Comparable<LuteceFilter>
     private Plugin _plugin;
     private int _nOrder = ORDER_NOT_DEFINED;
     private Map<String, String> _mapInitParameters;
+    private final LongAdder _counterExecutions = new LongAdder( );
+    private final LongAdder _counterExecutionTime = new LongAdder( );
 
     /**
      * Constructor
@@ -169,6 +172,38 @@ public class LuteceFilter implements Comparable<LuteceFilter>
         return _mapInitParameters;
     }
 
+    /**
+     * Records an execution of the filter
+     * 
+     * @param lDuration
+     *            The duration of the execution in nanoseconds
+     */
+    public void recordExecution( long lDuration )
+    {
+        _counterExecutions.increment( );
+        _counterExecutionTime.add( lDuration );
+    }
+
+    /**
+     * Returns the number of executions of the filter
+     * 
+     * @return The number of executions
+     */
+    public long getExecutionCount( )
+    {
+        return _counterExecutions.sum( );
+    }
+
+    /**
+     * Returns the cumulated execution time of the filter
+     * 
+     * @return The execution time in nanoseconds
+     */
+    public long getExecutionTime( )
+    {
+        return _counterExecutionTime.sum( );
+    }
+
     /**
      * for debug purpose
      * 
@@ -69,17 +69,20 @@ public class MainFilter implements Filter
 
         HttpServletRequest request = (HttpServletRequest) requestServlet;
         HttpServletResponse response = (HttpServletResponse) responseServlet;
-        LuteceFilterChain chainPluginsFilters = new LuteceFilterChain( );
+        LuteceFilter [ ] filters = FilterService.getInstance( ).getMatchingFilters( request.getServletPath( ) );
 
-        for ( LuteceFilter filter : FilterService.getInstance( ).getFilters( ) )
+        if ( filters.length > 0 )
         {
-            AppLogService.debug( "PluginFilter : {} - url pattern : {}", filter.getName( ), filter.getMappingUrlPattern( ) );
+            LuteceFilterChain chainPluginsFilters = new LuteceFilterChain( );
 
-            // Catch exception for each filter to execute all chain
-            try
+            for ( LuteceFilter filter : filters )
             {
-                // Checks mapping and plugin status
-                if ( matchMapping( filter, request ) && filter.getPlugin( ).isInstalled( ) )
+                AppLogService.debug( "PluginFilter : {} - url pattern : {}", filter.getName( ), filter.getMappingUrlPattern( ) );
+
+                long lStart = System.nanoTime( );
+
+                // Catch exception for each filter to execute all chain
+                try
                 {
                     chainPluginsFilters.setFollowChain( false );
                     filter.getFilter( ).doFilter( request, response, chainPluginsFilters );
@@ -95,10 +98,14 @@ public class MainFilter implements Filter
                     request = (HttpServletRequest) chainPluginsFilters.getRequest( );
                     response = (HttpServletResponse) chainPluginsFilters.getResponse( );
                 }
-            }
-            catch( Exception e )
-            {
-                AppLogService.error( "Error execution doFilter method - Filter {}", filter.getName( ), e );
+                catch( Exception e )
+                {
+                    AppLogService.error( "Error execution doFilter method - Filter {}", filter.getName( ), e );
+                }
+                finally
+                {
+                    filter.recordExecution( System.nanoTime( ) - lStart );
+                }
             }
         }
 
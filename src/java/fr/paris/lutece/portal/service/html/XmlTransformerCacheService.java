@@ -37,7 +37,6 @@ import fr.paris.lutece.portal.service.cache.CacheService;
 import fr.paris.lutece.portal.service.cache.CacheableService;
 import fr.paris.lutece.util.xml.XmlTransformer;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -48,7 +47,6 @@ import java.util.List;
 public class XmlTransformerCacheService implements CacheableService
 {
     private static final String SERVICE_NAME = "XML Transformer Cache Service (XSLT)";
-    private static final String MSG_KEYS_NOT_AVAILABLE = "Keys not available";
 
     /**
      * Inits the.
@@ -109,10 +107,7 @@ public class XmlTransformerCacheService implements CacheableService
     @Override
     public List<String> getKeys( )
     {
-        List<String> list = new ArrayList<>( );
-        list.add( MSG_KEYS_NOT_AVAILABLE );
-
-        return list;
+        return XmlTransformer.getStyleSheetIds( );
     }
 
     /**
@@ -121,7 +116,7 @@ public class XmlTransformerCacheService implements CacheableService
     @Override
     public int getMaxElements( )
     {
-        return XmlTransformer.TRANSFORMER_POOL_SIZE * XmlTransformer.MAX_TRANSFORMER_SIZE;
+        return XmlTransformer.TEMPLATES_CACHE_SIZE;
     }
 
     /**
@@ -148,6 +143,7 @@ public class XmlTransformerCacheService implements CacheableService
     @Override
     public String getInfos( )
     {
-        return "This cache can't be disabled - Poolsize = " + XmlTransformer.TRANSFORMER_POOL_SIZE;
+        return "This cache can't be disabled - Hits = " + XmlTransformer.getHitCount( ) + " - Compilations = " + XmlTransformer.getCompileCount( )
+                + " - Evictions = " + XmlTransformer.getEvictionCount( );
     }
 }
@@ -211,4 +211,16 @@ public final class XmlTransformerService
     {
         XmlTransformer.cleanTransformerList( );
     }
+
+    /**
+     * This method removes a given stylesheet from the XSL transformer cache
+     * 
+     * @param strStyleSheetId
+     *            The StyleSheet Id used for the transformations
+     * @since 7.0.11
+     */
+    public static void clearXslCache( String strStyleSheetId )
+    {
+        XmlTransformer.removeTemplates( strStyleSheetId );
+    }
 }
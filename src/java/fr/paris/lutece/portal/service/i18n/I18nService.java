@@ -59,6 +59,7 @@ import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -83,6 +84,9 @@ public final class I18nService
     private static final String PROPERTY_PATH_OVERRIDE = "path.i18n.override";
     private static final ClassLoader _overrideLoader;
     private static final Map<String, ResourceBundle> _resourceBundleCache = Collections.synchronizedMap( new HashMap<String, ResourceBundle>( ) );
+    // The locales come from the requests : the number of cached locales is bounded
+    private static final int MAX_CACHED_LOCALES = 32;
+    private static final Map<Locale, Map<String, String>> _localizedStringsCache = new ConcurrentHashMap<>( );
 
     static
     {
@@ -186,6 +190,55 @@ public final class I18nService
      * @return The string corresponding to the key
      */
     public static String getLocalizedString( String strKey, Locale theLocale )
+    {
+        Map<String, String> mapLocalizedStrings = ( ( strKey != null ) && ( theLocale != null ) ) ? getLocalizedStrings( theLocale ) : null;
+        String strCached = ( mapLocalizedStrings != null ) ? mapLocalizedStrings.get( strKey ) : null;
+
+        if ( strCached != null )
+        {
+            return strCached;
+        }
+
+        String strLocalized = findLocalizedString( strKey, theLocale );
+
+        // missing keys are not cached : they may be provided by a plugin installed later
+        if ( ( mapLocalizedStrings != null ) && !strLocalized.isEmpty( ) )
+        {
+            mapLocalizedStrings.put( strKey, strLocalized );
+        }
+
+        return strLocalized;
+    }
+
+    /**
+     * Returns the cache of the localized strings of a locale
+     *
+     * @param locale
+     *            The locale
+     * @return The cache, or null if the maximum number of cached locales is reached
+     */
+    private static Map<String, String> getLocalizedStrings( Locale locale )
+    {
+        Map<String, String> mapLocalizedStrings = _localizedStringsCache.get( locale );
+
+        if ( ( mapLocalizedStrings == null ) && ( _localizedStringsCache.size( ) < MAX_CACHED_LOCALES ) )
+        {
+            mapLocalizedStrings = _localizedStringsCache.computeIfAbsent( locale, l -> new ConcurrentHashMap<>( ) );
+        }
+
+        return mapLocalizedStrings;
+    }
+
+    /**
+     * Returns the string corresponding to a given key for a given locale from the resource bundles
+     *
+     * @param strKey
+     *            The key of the string
+     * @param theLocale
+     *            The locale
+     * @return The string corresponding to the key, an empty string if not found
+     */
+    private static String findLocalizedString( String strKey, Locale theLocale )
     {
         Locale locale = theLocale;
         String strReturn = "";
@@ -540,5 +593,6 @@ public final class I18nService
         }
 
         _resourceBundleCache.clear( );
+        _localizedStringsCache.clear( );
     }
 }
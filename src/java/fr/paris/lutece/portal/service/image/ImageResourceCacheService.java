@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.image;
+
+import fr.paris.lutece.portal.business.page.Page;
+import fr.paris.lutece.portal.service.cache.CacheService;
+import fr.paris.lutece.portal.service.cache.CacheableService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
+import fr.paris.lutece.portal.service.cache.EntityChangeListener;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.util.cache.BoundedCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+/**
+ * Cache of the most used image resources served by the {@link ImageServlet}. The cache is bounded by the total size of the images : the least recently used
+ * images are evicted first. Only the images of the providers declaring them as cacheable are kept, and providers invalidate them through the
+ * {@link ImageResourceManager}. An image loaded before its invalidation is never put back in the cache. <br>
+ * The page thumbnails also follow the page changes made on the other nodes of the cluster, and the images expire after a time to live so that the changes
+ * of the other providers made on other nodes are eventually served.
+ * 
+ * @since 7.0.11
+ */
+public final class ImageResourceCacheService implements CacheableService, EntityChangeListener
+{
+    private static final String SERVICE_NAME = "Image Resources Cache Service";
+    private static final String PROPERTY_MAX_SIZE = "service.imageResourceCache.maxSize";
+    private static final String PROPERTY_MAX_ITEM_SIZE = "service.imageResourceCache.maxItemSize";
+    private static final String PROPERTY_TIME_TO_LIVE = "service.imageResourceCache.timeToLive";
+    private static final long DEFAULT_MAX_SIZE = 10L * 1024 * 1024;
+    private static final long DEFAULT_MAX_ITEM_SIZE = 1024L * 1024;
+    private static final long DEFAULT_TIME_TO_LIVE = 3600L;
+    private static final String KEY_SEPARATOR = ":";
+    private static final ImageResourceCacheService _singleton = new ImageResourceCacheService( );
+    private final BoundedCache<String, CachedImage> _cacheImages;
+    private final long _lMaxSize;
+    private final long _lMaxItemSize;
+    private final long _lTimeToLive;
+    private final AtomicLong _lHitCount = new AtomicLong( );
+    private final AtomicLong _lMissCount = new AtomicLong( );
+    private volatile boolean _bEnable;
+
+    /**
+     * Private constructor
+     */
+    private ImageResourceCacheService( )
+    {
+        _lMaxSize = AppPropertiesService.getPropertyLong( PROPERTY_MAX_SIZE, DEFAULT_MAX_SIZE );
+        _lMaxItemSize = Math.min( _lMaxSize, AppPropertiesService.getPropertyLong( PROPERTY_MAX_ITEM_SIZE, DEFAULT_MAX_ITEM_SIZE ) );
+        _lTimeToLive = AppPropertiesService.getPropertyLong( PROPERTY_TIME_TO_LIVE, DEFAULT_TIME_TO_LIVE );
+        _cacheImages = new BoundedCache<>( _lMaxSize, image -> image.getImage( ).length, _lTimeToLive * 1000L );
+        _bEnable = _lMaxSize > 0;
+    }
+
+    /**
+     * Get the unique instance of the service
+     * 
+     * @return The unique instance
+     */
+    public static ImageResourceCacheService getInstance( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * Registers the service in the cache management
+     */
+    public static void init( )
+    {
+        CacheService.registerCacheableService( _singleton );
+    }
+
+    /**
+     * Get a cached image
+     * 
+     * @param strResourceTypeId
+     *            The resource type
+     * @param nResourceId
+     *            The resource id
+     * @return the image, or null if it isn't in the cache
+     */
+    public CachedImage get( String strResourceTypeId, int nResourceId )
+    {
+        if ( !_bEnable )
+        {
+            return null;
+        }
+
+        CachedImage image = _cacheImages.get( getKey( strResourceTypeId, nResourceId ) );
+
+        if ( image != null )
+        {
+            _lHitCount.incrementAndGet( );
+        }
+        else
+        {
+            _lMissCount.incrementAndGet( );
+        }
+
+        return image;
+    }
+
+    /**
+     * Gets the current generation of an image. It must be read before loading the image from its provider and given to
+     * {@link #put(String, int, CachedImage, long)}.
+     * 
+     * @param strResourceTypeId
+     *            The resource type
+     * @param nResourceId
+     *            The resource id
+     * @return The generation
+     */
+    public long getGeneration( String strResourceTypeId, int nResourceId )
+    {
+        return _cacheImages.getGeneration( getKey( strResourceTypeId, nResourceId ) );
+    }
+
+    /**
+     * Put an image in the cache, if it isn't too large and if the image has not been invalidated since the given generation
+     * 
+     * @param strResourceTypeId
+     *            The resource type
+     * @param nResourceId
+     *            The resource id
+     * @param image
+     *            The image
+     * @param lGeneration
+     *            The generation read before the image was loaded
+     * @return true if the image has been cached
+     */
+    public boolean put( String strResourceTypeId, int nResourceId, CachedImage image, long lGeneration )
+    {
+        if ( !_bEnable || ( image.getImage( ).length > _lMaxItemSize ) )
+        {
+            return false;
+        }
+
+        return _cacheImages.put( getKey( strResourceTypeId, nResourceId ), image, lGeneration );
+    }
+
+    /**
+     * Remove an image from the cache
+     * 
+     * @param strResourceTypeId
+     *            The resource type
+     * @param nResourceId
+     *            The resource id
+     */
+    public void remove( String strResourceTypeId, int nResourceId )
+    {
+        _cacheImages.remove( getKey( strResourceTypeId, nResourceId ) );
+    }
+
+    /**
+     * Remove all the images of a resource type from the cache
+     * 
+     * @param strResourceTypeId
+     *            The resource type
+     */
+    public void removeResourceType( String strResourceTypeId )
+    {
+        String strPrefix = strResourceTypeId + KEY_SEPARATOR;
+        _cacheImages.removeIf( strKey -> strKey.startsWith( strPrefix ) );
+    }
+
+    /**
+     * Build the key of an image
+     * 
+     * @param strResourceTypeId
+     *            The resource type
+     * @param nResourceId
+     *            The resource id
+     * @return the key
+     */
+    private static String getKey( String strResourceTypeId, int nResourceId )
+    {
+        return strResourceTypeId + KEY_SEPARATOR + nResourceId;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getName( )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isCacheEnable( )
+    {
+        return _bEnable;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getCacheSize( )
+    {
+        return _cacheImages.size( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void resetCache( )
+    {
+        _cacheImages.clear( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void enableCache( boolean bEnable )
+    {
+        _bEnable = bEnable && ( _lMaxSize > 0 );
+
+        if ( !_bEnable )
+        {
+            resetCache( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<String> getKeys( )
+    {
+        return new ArrayList<>( _cacheImages.getKeys( ) );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getMaxElements( )
+    {
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public long getTimeToLive( )
+    {
+        return _lTimeToLive;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public long getMemorySize( )
+    {
+        return _cacheImages.getWeight( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getInfos( )
+    {
+        return "Max size = " + _lMaxSize + " bytes - Hits = " + _lHitCount.get( ) + " - Misses = " + _lMissCount.get( ) + " - Evictions = "
+                + _cacheImages.getEvictionCount( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Collection<String> getEntityDependencies( )
+    {
+        return Collections.singletonList( Page.RESOURCE_TYPE );
+    }
+
+    /**
+     * {@inheritDoc } The thumbnail of an updated or removed page is invalidated, the page changes of this node being also invalidated by the
+     * {@link fr.paris.lutece.portal.service.page.PageService}.
+     */
+    @Override
+    public void processEntityChange( EntityChangeEvent event )
+    {
+        if ( event.getEventType( ) == EntityChangeEvent.ENTITY_CREATED )
+        {
+            return;
+        }
+
+        int nIdPage = NumberUtils.toInt( event.getEntityId( ), -1 );
+
+        if ( nIdPage >= 0 )
+        {
+            remove( Page.IMAGE_RESOURCE_TYPE_ID, nIdPage );
+        }
+        else
+        {
+            removeResourceType( Page.IMAGE_RESOURCE_TYPE_ID );
+        }
+    }
+
+    /**
+     * Image body with its strong entity tag
+     */
+    public static final class CachedImage
+    {
+        private final byte [ ] _image;
+        private final String _strMimeType;
+        private final String _strETag;
+
+        /**
+         * Constructor
+         * 
+         * @param image
+         *            The content of the image
+         * @param strMimeType
+         *            The mime type of the image
+         */
+        public CachedImage( byte [ ] image, String strMimeType )
+        {
+            _image = image;
+            _strMimeType = strMimeType;
+            _strETag = "\"" + DigestUtils.sha256Hex( image ) + "\"";
+        }
+
+        /**
+         * Get the content of the image
+         * 
+         * @return the content
+         */
+        public byte [ ] getImage( )
+        {
+            return _image;
+        }
+
+        /**
+         * Get the mime type of the image
+         * 
+         * @return the mime type
+         */
+        public String getMimeType( )
+        {
+            return _strMimeType;
+        }
+
+        /**
+         * Get the strong entity tag of the image, computed from its content
+         * 
+         * @return the entity tag, quoted
+         */
+        public String getETag( )
+        {
+            return _strETag;
+        }
+    }
+}
@@ -36,8 +36,8 @@ package fr.paris.lutece.portal.service.image;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.util.url.UrlItem;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.fileupload.FileItem;
 
@@ -47,7 +47,7 @@ import org.apache.commons.fileupload.FileItem;
 public final class ImageResourceManager
 {
     /** resource type registry */
-    private static Map<String, ImageResourceProvider> _mapResourceTypes = new HashMap<>( );
+    private static Map<String, ImageResourceProvider> _mapResourceTypes = new ConcurrentHashMap<>( );
     public static String IMAGE_SERVLET_BASE_URL = "image";
 
     /** Private constructor */
@@ -64,6 +64,7 @@ public final class ImageResourceManager
     public static void registerProvider( ImageResourceProvider resourceProvider )
     {
         _mapResourceTypes.put( resourceProvider.getResourceTypeId( ), resourceProvider );
+        ImageResourceCacheService.getInstance( ).removeResourceType( resourceProvider.getResourceTypeId( ) );
         AppLogService.info( "New ImageResourceType registered : {}", resourceProvider.getClass( ).getName( ) );
     }
 
@@ -87,6 +88,77 @@ public final class ImageResourceManager
 
         return null;
     }
+
+    /**
+     * Gets an image resource with its entity tag, from the cache if its provider allows it
+     * 
+     * @param strResourceTypeId
+     *            The resource's type ID
+     * @param nResourceId
+     *            The resource ID
+     * @return the image, or null if there is no image for this resource
+     * @since 7.0.11
+     */
+    static ImageResourceCacheService.CachedImage getCachedImageResource( String strResourceTypeId, int nResourceId )
+    {
+        ImageResourceProvider resourceProvider = ( strResourceTypeId != null ) ? _mapResourceTypes.get( strResourceTypeId ) : null;
+
+        if ( resourceProvider == null )
+        {
+            return null;
+        }
+
+        boolean bCacheable = resourceProvider.isImageResourceCacheable( );
+        ImageResourceCacheService cache = ImageResourceCacheService.getInstance( );
+        ImageResourceCacheService.CachedImage image = bCacheable ? cache.get( strResourceTypeId, nResourceId ) : null;
+
+        if ( image == null )
+        {
+            // Read before the load so that an invalidation during the load prevents the outdated image from being cached
+            long lGeneration = cache.getGeneration( strResourceTypeId, nResourceId );
+            ImageResource imageResource = resourceProvider.getImageResource( nResourceId );
+
+            if ( ( imageResource == null ) || ( imageResource.getImage( ) == null ) || ( imageResource.getImage( ).length == 0 ) )
+            {
+                return null;
+            }
+
+            image = new ImageResourceCacheService.CachedImage( imageResource.getImage( ), imageResource.getMimeType( ) );
+
+            if ( bCacheable )
+            {
+                cache.put( strResourceTypeId, nResourceId, image, lGeneration );
+            }
+        }
+
+        return image;
+    }
+
+    /**
+     * Removes an image from the cache of the image servlet. Must be called by cacheable providers when an image is modified or deleted.
+     * 
+     * @param strResourceTypeId
+     *            The resource's type ID
+     * @param nResourceId
+     *            The resource ID
+     * @since 7.0.11
+     */
+    public static void invalidateImageResource( String strResourceTypeId, int nResourceId )
+    {
+        ImageResourceCacheService.getInstance( ).remove( strResourceTypeId, nResourceId );
+    }
+
+    /**
+     * Removes all the images of a resource type from the cache of the image servlet
+     * 
+     * @param strResourceTypeId
+     *            The resource's type ID
+     * @since 7.0.11
+     */
+    public static void invalidateImageResources( String strResourceTypeId )
+    {
+        ImageResourceCacheService.getInstance( ).removeResourceType( strResourceTypeId );
+    }
     
     /**
      * Add Image Resource
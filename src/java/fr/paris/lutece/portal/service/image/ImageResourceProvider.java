@@ -58,6 +58,18 @@ public interface ImageResourceProvider
      * @return The Resource Image
      */
     ImageResource getImageResource( int nIdResource );
+
+    /**
+     * Tells if the images of this provider can be kept in the cache of the {@link ImageServlet}. Only providers whose images don't depend on the user may
+     * return true, and they must call {@link ImageResourceManager#invalidateImageResource(String, int)} when an image changes.
+     * 
+     * @return true if the images can be cached
+     * @since 7.0.11
+     */
+    default boolean isImageResourceCacheable( )
+    {
+        return false;
+    }
     
     /**
      * add image resource
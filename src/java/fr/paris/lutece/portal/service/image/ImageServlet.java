@@ -34,16 +34,18 @@
 package fr.paris.lutece.portal.service.image;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Files;
 
-import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.lang3.StringUtils;
+
+import fr.paris.lutece.portal.service.image.ImageResourceCacheService.CachedImage;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPathService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
@@ -60,6 +62,21 @@ public class ImageServlet extends HttpServlet
     public static final String PARAMETER_ID = "id";
     private static final String PROPERTY_PATH_IMAGES = "path.images.root";
     private static final String PROPERTY_IMAGE_PAGE_DEFAULT = "image.page.default";
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_IF_RANGE = "If-Range";
+    private static final String HEADER_RANGE = "Range";
+    private static final String HEADER_CONTENT_RANGE = "Content-Range";
+    private static final String HEADER_ACCEPT_RANGES = "Accept-Ranges";
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    // Caches may store the images but must check them with the ETag, so that access rights of the providers are still applied
+    private static final String CACHE_CONTROL_NO_CACHE = "no-cache";
+    private static final String RANGE_UNIT = "bytes";
+    private static final String RANGE_UNIT_PREFIX = RANGE_UNIT + "=";
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final String ANY_ETAG = "*";
+    private static final int [ ] UNSATISFIABLE_RANGE = new int [ 0];
+    private transient volatile DefaultImage _defaultImage;
 
     /**
      * Processes requests for both HTTP <code>GET</code> and <code>POST</code> methods.
@@ -82,60 +99,254 @@ public class ImageServlet extends HttpServlet
 
         try
         {
-            ImageResource image;
-
             if ( strResourceId != null )
             {
                 int nResourceId = Integer.parseInt( strResourceId );
-                image = ImageResourceManager.getImageResource( strResourceTypeId, nResourceId );
+                CachedImage image = ImageResourceManager.getCachedImageResource( strResourceTypeId, nResourceId );
 
-                // Test the field image value
-                if ( getImageExist( image ) )
+                if ( image == null )
                 {
-                    response.setContentType( image.getMimeType( ) );
-                    try ( OutputStream out = response.getOutputStream( ) )
-                    {
-                        out.write( image.getImage( ) );
-                    }
-                    catch( IOException ex )
-                    {
-                        AppLogService.error( ERROR_MSG, ex.getMessage( ), ex );
-                    }
+                    image = getDefaultImage( );
                 }
-                else
+
+                if ( image != null )
                 {
-                    ServletContext sc = getServletContext( );
-                    String strImageUrl = AppPathService.getAbsolutePathFromRelativePath(
-                            AppPropertiesService.getProperty( PROPERTY_PATH_IMAGES ) + "/" + AppPropertiesService.getProperty( PROPERTY_IMAGE_PAGE_DEFAULT ) ); //
-                    response.setContentType( sc.getMimeType( strImageUrl ) );
+                    sendImage( request, response, image );
+                }
+            }
+        }
+        catch( IOException ex )
+        {
+            AppLogService.error( ERROR_MSG, ex.getMessage( ), ex );
+        }
+        finally
+        {
+            LocalVariables.setLocal( null, null, null );
+        }
+    }
 
-                    File file = new File( strImageUrl );
-                    response.setContentLength( (int) file.length( ) );
+    /**
+     * Send an image, or a 304 status if the client already has it, or a part of it for range requests
+     * 
+     * @param request
+     *            servlet request
+     * @param response
+     *            servlet response
+     * @param image
+     *            The image
+     * @throws IOException
+     *             If the image can't be written
+     */
+    private void sendImage( HttpServletRequest request, HttpServletResponse response, CachedImage image ) throws IOException
+    {
+        response.setHeader( HEADER_ETAG, image.getETag( ) );
+        response.setHeader( HEADER_CACHE_CONTROL, CACHE_CONTROL_NO_CACHE );
+        response.setHeader( HEADER_ACCEPT_RANGES, RANGE_UNIT );
 
-                    try ( FileInputStream in = new FileInputStream( file ) ; OutputStream out = response.getOutputStream( ) )
-                    {
-                        // Copy the contents of the file to the output stream
-                        byte [ ] buf = new byte [ 1024];
-                        int count;
-                        while ( ( count = in.read( buf ) ) >= 0 )
-                        {
-                            out.write( buf, 0, count );
-                        }
+        if ( matchesETag( request.getHeader( HEADER_IF_NONE_MATCH ), image.getETag( ) ) )
+        {
+            response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
 
-                    }
-                    catch( IOException ex )
+            return;
+        }
+
+        byte [ ] content = image.getImage( );
+        int [ ] range = null;
+        String strIfRange = request.getHeader( HEADER_IF_RANGE );
+
+        // A range is only sent if the client still has the same version of the image
+        if ( ( strIfRange == null ) || strIfRange.equals( image.getETag( ) ) )
+        {
+            range = parseRange( request.getHeader( HEADER_RANGE ), content.length );
+        }
+
+        if ( range == UNSATISFIABLE_RANGE )
+        {
+            response.setHeader( HEADER_CONTENT_RANGE, RANGE_UNIT + " */" + content.length );
+            response.setStatus( HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE );
+
+            return;
+        }
+
+        response.setContentType( image.getMimeType( ) );
+
+        int nStart = 0;
+        int nLength = content.length;
+
+        if ( range != null )
+        {
+            nStart = range [0];
+            nLength = range [1] - range [0] + 1;
+            response.setStatus( HttpServletResponse.SC_PARTIAL_CONTENT );
+            response.setHeader( HEADER_CONTENT_RANGE, RANGE_UNIT + " " + range [0] + "-" + range [1] + "/" + content.length );
+        }
+
+        response.setContentLength( nLength );
+
+        try ( OutputStream out = response.getOutputStream( ) )
+        {
+            out.write( content, nStart, nLength );
+        }
+    }
+
+    /**
+     * Check if an If-None-Match header matches the entity tag of an image. The weak comparison is used, as required for this header.
+     * 
+     * @param strIfNoneMatch
+     *            The value of the header, or null
+     * @param strETag
+     *            The entity tag of the image
+     * @return true if the client already has the image
+     */
+    private static boolean matchesETag( String strIfNoneMatch, String strETag )
+    {
+        if ( strIfNoneMatch == null )
+        {
+            return false;
+        }
+
+        for ( String strCandidate : strIfNoneMatch.split( "," ) )
+        {
+            String strTag = StringUtils.removeStart( strCandidate.trim( ), WEAK_ETAG_PREFIX );
+
+            if ( ANY_ETAG.equals( strTag ) || strETag.equals( strTag ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Parse a Range header. Only single byte ranges are supported, other requests get the whole image.
+     * 
+     * @param strRange
+     *            The value of the header, or null
+     * @param nLength
+     *            The size of the image
+     * @return the first and last positions of the range, {@link #UNSATISFIABLE_RANGE} if the range is outside the image, or null to send the whole image
+     */
+    private static int [ ] parseRange( String strRange, int nLength )
+    {
+        if ( ( strRange == null ) || !strRange.startsWith( RANGE_UNIT_PREFIX ) || ( strRange.indexOf( ',' ) >= 0 ) )
+        {
+            return null;
+        }
+
+        String strSpec = strRange.substring( RANGE_UNIT_PREFIX.length( ) ).trim( );
+        int nDash = strSpec.indexOf( '-' );
+
+        if ( nDash < 0 )
+        {
+            return null;
+        }
+
+        String strFirst = strSpec.substring( 0, nDash ).trim( );
+        String strLast = strSpec.substring( nDash + 1 ).trim( );
+
+        if ( ( strFirst.isEmpty( ) && strLast.isEmpty( ) ) || !isEmptyOrNumeric( strFirst ) || !isEmptyOrNumeric( strLast ) )
+        {
+            return null;
+        }
+
+        try
+        {
+            long lFirst;
+            long lLast;
+
+            if ( strFirst.isEmpty( ) )
+            {
+                // Suffix range : the last bytes of the image
+                long lSuffixLength = Long.parseLong( strLast );
+
+                if ( lSuffixLength == 0 )
+                {
+                    return UNSATISFIABLE_RANGE;
+                }
+
+                lFirst = Math.max( 0, nLength - lSuffixLength );
+                lLast = nLength - 1L;
+            }
+            else
+            {
+                lFirst = Long.parseLong( strFirst );
+                lLast = nLength - 1L;
+
+                if ( !strLast.isEmpty( ) )
+                {
+                    long lRequestedLast = Long.parseLong( strLast );
+
+                    if ( lRequestedLast < lFirst )
                     {
-                        AppLogService.error( ERROR_MSG, ex.getMessage( ), ex );
+                        // Invalid range : ignored
+                        return null;
                     }
+
+                    lLast = Math.min( lRequestedLast, lLast );
                 }
             }
+
+            if ( lFirst >= nLength )
+            {
+                return UNSATISFIABLE_RANGE;
+            }
+
+            return new int [ ] {
+                    (int) lFirst, (int) lLast
+            };
         }
-        finally
+        catch( NumberFormatException e )
         {
-            LocalVariables.setLocal( null, null, null );
+            // Too large numbers
+            return null;
         }
     }
 
+    /**
+     * Check if a position of a range is empty or a number
+     * 
+     * @param strValue
+     *            The position
+     * @return true if the position is empty or only made of digits
+     */
+    private static boolean isEmptyOrNumeric( String strValue )
+    {
+        return strValue.isEmpty( ) || StringUtils.isNumeric( strValue );
+    }
+
+    /**
+     * Get the image sent when the resource has no image. The image is read once and reloaded if its file is modified.
+     * 
+     * @return the default image, or null if it can't be read
+     */
+    private CachedImage getDefaultImage( )
+    {
+        String strImagePath = AppPathService.getAbsolutePathFromRelativePath(
+                AppPropertiesService.getProperty( PROPERTY_PATH_IMAGES ) + "/" + AppPropertiesService.getProperty( PROPERTY_IMAGE_PAGE_DEFAULT ) );
+        File file = new File( strImagePath );
+        long lLastModified = file.lastModified( );
+        DefaultImage defaultImage = _defaultImage;
+
+        if ( ( defaultImage == null ) || !defaultImage._strPath.equals( strImagePath ) || ( defaultImage._lLastModified != lLastModified ) )
+        {
+            try
+            {
+                CachedImage image = new CachedImage( Files.readAllBytes( file.toPath( ) ), getServletContext( ).getMimeType( strImagePath ) );
+                defaultImage = new DefaultImage( strImagePath, lLastModified, image );
+                _defaultImage = defaultImage;
+            }
+            catch( IOException ex )
+            {
+                AppLogService.error( ERROR_MSG, ex.getMessage( ), ex );
+
+                return null;
+            }
+        }
+
+        return defaultImage._image;
+    }
+
     /**
      * Handles the HTTP <code>GET</code> method.
      * 
@@ -184,25 +395,29 @@ public class ImageServlet extends HttpServlet
     }
 
     /**
-     * Test the existence of an image in the base. If the size of the contents of the field is null or lower or equal 1, nImageLength is with false, otherwise
-     * it's true
-     * 
-     * @param image
-     *            The Resource Image
-     * @return true if images exist, otherwise return false
+     * Default image loaded from its file
      */
-    private boolean getImageExist( ImageResource image )
+    private static final class DefaultImage
     {
-        if ( image != null && image.getImage( ) != null )
-        {
-            int nImageLength = image.getImage( ).length;
+        private final String _strPath;
+        private final long _lLastModified;
+        private final CachedImage _image;
 
-            if ( nImageLength >= 1 )
-            {
-                return true;
-            }
+        /**
+         * Constructor
+         * 
+         * @param strPath
+         *            The path of the file
+         * @param lLastModified
+         *            The modification date of the file
+         * @param image
+         *            The image
+         */
+        DefaultImage( String strPath, long lLastModified, CachedImage image )
+        {
+            _strPath = strPath;
+            _lLastModified = lLastModified;
+            _image = image;
         }
-
-        return false;
     }
 }
@@ -56,8 +56,10 @@ import fr.paris.lutece.portal.service.fileimage.FileImageService;
 import fr.paris.lutece.portal.service.filter.FilterService;
 import fr.paris.lutece.portal.service.html.XmlTransformerCacheService;
 import fr.paris.lutece.portal.service.i18n.I18nService;
+import fr.paris.lutece.portal.service.image.ImageResourceCacheService;
 import fr.paris.lutece.portal.service.mailinglist.AdminMailingListService;
 import fr.paris.lutece.portal.service.plugin.PluginService;
+import fr.paris.lutece.portal.service.rbac.RBACCacheService;
 import fr.paris.lutece.portal.service.portal.PortalService;
 import fr.paris.lutece.portal.service.search.IndexationService;
 import fr.paris.lutece.portal.service.security.SecurityService;
@@ -169,6 +171,12 @@ public final class AppInit
             // XmlTransformer service cache manager
             XmlTransformerCacheService.init( );
 
+            // Image servlet cache
+            ImageResourceCacheService.init( );
+
+            // RBAC permissions cache
+            RBACCacheService.init( );
+
             AdminMailingListService.init( );
 
             // Initializes Search Engine Indexation Service
@@ -33,11 +33,15 @@
  */
 package fr.paris.lutece.portal.service.init;
 
+import fr.paris.lutece.portal.service.cache.CacheInvalidationService;
 import fr.paris.lutece.portal.service.cache.CacheService;
 import fr.paris.lutece.portal.service.daemon.AppDaemonService;
 import fr.paris.lutece.portal.service.database.AppConnectionService;
+import fr.paris.lutece.portal.service.event.LuteceUserEventManager;
+import fr.paris.lutece.portal.service.event.ResourceEventManager;
 import fr.paris.lutece.portal.service.mail.MailService;
 import fr.paris.lutece.portal.service.scheduler.JobSchedulerService;
+import fr.paris.lutece.portal.service.search.IndexationService;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPathService;
@@ -85,6 +89,10 @@ public class AppInitListener implements ServletContextListener
         MailService.shutdown( );
         AppDaemonService.shutdown( );
         JobSchedulerService.shutdown( );
+        IndexationService.shutdown( );
+        ResourceEventManager.shutdown( );
+        LuteceUserEventManager.getInstance( ).shutdown( );
+        CacheInvalidationService.shutdown( );
         ShutdownServiceManager.shutdown( );
         CacheService.getInstance( ).shutdown( );
         AppConnectionService.releasePool( );
@@ -36,6 +36,9 @@ package fr.paris.lutece.portal.service.mail;
 import fr.paris.lutece.portal.business.mail.MailItemQueue;
 import fr.paris.lutece.portal.business.mail.MailItemQueueHome;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * DatabaseQueue
  */
@@ -75,6 +78,45 @@ public class DatabaseQueue implements IMailQueue
         return null;
     }
 
+    /**
+     * Get mail items from the database queue and remove them from the queue. The mail items are claimed with one query, locked then deleted in batches.
+     * The unused shared attachments are removed once the queue is drained.
+     * 
+     * @param nMaxItems
+     *            The maximum number of mail items to get
+     * @return The older mail items of the queue
+     */
+    @Override
+    public List<MailItem> consume( int nMaxItems )
+    {
+        List<MailItemQueue> listMailItemQueues = MailItemQueueHome.getNextMailItemQueues( nMaxItems );
+
+        if ( listMailItemQueues.isEmpty( ) )
+        {
+            // the queue is drained : the shared attachments are no longer needed
+            MailItemQueueHome.removeUnusedAttachments( );
+
+            return new ArrayList<>( );
+        }
+        List<Integer> listIds = new ArrayList<>( listMailItemQueues.size( ) );
+        List<MailItem> listMails = new ArrayList<>( listMailItemQueues.size( ) );
+
+        for ( MailItemQueue mailItemQueue : listMailItemQueues )
+        {
+            listIds.add( mailItemQueue.getIdMailItemQueue( ) );
+
+            // Mail items that can't be read are removed as consume( ) does
+            if ( mailItemQueue.getMailItem( ) != null )
+            {
+                listMails.add( mailItemQueue.getMailItem( ) );
+            }
+        }
+
+        MailItemQueueHome.delete( listIds );
+
+        return listMails;
+    }
+
     /**
      * get the DatabaseQueue size
      * 
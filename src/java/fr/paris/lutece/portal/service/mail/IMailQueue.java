@@ -33,6 +33,9 @@
  */
 package fr.paris.lutece.portal.service.mail;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * IMailQueue interface
  */
@@ -45,6 +48,26 @@ public interface IMailQueue
      */
     MailItem consume( );
 
+    /**
+     * Get the older mail items from the list and remove them from the queue
+     * 
+     * @param nMaxItems
+     *            The maximum number of mail items to get
+     * @return The older mail items of the queue, or an empty list if the queue is empty
+     */
+    default List<MailItem> consume( int nMaxItems )
+    {
+        List<MailItem> listMails = new ArrayList<>( );
+        MailItem item;
+
+        while ( listMails.size( ) < nMaxItems && ( item = consume( ) ) != null )
+        {
+            listMails.add( item );
+        }
+
+        return listMails;
+    }
+
     /**
      * Put a mail item into the list of the queue
      * 
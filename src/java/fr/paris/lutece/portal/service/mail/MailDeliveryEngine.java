@@ -0,0 +1,695 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.mail;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.AddressException;
+
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Mail delivery engine. Mail items are claimed from the queue in batches and sent by worker threads, each one holding its own SMTP connection. A connection
+ * error closes the connection of the worker and the mail is retried with an exponential backoff. When the retries are exhausted the delivery is aborted and
+ * the mails not sent are put back in the queue.
+ */
+public class MailDeliveryEngine
+{
+    private static final String THREAD_NAME_PREFIX = "Lutece-MailSender-";
+    private static final String MESSAGE_ERROR_MAIL = "MailService - Error sending mail : ";
+    private static final String MESSAGE_STATUS_FAILED = " - Status [ Failed ] : ";
+    private static final MailItem END_OF_DELIVERY = new MailItem( );
+
+    private final Session _session;
+    private final ITransportProvider _transportProvider;
+    private final int _nThreads;
+    private final int _nBatchSize;
+    private final int _nMaxAttempts;
+    private final long _lBackoff;
+    private final Logger _logger;
+
+    /**
+     * Provider of connected SMTP transports
+     */
+    @FunctionalInterface
+    public interface ITransportProvider
+    {
+        /**
+         * Creates and connects a transport
+         * 
+         * @return The connected transport
+         * @throws MessagingException
+         *             If the connection fails
+         */
+        Transport connect( ) throws MessagingException;
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param session
+     *            The mail session used to build the messages
+     * @param transportProvider
+     *            The provider of the SMTP connections
+     * @param nThreads
+     *            The number of worker threads, hence of SMTP connections
+     * @param nBatchSize
+     *            The number of mail items claimed at once from the queue
+     * @param nMaxAttempts
+     *            The number of attempts to send a mail on connection errors
+     * @param lBackoff
+     *            The delay in ms before the first retry, doubled on each retry
+     * @param logger
+     *            The logger of the sent mails
+     */
+    public MailDeliveryEngine( Session session, ITransportProvider transportProvider, int nThreads, int nBatchSize, int nMaxAttempts, long lBackoff,
+            Logger logger )
+    {
+        _session = session;
+        _transportProvider = transportProvider;
+        _nThreads = Math.max( 1, nThreads );
+        _nBatchSize = Math.max( 1, nBatchSize );
+        _nMaxAttempts = Math.max( 1, nMaxAttempts );
+        _lBackoff = Math.max( 0, lBackoff );
+        _logger = logger;
+    }
+
+    /**
+     * Sends the mails of a queue
+     * 
+     * @param queue
+     *            The queue
+     * @param nMaxMails
+     *            The maximum number of mail items to claim from the queue
+     * @param sbLogs
+     *            The logs of the delivery
+     * @return The delivery report
+     */
+    public DeliveryReport deliver( IMailQueue queue, int nMaxMails, StringBuilder sbLogs )
+    {
+        Delivery delivery = new Delivery( queue, sbLogs );
+        AtomicInteger nThreadCount = new AtomicInteger( );
+        ExecutorService executor = Executors.newFixedThreadPool( _nThreads, runnable -> {
+            Thread thread = new Thread( runnable, THREAD_NAME_PREFIX + nThreadCount.incrementAndGet( ) );
+            thread.setDaemon( true );
+
+            return thread;
+        } );
+
+        for ( int i = 0; i < _nThreads; i++ )
+        {
+            executor.execute( new Worker( delivery ) );
+        }
+
+        try
+        {
+            int nClaimed = 0;
+
+            while ( nClaimed < nMaxMails && !delivery.isAborted( ) )
+            {
+                List<MailItem> listMails = queue.consume( Math.min( _nBatchSize, nMaxMails - nClaimed ) );
+
+                if ( listMails.isEmpty( ) )
+                {
+                    break;
+                }
+
+                nClaimed += listMails.size( );
+                delivery.getReport( ).addClaimed( listMails.size( ) );
+
+                for ( MailItem mail : listMails )
+                {
+                    delivery.submit( mail );
+                }
+            }
+
+            for ( int i = 0; i < _nThreads; i++ )
+            {
+                delivery.getPendingMails( ).put( END_OF_DELIVERY );
+            }
+
+            executor.shutdown( );
+
+            while ( !executor.awaitTermination( 1, TimeUnit.MINUTES ) )
+            {
+                AppLogService.debug( "MailDeliveryEngine : waiting for the workers to end" );
+            }
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            delivery.abort( );
+            executor.shutdownNow( );
+        }
+        finally
+        {
+            // Mails left by interrupted workers go back to the queue
+            MailItem mail;
+
+            while ( ( mail = delivery.getPendingMails( ).poll( ) ) != null )
+            {
+                if ( mail != END_OF_DELIVERY )
+                {
+                    delivery.requeue( mail );
+                }
+            }
+        }
+
+        DeliveryReport report = delivery.getReport( );
+        report.end( );
+
+        return report;
+    }
+
+    /**
+     * State of a delivery shared by the claiming thread and the workers
+     */
+    private final class Delivery
+    {
+        private final IMailQueue _queue;
+        private final StringBuilder _sbLogs;
+        private final BlockingQueue<MailItem> _pendingMails = new ArrayBlockingQueue<>( _nBatchSize );
+        private final DeliveryReport _report = new DeliveryReport( );
+        private volatile boolean _bAborted;
+
+        Delivery( IMailQueue queue, StringBuilder sbLogs )
+        {
+            _queue = queue;
+            _sbLogs = sbLogs;
+        }
+
+        BlockingQueue<MailItem> getPendingMails( )
+        {
+            return _pendingMails;
+        }
+
+        DeliveryReport getReport( )
+        {
+            return _report;
+        }
+
+        boolean isAborted( )
+        {
+            return _bAborted;
+        }
+
+        void abort( )
+        {
+            _bAborted = true;
+            _report.setAborted( );
+        }
+
+        /**
+         * Hands a mail over to the workers, waiting for one of them if they are all busy
+         * 
+         * @param mail
+         *            The mail
+         * @throws InterruptedException
+         *             If the thread is interrupted
+         */
+        void submit( MailItem mail ) throws InterruptedException
+        {
+            if ( _bAborted )
+            {
+                requeue( mail );
+            }
+            else
+            {
+                _pendingMails.put( mail );
+            }
+        }
+
+        /**
+         * Puts a mail not sent back in the queue
+         * 
+         * @param mail
+         *            The mail
+         */
+        void requeue( MailItem mail )
+        {
+            _queue.send( mail );
+            _report.getRequeued( ).increment( );
+        }
+
+        /**
+         * Logs the delivery of a message
+         * 
+         * @param sbLogsLine
+         *            The log line
+         */
+        void log( StringBuilder sbLogsLine )
+        {
+            _logger.info( sbLogsLine.toString( ) );
+
+            synchronized( _sbLogs )
+            {
+                _sbLogs.append( "\r\n" ).append( sbLogsLine );
+            }
+        }
+    }
+
+    /**
+     * Worker sending the pending mails of a delivery with its own SMTP connection
+     */
+    private final class Worker implements Runnable
+    {
+        private final Delivery _delivery;
+        private Transport _transport;
+
+        Worker( Delivery delivery )
+        {
+            _delivery = delivery;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run( )
+        {
+            try
+            {
+                MailItem mail = _delivery.getPendingMails( ).take( );
+
+                while ( mail != END_OF_DELIVERY )
+                {
+                    if ( _delivery.isAborted( ) )
+                    {
+                        _delivery.requeue( mail );
+                    }
+                    else
+                    {
+                        try
+                        {
+                            deliverMail( mail );
+                        }
+                        catch( RuntimeException e )
+                        {
+                            // the worker must keep consuming the pending mails
+                            _delivery.getReport( ).getFailed( ).increment( );
+                            AppLogService.error( "{} {} ", MESSAGE_ERROR_MAIL, e.getMessage( ), e );
+                        }
+                    }
+
+                    mail = _delivery.getPendingMails( ).take( );
+                }
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+            }
+            finally
+            {
+                close( _transport );
+            }
+        }
+
+        /**
+         * Sends a mail, one message per recipient if the mail requires it
+         * 
+         * @param mail
+         *            The mail
+         */
+        private void deliverMail( MailItem mail )
+        {
+            if ( !mail.isUniqueRecipientTo( ) )
+            {
+                if ( !sendWithRetry( mail ) )
+                {
+                    _delivery.requeue( mail );
+                }
+
+                return;
+            }
+
+            List<String> listAdressTo = MailUtil.getAllStringAdressOfRecipients( mail.getRecipientsTo( ) );
+
+            for ( int i = 0; i < listAdressTo.size( ); i++ )
+            {
+                // just one recipient by mail
+                mail.setRecipientsTo( listAdressTo.get( i ) );
+
+                if ( !sendWithRetry( mail ) )
+                {
+                    // only the recipients not served yet are put back in the queue
+                    mail.setRecipientsTo( MailUtil.getStrRecipients( listAdressTo.subList( i, listAdressTo.size( ) ) ) );
+                    _delivery.requeue( mail );
+
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Sends a message, reconnecting and retrying with an exponential backoff on connection errors
+         * 
+         * @param mail
+         *            The mail
+         * @return false if the message couldn't be sent because of connection errors
+         */
+        private boolean sendWithRetry( MailItem mail )
+        {
+            long lDelay = _lBackoff;
+
+            for ( int nAttempt = 1;; nAttempt++ )
+            {
+                StringBuilder sbLogsLine = new StringBuilder( );
+
+                try
+                {
+                    if ( _transport == null || !_transport.isConnected( ) )
+                    {
+                        close( _transport );
+                        _transport = null;
+                        _transport = _transportProvider.connect( );
+                    }
+
+                    if ( sendMail( mail, _transport, sbLogsLine ) )
+                    {
+                        _delivery.getReport( ).getSent( ).increment( );
+                    }
+                    else
+                    {
+                        _delivery.getReport( ).getFailed( ).increment( );
+                    }
+
+                    _delivery.log( sbLogsLine );
+
+                    return true;
+                }
+                catch( MessagingException e )
+                {
+                    sbLogsLine.append( MESSAGE_STATUS_FAILED ).append( e.getMessage( ) );
+                    _delivery.log( sbLogsLine );
+                    close( _transport );
+                    _transport = null;
+
+                    if ( nAttempt >= _nMaxAttempts || _delivery.isAborted( ) )
+                    {
+                        AppLogService.error( "Error while sending a message. Will schedule a retry", e );
+                        _delivery.abort( );
+
+                        return false;
+                    }
+
+                    _delivery.getReport( ).getRetries( ).increment( );
+                    AppLogService.warn( "Error while sending a message, attempt {} of {} : {}", nAttempt, _nMaxAttempts, e.getMessage( ) );
+
+                    if ( !sleep( lDelay ) )
+                    {
+                        _delivery.abort( );
+
+                        return false;
+                    }
+
+                    lDelay *= 2;
+                }
+            }
+        }
+    }
+
+    /**
+     * send mail
+     * 
+     * @param mail
+     *            the mail item
+     * @param transportSmtp
+     *            the smtp transport
+     * @param sbLogsLine
+     *            the log line
+     * @return false if the mail has been rejected because of its recipients
+     * @throws MessagingException
+     *             if the connection is dead or not in the connected state
+     */
+    private boolean sendMail( MailItem mail, Transport transportSmtp, StringBuilder sbLogsLine ) throws MessagingException
+    {
+        try
+        {
+            sbLogsLine.append( " - To " );
+            sbLogsLine.append( ( ( mail.getRecipientsTo( ) != null ) ? mail.getRecipientsTo( ) : "" ) );
+            sbLogsLine.append( " - Cc " );
+            sbLogsLine.append( ( mail.getRecipientsCc( ) != null ) ? mail.getRecipientsCc( ) : "" );
+            sbLogsLine.append( " - Bcc " );
+            sbLogsLine.append( ( mail.getRecipientsBcc( ) != null ) ? mail.getRecipientsBcc( ) : "" );
+            sbLogsLine.append( " - Subject : " );
+            sbLogsLine.append( mail.getSubject( ) );
+
+            switch( mail.getFormat( ) )
+            {
+                case MailItem.FORMAT_HTML:
+                    MailUtil.sendMessageHtml( mail, transportSmtp, _session );
+                    break;
+                case MailItem.FORMAT_TEXT:
+                    MailUtil.sendMessageText( mail, transportSmtp, _session );
+                    break;
+                case MailItem.FORMAT_MULTIPART_HTML:
+                    MailUtil.sendMultipartMessageHtml( mail, transportSmtp, _session );
+                    break;
+                case MailItem.FORMAT_MULTIPART_TEXT:
+                    MailUtil.sendMultipartMessageText( mail, transportSmtp, _session );
+                    break;
+                case MailItem.FORMAT_CALENDAR:
+                    MailUtil.sendMessageCalendar( mail, transportSmtp, _session );
+                    break;
+                default:
+                    break;
+            }
+
+            sbLogsLine.append( " - Status [ OK ]" );
+
+            return true;
+        }
+        catch( SendFailedException | AddressException e )
+        {
+            // a wrongly formatted address is encountered in the list of recipients
+            sbLogsLine.append( MESSAGE_STATUS_FAILED );
+            sbLogsLine.append( e.getMessage( ) );
+            AppLogService.error( "{} {} ", MESSAGE_ERROR_MAIL, e.getMessage( ), e );
+
+            return false;
+        }
+    }
+
+    /**
+     * Closes a transport, ignoring errors
+     * 
+     * @param transport
+     *            the transport, may be null
+     */
+    private static void close( Transport transport )
+    {
+        if ( transport != null )
+        {
+            try
+            {
+                transport.close( );
+            }
+            catch( MessagingException e )
+            {
+                AppLogService.debug( "Error closing the SMTP connection : {}", e.getMessage( ) );
+            }
+        }
+    }
+
+    /**
+     * Waits before a retry
+     * 
+     * @param lDelay
+     *            the delay in ms
+     * @return false if the thread has been interrupted
+     */
+    private static boolean sleep( long lDelay )
+    {
+        try
+        {
+            Thread.sleep( lDelay );
+
+            return true;
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+
+            return false;
+        }
+    }
+
+    /**
+     * Report of a delivery
+     */
+    public static final class DeliveryReport
+    {
+        private final long _lStartTime = System.currentTimeMillis( );
+        private final LongAdder _counterClaimed = new LongAdder( );
+        private final LongAdder _counterSent = new LongAdder( );
+        private final LongAdder _counterFailed = new LongAdder( );
+        private final LongAdder _counterRetries = new LongAdder( );
+        private final LongAdder _counterRequeued = new LongAdder( );
+        private volatile boolean _bAborted;
+        private long _lDuration;
+
+        void addClaimed( int nCount )
+        {
+            _counterClaimed.add( nCount );
+        }
+
+        LongAdder getSent( )
+        {
+            return _counterSent;
+        }
+
+        LongAdder getFailed( )
+        {
+            return _counterFailed;
+        }
+
+        LongAdder getRetries( )
+        {
+            return _counterRetries;
+        }
+
+        LongAdder getRequeued( )
+        {
+            return _counterRequeued;
+        }
+
+        void setAborted( )
+        {
+            _bAborted = true;
+        }
+
+        void end( )
+        {
+            _lDuration = System.currentTimeMillis( ) - _lStartTime;
+        }
+
+        /**
+         * @return the number of mail items claimed from the queue
+         */
+        public long getClaimedCount( )
+        {
+            return _counterClaimed.sum( );
+        }
+
+        /**
+         * @return the number of messages sent
+         */
+        public long getSentCount( )
+        {
+            return _counterSent.sum( );
+        }
+
+        /**
+         * @return the number of messages rejected because of their recipients
+         */
+        public long getFailedCount( )
+        {
+            return _counterFailed.sum( );
+        }
+
+        /**
+         * @return the number of retries after connection errors
+         */
+        public long getRetryCount( )
+        {
+            return _counterRetries.sum( );
+        }
+
+        /**
+         * @return the number of mail items put back in the queue
+         */
+        public long getRequeuedCount( )
+        {
+            return _counterRequeued.sum( );
+        }
+
+        /**
+         * @return true if the delivery has been aborted because of connection errors
+         */
+        public boolean isAborted( )
+        {
+            return _bAborted;
+        }
+
+        /**
+         * @return the duration of the delivery in ms
+         */
+        public long getDuration( )
+        {
+            return _lDuration;
+        }
+
+        /**
+         * @return the number of messages sent per second
+         */
+        public double getThroughput( )
+        {
+            return ( _lDuration > 0 ) ? ( getSentCount( ) * 1000.0 / _lDuration ) : getSentCount( );
+        }
+
+        /**
+         * @return the percentage of messages that couldn't be sent
+         */
+        public double getErrorRate( )
+        {
+            long lTotal = getSentCount( ) + getFailedCount( );
+
+            return ( lTotal > 0 ) ? ( getFailedCount( ) * 100.0 / lTotal ) : 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString( )
+        {
+            return String.format( "claimed=%d sent=%d failed=%d retries=%d requeued=%d aborted=%b duration=%dms throughput=%.1f mails/s errorRate=%.2f%%",
+                    getClaimedCount( ), getSentCount( ), getFailedCount( ), getRetryCount( ), getRequeuedCount( ), isAborted( ), getDuration( ),
+                    getThroughput( ), getErrorRate( ) );
+        }
+    }
+}
@@ -35,19 +35,13 @@ package fr.paris.lutece.portal.service.mail;
 
 import fr.paris.lutece.portal.service.daemon.AppDaemonService;
 import fr.paris.lutece.portal.service.daemon.Daemon;
-import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 
 import java.util.Date;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 
-import javax.mail.MessagingException;
-import javax.mail.NoSuchProviderException;
-import javax.mail.SendFailedException;
 import javax.mail.Session;
 import javax.mail.Transport;
-import javax.mail.internet.AddressException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -59,9 +53,6 @@ public class MailSenderDaemon extends Daemon
 {
     protected static final String DAEMON_ID = "mailSender";
 
-    private static final String MESSAGE_ERROR_MAIL = "MailService - Error sending mail : ";
-    private static final String MESSAGE_STATUS_FAILED = " - Status [ Failed ] : ";
-    private static final String MESSAGE_ERROR_MAIL_MESSAGING = "MailService - Error sending mail (MessagingException): ";
     private static final String PROPERTY_MAIL_HOST = "mail.server";
     private static final String PROPERTY_MAIL_PORT = "mail.server.port";
     private static final String PROPERTY_MAIL_DEAMON_WAITTIME = "mail.daemon.waittime";
@@ -70,6 +61,10 @@ public class MailSenderDaemon extends Daemon
     private static final String PROPERTY_MAIL_PASSWORD = "mail.password";
     private static final String PROPERTY_MAIL_DAEMON_RETRYONERROR_WAITTIME = "mail.daemon.retryonerror.waittime";
     private static final String PROPERTY_MAIL_DAEMON_RETRYONERROR_WAITTIME_UNIT = "mail.daemon.retryonerror.waittime.unit";
+    private static final String PROPERTY_MAIL_DAEMON_THREADS = "mail.daemon.threads";
+    private static final String PROPERTY_MAIL_DAEMON_BATCH_SIZE = "mail.daemon.batchSize";
+    private static final String PROPERTY_MAIL_DAEMON_RETRY_MAX_ATTEMPTS = "mail.daemon.retry.maxAttempts";
+    private static final String PROPERTY_MAIL_DAEMON_RETRY_BACKOFF = "mail.daemon.retry.backoff";
     private static final int DEFAULT_SMTP_PORT = 25;
 
     /**
@@ -80,11 +75,6 @@ public class MailSenderDaemon extends Daemon
     {
         Logger logger = LogManager.getLogger( "lutece.mail" );
 
-        String strHost = AppPropertiesService.getProperty( PROPERTY_MAIL_HOST );
-        String strUsername = AppPropertiesService.getProperty( PROPERTY_MAIL_USERNAME, null );
-        String strPassword = AppPropertiesService.getProperty( PROPERTY_MAIL_PASSWORD, null );
-        int nStmpPort = AppPropertiesService.getPropertyInt( PROPERTY_MAIL_PORT, DEFAULT_SMTP_PORT );
-
         // Initializes a mail session with the SMTP server
         StringBuilder sbLogs = new StringBuilder( );
         IMailQueue queue = MailService.getQueue( );
@@ -93,41 +83,26 @@ public class MailSenderDaemon extends Daemon
         {
             sbLogs.append( new Date( ).toString( ) );
 
+            String strHost = AppPropertiesService.getProperty( PROPERTY_MAIL_HOST );
+            String strUsername = AppPropertiesService.getProperty( PROPERTY_MAIL_USERNAME, null );
+            String strPassword = AppPropertiesService.getProperty( PROPERTY_MAIL_PASSWORD, null );
+            int nStmpPort = AppPropertiesService.getPropertyInt( PROPERTY_MAIL_PORT, DEFAULT_SMTP_PORT );
             Session session = MailUtil.getMailSession( strHost, nStmpPort, strUsername, strPassword );
-            Transport transportSmtp = null;
-
-            try
-            {
-                transportSmtp = MailUtil.getTransport( session );
-            }
-            catch( NoSuchProviderException e )
-            {
-                AppLogService.error( e.getMessage( ), e );
-            }
 
-            if ( transportSmtp != null )
-            {
-                try
-                {
-                    transportSmtp.connect( strHost, nStmpPort, strUsername, strPassword );
+            // Each worker of the engine opens its own SMTP connection
+            MailDeliveryEngine.ITransportProvider transportProvider = ( ) -> {
+                Transport transportSmtp = MailUtil.getTransport( session );
+                transportSmtp.connect( strHost, nStmpPort, strUsername, strPassword );
 
-                    sendMails( transportSmtp, session, queue, logger, sbLogs );
+                return transportSmtp;
+            };
+            int nThreads = AppPropertiesService.getPropertyInt( PROPERTY_MAIL_DAEMON_THREADS, 1 );
+            int nBatchSize = AppPropertiesService.getPropertyInt( PROPERTY_MAIL_DAEMON_BATCH_SIZE, 100 );
+            int nMaxAttempts = AppPropertiesService.getPropertyInt( PROPERTY_MAIL_DAEMON_RETRY_MAX_ATTEMPTS, 3 );
+            long lBackoff = AppPropertiesService.getPropertyLong( PROPERTY_MAIL_DAEMON_RETRY_BACKOFF, 1000L );
+            MailDeliveryEngine engine = new MailDeliveryEngine( session, transportProvider, nThreads, nBatchSize, nMaxAttempts, lBackoff, logger );
 
-                    transportSmtp.close( );
-                }
-                catch( MessagingException e )
-                {
-                    sbLogs.append( MESSAGE_ERROR_MAIL_MESSAGING );
-                    sbLogs.append( e.getMessage( ) );
-                    AppLogService.error( "{} {} ", MESSAGE_ERROR_MAIL_MESSAGING, e.getMessage( ), e );
-                }
-                catch( Exception e )
-                {
-                    sbLogs.append( MESSAGE_ERROR_MAIL );
-                    sbLogs.append( e.getMessage( ) );
-                    AppLogService.error( "{} {} ", MESSAGE_ERROR_MAIL, e.getMessage( ), e );
-                }
-            }
+            sendMails( engine, queue, logger, sbLogs );
 
             // reset all resource stored in MailAttachmentCacheService
             MailAttachmentCacheService.getInstance( ).resetCache( );
@@ -141,132 +116,40 @@ public class MailSenderDaemon extends Daemon
         }
     }
 
-    private void sendMails( Transport transportSmtp, Session session, IMailQueue queue, Logger logger, StringBuilder sbLogs ) throws MessagingException
+    /**
+     * Sends a group of mails and schedules the next run if there are mails left or if the delivery failed
+     * 
+     * @param engine
+     *            the delivery engine
+     * @param queue
+     *            the mail queue
+     * @param logger
+     *            the mail logger
+     * @param sbLogs
+     *            the daemon logs
+     */
+    private void sendMails( MailDeliveryEngine engine, IMailQueue queue, Logger logger, StringBuilder sbLogs )
     {
         int nWaitTime = AppPropertiesService.getPropertyInt( PROPERTY_MAIL_DEAMON_WAITTIME, 1 );
         int nCount = AppPropertiesService.getPropertyInt( PROPERTY_MAIL_DEAMON_COUNT, 1000 );
         long nRetryWaitTime = AppPropertiesService.getPropertyLong( PROPERTY_MAIL_DAEMON_RETRYONERROR_WAITTIME, 60L );
         TimeUnit retryWaitTimeUnit = TimeUnit.valueOf( AppPropertiesService.getProperty( PROPERTY_MAIL_DAEMON_RETRYONERROR_WAITTIME_UNIT, "SECONDS" ) );
 
-        MailItem mail = queue.consume( );
-        int count = 0;
-
-        while ( mail != null )
-        {
-            try
-            {
-                if ( mail.isUniqueRecipientTo( ) )
-                {
-                    List<String> listAdressTo = MailUtil.getAllStringAdressOfRecipients( mail.getRecipientsTo( ) );
-
-                    for ( String strAdressTo : listAdressTo )
-                    {
-                        StringBuilder sbLogsLine = new StringBuilder( );
-                        // just one recipient by mail
-                        mail.setRecipientsTo( strAdressTo );
-                        sendMail( mail, transportSmtp, session, sbLogsLine );
-                        logger.info( sbLogsLine.toString( ) );
-                        sbLogs.append( "\r\n" );
-                        sbLogs.append( sbLogsLine );
-                    }
-                }
-                else
-                {
-                    StringBuilder sbLogsLine = new StringBuilder( );
-                    sendMail( mail, transportSmtp, session, sbLogsLine );
-                    logger.info( sbLogsLine.toString( ) );
-                    sbLogs.append( "\r\n" );
-                    sbLogs.append( sbLogsLine );
-                }
-            }
-            catch( MessagingException e )
-            {
-                // if the connection is dead or not in the connected state
-                // we put the mail in the queue before end process
-                queue.send( mail );
-                AppLogService.error( "Error while sending a message. Will schedule a retry", e );
-                AppDaemonService.signalDaemon( DAEMON_ID, nRetryWaitTime, retryWaitTimeUnit );
-                break;
-            }
-
-            mail = queue.consume( );
-            // Tempo
-            count++;
+        MailDeliveryEngine.DeliveryReport report = engine.deliver( queue, nCount, sbLogs );
 
-            if ( ( count % nCount ) == 0 )
-            {
-                transportSmtp.close( );
-                AppDaemonService.signalDaemon( DAEMON_ID, nWaitTime, TimeUnit.MILLISECONDS );
-                break;
-            }
-        }
-    }
+        logger.info( "MailSenderDaemon - {}", report );
+        sbLogs.append( "\r\n" ).append( report );
 
-    /**
-     * send mail
-     * 
-     * @param mail
-     *            the mail item
-     * @param transportSmtp
-     *            the smtp transport
-     * @param session
-     *            the session smtp
-     * @param sbLogsLine
-     *            the log line
-     * @throws MessagingException
-     *             See {@link MessagingException}
-     */
-    private void sendMail( MailItem mail, Transport transportSmtp, Session session, StringBuilder sbLogsLine ) throws MessagingException
-    {
-        try
+        if ( report.isAborted( ) )
         {
-            sbLogsLine.append( " - To " );
-            sbLogsLine.append( ( ( mail.getRecipientsTo( ) != null ) ? mail.getRecipientsTo( ) : "" ) );
-            sbLogsLine.append( " - Cc " );
-            sbLogsLine.append( ( mail.getRecipientsCc( ) != null ) ? mail.getRecipientsCc( ) : "" );
-            sbLogsLine.append( " - Bcc " );
-            sbLogsLine.append( ( mail.getRecipientsBcc( ) != null ) ? mail.getRecipientsBcc( ) : "" );
-            sbLogsLine.append( " - Subject : " );
-            sbLogsLine.append( mail.getSubject( ) );
-
-            switch( mail.getFormat( ) )
+            // the mails not sent are back in the queue
+            AppDaemonService.signalDaemon( DAEMON_ID, nRetryWaitTime, retryWaitTimeUnit );
+        }
+        else
+            if ( report.getClaimedCount( ) >= nCount )
             {
-                case MailItem.FORMAT_HTML:
-                    MailUtil.sendMessageHtml( mail, transportSmtp, session );
-                    break;
-                case MailItem.FORMAT_TEXT:
-                    MailUtil.sendMessageText( mail, transportSmtp, session );
-                    break;
-                case MailItem.FORMAT_MULTIPART_HTML:
-                    MailUtil.sendMultipartMessageHtml( mail, transportSmtp, session );
-                    break;
-                case MailItem.FORMAT_MULTIPART_TEXT:
-                    MailUtil.sendMultipartMessageText( mail, transportSmtp, session );
-                    break;
-                case MailItem.FORMAT_CALENDAR:
-                    MailUtil.sendMessageCalendar( mail, transportSmtp, session );
-                    break;
-                default:
-                    break;
+                // Tempo
+                AppDaemonService.signalDaemon( DAEMON_ID, nWaitTime, TimeUnit.MILLISECONDS );
             }
-
-            sbLogsLine.append( " - Status [ OK ]" );
-        }
-        catch( SendFailedException | AddressException e )
-        {
-            // a wrongly formatted address is encountered in the list of recipients
-            sbLogsLine.append( MESSAGE_STATUS_FAILED );
-            sbLogsLine.append( e.getMessage( ) );
-            AppLogService.error( "{} {} ", MESSAGE_ERROR_MAIL, e.getMessage( ), e );
-        }
-        catch( MessagingException e )
-        {
-            // if the connection is dead or not in the connected state
-            // we put the mail in the queue before end process
-            sbLogsLine.append( MESSAGE_STATUS_FAILED );
-            sbLogsLine.append( e.getMessage( ) );
-            AppLogService.error( "{} {} ", MESSAGE_ERROR_MAIL, e.getMessage( ), e );
-            throw e;
-        }
     }
 }
@@ -80,6 +80,26 @@ public class MemoryQueue implements IMailQueue
         return item;
     }
 
+    /**
+     * Get the older mail items from the list and remove them from the queue
+     * 
+     * @param nMaxItems
+     *            The maximum number of mail items to get
+     * @return The older mail items of the queue
+     */
+    @Override
+    public List<MailItem> consume( int nMaxItems )
+    {
+        synchronized( _listMails )
+        {
+            List<MailItem> listHead = _listMails.subList( 0, Math.min( nMaxItems, _listMails.size( ) ) );
+            List<MailItem> listItems = new ArrayList<>( listHead );
+            listHead.clear( );
+
+            return listItems;
+        }
+    }
+
     /**
      * get the MemoryQueue size
      * 
@@ -33,22 +33,63 @@
  */
 package fr.paris.lutece.portal.service.page;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
+import fr.paris.lutece.portal.business.page.Page;
 import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.cache.CacheService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
+import fr.paris.lutece.portal.service.cache.EntityChangeListener;
+import fr.paris.lutece.portal.service.message.SiteMessageException;
 import fr.paris.lutece.portal.service.util.AppException;
-import net.sf.ehcache.Ehcache;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import net.sf.ehcache.Element;
 
 /**
- * Page Cache Service
+ * Page Cache Service. Concurrent requests for a page that is not in the cache are coalesced : only one of them builds the page while the others wait for
+ * its result for a bounded time, after which they build the page themselves. If a soft time to live is configured, a page older than this delay is still
+ * served to all the requests but one, which rebuilds it.
  */
-public class PageCacheService extends AbstractCacheableService
+public class PageCacheService extends AbstractCacheableService implements EntityChangeListener
 {
+    /** Entity type of the content changes of a page (ie: a modified portlet) published to the other nodes */
+    public static final String ENTITY_TYPE_PAGE_CONTENT = "PAGE_CONTENT";
     private static final String SERVICE_NAME = "Page Cache Service";
+    private static final String CACHE_PAGE_PREFIX = "page:";
+    private static final String PROPERTY_BUILD_WAIT_TIMEOUT = "lutece.cache.page.buildWaitTimeout";
+    private static final long DEFAULT_BUILD_WAIT_TIMEOUT = 10000L;
 
-    // Performance patch
-    private static ConcurrentHashMap<String, String> _keyMemory = new ConcurrentHashMap<>( );
+    private final ConcurrentHashMap<String, CompletableFuture<String>> _mapPendingBuilds = new ConcurrentHashMap<>( );
+    private final LongAdder _counterCoalescedWaits = new LongAdder( );
+    private final LongAdder _counterStaleServes = new LongAdder( );
+    private final LongAdder _counterRevalidations = new LongAdder( );
+    private final LongAdder _counterWaitTimeouts = new LongAdder( );
+    private long _lSoftTimeToLive;
+    private long _lBuildWaitTimeout = DEFAULT_BUILD_WAIT_TIMEOUT;
+
+    /**
+     * Builds a page, putting it in the cache if it can be cached
+     */
+    @FunctionalInterface
+    interface PageBuilder
+    {
+        /**
+         * Builds the page
+         * 
+         * @return The HTML code of the page
+         * @throws SiteMessageException
+         *             occurs when a site message need to be displayed
+         */
+        String build( ) throws SiteMessageException;
+    }
 
     /**
      * {@inheritDoc }
@@ -58,82 +99,306 @@ public class PageCacheService extends AbstractCacheableService
         return SERVICE_NAME;
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void initCache( String strCacheName )
+    {
+        super.initCache( strCacheName );
+        _lSoftTimeToLive = CacheService.getInstance( ).getSoftTimeToLive( strCacheName );
+        _lBuildWaitTimeout = AppPropertiesService.getPropertyLong( PROPERTY_BUILD_WAIT_TIMEOUT, DEFAULT_BUILD_WAIT_TIMEOUT );
+    }
+
+    /**
+     * Gets the tag associated to the cached versions of a page
+     * 
+     * @param strIdPage
+     *            The page ID
+     * @return The tag
+     */
+    public static String getPageTag( String strIdPage )
+    {
+        return CACHE_PAGE_PREFIX + strIdPage;
+    }
+
     /**
      * Get a memory key
      * 
      * @param strKey
      *            The key
      * @return The key
+     * @deprecated The keys are no longer kept in memory : the key is returned as is
      */
+    @Deprecated
     String getKey( String strKey )
     {
-        String keyInMemory = _keyMemory.putIfAbsent( strKey, strKey );
+        return strKey;
+    }
 
-        if ( keyInMemory != null )
+    /**
+     * @param element
+     *            The Element object
+     * @deprecated The keys are no longer kept in memory : the tag index of the cache follows the removals by itself
+     */
+    @Deprecated
+    public void removeKeyFromMap( Element element )
+    {
+        // nothing to remove
+    }
+
+    /**
+     * Returns the soft time to live of the cache
+     * 
+     * @return The soft time to live in seconds, 0 if stale pages are never served
+     */
+    public long getSoftTimeToLive( )
+    {
+        return _lSoftTimeToLive;
+    }
+
+    /**
+     * Sets the soft time to live of the cache
+     * 
+     * @param lSoftTimeToLive
+     *            The soft time to live in seconds, 0 if stale pages are never served
+     */
+    void setSoftTimeToLive( long lSoftTimeToLive )
+    {
+        _lSoftTimeToLive = lSoftTimeToLive;
+    }
+
+    /**
+     * Sets the maximum time a request waits for the build of a page by another request
+     * 
+     * @param lBuildWaitTimeout
+     *            The timeout in milliseconds
+     */
+    void setBuildWaitTimeout( long lBuildWaitTimeout )
+    {
+        _lBuildWaitTimeout = lBuildWaitTimeout;
+    }
+
+    /**
+     * Gets a page from the cache, or builds it. Only one request builds a given page at a time : the other requests wait for its result, or are served with
+     * the stale version of the page if there is one.
+     * 
+     * @param strKey
+     *            The key
+     * @param builder
+     *            The builder of the page
+     * @return The HTML code of the page
+     * @throws SiteMessageException
+     *             occurs when a site message need to be displayed
+     */
+    String getPage( String strKey, PageBuilder builder ) throws SiteMessageException
+    {
+        Element element = getElement( strKey );
+        boolean bStale = false;
+
+        if ( element != null )
         {
-            return keyInMemory;
+            String strPage = (String) element.getObjectValue( );
+
+            if ( !isStale( element ) )
+            {
+                AppLogService.debug( "Page read from cache {}", strKey );
+
+                return strPage;
+            }
+
+            bStale = true;
         }
 
-        return strKey;
+        // only one thread can evaluate the page
+        CompletableFuture<String> future = new CompletableFuture<>( );
+        CompletableFuture<String> pendingBuild = startBuild( strKey, future );
+
+        if ( pendingBuild != null )
+        {
+            if ( bStale )
+            {
+                // the page is being rebuilt by an other thread, the stale version is served meanwhile
+                _counterStaleServes.increment( );
+                AppLogService.debug( "Stale page read from cache {}", strKey );
+
+                return (String) element.getObjectValue( );
+            }
+
+            _counterCoalescedWaits.increment( );
+
+            String strPage = awaitBuild( strKey, pendingBuild );
+
+            if ( strPage != null )
+            {
+                AppLogService.debug( "Page read from cache after coalesced build {}", strKey );
+
+                return strPage;
+            }
+
+            // The page built by the other thread can not be shared or is not built in time
+            return builder.build( );
+        }
+
+        String strPage = null;
+
+        try
+        {
+            if ( bStale )
+            {
+                _counterRevalidations.increment( );
+            }
+
+            strPage = builder.build( );
+
+            return strPage;
+        }
+        finally
+        {
+            endBuild( strKey, future );
+            // threads waiting for the build only share a page that has been cached
+            future.complete( ( strPage != null ) && ( getElement( strKey ) != null ) ? strPage : null );
+        }
     }
 
     /**
-     * @see net.sf.ehcache.event.CacheEventListener#notifyElementEvicted(net.sf.ehcache.Ehcache, net.sf.ehcache.Element)
-     * @param cache
-     *            The Ehcache object
-     * @param element
-     *            The Element object
+     * Waits for the build of a page by another request
+     * 
+     * @param strKey
+     *            The key
+     * @param pendingBuild
+     *            The pending build
+     * @return The page, or null if it can not be shared or is not built within the timeout
      */
-    @Override
-    public void notifyElementEvicted( Ehcache cache, Element element )
+    private String awaitBuild( String strKey, CompletableFuture<String> pendingBuild )
     {
-        removeKeyFromMap( element );
+        try
+        {
+            return pendingBuild.get( _lBuildWaitTimeout, TimeUnit.MILLISECONDS );
+        }
+        catch( TimeoutException e )
+        {
+            _counterWaitTimeouts.increment( );
+            AppLogService.error( "Page {} not built by another request within {} ms, the page is built again", strKey, _lBuildWaitTimeout );
+
+            return null;
+        }
+        catch( ExecutionException e )
+        {
+            return null;
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+
+            throw new AppException( "Interrupted while waiting for the build of page " + strKey, e );
+        }
     }
 
     /**
-     * @see net.sf.ehcache.event.CacheEventListener#notifyElementExpired(net.sf.ehcache.Ehcache, net.sf.ehcache.Element)
-     * @param cache
-     *            The Ehcache object
-     * @param element
-     *            The Element object
+     * Gets a cache element
+     * 
+     * @param strKey
+     *            The key
+     * @return The element or null if the key is not in the cache
      */
-    @Override
-    public void notifyElementExpired( Ehcache cache, Element element )
+    Element getElement( String strKey )
     {
-        removeKeyFromMap( element );
+        if ( ( getCache( ) != null ) && isCacheEnable( ) )
+        {
+            return getCache( ).get( strKey );
+        }
+
+        return null;
     }
 
     /**
-     * @see net.sf.ehcache.event.CacheEventListener#notifyElementRemoved(net.sf.ehcache.Ehcache, net.sf.ehcache.Element)
-     * @param cache
-     *            The Ehcache object
+     * Tells if a cached page is older than the soft time to live
+     * 
      * @param element
-     *            The Element object
+     *            The cache element
+     * @return true if the page should be rebuilt
+     */
+    boolean isStale( Element element )
+    {
+        return ( _lSoftTimeToLive > 0 ) && ( ( System.currentTimeMillis( ) - element.getLatestOfCreationAndUpdateTime( ) ) > ( _lSoftTimeToLive * 1000L ) );
+    }
+
+    /**
+     * Registers the build of a page. The build is owned by the caller only if no other build of the same key is pending.
+     * 
+     * @param strKey
+     *            The key
+     * @param future
+     *            The future that will be completed with the page, or with null if the page can not be shared
+     * @return The pending build of the same key owned by another thread, or null if the caller owns the build
+     */
+    private CompletableFuture<String> startBuild( String strKey, CompletableFuture<String> future )
+    {
+        return _mapPendingBuilds.putIfAbsent( strKey, future );
+    }
+
+    /**
+     * Unregisters the build of a page
+     * 
+     * @param strKey
+     *            The key
+     * @param future
+     *            The future registered by {@link #startBuild(String, CompletableFuture)}
+     */
+    private void endBuild( String strKey, CompletableFuture<String> future )
+    {
+        _mapPendingBuilds.remove( strKey, future );
+    }
+
+    /**
+     * {@inheritDoc }
      */
     @Override
-    public void notifyElementRemoved( Ehcache cache, Element element )
+    public String getStatistics( )
     {
-        removeKeyFromMap( element );
+        String strStatistics = super.getStatistics( );
+        StringBuilder sbStatistics = new StringBuilder( );
+
+        if ( strStatistics != null )
+        {
+            sbStatistics.append( strStatistics ).append( '\n' );
+        }
+
+        sbStatistics.append( "softTimeToLiveSeconds = " ).append( _lSoftTimeToLive ).append( "\ncoalescedWaits = " )
+                .append( _counterCoalescedWaits.sum( ) ).append( "\nstaleServes = " ).append( _counterStaleServes.sum( ) )
+                .append( "\nrevalidations = " ).append( _counterRevalidations.sum( ) ).append( "\nwaitTimeouts = " )
+                .append( _counterWaitTimeouts.sum( ) ).append( "\npendingBuilds = " )
+                .append( _mapPendingBuilds.size( ) );
+
+        return sbStatistics.toString( );
     }
 
     /**
-     * @see net.sf.ehcache.event.CacheEventListener#notifyRemoveAll(net.sf.ehcache.Ehcache)
-     * @param cache
-     *            The Ehcache object
+     * {@inheritDoc }
      */
     @Override
-    public void notifyRemoveAll( Ehcache cache )
+    public Collection<String> getEntityDependencies( )
     {
-        _keyMemory.clear( );
+        return Arrays.asList( Page.RESOURCE_TYPE, ENTITY_TYPE_PAGE_CONTENT );
     }
 
     /**
-     * @param element
-     *            The Element object
+     * {@inheritDoc }
      */
-    public void removeKeyFromMap( Element element )
+    @Override
+    public void processEntityChange( EntityChangeEvent event )
     {
-        _keyMemory.remove( (String) element.getKey( ) );
+        // an updated page and a page whose content has changed on another node are evicted the same way
+        if ( ( event.getEventType( ) == EntityChangeEvent.ENTITY_UPDATED ) && ( event.getEntityId( ) != null ) )
+        {
+            removeByTag( getPageTag( event.getEntityId( ) ) );
+        }
+        else
+        {
+            // the page tree has changed : the menus of all the cached pages may be outdated
+            resetCache( );
+        }
     }
 
     /**
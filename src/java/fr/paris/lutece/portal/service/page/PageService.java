@@ -35,7 +35,9 @@ package fr.paris.lutece.portal.service.page;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
@@ -43,6 +45,11 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
@@ -60,6 +67,8 @@ import fr.paris.lutece.portal.business.portlet.PortletType;
 import fr.paris.lutece.portal.business.style.ModeHome;
 import fr.paris.lutece.portal.business.user.AdminUser;
 import fr.paris.lutece.portal.service.admin.AdminUserService;
+import fr.paris.lutece.portal.service.cache.CacheService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
 import fr.paris.lutece.portal.service.cache.ICacheKeyService;
 import fr.paris.lutece.portal.service.content.PageData;
 import fr.paris.lutece.portal.service.html.XmlTransformerService;
@@ -164,6 +173,7 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
     private ICacheKeyService _cksPortlet;
     private PageCacheService _cachePages;
     private PortletCacheService _cachePortlets;
+    private PortletRenderingService _portletRenderingService;
 
     /**
      * Creates a new PageService object.
@@ -290,68 +300,65 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
 
         LuteceUser user = SecurityService.getInstance( ).getRegisteredUser( request );
 
-        // we add the key in the memory key only if cache is enable
-        String strKey = getKey( htParamRequest, nMode, user );
+        String strKey = _cksPage.getKey( htParamRequest, nMode, user );
 
-        // get page from cache
-        String strPage = (String) _cachePages.getFromCache( strKey );
+        return _cachePages.getPage( strKey, ( ) -> buildCachedPage( strKey, strIdPage, nMode, request ) );
+    }
 
-        if ( strPage == null )
+    /**
+     * Build a page and put it in the cache if it can be cached
+     *
+     * @param strKey
+     *            The cache key
+     * @param strIdPage
+     *            The page ID
+     * @param nMode
+     *            The current mode.
+     * @param request
+     *            The HttpRequest
+     * @return The HTML code of the page as a String, or a redirection.
+     * @throws SiteMessageException
+     *             occurs when a site message need to be displayed
+     */
+    private String buildCachedPage( String strKey, String strIdPage, int nMode, HttpServletRequest request ) throws SiteMessageException
+    {
+        boolean bCanBeCached = true;
+
+        AppLogService.debug( "Page generation {}", strKey );
+
+        RedirectionResponseWrapper response = new RedirectionResponseWrapper( LocalVariables.getResponse( ) );
+
+        LocalVariables.setLocal( LocalVariables.getConfig( ), LocalVariables.getRequest( ), response );
+        request.setAttribute( ATTRIBUTE_CORE_CAN_PAGE_BE_CACHED, null );
+        // The key is not in the cache, so we have to build
+        // the page
+        String strPage = buildPageContent( strIdPage, nMode, request );
+
+        // We check if the page contains portlets that can not be cached.
+        if ( Boolean.FALSE.equals( request.getAttribute( ATTRIBUTE_CORE_CAN_PAGE_BE_CACHED ) ) )
         {
-            // only one thread can evaluate the page
-            synchronized( strKey )
-            {
-                // can be useful if an other thread had evaluate the
-                // page
-                strPage = (String) _cachePages.getFromCache( strKey );
-
-                // ignore checkstyle, this double verification is useful
-                // when page cache has been created when thread is
-                // blocked on synchronized
-                if ( strPage == null )
-                {
-                    boolean bCanBeCached = true;
-
-                    AppLogService.debug( "Page generation {}", strKey );
-
-                    RedirectionResponseWrapper response = new RedirectionResponseWrapper( LocalVariables.getResponse( ) );
-
-                    LocalVariables.setLocal( LocalVariables.getConfig( ), LocalVariables.getRequest( ), response );
-                    request.setAttribute( ATTRIBUTE_CORE_CAN_PAGE_BE_CACHED, null );
-                    // The key is not in the cache, so we have to build
-                    // the page
-                    strPage = buildPageContent( strIdPage, nMode, request );
-
-                    // We check if the page contains portlets that can not be cached.
-                    if ( Boolean.FALSE.equals( request.getAttribute( ATTRIBUTE_CORE_CAN_PAGE_BE_CACHED ) ) )
-                    {
-                        bCanBeCached = false;
-                    }
-
-                    if ( response.getRedirectLocation( ) != null )
-                    {
-                        AppLogService.debug( "Redirection found {}", response.getRedirectLocation( ) );
-                        strPage = REDIRECTION_KEY + response.getRedirectLocation( );
-                    }
-
-                    // Add the page to the cache if the page can be
-                    // cached
-                    if ( bCanBeCached && ( nMode != MODE_ADMIN ) )
-                    {
-                        _cachePages.putInCache( strKey, strPage );
-                    }
-                }
-                else
-                {
-                    AppLogService.debug( "Page read from cache after synchronisation {}", strKey );
-                }
-            }
+            bCanBeCached = false;
         }
-        else
+
+        if ( response.getRedirectLocation( ) != null )
         {
-            AppLogService.debug( "Page read from cache {}", strKey );
+            AppLogService.debug( "Redirection found {}", response.getRedirectLocation( ) );
+            strPage = REDIRECTION_KEY + response.getRedirectLocation( );
         }
 
+        // Add the page to the cache if the page can be
+        // cached
+        if ( bCanBeCached && ( nMode != MODE_ADMIN ) )
+        {
+            _cachePages.putInCache( strKey, strPage, Collections.singleton( PageCacheService.getPageTag( strIdPage ) ) );
+        }
+        else
+            if ( _cachePages.getElement( strKey ) != null )
+            {
+                // Stale version of a page that can no longer be cached
+                _cachePages.removeKey( strKey );
+            }
+
         return strPage;
     }
 
@@ -521,15 +528,27 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
         boolean bCanPageBeCached = Boolean.TRUE;
         LuteceUser user = SecurityService.getInstance( ).getRegisteredUser( request );
 
-        for ( Portlet portlet : page.getPortlets( ) )
-        {
-            int nCol = portlet.getColumn( ) - 1;
+        List<Portlet> listPortlets = page.getPortlets( );
 
-            if ( nCol < MAX_COLUMNS )
+        if ( ( request != null ) && ( listPortlets.size( ) > 1 ) && ( _portletRenderingService != null ) && _portletRenderingService.isEnabled( ) )
+        {
+            bCanPageBeCached = getPortletContentsInParallel( request, listPortlets, mapParams, nMode, arrayContent );
+        }
+        else
+        {
+            for ( Portlet portlet : listPortlets )
             {
-                arrayContent [nCol] += getPortletContent( request, portlet, mapParams, nMode );
+                int nCol = portlet.getColumn( ) - 1;
+
+                if ( nCol < MAX_COLUMNS )
+                {
+                    arrayContent [nCol] += getPortletContent( request, portlet, mapParams, nMode );
+                }
             }
+        }
 
+        for ( Portlet portlet : listPortlets )
+        {
             // We check if the portlet can be cached
             if ( ( user != null ) ? ( !portlet.canBeCachedForConnectedUsers( ) ) : ( !portlet.canBeCachedForAnonymousUsers( ) ) )
             {
@@ -572,6 +591,198 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
         return t.getHtml( );
     }
 
+    /**
+     * Render the portlets of a page concurrently. The contents are appended to the columns in the order of the portlets. If a portlet is not rendered within
+     * the timeout, its cached content (or an empty content) is used instead.
+     *
+     * @param request
+     *            The HTTP request
+     * @param listPortlets
+     *            The portlets of the page
+     * @param mapParams
+     *            request parameters
+     * @param nMode
+     *            The mode
+     * @param arrayContent
+     *            The contents of the columns
+     * @return false if a portlet has not been rendered within the timeout, otherwise true
+     * @throws SiteMessageException
+     *             If a portlet requested a site message
+     */
+    private boolean getPortletContentsInParallel( HttpServletRequest request, List<Portlet> listPortlets, Map<String, String> mapParams, int nMode,
+            String [ ] arrayContent ) throws SiteMessageException
+    {
+        List<Portlet> listRenderedPortlets = new ArrayList<>( listPortlets.size( ) );
+        List<PortletRequestWrapper> listRequests = new ArrayList<>( listPortlets.size( ) );
+        List<Future<String>> listFutures = new ArrayList<>( listPortlets.size( ) );
+
+        for ( Portlet portlet : listPortlets )
+        {
+            if ( portlet.getColumn( ) - 1 < MAX_COLUMNS )
+            {
+                // Each portlet gets its own copy of the parameters and of the request attributes
+                PortletRequestWrapper portletRequest = new PortletRequestWrapper( request );
+                Map<String, String> mapPortletParams = new HashMap<>( mapParams );
+                listRenderedPortlets.add( portlet );
+                listRequests.add( portletRequest );
+                listFutures.add( _portletRenderingService.submit( portletRequest, ( ) -> getPortletContent( portletRequest, portlet, mapPortletParams, nMode ) ) );
+            }
+        }
+
+        return collectPortletContents( listRenderedPortlets, listRequests, listFutures, _portletRenderingService.getTimeout( ),
+                portlet -> getCachedPortletContent( request, portlet, mapParams, nMode ), arrayContent );
+    }
+
+    /**
+     * Wait for the rendering tasks of the portlets and append their contents to the columns in the order of the portlets. A task that is not done within the
+     * timeout is cancelled without interrupting it, so that a worker busy with a pooled connection is never interrupted, and the fallback content is used
+     * instead.
+     *
+     * @param listPortlets
+     *            The rendered portlets
+     * @param listRequests
+     *            The request wrappers of the tasks
+     * @param listFutures
+     *            The futures of the tasks, in the order of the portlets
+     * @param lTimeout
+     *            The maximum time to wait for all the tasks, in milliseconds
+     * @param fallback
+     *            Provides the content of a portlet not rendered in time
+     * @param arrayContent
+     *            The contents of the columns
+     * @return false if a portlet has not been rendered within the timeout, otherwise true
+     * @throws SiteMessageException
+     *             If a portlet requested a site message
+     */
+    static boolean collectPortletContents( List<Portlet> listPortlets, List<PortletRequestWrapper> listRequests, List<Future<String>> listFutures,
+            long lTimeout, Function<Portlet, String> fallback, String [ ] arrayContent ) throws SiteMessageException
+    {
+        boolean bComplete = true;
+        long lDeadline = System.currentTimeMillis( ) + lTimeout;
+
+        for ( int i = 0; i < listFutures.size( ); i++ )
+        {
+            Portlet portlet = listPortlets.get( i );
+            Future<String> future = listFutures.get( i );
+            String strPortletContent;
+
+            try
+            {
+                strPortletContent = future.get( Math.max( 0L, lDeadline - System.currentTimeMillis( ) ), TimeUnit.MILLISECONDS );
+                listRequests.get( i ).applyAttributes( );
+            }
+            catch( TimeoutException e )
+            {
+                future.cancel( false );
+                bComplete = false;
+                strPortletContent = fallback.apply( portlet );
+                AppLogService.error( "Portlet {} of page {} not rendered within {} ms", portlet.getId( ), portlet.getPageId( ), lTimeout );
+            }
+            catch( ExecutionException e )
+            {
+                cancelAll( listFutures );
+                rethrow( e.getCause( ) );
+
+                return false;
+            }
+            catch( InterruptedException e )
+            {
+                cancelAll( listFutures );
+                Thread.currentThread( ).interrupt( );
+
+                throw new AppException( "Interrupted while rendering the portlets of page " + portlet.getPageId( ), e );
+            }
+
+            arrayContent [portlet.getColumn( ) - 1] += strPortletContent;
+        }
+
+        return bComplete;
+    }
+
+    /**
+     * Get the cached content of a portlet, used as a fallback when the portlet can not be rendered in time
+     *
+     * @param request
+     *            The HTTP request
+     * @param portlet
+     *            The portlet
+     * @param mapRequestParams
+     *            request parameters
+     * @param nMode
+     *            The mode
+     * @return The cached content or an empty string
+     */
+    private String getCachedPortletContent( HttpServletRequest request, Portlet portlet, Map<String, String> mapRequestParams, int nMode )
+    {
+        if ( ( nMode == MODE_ADMIN ) || !_cachePortlets.isCacheEnable( ) || !isPortletVisible( request, portlet, nMode ) )
+        {
+            return StringUtils.EMPTY;
+        }
+
+        LuteceUser user = SecurityService.isAuthenticationEnable( ) ? SecurityService.getInstance( ).getRegisteredUser( request ) : null;
+        boolean bCanBeCached = ( user != null ) ? portlet.canBeCachedForConnectedUsers( ) : portlet.canBeCachedForAnonymousUsers( );
+
+        if ( !bCanBeCached )
+        {
+            return StringUtils.EMPTY;
+        }
+
+        Map<String, String> mapParams = new HashMap<>( mapRequestParams );
+
+        if ( portlet.isContentGeneratedByXmlAndXsl( ) && ( portlet.getXslParams( ) != null ) )
+        {
+            mapParams.putAll( portlet.getXslParams( ) );
+        }
+
+        mapParams.put( PARAMETER_PORTLET, String.valueOf( portlet.getId( ) ) );
+
+        String strPortlet = (String) _cachePortlets.getFromCache( _cksPortlet.getKey( mapParams, nMode, user ) );
+
+        return ( strPortlet != null ) ? strPortlet : StringUtils.EMPTY;
+    }
+
+    /**
+     * Cancel the rendering tasks that are not started yet. The running tasks are not interrupted.
+     *
+     * @param listFutures
+     *            The futures of the tasks
+     */
+    private static void cancelAll( List<Future<String>> listFutures )
+    {
+        for ( Future<String> future : listFutures )
+        {
+            future.cancel( false );
+        }
+    }
+
+    /**
+     * Rethrow the failure of a rendering task
+     *
+     * @param cause
+     *            The cause of the failure
+     * @throws SiteMessageException
+     *             If the portlet requested a site message
+     */
+    private static void rethrow( Throwable cause ) throws SiteMessageException
+    {
+        if ( cause instanceof SiteMessageException )
+        {
+            throw (SiteMessageException) cause;
+        }
+
+        if ( cause instanceof RuntimeException )
+        {
+            throw (RuntimeException) cause;
+        }
+
+        if ( cause instanceof Error )
+        {
+            throw (Error) cause;
+        }
+
+        throw new AppException( cause.getMessage( ), cause );
+    }
+
     /**
      * Add the HTML code to display column outlines
      *
@@ -698,7 +909,8 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
 
         if ( isCacheEnabled && StringUtils.isNotEmpty( strKey ) )
         {
-            _cachePortlets.putInCache( strKey, strPortletContent );
+            _cachePortlets.putInCache( strKey, strPortletContent,
+                    Arrays.asList( PortletCacheService.getPortletTag( portlet.getId( ) ), PortletCacheService.getPageTag( portlet.getPageId( ) ) ) );
         }
         
         if ( nMode == MODE_ADMIN )
@@ -729,25 +941,6 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
         return BooleanUtils.or( conditions );
     }
 
-    /**
-     * Build the Cache HashMap key for pages Goal is to be able to have a synchronized on the key but a synchronize only work with strict reference. So we
-     * manage an hashmap of string reference for cache keys to be able to get them back.
-     *
-     * @param mapParams
-     *            The Map params
-     * @param nMode
-     *            The current mode.
-     * @param user
-     *            Current Lutece user
-     * @return The HashMap key for articles pages as a String.
-     */
-    private String getKey( Map<String, String> mapParams, int nMode, LuteceUser user )
-    {
-        String strKey = _cksPage.getKey( mapParams, nMode, user );
-
-        return _cachePages.getKey( strKey );
-    }
-
     /**
      * Remove a page from the cache
      *
@@ -778,6 +971,15 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
         _cksPortlet = cacheKeyService;
     }
 
+    /**
+     * @param portletRenderingService
+     *            the service rendering portlets concurrently
+     */
+    public void setPortletRenderingService( PortletRenderingService portletRenderingService )
+    {
+        _portletRenderingService = portletRenderingService;
+    }
+
     /**
      * @param removalService
      *            the removal listener service
@@ -798,20 +1000,15 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
     {
         if ( _cachePages.isCacheEnable( ) )
         {
-            String strKey = "[" + Parameters.PAGE_ID + ":" + strIdPage + "]";
+            int nCount = _cachePages.removeByTag( PageCacheService.getPageTag( strIdPage ) );
 
-            for ( String strKeyTemp : (List<String>) _cachePages.getCache( ).getKeys( ) )
+            if ( WELCOME_PAGE_ID.equals( strIdPage ) && ( _cachePages.getFromCache( WELCOME_PAGE_CACHE_KEY ) != null ) )
             {
-                if ( ( strKeyTemp.contains( strKey ) ) || ( WELCOME_PAGE_ID.equals( strIdPage ) && WELCOME_PAGE_CACHE_KEY.equals( strKeyTemp ) ) )
-                {
-                    _cachePages.getCache( ).remove( strKeyTemp );
-
-                    if ( AppLogService.isDebugEnabled( ) )
-                    {
-                        AppLogService.debug( "Page (cache key : " + strKeyTemp + ") removed from the cache." );
-                    }
-                }
+                _cachePages.removeKey( WELCOME_PAGE_CACHE_KEY );
+                nCount++;
             }
+
+            AppLogService.debug( "{} page(s) (page id : {}) removed from the cache.", nCount, strIdPage );
         }
     }
 
@@ -867,6 +1064,16 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
         return PageHome.getImageResource( nIdResource );
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isImageResourceCacheable( )
+    {
+        // The cached page images are invalidated by processPageEvent
+        return true;
+    }
+
     /**
      * Create a page
      *
@@ -923,6 +1130,12 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
     {
         Page page = event.getPage( );
         invalidatePage( page.getId( ) );
+        ImageResourceManager.invalidateImageResource( getResourceTypeId( ), page.getId( ) );
+
+        if ( ( event.getEventType( ) == PageEvent.PAGE_DELETED ) && _cachePortlets.isCacheEnable( ) )
+        {
+            _cachePortlets.removePage( page.getId( ) );
+        }
     }
 
     /**
@@ -946,6 +1159,8 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
         Page page = PageHome.findByPrimaryKey( nPageId );
         PageEvent event = new PageEvent( page, PageEvent.PAGE_CONTENT_MODIFIED );
         notifyListeners( event );
+        CacheService.publishEntityChange(
+                new EntityChangeEvent( PageCacheService.ENTITY_TYPE_PAGE_CONTENT, String.valueOf( nPageId ), EntityChangeEvent.ENTITY_UPDATED ) );
     }
 
     /**
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.page;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import fr.paris.lutece.portal.business.page.Page;
+
+/**
+ * Immutable snapshot of the page hierarchy. Only the data needed for the navigation are kept : id, parent, order, name, description, role, status and theme.
+ * The pages returned are copies that the callers are free to modify.
+ */
+public final class PageTree
+{
+    private static final Comparator<Page> COMPARATOR_ORDER = Comparator.comparingInt( Page::getOrder ).thenComparingInt( Page::getId );
+
+    private final Map<Integer, Page> _mapPages;
+    private final Map<Integer, List<Page>> _mapChildPages;
+    private final Set<Integer> _setPagesWithImage;
+
+    /**
+     * Creates a snapshot of the page hierarchy
+     * 
+     * @param listPages
+     *            The pages with their tree data
+     * @param listPagesWithImage
+     *            The identifiers of the pages having an image
+     */
+    public PageTree( Collection<Page> listPages, Collection<Integer> listPagesWithImage )
+    {
+        Map<Integer, Page> mapPages = new HashMap<>( );
+        Map<Integer, List<Page>> mapChildPages = new HashMap<>( );
+
+        for ( Page page : listPages )
+        {
+            Page node = copy( page );
+            mapPages.put( node.getId( ), node );
+            mapChildPages.computeIfAbsent( node.getParentPageId( ), p -> new ArrayList<>( ) ).add( node );
+        }
+
+        for ( List<Page> listChildPages : mapChildPages.values( ) )
+        {
+            listChildPages.sort( COMPARATOR_ORDER );
+        }
+
+        _mapPages = mapPages;
+        _mapChildPages = mapChildPages;
+        _setPagesWithImage = new HashSet<>( listPagesWithImage );
+    }
+
+    /**
+     * Returns a page
+     * 
+     * @param nPageId
+     *            The page ID
+     * @return A copy of the page, or null if the page doesn't exist
+     */
+    public Page getPage( int nPageId )
+    {
+        Page page = _mapPages.get( nPageId );
+
+        return ( page == null ) ? null : copy( page );
+    }
+
+    /**
+     * Tells if a page exists
+     * 
+     * @param nPageId
+     *            The page ID
+     * @return true if the page exists
+     */
+    public boolean contains( int nPageId )
+    {
+        return _mapPages.containsKey( nPageId );
+    }
+
+    /**
+     * Tells if a page has an image
+     * 
+     * @param nPageId
+     *            The page ID
+     * @return true if the page has an image
+     */
+    public boolean hasImage( int nPageId )
+    {
+        return _setPagesWithImage.contains( nPageId );
+    }
+
+    /**
+     * Returns the child pages of a page, sorted by order
+     * 
+     * @param nParentPageId
+     *            The parent page ID
+     * @return Copies of the child pages
+     */
+    public List<Page> getChildPages( int nParentPageId )
+    {
+        List<Page> listChildPages = _mapChildPages.getOrDefault( nParentPageId, Collections.emptyList( ) );
+        List<Page> list = new ArrayList<>( listChildPages.size( ) );
+
+        for ( Page page : listChildPages )
+        {
+            list.add( copy( page ) );
+        }
+
+        return list;
+    }
+
+    /**
+     * Returns the path of a page, from the top of the hierarchy to the page. The walk up stops at a missing parent or at a cycle.
+     * 
+     * @param nPageId
+     *            The page ID
+     * @return Copies of the pages of the path, or an empty list if the page doesn't exist
+     */
+    public List<Page> getPagePath( int nPageId )
+    {
+        List<Page> list = new ArrayList<>( );
+        Set<Integer> setSeenPages = new HashSet<>( );
+        Page page = _mapPages.get( nPageId );
+
+        while ( ( page != null ) && setSeenPages.add( page.getId( ) ) )
+        {
+            list.add( copy( page ) );
+            page = _mapPages.get( page.getParentPageId( ) );
+        }
+
+        Collections.reverse( list );
+
+        return list;
+    }
+
+    /**
+     * Returns the identifiers of all the pages
+     * 
+     * @return The page identifiers
+     */
+    public Set<Integer> getPageIds( )
+    {
+        return Collections.unmodifiableSet( _mapPages.keySet( ) );
+    }
+
+    /**
+     * Returns the number of pages
+     * 
+     * @return The number of pages
+     */
+    public int size( )
+    {
+        return _mapPages.size( );
+    }
+
+    /**
+     * Copies the tree data of a page
+     * 
+     * @param page
+     *            The page
+     * @return The copy
+     */
+    private static Page copy( Page page )
+    {
+        Page copy = new Page( );
+        copy.setId( page.getId( ) );
+        copy.setParentPageId( page.getParentPageId( ) );
+        copy.setOrder( page.getOrder( ) );
+        copy.setName( page.getName( ) );
+        copy.setDescription( page.getDescription( ) );
+        copy.setRole( page.getRole( ) );
+        copy.setStatus( page.getStatus( ) );
+        copy.setCodeTheme( page.getCodeTheme( ) );
+
+        return copy;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.page;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.paris.lutece.portal.business.page.Page;
+import fr.paris.lutece.portal.business.page.PageHome;
+import fr.paris.lutece.portal.service.cache.CacheService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
+import fr.paris.lutece.portal.service.cache.EntityChangeListener;
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+/**
+ * Provides the in-memory snapshot of the page hierarchy used by the navigation (paths, menus, site map). The snapshot is discarded when a page is created,
+ * updated or removed, and a new one is built at the next access and published at once : readers never see a partially built tree.
+ */
+public final class PageTreeService
+{
+    private static final Object LOCK = new Object( );
+    private static final AtomicLong _lVersion = new AtomicLong( );
+    private static volatile PageTree _tree;
+
+    static
+    {
+        CacheService.registerEntityChangeListener( new PageTreeInvalidator( ) );
+    }
+
+    /**
+     * Private constructor
+     */
+    private PageTreeService( )
+    {
+    }
+
+    /**
+     * Returns the current snapshot of the page hierarchy
+     * 
+     * @return The page tree
+     */
+    public static PageTree getPageTree( )
+    {
+        PageTree tree = _tree;
+
+        if ( tree == null )
+        {
+            synchronized( LOCK )
+            {
+                tree = _tree;
+
+                if ( tree == null )
+                {
+                    long lVersion = _lVersion.get( );
+                    tree = new PageTree( PageHome.getAllPagesMinimalData( ), PageHome.getPageIdsWithImage( ) );
+
+                    // a change notified during the build may not be in this snapshot : use it once but don't publish it
+                    if ( _lVersion.get( ) == lVersion )
+                    {
+                        _tree = tree;
+                    }
+
+                    AppLogService.debug( "Page tree built with {} pages", tree.size( ) );
+                }
+            }
+        }
+
+        return tree;
+    }
+
+    /**
+     * Discards the current snapshot of the page hierarchy
+     */
+    public static void invalidate( )
+    {
+        _lVersion.incrementAndGet( );
+        _tree = null;
+    }
+
+    /**
+     * Listener discarding the snapshot on page changes
+     */
+    private static final class PageTreeInvalidator implements EntityChangeListener
+    {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Collection<String> getEntityDependencies( )
+        {
+            return Collections.singletonList( Page.RESOURCE_TYPE );
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void processEntityChange( EntityChangeEvent event )
+        {
+            invalidate( );
+        }
+    }
+}
@@ -33,20 +33,25 @@
  */
 package fr.paris.lutece.portal.service.page;
 
+import java.util.Arrays;
+import java.util.Collection;
+
+import fr.paris.lutece.portal.business.page.Page;
 import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
+import fr.paris.lutece.portal.service.cache.EntityChangeListener;
 import fr.paris.lutece.portal.service.portlet.PortletEvent;
 import fr.paris.lutece.portal.service.portlet.PortletEventListener;
 
-import org.apache.commons.lang3.StringUtils;
-
-import java.util.List;
-
 /**
  * Portlet cache service
  */
-public class PortletCacheService extends AbstractCacheableService implements PortletEventListener
+public class PortletCacheService extends AbstractCacheableService implements PortletEventListener, EntityChangeListener
 {
+    /** Entity type of the changes of a portlet published to the other nodes */
+    public static final String ENTITY_TYPE_PORTLET = "PORTLET";
     private static final String CACHE_PORTLET_PREFIX = "portlet:";
+    private static final String CACHE_PAGE_PREFIX = "page:";
     private static final String SERVICE_NAME = "Portlet Cache Service";
 
     /**
@@ -57,19 +62,81 @@ public class PortletCacheService extends AbstractCacheableService implements Por
         return SERVICE_NAME;
     }
 
+    /**
+     * Gets the tag associated to the cached contents of a portlet
+     * 
+     * @param nPortletId
+     *            The portlet ID
+     * @return The tag
+     */
+    public static String getPortletTag( int nPortletId )
+    {
+        return CACHE_PORTLET_PREFIX + nPortletId;
+    }
+
+    /**
+     * Gets the tag associated to the cached contents of the portlets of a page
+     * 
+     * @param nPageId
+     *            The page ID
+     * @return The tag
+     */
+    public static String getPageTag( int nPageId )
+    {
+        return CACHE_PAGE_PREFIX + nPageId;
+    }
+
+    /**
+     * Remove all the cached contents of the portlets of a page
+     * 
+     * @param nPageId
+     *            The page ID
+     */
+    public void removePage( int nPageId )
+    {
+        removeByTag( getPageTag( nPageId ) );
+    }
+
     /**
      * {@inheritDoc}
      */
     public void processPortletEvent( PortletEvent event )
     {
-        String strKey = "[" + CACHE_PORTLET_PREFIX + event.getPortletId( ) + "]";
+        removeByTag( getPortletTag( event.getPortletId( ) ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<String> getEntityDependencies( )
+    {
+        return Arrays.asList( Page.RESOURCE_TYPE, ENTITY_TYPE_PORTLET );
+    }
 
-        for ( String strKeyTemp : (List<String>) getCache( ).getKeys( ) )
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void processEntityChange( EntityChangeEvent event )
+    {
+        if ( ENTITY_TYPE_PORTLET.equals( event.getEntityType( ) ) )
         {
-            if ( StringUtils.indexOf( strKeyTemp, strKey ) != -1 )
+            // a portlet modified on another node
+            if ( event.getEntityId( ) != null )
             {
-                getCache( ).remove( strKeyTemp );
+                removeByTag( CACHE_PORTLET_PREFIX + event.getEntityId( ) );
+            }
+            else
+            {
+                resetCache( );
             }
         }
+        else
+            if ( ( event.getEventType( ) == EntityChangeEvent.ENTITY_REMOVED ) && ( event.getEntityId( ) != null ) )
+            {
+                // the portlet contents do not depend on the page tree : only the portlets of a removed page are dropped
+                removeByTag( CACHE_PAGE_PREFIX + event.getEntityId( ) );
+            }
     }
 }
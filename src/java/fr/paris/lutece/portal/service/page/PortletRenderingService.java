@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.page;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import fr.paris.lutece.portal.service.init.ShutdownService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.portal.web.LocalVariables;
+
+/**
+ * This service renders the portlets of a page concurrently on a bounded pool of threads. Virtual threads are used when the JVM provides them. The parallel
+ * rendering is disabled by default and can be enabled with the property <code>lutece.portlet.rendering.parallel.enabled</code>.
+ */
+public class PortletRenderingService implements ShutdownService
+{
+    private static final String SERVICE_NAME = "Portlet Rendering Service";
+    private static final String PROPERTY_ENABLED = "lutece.portlet.rendering.parallel.enabled";
+    private static final String PROPERTY_THREADS = "lutece.portlet.rendering.parallel.threads";
+    private static final String PROPERTY_QUEUE_SIZE = "lutece.portlet.rendering.parallel.queueSize";
+    private static final String PROPERTY_TIMEOUT = "lutece.portlet.rendering.parallel.timeout";
+    private static final String PROPERTY_VIRTUAL_THREADS = "lutece.portlet.rendering.parallel.virtualThreads";
+    private static final int DEFAULT_THREADS = 16;
+    private static final int DEFAULT_QUEUE_SIZE = 256;
+    private static final long DEFAULT_TIMEOUT = 5000L;
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+    private static final String THREAD_NAME_PREFIX = "Lutece-PortletRendering-Thread-";
+
+    private final boolean _bEnabled;
+    private final long _lTimeout;
+    private ExecutorService _executor;
+
+    /**
+     * Constructor
+     */
+    public PortletRenderingService( )
+    {
+        _bEnabled = AppPropertiesService.getPropertyBoolean( PROPERTY_ENABLED, false );
+        _lTimeout = AppPropertiesService.getPropertyLong( PROPERTY_TIMEOUT, DEFAULT_TIMEOUT );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName( )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * Tells if the portlets must be rendered concurrently
+     * 
+     * @return true if the parallel rendering is enabled
+     */
+    public boolean isEnabled( )
+    {
+        return _bEnabled;
+    }
+
+    /**
+     * Returns the maximum time to wait for the rendering of a portlet
+     * 
+     * @return The timeout in milliseconds
+     */
+    public long getTimeout( )
+    {
+        return _lTimeout;
+    }
+
+    /**
+     * Submit a rendering task. The task is run with the thread local variables of the calling thread, the request being replaced by the given wrapper. If
+     * the pool is saturated, the task is run by the calling thread.
+     * 
+     * @param <T>
+     *            The type of the result
+     * @param request
+     *            The request wrapper dedicated to the task
+     * @param task
+     *            The rendering task
+     * @return The future result of the task
+     */
+    public <T> Future<T> submit( PortletRequestWrapper request, Callable<T> task )
+    {
+        ServletConfig config = LocalVariables.getConfig( );
+        HttpServletResponse response = LocalVariables.getResponse( );
+
+        return getExecutor( ).submit( ( ) -> {
+            ServletConfig previousConfig = LocalVariables.getConfig( );
+            HttpServletRequest previousRequest = LocalVariables.getRequest( );
+            HttpServletResponse previousResponse = LocalVariables.getResponse( );
+            LocalVariables.setLocal( config, request, response );
+
+            try
+            {
+                return task.call( );
+            }
+            finally
+            {
+                LocalVariables.setLocal( previousConfig, previousRequest, previousResponse );
+            }
+        } );
+    }
+
+    /**
+     * Shutdown the pool of threads
+     */
+    @Override
+    public synchronized void process( )
+    {
+        if ( _executor != null )
+        {
+            _executor.shutdownNow( );
+            _executor = null;
+        }
+    }
+
+    /**
+     * Gets the executor, creating it at first use
+     * 
+     * @return The executor
+     */
+    private synchronized ExecutorService getExecutor( )
+    {
+        if ( _executor == null )
+        {
+            int nThreads = AppPropertiesService.getPropertyInt( PROPERTY_THREADS, DEFAULT_THREADS );
+            int nQueueSize = AppPropertiesService.getPropertyInt( PROPERTY_QUEUE_SIZE, DEFAULT_QUEUE_SIZE );
+            ThreadPoolExecutor executor = new ThreadPoolExecutor( nThreads, nThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>( nQueueSize ), createThreadFactory( ), new ThreadPoolExecutor.CallerRunsPolicy( ) );
+            executor.allowCoreThreadTimeOut( true );
+            _executor = executor;
+            AppLogService.info( "{} started with {} threads", SERVICE_NAME, nThreads );
+        }
+
+        return _executor;
+    }
+
+    /**
+     * Creates the thread factory. Virtual threads are used if they are available (Java 21+) and not disabled.
+     * 
+     * @return The thread factory
+     */
+    private static ThreadFactory createThreadFactory( )
+    {
+        if ( AppPropertiesService.getPropertyBoolean( PROPERTY_VIRTUAL_THREADS, true ) )
+        {
+            try
+            {
+                Class<?> classBuilder = Class.forName( "java.lang.Thread$Builder" );
+                Object builder = Thread.class.getMethod( "ofVirtual" ).invoke( null );
+                builder = classBuilder.getMethod( "name", String.class, long.class ).invoke( builder, THREAD_NAME_PREFIX, 1L );
+
+                return (ThreadFactory) classBuilder.getMethod( "factory" ).invoke( builder );
+            }
+            catch( ReflectiveOperationException e )
+            {
+                AppLogService.debug( "Virtual threads are not available, platform threads will be used" );
+            }
+        }
+
+        ThreadFactory defaultThreadFactory = Executors.defaultThreadFactory( );
+        AtomicInteger nIndex = new AtomicInteger( 1 );
+
+        return runnable -> {
+            Thread thread = defaultThreadFactory.newThread( runnable );
+            thread.setDaemon( true );
+            thread.setName( THREAD_NAME_PREFIX + nIndex.getAndIncrement( ) );
+
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.page;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * HttpServletRequestWrapper given to a portlet rendered outside of the request thread. Attributes set or removed by the portlet are kept in the wrapper so
+ * that concurrent portlets don't share a mutable request, and are applied to the wrapped request once the rendering is done.
+ *
+ * @see javax.servlet.http.HttpServletRequestWrapper
+ */
+public final class PortletRequestWrapper extends HttpServletRequestWrapper
+{
+    private final Map<String, Object> _mapAttributes = Collections.synchronizedMap( new LinkedHashMap<>( ) );
+    private final Set<String> _setRemovedAttributes = Collections.synchronizedSet( new HashSet<>( ) );
+
+    /**
+     * Constructor for class PortletRequestWrapper
+     * 
+     * @param request
+     *            The HTTP servlet request
+     */
+    public PortletRequestWrapper( HttpServletRequest request )
+    {
+        super( request );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getAttribute( String strName )
+    {
+        Object value = _mapAttributes.get( strName );
+
+        if ( ( value == null ) && !_setRemovedAttributes.contains( strName ) )
+        {
+            value = super.getAttribute( strName );
+        }
+
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Enumeration<String> getAttributeNames( )
+    {
+        Set<String> setNames = new HashSet<>( Collections.list( super.getAttributeNames( ) ) );
+        setNames.removeAll( _setRemovedAttributes );
+        setNames.addAll( _mapAttributes.keySet( ) );
+
+        return Collections.enumeration( setNames );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setAttribute( String strName, Object value )
+    {
+        if ( value == null )
+        {
+            removeAttribute( strName );
+
+            return;
+        }
+
+        _setRemovedAttributes.remove( strName );
+        _mapAttributes.put( strName, value );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeAttribute( String strName )
+    {
+        _mapAttributes.remove( strName );
+        _setRemovedAttributes.add( strName );
+    }
+
+    /**
+     * Apply the attributes set or removed during the rendering to the wrapped request. Must be called from the request thread.
+     */
+    public void applyAttributes( )
+    {
+        synchronized( _setRemovedAttributes )
+        {
+            for ( String strName : _setRemovedAttributes )
+            {
+                getRequest( ).removeAttribute( strName );
+            }
+        }
+
+        synchronized( _mapAttributes )
+        {
+            for ( Entry<String, Object> entry : _mapAttributes.entrySet( ) )
+            {
+                getRequest( ).setAttribute( entry.getKey( ), entry.getValue( ) );
+            }
+        }
+    }
+}
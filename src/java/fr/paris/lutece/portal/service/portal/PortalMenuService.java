@@ -35,15 +35,17 @@ package fr.paris.lutece.portal.service.portal;
 
 import fr.paris.lutece.portal.business.XmlContent;
 import fr.paris.lutece.portal.business.page.Page;
-import fr.paris.lutece.portal.business.page.PageHome;
 import fr.paris.lutece.portal.business.portalcomponent.PortalComponentHome;
 import fr.paris.lutece.portal.business.style.ModeHome;
 import fr.paris.lutece.portal.business.stylesheet.StyleSheet;
 import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
+import fr.paris.lutece.portal.service.cache.EntityChangeListener;
 import fr.paris.lutece.portal.service.html.XmlTransformerService;
 import fr.paris.lutece.portal.service.page.PageEvent;
 import fr.paris.lutece.portal.service.page.PageEventListener;
 import fr.paris.lutece.portal.service.page.PageService;
+import fr.paris.lutece.portal.service.page.PageTreeService;
 import fr.paris.lutece.portal.service.security.LuteceUser;
 import fr.paris.lutece.portal.service.security.SecurityService;
 import fr.paris.lutece.util.xml.XmlUtil;
@@ -52,6 +54,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -61,7 +64,7 @@ import javax.servlet.http.HttpServletRequest;
 /**
  * This Service build the portal menu
  */
-public final class PortalMenuService extends AbstractCacheableService implements PageEventListener
+public final class PortalMenuService extends AbstractCacheableService implements PageEventListener, EntityChangeListener
 {
     public static final int MENU_INIT = 0;
     public static final int MENU_MAIN = 1;
@@ -155,7 +158,7 @@ public final class PortalMenuService extends AbstractCacheableService implements
      */
     private String buildMenuContent( int nCurrentPageId, int nMode, int nPart, HttpServletRequest request )
     {
-        Collection<Page> listPagesMenu = PageHome.getChildPagesMinimalData( PortalService.getRootPageId( ) );
+        Collection<Page> listPagesMenu = PageTreeService.getPageTree( ).getChildPages( PortalService.getRootPageId( ) );
 
         StringBuffer strXml = new StringBuffer( );
         strXml.append( XmlUtil.getXmlHeader( ) );
@@ -198,7 +201,7 @@ public final class PortalMenuService extends AbstractCacheableService implements
         XmlUtil.addElementHtml( strXml, XmlContent.TAG_PAGE_NAME, menuPage.getName( ) );
         XmlUtil.addElementHtml( strXml, XmlContent.TAG_CURRENT_PAGE_ID, String.valueOf( nCurrentPageId ) );
 
-        Collection<Page> listSubLevelMenuPages = PageHome.getChildPagesMinimalData( menuPage.getId( ) );
+        Collection<Page> listSubLevelMenuPages = PageTreeService.getPageTree( ).getChildPages( menuPage.getId( ) );
 
         // add element submenu-list only if list not empty
         if ( !listSubLevelMenuPages.isEmpty( ) )
@@ -306,4 +309,23 @@ public final class PortalMenuService extends AbstractCacheableService implements
         // page was added, removed or updated; clear cache
         resetCache( );
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<String> getEntityDependencies( )
+    {
+        return Collections.singletonList( Page.RESOURCE_TYPE );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void processEntityChange( EntityChangeEvent event )
+    {
+        // the menus contain the children of the root page
+        resetCache( );
+    }
 }
@@ -62,6 +62,8 @@ import fr.paris.lutece.portal.service.includes.PageInclude;
 import fr.paris.lutece.portal.service.includes.PageIncludeService;
 import fr.paris.lutece.portal.service.message.SiteMessageException;
 import fr.paris.lutece.portal.service.page.IPageService;
+import fr.paris.lutece.portal.service.page.PageTree;
+import fr.paris.lutece.portal.service.page.PageTreeService;
 import fr.paris.lutece.portal.service.plugin.PluginService;
 import fr.paris.lutece.portal.service.security.LuteceUser;
 import fr.paris.lutece.portal.service.security.SecurityService;
@@ -399,7 +401,7 @@ public final class PortalService
                 break;
         }
 
-        String strXml = getXmlPagesList( getPagePath( nPageId ) );
+        String strXml = getXmlPagesList( PageTreeService.getPageTree( ).getPagePath( nPageId ) );
 
         Properties outputProperties = ModeHome.getOuputXslProperties( nMode );
 
@@ -504,7 +506,8 @@ public final class PortalService
     }
 
     /**
-     * Builds a collection of pages corresponding to the path of the page specified in parameter
+     * Builds a collection of pages corresponding to the path of the page specified in parameter. The pages are fully loaded from the database : the
+     * navigation of the portal uses the in-memory {@link PageTree} instead.
      *
      * @param nPageId
      *            The identifier of the page
@@ -539,7 +542,7 @@ public final class PortalService
     private static Collection<Page> getXPagePath( String strXPageName )
     {
         ArrayList<Page> list = new ArrayList<>( );
-        Page homePage = PageHome.getPage( getRootPageId( ) );
+        Page homePage = PageTreeService.getPageTree( ).getPage( getRootPageId( ) );
         list.add( homePage );
 
         Page xPage = new Page( );
@@ -560,34 +563,20 @@ public final class PortalService
      */
     private static Collection<Page> getXPagePath( String strXPageName, int nPageId )
     {
+        PageTree tree = PageTreeService.getPageTree( );
         List<Page> list = new ArrayList<>( );
-        Page page = PageHome.getPage( nPageId );
+        int nRootPageId = getRootPageId( );
 
-        if ( page != null )
+        for ( Page page : tree.getPagePath( nPageId ) )
         {
-            int nParentPageId = page.getParentPageId( );
-
-            while ( ( nParentPageId > 0 ) && ( nParentPageId != getRootPageId( ) ) )
-            {
-                Page parentPage = PageHome.getPage( nParentPageId );
-
-                if ( parentPage != null )
-                {
-                    // Insert the page at the beginning of the list
-                    list.add( 0, parentPage );
-                    nParentPageId = parentPage.getParentPageId( );
-                }
-            }
-
-            if ( nPageId != getRootPageId( ) )
+            if ( page.getId( ) != nRootPageId )
             {
                 list.add( page );
             }
         }
 
         // Insert the home page at the beginning of the list
-        Page homePage = PageHome.getPage( getRootPageId( ) );
-        list.add( 0, homePage );
+        list.add( 0, tree.getPage( nRootPageId ) );
 
         // Insert the XPage at the end of the list
         Page xPage = new Page( );
@@ -642,7 +631,7 @@ public final class PortalService
         strXml.append( XmlUtil.getXmlHeader( ) );
         XmlUtil.beginElement( strXml, XmlContent.TAG_CHILD_PAGES_LIST );
 
-        Page homePage = PageHome.getPage( getRootPageId( ) );
+        Page homePage = PageTreeService.getPageTree( ).getPage( getRootPageId( ) );
 
         XmlUtil.beginElement( strXml, XmlContent.TAG_PAGE );
         XmlUtil.addElement( strXml, XmlContent.TAG_PAGE_ID, homePage.getId( ) );
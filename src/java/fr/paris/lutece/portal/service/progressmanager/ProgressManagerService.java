@@ -45,6 +45,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *
@@ -73,7 +74,7 @@ public final class ProgressManagerService
         if ( _singleton == null )
         {
             _singleton = new ProgressManagerService( );
-            _progressFeeds = new HashMap<>( );
+            _progressFeeds = new ConcurrentHashMap<>( );
         }
         return _singleton;
     }
@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.rbac;
+
+import fr.paris.lutece.portal.business.rbac.RBACHome;
+import fr.paris.lutece.portal.service.cache.CacheService;
+import fr.paris.lutece.portal.service.cache.CacheableService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
+import fr.paris.lutece.portal.service.cache.EntityChangeListener;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * RBAC Cache Service : keeps an in-memory index of all the RBAC entries so that permission checks don't query the database. The index is loaded on first
+ * use and dropped each time the RBAC entries are modified through RBACHome. It is also reloaded once older than its time to live, for the changes made
+ * without RBACHome : the expired index is used by the other threads while one thread reloads it. The modifications are published to the other nodes of the
+ * cluster, which drop their index too.
+ * 
+ * @since 7.0.11
+ */
+public final class RBACCacheService implements CacheableService, EntityChangeListener
+{
+    /** Entity type of the changes of the RBAC entries published to the other nodes */
+    public static final String ENTITY_TYPE = "RBAC";
+    private static final String SERVICE_NAME = "RBAC Cache Service";
+    private static final String MSG_KEYS_NOT_AVAILABLE = "Keys not available";
+    private static final String PROPERTY_TIME_TO_LIVE = "lutece.cache.rbac.timeToLiveSeconds";
+    private static final long DEFAULT_TIME_TO_LIVE = 3600L;
+    private static final RBACCacheService _singleton = new RBACCacheService( );
+    private static final ReentrantLock LOCK_INDEX = new ReentrantLock( );
+    private static final AtomicReference<IndexState> _refState = new AtomicReference<>( new IndexState( 0L, null, 0L ) );
+    private static final AtomicLong _lLoadCount = new AtomicLong( );
+    private static volatile boolean _bEnable = true;
+    private static volatile long _lTimeToLive = DEFAULT_TIME_TO_LIVE;
+
+    /**
+     * Private constructor
+     */
+    private RBACCacheService( )
+    {
+    }
+
+    /**
+     * Registers the service to the cache service
+     */
+    public static void init( )
+    {
+        _lTimeToLive = AppPropertiesService.getPropertyLong( PROPERTY_TIME_TO_LIVE, DEFAULT_TIME_TO_LIVE );
+        CacheService.registerCacheableService( _singleton );
+    }
+
+    /**
+     * Returns the unique instance of the service
+     * 
+     * @return The instance
+     */
+    public static RBACCacheService getInstance( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * Drops the index, on this node and on the other nodes of the cluster. It will be reloaded from the database by the next permission check.
+     */
+    public static void invalidate( )
+    {
+        dropIndex( );
+        CacheService.publishEntityChange( new EntityChangeEvent( ENTITY_TYPE, null, EntityChangeEvent.ENTITY_UPDATED ) );
+    }
+
+    /**
+     * Drops the index of this node
+     */
+    private static void dropIndex( )
+    {
+        // a new state object : an index loaded from the previous state can no longer be published
+        _refState.updateAndGet( state -> new IndexState( state._lVersion + 1, null, 0L ) );
+    }
+
+    /**
+     * Gets the RBAC index, loading it if needed
+     * 
+     * @return The index or null if the cache is disabled
+     */
+    static RBACIndex getIndex( )
+    {
+        if ( !_bEnable )
+        {
+            return null;
+        }
+
+        IndexState state = _refState.get( );
+
+        if ( state._index == null )
+        {
+            LOCK_INDEX.lock( );
+
+            try
+            {
+                return load( );
+            }
+            finally
+            {
+                LOCK_INDEX.unlock( );
+            }
+        }
+
+        if ( state.isExpired( _lTimeToLive ) && LOCK_INDEX.tryLock( ) )
+        {
+            try
+            {
+                return load( );
+            }
+            finally
+            {
+                LOCK_INDEX.unlock( );
+            }
+        }
+
+        return state._index;
+    }
+
+    /**
+     * Loads the index if it is missing or expired. Must be called with the lock held.
+     * 
+     * @return The index
+     */
+    private static RBACIndex load( )
+    {
+        // the index may have been loaded by another thread while waiting for the lock
+        IndexState state = _refState.get( );
+
+        if ( ( state._index != null ) && !state.isExpired( _lTimeToLive ) )
+        {
+            return state._index;
+        }
+
+        RBACIndex index = new RBACIndex( RBACHome.findAll( ) );
+        _lLoadCount.incrementAndGet( );
+
+        // Don't publish an index loaded while the entries were being modified : the state has been replaced by invalidate( )
+        _refState.compareAndSet( state, new IndexState( state._lVersion, index, System.currentTimeMillis( ) ) );
+
+        return index;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getName( )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isCacheEnable( )
+    {
+        return _bEnable;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getCacheSize( )
+    {
+        RBACIndex index = _refState.get( )._index;
+
+        return ( index != null ) ? index.size( ) : 0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void resetCache( )
+    {
+        dropIndex( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void enableCache( boolean bEnable )
+    {
+        _bEnable = bEnable;
+        dropIndex( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<String> getKeys( )
+    {
+        List<String> list = new ArrayList<>( );
+        list.add( MSG_KEYS_NOT_AVAILABLE );
+
+        return list;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getMaxElements( )
+    {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public long getTimeToLive( )
+    {
+        return _lTimeToLive;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public long getMemorySize( )
+    {
+        return 0L;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getInfos( )
+    {
+        return "RBAC entries = " + getCacheSize( ) + " - Loads = " + _lLoadCount.get( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Collection<String> getEntityDependencies( )
+    {
+        return Collections.singletonList( ENTITY_TYPE );
+    }
+
+    /**
+     * {@inheritDoc } The changes of the RBAC entries come from the other nodes : the local changes are applied by {@link #invalidate()}.
+     */
+    @Override
+    public void processEntityChange( EntityChangeEvent event )
+    {
+        dropIndex( );
+    }
+
+    /**
+     * Index published with the version of the RBAC entries it was loaded from
+     */
+    private static final class IndexState
+    {
+        private final long _lVersion;
+        private final RBACIndex _index;
+        private final long _lLoadTime;
+
+        /**
+         * Constructor
+         * 
+         * @param lVersion
+         *            The version of the RBAC entries
+         * @param index
+         *            The index, or null if it must be loaded
+         * @param lLoadTime
+         *            The time of the load in milliseconds
+         */
+        IndexState( long lVersion, RBACIndex index, long lLoadTime )
+        {
+            _lVersion = lVersion;
+            _index = index;
+            _lLoadTime = lLoadTime;
+        }
+
+        /**
+         * Tells if the index is older than the time to live
+         * 
+         * @param lTimeToLive
+         *            The time to live in seconds, 0 for no expiration
+         * @return true if the index must be reloaded
+         */
+        boolean isExpired( long lTimeToLive )
+        {
+            return ( lTimeToLive > 0 ) && ( ( System.currentTimeMillis( ) - _lLoadTime ) > ( lTimeToLive * 1000L ) );
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.rbac;
+
+import fr.paris.lutece.portal.business.rbac.RBAC;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable in-memory index of the RBAC entries : (resource type, resource id, permission) to role keys
+ */
+final class RBACIndex
+{
+    private final Map<String, Map<String, Map<String, Set<String>>>> _mapRoleKeys = new HashMap<>( );
+    private final int _nSize;
+
+    /**
+     * Constructor
+     * 
+     * @param listRBACs
+     *            All the RBAC entries
+     */
+    RBACIndex( Collection<RBAC> listRBACs )
+    {
+        for ( RBAC rbac : listRBACs )
+        {
+            _mapRoleKeys.computeIfAbsent( rbac.getResourceTypeKey( ), k -> new HashMap<>( ) ).computeIfAbsent( rbac.getResourceId( ), k -> new HashMap<>( ) )
+                    .computeIfAbsent( rbac.getPermissionKey( ), k -> new HashSet<>( ) ).add( rbac.getRoleKey( ) );
+        }
+
+        _nSize = listRBACs.size( );
+    }
+
+    /**
+     * Gets the role keys granting a permission on a resource, including the wildcard entries
+     * 
+     * @param strResourceTypeCode
+     *            the resource type
+     * @param strResourceId
+     *            the resource id
+     * @param strPermission
+     *            the permission
+     * @return The role keys
+     */
+    Collection<String> getRoleKeys( String strResourceTypeCode, String strResourceId, String strPermission )
+    {
+        Map<String, Map<String, Set<String>>> mapResources = _mapRoleKeys.get( strResourceTypeCode );
+
+        if ( mapResources == null )
+        {
+            return Collections.emptySet( );
+        }
+
+        Set<String> setRoleKeys = new HashSet<>( );
+        addRoleKeys( setRoleKeys, mapResources.get( strResourceId ), strPermission );
+
+        if ( !RBAC.WILDCARD_RESOURCES_ID.equals( strResourceId ) )
+        {
+            addRoleKeys( setRoleKeys, mapResources.get( RBAC.WILDCARD_RESOURCES_ID ), strPermission );
+        }
+
+        return setRoleKeys;
+    }
+
+    /**
+     * Check if one of the given roles grants a permission on a resource, including the wildcard entries
+     * 
+     * @param strResourceTypeCode
+     *            the resource type
+     * @param strResourceId
+     *            the resource id
+     * @param strPermission
+     *            the permission
+     * @param setUserRoleKeys
+     *            the role keys of the user
+     * @return true if one of the roles grants the permission
+     */
+    boolean isAuthorized( String strResourceTypeCode, String strResourceId, String strPermission, Set<String> setUserRoleKeys )
+    {
+        Map<String, Map<String, Set<String>>> mapResources = _mapRoleKeys.get( strResourceTypeCode );
+
+        if ( mapResources == null )
+        {
+            return false;
+        }
+
+        return hasRoleKey( mapResources.get( strResourceId ), strPermission, setUserRoleKeys )
+                || hasRoleKey( mapResources.get( RBAC.WILDCARD_RESOURCES_ID ), strPermission, setUserRoleKeys );
+    }
+
+    /**
+     * Gets the number of indexed RBAC entries
+     * 
+     * @return The number of entries
+     */
+    int size( )
+    {
+        return _nSize;
+    }
+
+    /**
+     * Adds the role keys granting a permission, including the wildcard permission
+     * 
+     * @param setRoleKeys
+     *            The role keys to complete
+     * @param mapPermissions
+     *            The role keys by permission of a resource
+     * @param strPermission
+     *            the permission
+     */
+    private static void addRoleKeys( Set<String> setRoleKeys, Map<String, Set<String>> mapPermissions, String strPermission )
+    {
+        if ( mapPermissions != null )
+        {
+            setRoleKeys.addAll( mapPermissions.getOrDefault( strPermission, Collections.emptySet( ) ) );
+            setRoleKeys.addAll( mapPermissions.getOrDefault( RBAC.WILDCARD_PERMISSIONS_KEY, Collections.emptySet( ) ) );
+        }
+    }
+
+    /**
+     * Check if one of the given roles grants a permission, including the wildcard permission
+     * 
+     * @param mapPermissions
+     *            The role keys by permission of a resource
+     * @param strPermission
+     *            the permission
+     * @param setUserRoleKeys
+     *            the role keys of the user
+     * @return true if one of the roles grants the permission
+     */
+    private static boolean hasRoleKey( Map<String, Set<String>> mapPermissions, String strPermission, Set<String> setUserRoleKeys )
+    {
+        if ( mapPermissions == null )
+        {
+            return false;
+        }
+
+        return containsAny( mapPermissions.get( strPermission ), setUserRoleKeys )
+                || containsAny( mapPermissions.get( RBAC.WILDCARD_PERMISSIONS_KEY ), setUserRoleKeys );
+    }
+
+    /**
+     * Check if two sets have a common element, iterating over the smallest one
+     * 
+     * @param setRoleKeys
+     *            The role keys granting a permission
+     * @param setUserRoleKeys
+     *            the role keys of the user
+     * @return true if the sets have a common element
+     */
+    private static boolean containsAny( Set<String> setRoleKeys, Set<String> setUserRoleKeys )
+    {
+        if ( setRoleKeys == null )
+        {
+            return false;
+        }
+
+        Set<String> setSmall = ( setRoleKeys.size( ) <= setUserRoleKeys.size( ) ) ? setRoleKeys : setUserRoleKeys;
+        Set<String> setLarge = ( setSmall == setRoleKeys ) ? setUserRoleKeys : setRoleKeys;
+
+        for ( String strRoleKey : setSmall )
+        {
+            if ( setLarge.contains( strRoleKey ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
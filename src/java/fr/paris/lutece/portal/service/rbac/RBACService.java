@@ -123,8 +123,16 @@ public final class RBACService
      */
     public static boolean isAuthorized( String strResourceTypeCode, String strResourceId, String strPermission, User user )
     {
+        RBACIndex index = RBACCacheService.getIndex( );
+
+        if ( ( index != null ) && ( user != null ) )
+        {
+            return index.isAuthorized( strResourceTypeCode, strResourceId, strPermission, user.getUserRoles( ).keySet( ) );
+        }
+
         // Check user roles
-        Collection<String> colRoles = RBACHome.findRoleKeys( strResourceTypeCode, strResourceId, strPermission );
+        Collection<String> colRoles = ( index != null ) ? index.getRoleKeys( strResourceTypeCode, strResourceId, strPermission )
+                : RBACHome.findRoleKeys( strResourceTypeCode, strResourceId, strPermission );
 
         for ( String strRole : colRoles )
         {
@@ -249,6 +257,14 @@ public final class RBACService
         {
             return Collections.emptyList( );
         }
+        RBACIndex index = RBACCacheService.getIndex( );
+        if ( index != null )
+        {
+            Set<String> setUserRoleKeys = user.getUserRoles( ).keySet( );
+            return collection.stream( )
+                    .filter( resource -> index.isAuthorized( resource.getResourceTypeCode( ), resource.getResourceId( ), strPermission, setUserRoleKeys ) )
+                    .collect( Collectors.toList( ) );
+        }
         Map<String, Collection<RBAC>> rbacsByResourceType = new HashMap<>( );
         RBACHome.findByPermissionAndRoles( strPermission, user.getUserRoles( ).keySet( ) ).stream( ).forEach( rbac -> {
             rbacsByResourceType.computeIfAbsent( rbac.getResourceTypeKey( ), t -> new ArrayList<>( ) ).add( rbac );
@@ -341,6 +357,13 @@ public final class RBACService
         {
             return collection;
         }
+        RBACIndex index = RBACCacheService.getIndex( );
+        if ( index != null )
+        {
+            Set<String> setUserRoleKeys = user.getUserRoles( ).keySet( );
+            return collection.stream( ).filter( action -> index.isAuthorized( resource.getResourceTypeCode( ), resource.getResourceId( ),
+                    action.getPermission( ), setUserRoleKeys ) ).collect( Collectors.toList( ) );
+        }
         Set<String> permissions = RBACHome
                 .findByPermissionsAndRoles(
                         collection.stream( ).map( RBACAction::getPermission ).collect( Collectors.toSet( ) ),
@@ -33,28 +33,54 @@
  */
 package fr.paris.lutece.portal.service.search;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.util.Version;
@@ -64,6 +90,7 @@ import fr.paris.lutece.portal.business.indexeraction.IndexerActionFilter;
 import fr.paris.lutece.portal.business.indexeraction.IndexerActionHome;
 import fr.paris.lutece.portal.service.init.LuteceInitException;
 import fr.paris.lutece.portal.service.message.SiteMessageException;
+import fr.paris.lutece.portal.service.progressmanager.ProgressManagerService;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPathService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
@@ -81,12 +108,44 @@ public final class IndexationService
     public static final Version LUCENE_INDEX_VERSION = Version.LATEST;
     private static final String PARAM_TYPE_PAGE = "Page";
     private static final String PROPERTY_ANALYSER_CLASS_NAME = "search.lucene.analyser.className";
+    private static final String PROPERTY_COMMIT_BATCH_SIZE = "search.lucene.writer.commitBatchSize";
+    private static final String PROPERTY_PARALLEL_ENABLED = "search.lucene.fullIndexing.parallel.enabled";
+    private static final String PROPERTY_PARALLEL_THREADS = "search.lucene.fullIndexing.parallel.threads";
+    private static final String PROPERTY_PARALLEL_QUEUE_SIZE = "search.lucene.fullIndexing.parallel.queueSize";
+    private static final int DEFAULT_PARALLEL_THREADS = 4;
+    private static final int DEFAULT_PARALLEL_QUEUE_SIZE = 100;
+    private static final String SUFFIX_BUILD_DIRECTORY = "_build";
+    private static final String THREAD_NAME_INDEXERS = "Lutece-Indexing-Indexer-";
+    private static final String THREAD_NAME_SEARCHER_REFRESHER = "Lutece-Searcher-Refresher-";
+    private static final String THREAD_NAME_DOCUMENTS = "Lutece-Indexing-Documents-";
+    private static final String PROGRESS_FEED_PREFIX = "Indexer : ";
+    private static final Object LOCK_LOGS = new Object( );
+    private static final String PROPERTY_REINDEX_ALL_PAGES = "search.pageIndexer.incremental.reindexAllPages";
+    private static final int DEFAULT_COMMIT_BATCH_SIZE = 500;
+    private static final String PROPERTY_WARMUP_QUERIES = "search.lucene.searcher.warmupQueries";
+    private static final String WARMUP_QUERIES_SEPARATOR = ",";
+    private static final int WARMUP_MAX_RESPONSES = 10;
+    private static final String PROPERTY_SEARCHER_MAX_STALENESS = "search.lucene.searcher.maxStaleness";
+    private static final long DEFAULT_SEARCHER_MAX_STALENESS = 1000L;
+    private static final Object LOCK_SEARCHER = new Object( );
     private static String _strIndex;
     private static Analyzer _analyzer;
     private static Map<String, SearchIndexer> _mapIndexers = new ConcurrentHashMap<>( );
     private static IndexWriter _writer;
     private static StringBuilder _sbLogs;
     private static SearchIndexerComparator _comparator = new SearchIndexerComparator( );
+    private static int _nDocumentsCount;
+    private static int _nUncommittedCount;
+    private static List<Integer> _listUncommittedActions = new ArrayList<>( );
+    private static Map<String, String> _mapProgressFeeds = new ConcurrentHashMap<>( );
+    private static ThreadLocal<String> _currentProgressFeed = new ThreadLocal<>( );
+    private static ThreadLocal<IndexWriter> _currentWriter = new ThreadLocal<>( );
+    private static volatile IndexWriter _buildWriter;
+    private static volatile ExecutorService _documentsExecutor;
+    private static volatile SearcherManager _searcherManager;
+    private static Directory _searcherDirectory;
+    private static ScheduledExecutorService _searcherRefresher;
+    private static long _lSearcherMaxStaleness = DEFAULT_SEARCHER_MAX_STALENESS;
 
     /**
      * The private constructor
@@ -134,6 +193,8 @@ public final class IndexationService
         {
             throw new LuteceInitException( "Failed to load Lucene Analyzer class", e );
         }
+
+        _lSearcherMaxStaleness = AppPropertiesService.getPropertyLong( PROPERTY_SEARCHER_MAX_STALENESS, DEFAULT_SEARCHER_MAX_STALENESS );
     }
 
     /**
@@ -182,6 +243,9 @@ public final class IndexationService
     public static synchronized String processIndexing( boolean bCreate )
     {
         _sbLogs = new StringBuilder( );
+        _nDocumentsCount = 0;
+        _nUncommittedCount = 0;
+        _listUncommittedActions.clear( );
 
         _writer = null;
 
@@ -212,19 +276,30 @@ public final class IndexationService
 
             _writer = new IndexWriter( dir, conf );
 
-            if ( bCreateIndex )
+            if ( bCreateIndex && AppPropertiesService.getPropertyBoolean( PROPERTY_PARALLEL_ENABLED, false ) )
             {
-                processFullIndexing( );
+                processParallelFullIndexing( );
             }
             else
-            {
-                processIncrementalIndexing( );
-            }
+                if ( bCreateIndex )
+                {
+                    processFullIndexing( );
+                }
+                else
+                {
+                    processIncrementalIndexing( );
+                }
 
             Date end = new Date( );
+            long lDuration = end.getTime( ) - start.getTime( );
             _sbLogs.append( "Duration of the treatment : " );
-            _sbLogs.append( end.getTime( ) - start.getTime( ) );
+            _sbLogs.append( lDuration );
             _sbLogs.append( " milliseconds\r\n" );
+            _sbLogs.append( "Documents indexed : " );
+            _sbLogs.append( _nDocumentsCount );
+            _sbLogs.append( " (" );
+            _sbLogs.append( ( lDuration > 0 ) ? ( ( _nDocumentsCount * 1000L ) / lDuration ) : _nDocumentsCount );
+            _sbLogs.append( " documents/s)\r\n" );
         }
         catch( Exception e )
         {
@@ -255,6 +330,9 @@ public final class IndexationService
             {
                 AppLogService.error( e.getMessage( ), e );
             }
+
+            // closing the writer has committed the changes : make them visible to the searches
+            refreshSearcher( );
         }
 
         return _sbLogs.toString( );
@@ -262,35 +340,338 @@ public final class IndexationService
 
     /**
      * Process all contents
+     *
+     * @throws IOException
+     *             if an error occurs
      */
-    private static void processFullIndexing( )
+    private static void processFullIndexing( ) throws IOException
     {
         _sbLogs.append( "\r\nIndexing all contents ...\r\n" );
+        registerProgressFeeds( );
 
         for ( SearchIndexer indexer : getIndexerListSortedByName( ) )
         {
-            // catch any exception coming from an indexer to prevent global indexation to fail
-            try
+            if ( indexer.isEnable( ) )
             {
-                if ( indexer.isEnable( ) )
+                runIndexer( indexer, _writer );
+            }
+        }
+
+        _writer.commit( );
+        removeAllIndexerAction( );
+    }
+
+    /**
+     * Process all contents with a pool of workers. The indexers are run in parallel and may submit the production of their documents to the workers with
+     * {@link #submitIndexingTask(IndexingTask)}. <br>
+     * The index is built in a side directory, then it replaces the content of the index in a single commit : the searches use the previous index until the
+     * new one is complete, and the previous index is kept if the build fails. The writer of the side directory is given to the indexers and to their tasks,
+     * the main writer is left untouched.
+     *
+     * @throws IOException
+     *             if an error occurs
+     * @throws InterruptedException
+     *             if the indexing is interrupted
+     */
+    private static void processParallelFullIndexing( ) throws IOException, InterruptedException
+    {
+        int nThreads = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_PARALLEL_THREADS, DEFAULT_PARALLEL_THREADS ) );
+        int nQueueSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_PARALLEL_QUEUE_SIZE, DEFAULT_PARALLEL_QUEUE_SIZE ) );
+        _sbLogs.append( "\r\nIndexing all contents with " ).append( nThreads ).append( " threads ...\r\n" );
+        registerProgressFeeds( );
+
+        IndexWriter mainWriter = _writer;
+        Path pathIndex = Paths.get( _strIndex );
+        File fileBuild = pathIndex.resolveSibling( pathIndex.getFileName( ) + SUFFIX_BUILD_DIRECTORY ).toFile( );
+        FileUtils.deleteQuietly( fileBuild );
+
+        // the indexers wait for their documents : they don't share the workers producing the documents
+        ExecutorService indexersExecutor = Executors.newFixedThreadPool( nThreads, new IndexingThreadFactory( THREAD_NAME_INDEXERS ) );
+        // the bounded queue slows down the indexers if the documents are produced faster than they are written
+        _documentsExecutor = new ThreadPoolExecutor( nThreads, nThreads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>( nQueueSize ),
+                new IndexingThreadFactory( THREAD_NAME_DOCUMENTS ), new ThreadPoolExecutor.CallerRunsPolicy( ) );
+
+        try ( Directory dirBuild = FSDirectory.open( fileBuild.toPath( ) ) )
+        {
+            IndexWriterConfig conf = new IndexWriterConfig( _analyzer );
+            conf.setOpenMode( OpenMode.CREATE );
+
+            try ( IndexWriter buildWriter = new IndexWriter( dirBuild, conf ) )
+            {
+                // the documents written by threads of the indexers themselves go to the build index too
+                _buildWriter = buildWriter;
+                List<Future<?>> listIndexers = new ArrayList<>( );
+
+                for ( SearchIndexer indexer : getIndexerListSortedByName( ) )
+                {
+                    if ( indexer.isEnable( ) )
+                    {
+                        listIndexers.add( indexersExecutor.submit( ( ) -> runIndexer( indexer, buildWriter ) ) );
+                    }
+                }
+
+                for ( Future<?> future : listIndexers )
                 {
-                    _sbLogs.append( "\r\n<strong>Indexer : " );
-                    _sbLogs.append( indexer.getName( ) );
-                    _sbLogs.append( " - " );
-                    _sbLogs.append( indexer.getDescription( ) );
-                    _sbLogs.append( "</strong>\r\n" );
-
-                    // the indexer will call write(doc)
-                    indexer.indexDocuments( );
+                    waitFor( future );
                 }
+
+                buildWriter.commit( );
             }
-            catch( Exception e )
+
+            // swap : the main writer was opened in create mode, its content is replaced on commit
+            mainWriter.deleteAll( );
+            mainWriter.addIndexes( dirBuild );
+            mainWriter.commit( );
+        }
+        catch( IOException | InterruptedException | RuntimeException e )
+        {
+            // keep the previous index
+            mainWriter.rollback( );
+            throw e;
+        }
+        finally
+        {
+            _buildWriter = null;
+            indexersExecutor.shutdownNow( );
+            _documentsExecutor.shutdownNow( );
+            _documentsExecutor = null;
+            FileUtils.deleteQuietly( fileBuild );
+        }
+
+        removeAllIndexerAction( );
+    }
+
+    /**
+     * Runs the full indexing of an indexer
+     *
+     * @param indexer
+     *            The indexer
+     * @param writer
+     *            The writer receiving the documents written by the indexer and by its tasks
+     */
+    private static void runIndexer( SearchIndexer indexer, IndexWriter writer )
+    {
+        _currentProgressFeed.set( _mapProgressFeeds.get( indexer.getName( ) ) );
+        _currentWriter.set( writer );
+
+        // catch any exception coming from an indexer to prevent global indexation to fail
+        try
+        {
+            synchronized( LOCK_LOGS )
             {
-                error( indexer, e, StringUtils.EMPTY );
+                _sbLogs.append( "\r\n<strong>Indexer : " );
+                _sbLogs.append( indexer.getName( ) );
+                _sbLogs.append( " - " );
+                _sbLogs.append( indexer.getDescription( ) );
+                _sbLogs.append( "</strong>\r\n" );
             }
+
+            // the indexer will call write(doc)
+            indexer.indexDocuments( );
         }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            error( indexer, e, StringUtils.EMPTY );
+        }
+        catch( Exception e )
+        {
+            error( indexer, e, StringUtils.EMPTY );
+        }
+        finally
+        {
+            _currentProgressFeed.remove( );
+            _currentWriter.remove( );
+        }
+    }
 
-        removeAllIndexerAction( );
+    /**
+     * Submits a task producing documents. During a parallel full indexing, the task is run by the workers of the indexing, otherwise it is run immediately.
+     * The documents written by the task go to the writer of the indexer that submitted it. Errors are reported in the logs of the indexing. <br>
+     * An indexer must wait for its tasks with {@link #waitForIndexingTasks(SearchIndexer, List)} before returning from
+     * {@link SearchIndexer#indexDocuments()}.
+     *
+     * @param task
+     *            The task
+     * @return The future of the task
+     */
+    public static Future<?> submitIndexingTask( IndexingTask task )
+    {
+        ExecutorService executor = _documentsExecutor;
+        String strProgressFeed = _currentProgressFeed.get( );
+        IndexWriter writer = _currentWriter.get( );
+        Runnable runnable = ( ) -> {
+            String strPreviousFeed = _currentProgressFeed.get( );
+            IndexWriter previousWriter = _currentWriter.get( );
+            _currentProgressFeed.set( strProgressFeed );
+            _currentWriter.set( writer );
+
+            try
+            {
+                task.run( );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+                throw new CompletionException( e );
+            }
+            catch( IOException | SiteMessageException e )
+            {
+                throw new CompletionException( e );
+            }
+            finally
+            {
+                _currentProgressFeed.set( strPreviousFeed );
+                _currentWriter.set( previousWriter );
+            }
+        };
+
+        if ( executor == null )
+        {
+            try
+            {
+                runnable.run( );
+
+                return CompletableFuture.completedFuture( null );
+            }
+            catch( RuntimeException e )
+            {
+                CompletableFuture<Void> future = new CompletableFuture<>( );
+                future.completeExceptionally( e );
+
+                return future;
+            }
+        }
+
+        return CompletableFuture.runAsync( runnable, executor );
+    }
+
+    /**
+     * Waits for the tasks submitted by an indexer. The errors of the tasks are reported for the indexer.
+     *
+     * @param indexer
+     *            The indexer
+     * @param listTasks
+     *            The futures of the tasks
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    public static void waitForIndexingTasks( SearchIndexer indexer, List<Future<?>> listTasks ) throws InterruptedException
+    {
+        for ( Future<?> future : listTasks )
+        {
+            try
+            {
+                future.get( );
+            }
+            catch( ExecutionException e )
+            {
+                Throwable cause = ( e.getCause( ) instanceof CompletionException ) ? e.getCause( ).getCause( ) : e.getCause( );
+                error( indexer, ( cause instanceof Exception ) ? (Exception) cause : e, StringUtils.EMPTY );
+            }
+        }
+    }
+
+    /**
+     * Sets the number of documents the current indexer will produce, for the progress of the full indexing
+     *
+     * @param nTotalItems
+     *            The number of documents
+     */
+    public static void setProgressTotal( int nTotalItems )
+    {
+        String strProgressFeed = _currentProgressFeed.get( );
+
+        if ( strProgressFeed != null )
+        {
+            ProgressManagerService.getInstance( ).initFeed( strProgressFeed, nTotalItems );
+        }
+    }
+
+    /**
+     * Waits for a task of the indexing
+     *
+     * @param future
+     *            The future of the task
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    private static void waitFor( Future<?> future ) throws InterruptedException
+    {
+        try
+        {
+            future.get( );
+        }
+        catch( ExecutionException e )
+        {
+            // the indexers report their own errors
+            AppLogService.error( e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * Registers a progress feed for each enabled indexer. The feeds of the previous full indexing are removed.
+     */
+    private static void registerProgressFeeds( )
+    {
+        ProgressManagerService progressManager = ProgressManagerService.getInstance( );
+
+        for ( String strToken : _mapProgressFeeds.values( ) )
+        {
+            progressManager.unRegisterFeed( strToken );
+        }
+
+        _mapProgressFeeds.clear( );
+
+        for ( SearchIndexer indexer : getIndexerListSortedByName( ) )
+        {
+            if ( indexer.isEnable( ) )
+            {
+                _mapProgressFeeds.put( indexer.getName( ), progressManager.registerFeed( PROGRESS_FEED_PREFIX + indexer.getName( ), 0 ) );
+            }
+        }
+    }
+
+    /**
+     * Returns the tokens of the progress feeds of the last full indexing
+     *
+     * @return The tokens of the feeds by indexer name
+     */
+    public static Map<String, String> getProgressFeeds( )
+    {
+        return Collections.unmodifiableMap( _mapProgressFeeds );
+    }
+
+    /**
+     * Thread factory of the workers of the full indexing
+     */
+    private static class IndexingThreadFactory implements ThreadFactory
+    {
+        private final String _strNamePrefix;
+        private final AtomicInteger _nThreadCount = new AtomicInteger( );
+
+        /**
+         * Constructor
+         *
+         * @param strNamePrefix
+         *            The prefix of the thread names
+         */
+        IndexingThreadFactory( String strNamePrefix )
+        {
+            _strNamePrefix = strNamePrefix;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Thread newThread( Runnable runnable )
+        {
+            Thread thread = new Thread( runnable, _strNamePrefix + _nThreadCount.incrementAndGet( ) );
+            thread.setDaemon( true );
+
+            return thread;
+        }
     }
 
     /**
@@ -309,15 +690,31 @@ public final class IndexationService
     {
         _sbLogs.append( "\r\nIncremental Indexing ...\r\n" );
 
+        boolean bReindexAllPages = AppPropertiesService.getPropertyBoolean( PROPERTY_REINDEX_ALL_PAGES, false );
+
         // incremental indexing
         Collection<IndexerAction> actions = IndexerActionHome.getList( );
+        Map<String, IndexerAction> mapPageActions = new LinkedHashMap<>( );
 
         for ( IndexerAction action : actions )
         {
             // catch any exception coming from an indexer to prevent global indexation to fail
             try
             {
-                processIndexAction( action );
+                if ( PageIndexer.INDEXER_NAME.equals( action.getIndexerName( ) ) )
+                {
+                    // a page is indexed once, according to its last action
+                    IndexerAction previousAction = mapPageActions.put( action.getIdDocument( ), action );
+
+                    if ( previousAction != null )
+                    {
+                        commitAction( previousAction );
+                    }
+                }
+                else
+                {
+                    processIndexAction( action );
+                }
             }
             catch( Exception e )
             {
@@ -325,9 +722,38 @@ public final class IndexationService
             }
         }
 
-        // reindexing all pages.
-        _writer.deleteDocuments( new Term( SearchItem.FIELD_TYPE, PARAM_TYPE_PAGE ) );
-        _mapIndexers.get( PageIndexer.INDEXER_NAME ).indexDocuments( );
+        for ( IndexerAction action : mapPageActions.values( ) )
+        {
+            try
+            {
+                if ( bReindexAllPages )
+                {
+                    commitAction( action );
+                }
+                else
+                {
+                    processPageAction( action );
+                }
+            }
+            catch( Exception e )
+            {
+                error( action, e, StringUtils.EMPTY );
+            }
+        }
+
+        if ( bReindexAllPages )
+        {
+            // reindexing all pages.
+            SearchIndexer pageIndexer = _mapIndexers.get( PageIndexer.INDEXER_NAME );
+
+            if ( pageIndexer != null )
+            {
+                _writer.deleteDocuments( new Term( SearchItem.FIELD_TYPE, PARAM_TYPE_PAGE ) );
+                pageIndexer.indexDocuments( );
+            }
+        }
+
+        commit( );
     }
 
     private static void processIndexAction( IndexerAction action ) throws IOException, InterruptedException, SiteMessageException
@@ -355,7 +781,96 @@ public final class IndexationService
             }
         }
 
-        removeIndexerAction( action.getIdAction( ) );
+        commitAction( action );
+    }
+
+    /**
+     * Reindex a page. The documents of the page are replaced by the current ones, or only deleted if the page has been removed.
+     *
+     * @param action
+     *            The last action on the page
+     * @throws IOException
+     *             if an error occurs
+     * @throws InterruptedException
+     *             if an error occurs
+     * @throws SiteMessageException
+     *             if an error occurs
+     */
+    private static void processPageAction( IndexerAction action ) throws IOException, InterruptedException, SiteMessageException
+    {
+        // the uid of a page is its id : the type is needed to not delete the documents of other indexers
+        BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder( );
+        queryBuilder.add( new TermQuery( new Term( SearchItem.FIELD_UID, action.getIdDocument( ) ) ), BooleanClause.Occur.MUST );
+        queryBuilder.add( new TermQuery( new Term( SearchItem.FIELD_TYPE, PARAM_TYPE_PAGE ) ), BooleanClause.Occur.MUST );
+        _writer.deleteDocuments( queryBuilder.build( ) );
+
+        SearchIndexer pageIndexer = _mapIndexers.get( PageIndexer.INDEXER_NAME );
+
+        if ( ( action.getIdTask( ) == IndexerAction.TASK_DELETE ) || ( pageIndexer == null ) )
+        {
+            _sbLogs.append( "Deleting #" ).append( action.getIdDocument( ) ).append( "\r\n" );
+        }
+        else
+        {
+            for ( Document doc : pageIndexer.getDocuments( action.getIdDocument( ) ) )
+            {
+                _writer.addDocument( doc );
+                logDoc( "Indexing ", doc );
+                countDocument( );
+            }
+        }
+
+        commitAction( action );
+    }
+
+    /**
+     * Marks an action as processed. The action is removed once the changes it made to the index are committed.
+     *
+     * @param action
+     *            The action
+     * @throws IOException
+     *             if an error occurs
+     */
+    private static void commitAction( IndexerAction action ) throws IOException
+    {
+        _listUncommittedActions.add( action.getIdAction( ) );
+        _nUncommittedCount++;
+
+        if ( _nUncommittedCount >= AppPropertiesService.getPropertyInt( PROPERTY_COMMIT_BATCH_SIZE, DEFAULT_COMMIT_BATCH_SIZE ) )
+        {
+            commit( );
+        }
+    }
+
+    /**
+     * Counts an indexed document
+     */
+    private static void countDocument( )
+    {
+        synchronized( LOCK_LOGS )
+        {
+            _nDocumentsCount++;
+            _nUncommittedCount++;
+        }
+    }
+
+    /**
+     * Commits the changes made to the index, then removes the actions that are processed.
+     *
+     * @throws IOException
+     *             if an error occurs
+     */
+    private static void commit( ) throws IOException
+    {
+        _writer.commit( );
+
+        for ( Integer nIdAction : _listUncommittedActions )
+        {
+            removeIndexerAction( nIdAction );
+        }
+
+        _listUncommittedActions.clear( );
+        _nUncommittedCount = 0;
     }
 
     /**
@@ -403,6 +918,7 @@ public final class IndexationService
         {
             _writer.addDocument( doc );
             logDoc( "Adding ", doc );
+            countDocument( );
         }
         else
             if ( action.getIdTask( ) == IndexerAction.TASK_MODIFY )
@@ -418,11 +934,13 @@ public final class IndexationService
                 }
 
                 logDoc( "Updating ", doc );
+                countDocument( );
             }
     }
 
     /**
-     * Index one document, called by plugin indexers
+     * Index one document, called by plugin indexers. During a parallel full indexing, the documents written by a thread that is neither an indexing thread nor
+     * an indexing task go to the index being built, otherwise they would be lost when the built index replaces the current one.
      *
      * @param doc
      *            the document to index
@@ -433,8 +951,28 @@ public final class IndexationService
      */
     public static void write( Document doc ) throws IOException
     {
-        _writer.addDocument( doc );
+        IndexWriter writer = _currentWriter.get( );
+
+        if ( writer == null )
+        {
+            writer = _buildWriter;
+        }
+
+        if ( writer == null )
+        {
+            writer = _writer;
+        }
+
+        writer.addDocument( doc );
         logDoc( "Indexing ", doc );
+        countDocument( );
+
+        String strProgressFeed = _currentProgressFeed.get( );
+
+        if ( strProgressFeed != null )
+        {
+            ProgressManagerService.getInstance( ).incrementSuccess( strProgressFeed, 1 );
+        }
     }
 
     /**
@@ -447,13 +985,16 @@ public final class IndexationService
      */
     private static void logDoc( String strAction, Document doc )
     {
-        _sbLogs.append( strAction );
-        _sbLogs.append( doc.get( SearchItem.FIELD_TYPE ) );
-        _sbLogs.append( " #" );
-        _sbLogs.append( doc.get( SearchItem.FIELD_UID ) );
-        _sbLogs.append( " - " );
-        _sbLogs.append( doc.get( SearchItem.FIELD_TITLE ) );
-        _sbLogs.append( "\r\n" );
+        synchronized( LOCK_LOGS )
+        {
+            _sbLogs.append( strAction );
+            _sbLogs.append( doc.get( SearchItem.FIELD_TYPE ) );
+            _sbLogs.append( " #" );
+            _sbLogs.append( doc.get( SearchItem.FIELD_UID ) );
+            _sbLogs.append( " - " );
+            _sbLogs.append( doc.get( SearchItem.FIELD_TITLE ) );
+            _sbLogs.append( "\r\n" );
+        }
     }
 
     /**
@@ -470,6 +1011,13 @@ public final class IndexationService
     {
         String strTitle = "Indexer : " + indexer.getName( );
         error( strTitle, e, strMessage );
+
+        String strProgressFeed = _mapProgressFeeds.get( indexer.getName( ) );
+
+        if ( strProgressFeed != null )
+        {
+            ProgressManagerService.getInstance( ).incrementFailure( strProgressFeed, 1 );
+        }
     }
 
     /**
@@ -501,32 +1049,35 @@ public final class IndexationService
      */
     private static void error( String strTitle, Exception e, String strMessage )
     {
-        _sbLogs.append( "</pre>\r\n" );
-        _sbLogs.append( "<div class=\"alert alert-danger\">\r\n" );
-        _sbLogs.append( strTitle );
-        _sbLogs.append( " - ERROR : " );
-        _sbLogs.append( "<strong>\r\n" );
-        _sbLogs.append( e.getMessage( ) );
-        _sbLogs.append( "</strong>\r\n" );
-
-        if ( e.getCause( ) != null )
+        synchronized( LOCK_LOGS )
         {
-            _sbLogs.append( " : " );
+            _sbLogs.append( "</pre>\r\n" );
+            _sbLogs.append( "<div class=\"alert alert-danger\">\r\n" );
+            _sbLogs.append( strTitle );
+            _sbLogs.append( " - ERROR : " );
             _sbLogs.append( "<strong>\r\n" );
-            _sbLogs.append( e.getCause( ).getMessage( ) );
+            _sbLogs.append( e.getMessage( ) );
             _sbLogs.append( "</strong>\r\n" );
-        }
 
-        if ( StringUtils.isNotBlank( strMessage ) )
-        {
-            _sbLogs.append( " - " );
-            _sbLogs.append( "<strong>\r\n" );
-            _sbLogs.append( strMessage );
-            _sbLogs.append( "</strong>\r\n" );
-        }
+            if ( e.getCause( ) != null )
+            {
+                _sbLogs.append( " : " );
+                _sbLogs.append( "<strong>\r\n" );
+                _sbLogs.append( e.getCause( ).getMessage( ) );
+                _sbLogs.append( "</strong>\r\n" );
+            }
 
-        _sbLogs.append( "</div>\r\n" );
-        _sbLogs.append( "<pre>" );
+            if ( StringUtils.isNotBlank( strMessage ) )
+            {
+                _sbLogs.append( " - " );
+                _sbLogs.append( "<strong>\r\n" );
+                _sbLogs.append( strMessage );
+                _sbLogs.append( "</strong>\r\n" );
+            }
+
+            _sbLogs.append( "</div>\r\n" );
+            _sbLogs.append( "<pre>" );
+        }
 
         AppLogService.error( "Indexing error : " + e.getMessage( ), e );
     }
@@ -543,6 +1094,172 @@ public final class IndexationService
         return FSDirectory.open( Paths.get( _strIndex ) );
     }
 
+    /**
+     * Acquires the shared searcher of the index. The searcher must be released with {@link #releaseSearcher(IndexSearcher)} after use. <br>
+     * The searches never reopen the searcher : it is reopened after each indexing, and by a background thread checking the index for changes every
+     * <code>search.lucene.searcher.maxStaleness</code> milliseconds, so that changes made without {@link #refreshSearcher()} are visible after this delay.
+     *
+     * @return The searcher, or null if the index has not been created yet
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public static IndexSearcher acquireSearcher( ) throws IOException
+    {
+        SearcherManager searcherManager = getSearcherManager( );
+
+        if ( searcherManager == null )
+        {
+            return null;
+        }
+
+        return searcherManager.acquire( );
+    }
+
+    /**
+     * Releases a searcher acquired with {@link #acquireSearcher()}
+     *
+     * @param searcher
+     *            The searcher
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public static void releaseSearcher( IndexSearcher searcher ) throws IOException
+    {
+        if ( searcher != null )
+        {
+            // same as SearcherManager.release( ), but still works once the manager is closed
+            searcher.getIndexReader( ).decRef( );
+        }
+    }
+
+    /**
+     * Gets the manager of the shared searcher. It is created on first use, once the index exists.
+     *
+     * @return The searcher manager, or null if the index has not been created yet
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    private static SearcherManager getSearcherManager( ) throws IOException
+    {
+        SearcherManager searcherManager = _searcherManager;
+
+        if ( searcherManager == null )
+        {
+            synchronized( LOCK_SEARCHER )
+            {
+                searcherManager = _searcherManager;
+
+                if ( ( searcherManager == null ) && ( _strIndex != null ) )
+                {
+                    Directory dir = getDirectoryIndex( );
+
+                    if ( DirectoryReader.indexExists( dir ) )
+                    {
+                        searcherManager = new SearcherManager( dir, new WarmingSearcherFactory( ) );
+                        _searcherDirectory = dir;
+                        _searcherManager = searcherManager;
+                        startSearcherRefresher( searcherManager );
+                    }
+                    else
+                    {
+                        dir.close( );
+                    }
+                }
+            }
+        }
+
+        return searcherManager;
+    }
+
+    /**
+     * Reopens the shared searcher if the index has changed. The searches use the previous searcher until the new one is warmed up. <br>
+     * This is done at the end of {@link #processIndexing(boolean)}, it must be called if the index is modified by another way.
+     */
+    public static void refreshSearcher( )
+    {
+        SearcherManager searcherManager = _searcherManager;
+
+        if ( searcherManager != null )
+        {
+            try
+            {
+                Date start = new Date( );
+
+                searcherManager.maybeRefreshBlocking( );
+                AppLogService.debug( "Index searcher refreshed in {} milliseconds", new Date( ).getTime( ) - start.getTime( ) );
+            }
+            catch( IOException e )
+            {
+                AppLogService.error( "Error refreshing the index searcher : " + e.getMessage( ), e );
+            }
+        }
+    }
+
+    /**
+     * Starts the background thread reopening the searcher when the index has been modified by another way than the indexing. Must be called with the
+     * searcher lock held.
+     *
+     * @param searcherManager
+     *            The searcher manager
+     */
+    private static void startSearcherRefresher( SearcherManager searcherManager )
+    {
+        if ( _lSearcherMaxStaleness <= 0 )
+        {
+            return;
+        }
+
+        _searcherRefresher = Executors.newSingleThreadScheduledExecutor( new IndexingThreadFactory( THREAD_NAME_SEARCHER_REFRESHER ) );
+        _searcherRefresher.scheduleWithFixedDelay( ( ) -> {
+            try
+            {
+                // skipped if a refresh is already running, eg at the end of an indexing
+                searcherManager.maybeRefresh( );
+            }
+            catch( IOException | RuntimeException e )
+            {
+                AppLogService.error( "Error refreshing the index searcher : " + e.getMessage( ), e );
+            }
+        }, _lSearcherMaxStaleness, _lSearcherMaxStaleness, TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Closes the shared searcher. Searchers still in use are closed once released.
+     */
+    public static void shutdown( )
+    {
+        synchronized( LOCK_SEARCHER )
+        {
+            if ( _searcherRefresher != null )
+            {
+                _searcherRefresher.shutdownNow( );
+                _searcherRefresher = null;
+            }
+
+            try
+            {
+                if ( _searcherManager != null )
+                {
+                    _searcherManager.close( );
+                }
+
+                if ( _searcherDirectory != null )
+                {
+                    _searcherDirectory.close( );
+                }
+            }
+            catch( IOException e )
+            {
+                AppLogService.error( e.getMessage( ), e );
+            }
+            finally
+            {
+                _searcherManager = null;
+                _searcherDirectory = null;
+            }
+        }
+    }
+
     /**
      * Gets the current analyser
      *
@@ -665,4 +1382,72 @@ public final class IndexationService
             return si1.getName( ).compareToIgnoreCase( si2.getName( ) );
         }
     }
+
+    /**
+     * Searcher factory that warms up the new searchers before they are used by the searches
+     */
+    private static class WarmingSearcherFactory extends SearcherFactory
+    {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public IndexSearcher newSearcher( IndexReader reader, IndexReader previousReader ) throws IOException
+        {
+            IndexSearcher searcher = new IndexSearcher( reader );
+
+            for ( Query query : getWarmUpQueries( ) )
+            {
+                // a failed warm-up must not prevent the new searcher from being used
+                try
+                {
+                    searcher.search( query, WARMUP_MAX_RESPONSES );
+                }
+                catch( IOException | RuntimeException e )
+                {
+                    AppLogService.error( "Error warming up the index searcher with query {} : {}", query, e.getMessage( ), e );
+                }
+            }
+
+            return searcher;
+        }
+
+        /**
+         * Gets the warm-up queries defined in the properties. A query matching all documents is used if no query is defined.
+         *
+         * @return The list of queries
+         */
+        private List<Query> getWarmUpQueries( )
+        {
+            List<Query> listQueries = new ArrayList<>( );
+            String strQueries = AppPropertiesService.getProperty( PROPERTY_WARMUP_QUERIES );
+
+            if ( StringUtils.isNotBlank( strQueries ) )
+            {
+                QueryParser parser = new QueryParser( SearchItem.FIELD_CONTENTS, _analyzer );
+
+                for ( String strQuery : strQueries.split( WARMUP_QUERIES_SEPARATOR ) )
+                {
+                    try
+                    {
+                        if ( StringUtils.isNotBlank( strQuery ) )
+                        {
+                            listQueries.add( parser.parse( strQuery.trim( ) ) );
+                        }
+                    }
+                    catch( Exception e )
+                    {
+                        AppLogService.error( "Invalid warm-up query {} : {}", strQuery, e.getMessage( ), e );
+                    }
+                }
+            }
+
+            if ( listQueries.isEmpty( ) )
+            {
+                listQueries.add( new MatchAllDocsQuery( ) );
+            }
+
+            return listQueries;
+        }
+    }
 }
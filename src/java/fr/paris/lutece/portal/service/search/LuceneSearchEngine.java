@@ -33,12 +33,15 @@
  */
 package fr.paris.lutece.portal.service.search;
 
+import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -48,9 +51,10 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.apache.lucene.document.DateTools;
 import org.apache.lucene.document.DateTools.Resolution;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiTerms;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.queryparser.classic.QueryParserBase;
 import org.apache.lucene.search.BooleanClause;
@@ -61,7 +65,7 @@ import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TermRangeQuery;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.util.BytesRef;
 
 import fr.paris.lutece.portal.business.page.Page;
@@ -82,6 +86,8 @@ public class LuceneSearchEngine implements SearchEngine
     private static final String PARAMETER_TAG_FILTER = "tag_filter";
     private static final String PARAMETER_DEFAULT_OPERATOR = "default_operator";
     private static final String PARAMETER_OPERATOR_AND = "AND";
+    private static final Set<String> RESULT_FIELDS = new HashSet<>( Arrays.asList( SearchItem.FIELD_UID, SearchItem.FIELD_DATE, SearchItem.FIELD_URL,
+            SearchItem.FIELD_TITLE, SearchItem.FIELD_SUMMARY, SearchItem.FIELD_TYPE ) );
 
     /**
      * Return search results
@@ -92,59 +98,99 @@ public class LuceneSearchEngine implements SearchEngine
      *            The HTTP request
      * @return Results as a collection of SearchResult
      */
+    @Override
     public List<SearchResult> getSearchResults( String strQuery, HttpServletRequest request )
     {
-        List<Query> listFilter = new ArrayList<>( );
-        boolean bFilterResult = false;
+        return search( strQuery, request, 0, MAX_RESPONSES ).getResults( );
+    }
 
-        if ( SecurityService.isAuthenticationEnable( ) )
-        {
-            LuteceUser user = SecurityService.getInstance( ).getRegisteredUser( request );
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PaginatedSearchResults getSearchResults( String strQuery, HttpServletRequest request, int nOffset, int nLimit )
+    {
+        return search( strQuery, request, nOffset, nLimit );
+    }
 
-            Query [ ] filtersRole = null;
+    /**
+     * Creates the filter on the roles of the documents the current user can access
+     *
+     * @param searcher
+     *            The searcher
+     * @param request
+     *            The HTTP request
+     * @return The filter, or null if the documents are not filtered
+     * @throws IOException
+     *             if an error occurs while reading the index
+     */
+    private Query createFilterRole( IndexSearcher searcher, HttpServletRequest request ) throws IOException
+    {
+        if ( !SecurityService.isAuthenticationEnable( ) )
+        {
+            return null;
+        }
 
-            if ( user != null )
-            {
-                String [ ] userRoles = SecurityService.getInstance( ).getRolesByUser( user );
+        List<String> listRoles = new ArrayList<>( );
+        LuteceUser user = SecurityService.getInstance( ).getRegisteredUser( request );
 
-                if ( userRoles != null )
-                {
-                    filtersRole = new Query [ userRoles.length + 1];
+        if ( user != null )
+        {
+            String [ ] userRoles = SecurityService.getInstance( ).getRolesByUser( user );
 
-                    for ( int i = 0; i < userRoles.length; i++ )
-                    {
-                        Query queryRole = new TermQuery( new Term( SearchItem.FIELD_ROLE, userRoles [i] ) );
-                        filtersRole [i] = queryRole;
-                    }
-                }
-                else
-                {
-                    bFilterResult = true;
-                }
+            if ( userRoles != null )
+            {
+                listRoles.addAll( Arrays.asList( userRoles ) );
             }
             else
             {
-                filtersRole = new Query [ 1];
+                // The authentication can't list the roles of the user : check each role of the index once
+                listRoles.addAll( getIndexedRoles( searcher, request ) );
             }
+        }
 
-            if ( !bFilterResult )
+        listRoles.add( Page.ROLE_NONE );
+
+        BooleanQuery.Builder booleanQueryBuilderRole = new BooleanQuery.Builder( );
+        listRoles.stream( ).distinct( )
+                .forEach( strRole -> booleanQueryBuilderRole.add( new TermQuery( new Term( SearchItem.FIELD_ROLE, strRole ) ), BooleanClause.Occur.SHOULD ) );
+
+        return booleanQueryBuilderRole.build( );
+    }
+
+    /**
+     * Returns the roles of the indexed documents that the current user has
+     *
+     * @param searcher
+     *            The searcher
+     * @param request
+     *            The HTTP request
+     * @return The list of roles
+     * @throws IOException
+     *             if an error occurs while reading the index
+     */
+    private List<String> getIndexedRoles( IndexSearcher searcher, HttpServletRequest request ) throws IOException
+    {
+        List<String> listRoles = new ArrayList<>( );
+        Terms terms = MultiTerms.getTerms( searcher.getIndexReader( ), SearchItem.FIELD_ROLE );
+
+        if ( terms != null )
+        {
+            TermsEnum termsEnum = terms.iterator( );
+            BytesRef term;
+
+            while ( ( term = termsEnum.next( ) ) != null )
             {
-                Query queryRole = new TermQuery( new Term( SearchItem.FIELD_ROLE, Page.ROLE_NONE ) );
-                filtersRole [filtersRole.length - 1] = queryRole;
-                BooleanQuery.Builder booleanQueryBuilderRole = new BooleanQuery.Builder( );
-                Arrays.asList( filtersRole ).stream( ).forEach( filterRole -> booleanQueryBuilderRole.add( filterRole, BooleanClause.Occur.SHOULD ) );
+                String strRole = term.utf8ToString( );
 
-                listFilter.add( booleanQueryBuilderRole.build( ) );
+                if ( !Page.ROLE_NONE.equals( strRole ) && SecurityService.getInstance( ).isUserInRole( request, strRole ) )
+                {
+                    listRoles.add( strRole );
+                }
             }
         }
 
-        String [ ] typeFilter = request.getParameterValues( PARAMETER_TYPE_FILTER );
-        String strDateAfter = request.getParameter( PARAMETER_DATE_AFTER );
-        String strDateBefore = request.getParameter( PARAMETER_DATE_BEFORE );
-        Query allFilter = buildFinalFilter( listFilter, strDateAfter, strDateBefore, typeFilter, request.getLocale( ) );
-
-        String strTagFilter = request.getParameter( PARAMETER_TAG_FILTER );
-        return search( strTagFilter, strQuery, allFilter, request, bFilterResult );
+        return listRoles;
     }
 
     private Query buildFinalFilter( List<Query> listFilter, String strDateAfter, String strDateBefore, String [ ] typeFilter, Locale locale )
@@ -218,76 +264,159 @@ public class LuceneSearchEngine implements SearchEngine
         return null;
     }
 
-    private List<SearchResult> search( String strTagFilter, String strQuery, Query allFilter, HttpServletRequest request, boolean bFilterResult )
+    /**
+     * Search a page of results
+     *
+     * @param strQuery
+     *            The search query
+     * @param request
+     *            The HTTP request
+     * @param nOffset
+     *            The index of the first result to return
+     * @param nLimit
+     *            The maximum number of results to return
+     * @return The page of results
+     */
+    private PaginatedSearchResults search( String strQuery, HttpServletRequest request, int nOffset, int nLimit )
     {
         List<SearchItem> listResults = new ArrayList<>( );
-        try ( Directory directory = IndexationService.getDirectoryIndex( ) ; IndexReader ir = DirectoryReader.open( directory ) ; )
+        int nTotalCount = 0;
+        IndexSearcher searcher = null;
+
+        try
         {
-            IndexSearcher searcher = new IndexSearcher( ir );
+            searcher = IndexationService.acquireSearcher( );
+
+            if ( searcher == null )
+            {
+                // the index has not been created yet
+                return new PaginatedSearchResults( convertList( listResults ), nTotalCount );
+            }
 
-            BooleanQuery.Builder bQueryBuilder = new BooleanQuery.Builder( );
+            List<Query> listFilter = new ArrayList<>( );
+            Query filterRole = createFilterRole( searcher, request );
 
-            if ( StringUtils.isNotBlank( strTagFilter ) )
+            if ( filterRole != null )
             {
-                QueryParser parser = new QueryParser( SearchItem.FIELD_METADATA, IndexationService.getAnalyser( ) );
+                listFilter.add( filterRole );
+            }
 
-                String formatQuery = ( strQuery != null ) ? strQuery : "";
+            String [ ] typeFilter = request.getParameterValues( PARAMETER_TYPE_FILTER );
+            String strDateAfter = request.getParameter( PARAMETER_DATE_AFTER );
+            String strDateBefore = request.getParameter( PARAMETER_DATE_BEFORE );
+            Query allFilter = buildFinalFilter( listFilter, strDateAfter, strDateBefore, typeFilter, request.getLocale( ) );
 
-                Query queryMetaData = parser.parse( formatQuery );
-                bQueryBuilder.add( queryMetaData, BooleanClause.Occur.SHOULD );
+            String strTagFilter = request.getParameter( PARAMETER_TAG_FILTER );
+            Query query = buildQuery( strTagFilter, strQuery, allFilter, request );
 
-                parser = new QueryParser( SearchItem.FIELD_SUMMARY, IndexationService.getAnalyser( ) );
+            // Only the hits up to the requested page are collected, but all the hits are counted
+            int nStart = Math.max( nOffset, 0 );
+            long lEnd = (long) nStart + Math.max( nLimit, 0 );
+            int nNumHits = (int) Math.max( 1, Math.min( lEnd, Math.max( searcher.getIndexReader( ).maxDoc( ), 1 ) ) );
+            TopScoreDocCollector collector = TopScoreDocCollector.create( nNumHits, Integer.MAX_VALUE );
+            searcher.search( query, collector );
 
-                Query querySummary = parser.parse( formatQuery );
-                bQueryBuilder.add( querySummary, BooleanClause.Occur.SHOULD );
-            }
-            else
+            TopDocs topDocs = collector.topDocs( );
+            ScoreDoc [ ] hits = topDocs.scoreDocs;
+            nTotalCount = (int) Math.min( topDocs.totalHits.value, Integer.MAX_VALUE );
+
+            for ( int i = nStart; ( i < hits.length ) && ( i < lEnd ); i++ )
             {
-                QueryParser parser = new QueryParser( SearchItem.FIELD_CONTENTS, IndexationService.getAnalyser( ) );
+                // only the stored fields used by the results are read
+                Document document = searcher.doc( hits [i].doc, RESULT_FIELDS );
+                listResults.add( new SearchItem( document ) );
+            }
+        }
+        catch( Exception e )
+        {
+            AppLogService.error( e.getMessage( ), e );
+        }
+        finally
+        {
+            releaseSearcher( searcher );
+        }
 
-                String operator = request.getParameter( PARAMETER_DEFAULT_OPERATOR );
+        return new PaginatedSearchResults( convertList( listResults ), nTotalCount );
+    }
 
-                if ( PARAMETER_OPERATOR_AND.equals( operator ) )
-                {
-                    parser.setDefaultOperator( QueryParserBase.AND_OPERATOR );
-                }
+    /**
+     * Builds the query
+     *
+     * @param strTagFilter
+     *            The tag filter
+     * @param strQuery
+     *            The search query
+     * @param allFilter
+     *            The filter of the results
+     * @param request
+     *            The HTTP request
+     * @return The query
+     * @throws org.apache.lucene.queryparser.classic.ParseException
+     *             if the query can't be parsed
+     */
+    private Query buildQuery( String strTagFilter, String strQuery, Query allFilter, HttpServletRequest request )
+            throws org.apache.lucene.queryparser.classic.ParseException
+    {
+        BooleanQuery.Builder bQueryBuilder = new BooleanQuery.Builder( );
 
-                Query queryContent = parser.parse( ( StringUtils.isNotBlank( strQuery ) ) ? strQuery : "" );
-                bQueryBuilder.add( queryContent, BooleanClause.Occur.SHOULD );
-            }
+        if ( StringUtils.isNotBlank( strTagFilter ) )
+        {
+            QueryParser parser = new QueryParser( SearchItem.FIELD_METADATA, IndexationService.getAnalyser( ) );
+
+            String formatQuery = ( strQuery != null ) ? strQuery : "";
+
+            Query queryMetaData = parser.parse( formatQuery );
+            bQueryBuilder.add( queryMetaData, BooleanClause.Occur.SHOULD );
+
+            parser = new QueryParser( SearchItem.FIELD_SUMMARY, IndexationService.getAnalyser( ) );
+
+            Query querySummary = parser.parse( formatQuery );
+            bQueryBuilder.add( querySummary, BooleanClause.Occur.SHOULD );
+        }
+        else
+        {
+            QueryParser parser = new QueryParser( SearchItem.FIELD_CONTENTS, IndexationService.getAnalyser( ) );
 
-            Query query = bQueryBuilder.build( );
+            String operator = request.getParameter( PARAMETER_DEFAULT_OPERATOR );
 
-            if ( allFilter != null )
+            if ( PARAMETER_OPERATOR_AND.equals( operator ) )
             {
-                BooleanQuery.Builder bQueryBuilderWithFilter = new BooleanQuery.Builder( );
-                bQueryBuilderWithFilter.add( allFilter, BooleanClause.Occur.FILTER );
-                bQueryBuilderWithFilter.add( query, BooleanClause.Occur.MUST );
-                query = bQueryBuilderWithFilter.build( );
+                parser.setDefaultOperator( QueryParserBase.AND_OPERATOR );
             }
 
-            // Get results documents
-            TopDocs topDocs = searcher.search( query, MAX_RESPONSES );
-            ScoreDoc [ ] hits = topDocs.scoreDocs;
+            Query queryContent = parser.parse( ( StringUtils.isNotBlank( strQuery ) ) ? strQuery : "" );
+            bQueryBuilder.add( queryContent, BooleanClause.Occur.SHOULD );
+        }
 
-            for ( int i = 0; i < hits.length; i++ )
-            {
-                int docId = hits [i].doc;
-                Document document = searcher.doc( docId );
-                SearchItem si = new SearchItem( document );
+        Query query = bQueryBuilder.build( );
 
-                if ( ( !bFilterResult ) || ( si.getRole( ).equals( Page.ROLE_NONE ) )
-                        || ( SecurityService.getInstance( ).isUserInRole( request, si.getRole( ) ) ) )
-                {
-                    listResults.add( si );
-                }
-            }
+        if ( allFilter != null )
+        {
+            BooleanQuery.Builder bQueryBuilderWithFilter = new BooleanQuery.Builder( );
+            bQueryBuilderWithFilter.add( allFilter, BooleanClause.Occur.FILTER );
+            bQueryBuilderWithFilter.add( query, BooleanClause.Occur.MUST );
+            query = bQueryBuilderWithFilter.build( );
         }
-        catch( Exception e )
+
+        return query;
+    }
+
+    /**
+     * Releases the shared searcher
+     *
+     * @param searcher
+     *            The searcher
+     */
+    private void releaseSearcher( IndexSearcher searcher )
+    {
+        try
+        {
+            IndexationService.releaseSearcher( searcher );
+        }
+        catch( IOException e )
         {
             AppLogService.error( e.getMessage( ), e );
         }
-        return convertList( listResults );
     }
 
     /**
@@ -33,10 +33,15 @@
  */
 package fr.paris.lutece.portal.service.search;
 
+import fr.paris.lutece.portal.business.indexeraction.IndexerAction;
 import fr.paris.lutece.portal.business.page.Page;
 import fr.paris.lutece.portal.business.page.PageHome;
 import fr.paris.lutece.portal.service.message.SiteMessageException;
 import fr.paris.lutece.portal.service.page.IPageService;
+import fr.paris.lutece.portal.service.page.PageEvent;
+import fr.paris.lutece.portal.service.page.PageEventListener;
+import fr.paris.lutece.portal.service.page.PageService;
+import fr.paris.lutece.portal.service.page.PageTreeService;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 import fr.paris.lutece.portal.service.util.AppException;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
@@ -66,11 +71,16 @@ import java.io.IOException;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Indexer service for pages
+ * Indexer service for pages. <br>
+ * The changes of the pages are recorded as indexer actions, so that the incremental indexing only reindexes the modified pages. The changes of the portlets
+ * are notified as page content changes by the page service.
  */
-public class PageIndexer implements SearchIndexer
+public class PageIndexer implements SearchIndexer, PageEventListener
 {
     public static final String INDEX_TYPE_PAGE = "Page";
     public static final String INDEXER_NAME = "PageIndexer";
@@ -81,6 +91,49 @@ public class PageIndexer implements SearchIndexer
     private static IPageService _pageService = SpringContextService.getBean( "pageService" );
     private static final String INDEXER_DESCRIPTION = "Indexer service for pages";
     private static final String INDEXER_VERSION = "1.0.0";
+    private static final AtomicBoolean _bPageEventListenerRegistered = new AtomicBoolean( );
+
+    /**
+     * Constructor. The first instance is registered as page event listener : the page events are recorded once, whatever the number of instances.
+     */
+    public PageIndexer( )
+    {
+        if ( _bPageEventListenerRegistered.compareAndSet( false, true ) )
+        {
+            PageService.addPageEventListener( this );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void processPageEvent( PageEvent event )
+    {
+        Page page = event.getPage( );
+
+        if ( ( page == null ) || !isEnable( ) )
+        {
+            return;
+        }
+
+        int nIdTask;
+
+        switch( event.getEventType( ) )
+        {
+            case PageEvent.PAGE_CREATED:
+                nIdTask = IndexerAction.TASK_CREATE;
+                break;
+            case PageEvent.PAGE_DELETED:
+                nIdTask = IndexerAction.TASK_DELETE;
+                break;
+            default:
+                nIdTask = IndexerAction.TASK_MODIFY;
+                break;
+        }
+
+        IndexationService.addIndexerAction( String.valueOf( page.getId( ) ), INDEXER_NAME, nIdTask );
+    }
 
     /**
      * {@inheritDoc}
@@ -89,29 +142,58 @@ public class PageIndexer implements SearchIndexer
     public void indexDocuments( ) throws IOException, InterruptedException, SiteMessageException
     {
         String strPageBaseUrl = AppPropertiesService.getProperty( PROPERTY_PAGE_BASE_URL );
-        List<Page> listPages = PageHome.getAllPages( );
+        // the pages are enumerated from the page tree : the images of all the pages are not loaded at once
+        Set<Integer> setPageIds = PageTreeService.getPageTree( ).getPageIds( );
+        List<Future<?>> listTasks = new ArrayList<>( );
+        IndexationService.setProgressTotal( setPageIds.size( ) );
 
-        for ( Page page : listPages )
+        for ( Integer nPageId : setPageIds )
         {
-            UrlItem url = new UrlItem( strPageBaseUrl );
-            url.addParameter( PARAMETER_PAGE_ID, page.getId( ) );
+            // the pages are loaded and rendered by the workers of the indexing if it is parallel
+            listTasks.add( IndexationService.submitIndexingTask( ( ) -> indexPage( nPageId, strPageBaseUrl ) ) );
+        }
 
-            Document doc = null;
+        IndexationService.waitForIndexingTasks( this, listTasks );
+    }
 
-            try
-            {
-                doc = getDocument( page, url.getUrl( ) );
-            }
-            catch( Exception e )
-            {
-                String strMessage = "Page ID : " + page.getId( );
-                IndexationService.error( this, e, strMessage );
-            }
+    /**
+     * Indexes a page
+     *
+     * @param nPageId
+     *            The page ID
+     * @param strPageBaseUrl
+     *            The base URL of the pages
+     * @throws IOException
+     *             if an error occurs while writing the index
+     */
+    private void indexPage( int nPageId, String strPageBaseUrl ) throws IOException
+    {
+        Page page = PageHome.getPageWithoutImageContent( nPageId );
 
-            if ( doc != null )
-            {
-                IndexationService.write( doc );
-            }
+        if ( page.getId( ) == 0 )
+        {
+            // the page has been removed since the enumeration
+            return;
+        }
+
+        UrlItem url = new UrlItem( strPageBaseUrl );
+        url.addParameter( PARAMETER_PAGE_ID, page.getId( ) );
+
+        Document doc = null;
+
+        try
+        {
+            doc = getDocument( page, url.getUrl( ) );
+        }
+        catch( Exception e )
+        {
+            String strMessage = "Page ID : " + page.getId( );
+            IndexationService.error( this, e, strMessage );
+        }
+
+        if ( doc != null )
+        {
+            IndexationService.write( doc );
         }
     }
 
@@ -124,7 +206,7 @@ public class PageIndexer implements SearchIndexer
         ArrayList<Document> listDocuments = new ArrayList<>( );
         String strPageBaseUrl = AppPropertiesService.getProperty( PROPERTY_PAGE_BASE_URL );
 
-        Page page = PageHome.getPage( Integer.parseInt( nIdDocument ) );
+        Page page = PageHome.getPageWithoutImageContent( Integer.parseInt( nIdDocument ) );
 
         if ( ( page != null ) && ( page.getId( ) != 0 ) )
         {
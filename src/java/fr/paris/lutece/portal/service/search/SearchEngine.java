@@ -33,6 +33,7 @@
  */
 package fr.paris.lutece.portal.service.search;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
@@ -52,4 +53,28 @@ public interface SearchEngine
      * @return Results as a collection of SearchResult
      */
     List<SearchResult> getSearchResults( String strQuery, HttpServletRequest request );
+
+    /**
+     * Return a page of search results. <br>
+     * The default implementation paginates the list returned by {@link #getSearchResults(String, HttpServletRequest)}, search engines should override it to
+     * only fetch the requested results.
+     *
+     * @param strQuery
+     *            The search query
+     * @param request
+     *            The HTTP request
+     * @param nOffset
+     *            The index of the first result to return
+     * @param nLimit
+     *            The maximum number of results to return
+     * @return The page of results and the total number of results
+     */
+    default PaginatedSearchResults getSearchResults( String strQuery, HttpServletRequest request, int nOffset, int nLimit )
+    {
+        List<SearchResult> listResults = getSearchResults( strQuery, request );
+        int nFrom = Math.min( Math.max( nOffset, 0 ), listResults.size( ) );
+        int nTo = (int) Math.min( (long) nFrom + Math.max( nLimit, 0 ), listResults.size( ) );
+
+        return new PaginatedSearchResults( new ArrayList<>( listResults.subList( nFrom, nTo ) ), listResults.size( ) );
+    }
 }
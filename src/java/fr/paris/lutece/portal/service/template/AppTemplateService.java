@@ -33,8 +33,6 @@
  */
 package fr.paris.lutece.portal.service.template;
 
-import fr.paris.lutece.portal.service.datastore.DatastoreService;
-import fr.paris.lutece.portal.service.i18n.I18nService;
 import fr.paris.lutece.portal.service.i18n.I18nTemplateMethod;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.plugin.PluginService;
@@ -232,8 +230,7 @@ public final class AppTemplateService
 
         if ( locale != null )
         {
-            String strLocalized = I18nService.localize( template.getHtml( ), locale );
-            template = new HtmlTemplate( strLocalized );
+            template = new HtmlTemplate( TemplateKeysReplacer.replaceKeys( template.getHtml( ), locale, false ) );
         }
         return template;
     }
@@ -259,8 +256,7 @@ public final class AppTemplateService
 
         if ( locale != null )
         {
-            String strLocalized = I18nService.localize( template.getHtml( ), locale );
-            template = new HtmlTemplate( strLocalized );
+            template = new HtmlTemplate( TemplateKeysReplacer.replaceKeys( template.getHtml( ), locale, false ) );
         }
         return template;
     }
@@ -283,15 +279,8 @@ public final class AppTemplateService
         HtmlTemplate template;
         template = getFreeMarkerTemplateService( ).loadTemplate( strPath, strTemplate, locale, model );
 
-        if ( locale != null )
-        {
-            String strLocalized = I18nService.localize( template.getHtml( ), locale );
-            template = new HtmlTemplate( strLocalized );
-        }
-
-        template = new HtmlTemplate( DatastoreService.replaceKeys( template.getHtml( ) ) );
-
-        return template;
+        // localization and datastore keys are replaced in a single pass
+        return new HtmlTemplate( TemplateKeysReplacer.replaceKeys( template.getHtml( ), locale, true ) );
     }
 
     /**
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.template;
+
+import fr.paris.lutece.portal.service.datastore.DatastoreService;
+import fr.paris.lutece.portal.service.i18n.I18nService;
+
+import java.util.Locale;
+
+/**
+ * Replaces the localization keys (<code>#i18n{key}</code>) and the datastore keys (<code>#dskey{key}</code>) of a rendered template in a single scan of
+ * the text, without regular expressions. <br>
+ * The values are inserted as is. A localized value containing datastore keys has them replaced too.
+ */
+final class TemplateKeysReplacer
+{
+    private static final String PREFIX_I18N = "i18n{";
+    private static final String PREFIX_DATASTORE = "dskey{";
+    private static final char KEY_START = '#';
+    private static final char KEY_END = '}';
+    private static final String DATASTORE_KEY_START = "#" + PREFIX_DATASTORE;
+
+    /**
+     * Private constructor
+     */
+    private TemplateKeysReplacer( )
+    {
+    }
+
+    /**
+     * Replaces the keys of a text
+     *
+     * @param strSource
+     *            The text
+     * @param locale
+     *            The locale of the localization keys, null to leave them unchanged
+     * @param bDatastoreKeys
+     *            true to replace the datastore keys
+     * @return The text with the values of the keys
+     */
+    static String replaceKeys( String strSource, Locale locale, boolean bDatastoreKeys )
+    {
+        if ( strSource == null )
+        {
+            return null;
+        }
+
+        int nStart = strSource.indexOf( KEY_START );
+
+        if ( nStart < 0 )
+        {
+            return strSource;
+        }
+
+        StringBuilder sbResult = null;
+        int nLast = 0;
+
+        while ( nStart >= 0 )
+        {
+            int nKeyStart = -1;
+            boolean bI18n = false;
+
+            if ( ( locale != null ) && strSource.startsWith( PREFIX_I18N, nStart + 1 ) )
+            {
+                nKeyStart = nStart + 1 + PREFIX_I18N.length( );
+                bI18n = true;
+            }
+            else
+                if ( bDatastoreKeys && strSource.startsWith( PREFIX_DATASTORE, nStart + 1 ) )
+                {
+                    nKeyStart = nStart + 1 + PREFIX_DATASTORE.length( );
+                }
+
+            int nKeyEnd = ( nKeyStart >= 0 ) ? strSource.indexOf( KEY_END, nKeyStart ) : -1;
+
+            if ( ( nKeyEnd < 0 ) || isMultiLine( strSource, nKeyStart, nKeyEnd ) )
+            {
+                nStart = strSource.indexOf( KEY_START, nStart + 1 );
+                continue;
+            }
+
+            if ( sbResult == null )
+            {
+                sbResult = new StringBuilder( strSource.length( ) + 256 );
+            }
+
+            String strKey = strSource.substring( nKeyStart, nKeyEnd );
+            sbResult.append( strSource, nLast, nStart );
+
+            if ( bI18n )
+            {
+                String strValue = I18nService.getLocalizedString( strKey, locale );
+
+                if ( bDatastoreKeys && strValue.contains( DATASTORE_KEY_START ) )
+                {
+                    strValue = replaceKeys( strValue, null, true );
+                }
+
+                sbResult.append( strValue );
+            }
+            else
+            {
+                sbResult.append( DatastoreService.getDataValueForTemplate( strKey ) );
+            }
+
+            nLast = nKeyEnd + 1;
+            nStart = strSource.indexOf( KEY_START, nLast );
+        }
+
+        if ( sbResult == null )
+        {
+            return strSource;
+        }
+
+        sbResult.append( strSource, nLast, strSource.length( ) );
+
+        return sbResult.toString( );
+    }
+
+    /**
+     * Checks if a key spans several lines. Such keys are not replaced.
+     *
+     * @param strSource
+     *            The text
+     * @param nStart
+     *            The start of the key
+     * @param nEnd
+     *            The end of the key
+     * @return true if the key contains a line terminator
+     */
+    private static boolean isMultiLine( String strSource, int nStart, int nEnd )
+    {
+        for ( int i = nStart; i < nEnd; i++ )
+        {
+            char c = strSource.charAt( i );
+
+            if ( ( c == '\n' ) || ( c == '\r' ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -41,6 +41,7 @@ import fr.paris.lutece.portal.business.right.RightHome;
 import fr.paris.lutece.portal.business.user.AdminUser;
 import fr.paris.lutece.portal.service.dashboard.DashboardComponent;
 import fr.paris.lutece.portal.service.page.PageService;
+import fr.paris.lutece.portal.service.page.PageTreeService;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 import fr.paris.lutece.portal.service.template.AppTemplateService;
 import fr.paris.lutece.util.html.HtmlTemplate;
@@ -90,7 +91,7 @@ public class SiteDashboardComponent extends DashboardComponent
         Page page = PageHome.getLastModifiedPage( );
         model.put( MARK_LAST_MODIFIED_PAGE, page );
         model.put( MARK_LAST_MODIFIED_PORTLET, PortletHome.getLastModifiedPortlet( ) );
-        model.put( MARK_PAGES_COUNT, PageHome.getAllPages( ).size( ) );
+        model.put( MARK_PAGES_COUNT, PageTreeService.getPageTree( ).size( ) );
 
         if ( page != null )
         {
@@ -35,6 +35,7 @@ package fr.paris.lutece.portal.web.download;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -113,7 +114,7 @@ public abstract class AbstractDownloadServlet extends HttpServlet
             {
                 response.setContentType( file.getMimeType( ) );
                 response.setHeader( "Content-Disposition", "attachment; filename=\"" + file.getTitle( ) + "\";" );
-                outputStream.write( file.getPhysicalFile( ).getValue( ) );
+                fileStoreServiceProvider.transferTo( file, Channels.newChannel( outputStream ) );
             }
         }
     }
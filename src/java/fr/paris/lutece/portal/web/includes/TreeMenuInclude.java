@@ -35,13 +35,14 @@ package fr.paris.lutece.portal.web.includes;
 
 import fr.paris.lutece.portal.business.XmlContent;
 import fr.paris.lutece.portal.business.page.Page;
-import fr.paris.lutece.portal.business.page.PageHome;
 import fr.paris.lutece.portal.business.portalcomponent.PortalComponentHome;
 import fr.paris.lutece.portal.business.style.ModeHome;
 import fr.paris.lutece.portal.business.stylesheet.StyleSheet;
 import fr.paris.lutece.portal.service.content.PageData;
 import fr.paris.lutece.portal.service.html.XmlTransformerService;
 import fr.paris.lutece.portal.service.includes.PageInclude;
+import fr.paris.lutece.portal.service.page.PageTree;
+import fr.paris.lutece.portal.service.page.PageTreeService;
 import fr.paris.lutece.portal.service.portal.PortalMenuService;
 import fr.paris.lutece.portal.service.portal.PortalService;
 import fr.paris.lutece.portal.service.util.AppLogService;
@@ -52,6 +53,7 @@ import fr.paris.lutece.util.xml.XmlUtil;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -121,16 +123,17 @@ public class TreeMenuInclude implements PageInclude
         String strCurrentPageId = Integer.toString( nIdPage );
 
         String strTreeOnRoot = AppPropertiesService.getProperty( PROPERTY_ROOT_TREE );
+        PageTree tree = PageTreeService.getPageTree( );
         Collection<Page> listPagesMenu;
 
         // If the current page is the home page or the string strTreeOnRoot equals false, not display the treeMenu
         if ( strTreeOnRoot.equalsIgnoreCase( "true" ) )
         {
-            listPagesMenu = PageHome.getChildPagesMinimalData( getPageTree( nIdPage ) );
+            listPagesMenu = tree.getChildPages( getPageTree( tree, nIdPage ) );
         }
         else
         {
-            listPagesMenu = PageHome.getChildPagesMinimalData( nIdPage );
+            listPagesMenu = tree.getChildPages( nIdPage );
         }
 
         strXml.append( XmlUtil.getXmlHeader( ) );
@@ -152,7 +155,7 @@ public class TreeMenuInclude implements PageInclude
                 // Seek of the sub-menus
                 XmlUtil.beginElement( strXml, XmlContent.TAG_SUBLEVEL_MENU_LIST );
 
-                Collection<Page> listSubLevelMenuPages = PageHome.getChildPagesMinimalData( menuPage.getId( ) );
+                Collection<Page> listSubLevelMenuPages = tree.getChildPages( menuPage.getId( ) );
                 int nSubLevelMenuIndex = 1;
 
                 for ( Page subLevelMenuPage : listSubLevelMenuPages )
@@ -209,30 +212,16 @@ public class TreeMenuInclude implements PageInclude
 
     /**
      *
+     * @param tree
+     *            The page tree
      * @param nPageId
      *            The page identifier
-     * @return The parent page identifier
+     * @return The identifier of the top level page above the page
      */
-    private int getPageTree( int nPageId )
+    private int getPageTree( PageTree tree, int nPageId )
     {
-        Page page = PageHome.getPage( nPageId );
-        int nParentPageId = page.getParentPageId( );
+        List<Page> listPath = tree.getPagePath( nPageId );
 
-        if ( nParentPageId == 0 )
-        {
-            return nPageId;
-        }
-
-        int nParentTree = nParentPageId;
-
-        while ( nParentPageId != 0 )
-        {
-            nParentTree = nParentPageId;
-
-            Page parentPage = PageHome.getPageWithoutImageContent( nParentPageId );
-            nParentPageId = parentPage.getParentPageId( );
-        }
-
-        return nParentTree;
+        return listPath.isEmpty( ) ? nPageId : listPath.get( 0 ).getId( );
     }
 }
@@ -41,6 +41,7 @@ import fr.paris.lutece.portal.service.message.SiteMessageException;
 import fr.paris.lutece.portal.service.message.SiteMessageService;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.search.ISponsoredLinksSearchService;
+import fr.paris.lutece.portal.service.search.PaginatedSearchResults;
 import fr.paris.lutece.portal.service.search.QueryEvent;
 import fr.paris.lutece.portal.service.search.QueryListenersService;
 import fr.paris.lutece.portal.service.search.SearchEngine;
@@ -53,7 +54,7 @@ import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.portal.web.xpages.XPage;
 import fr.paris.lutece.portal.web.xpages.XPageApplication;
 import fr.paris.lutece.util.html.HtmlTemplate;
-import fr.paris.lutece.util.html.Paginator;
+import fr.paris.lutece.util.html.DelegatePaginator;
 import fr.paris.lutece.util.http.SecurityUtil;
 import fr.paris.lutece.util.url.UrlItem;
 
@@ -62,7 +63,6 @@ import org.apache.commons.lang3.StringUtils;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
@@ -181,12 +181,22 @@ public class SearchApp implements XPageApplication
 
         String strCurrentPageIndex = Optional.ofNullable( request.getParameter( PARAMETER_PAGE_INDEX ) ).orElse( DEFAULT_PAGE_INDEX );
 
-        List<SearchResult> listResults = _engine.getSearchResults( strQuery, request );
+        // Only the results of the current page are fetched
+        int nLimit = ( nNbItemsPerPage <= 0 ) ? 1 : nNbItemsPerPage;
+        int nOffset = (int) Math.min( ( getPageIndex( strCurrentPageIndex ) - 1L ) * nLimit, Integer.MAX_VALUE );
+        PaginatedSearchResults results = _engine.getSearchResults( strQuery, request, nOffset, nLimit );
+
+        if ( ( nOffset > 0 ) && ( nOffset >= results.getTotalCount( ) ) )
+        {
+            // The paginator displays the first page if the page index is out of range
+            strCurrentPageIndex = DEFAULT_PAGE_INDEX;
+            results = _engine.getSearchResults( strQuery, request, 0, nLimit );
+        }
 
         // The page should not be added to the cache
 
         // Notify results infos to QueryEventListeners
-        notifyQueryListeners( strQuery, listResults.size( ), request );
+        notifyQueryListeners( strQuery, results.getTotalCount( ), request );
 
         UrlItem url = new UrlItem( strSearchPageUrl );
         String strQueryForPaginator = strQuery;
@@ -215,7 +225,8 @@ public class SearchApp implements XPageApplication
             model.put( PARAMETER_DEFAULT_OPERATOR, request.getParameter( PARAMETER_DEFAULT_OPERATOR ) );
         }
 
-        Paginator<SearchResult> paginator = new Paginator<>( listResults, nNbItemsPerPage, sbUrl.toString( ), PARAMETER_PAGE_INDEX, strCurrentPageIndex );
+        DelegatePaginator<SearchResult> paginator = new DelegatePaginator<>( results.getResults( ), nNbItemsPerPage, sbUrl.toString( ), PARAMETER_PAGE_INDEX,
+                strCurrentPageIndex, results.getTotalCount( ) );
 
         model.put( MARK_RESULTS_LIST, paginator.getPageItems( ) );
         model.put( MARK_QUERY, strQuery );
@@ -241,6 +252,25 @@ public class SearchApp implements XPageApplication
         return page;
     }
 
+    /**
+     * Parses the page index
+     *
+     * @param strPageIndex
+     *            The page index
+     * @return The page index, 1 if the index is not valid
+     */
+    private static int getPageIndex( String strPageIndex )
+    {
+        try
+        {
+            return Math.max( Integer.parseInt( strPageIndex ), 1 );
+        }
+        catch( NumberFormatException e )
+        {
+            return 1;
+        }
+    }
+
     /**
      * Encode an url string
      * 
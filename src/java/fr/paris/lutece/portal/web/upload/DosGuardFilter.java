@@ -37,9 +37,16 @@ import fr.paris.lutece.portal.service.util.AppLogService;
 
 import java.io.IOException;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -47,30 +54,52 @@ import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
 
-import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
 
 /**
- * A rewrite of the multipart filter from the com.oreilly.servlet package. The rewrite allows us to use initialization parameters specified in the Lutece
- * configuration files.
+ * Rate limiting filter. Each client IP gets a token bucket per limit : a bucket holds at most <code>maxRequests</code> tokens and is refilled at the rate of
+ * <code>maxRequests</code> tokens per <code>period</code>. A request consumes one token and is rejected when the bucket is empty.
+ * <p>
+ * Buckets are lock-free and expired by a background thread, so concurrent requests never serialize on a shared monitor.
+ * </p>
+ * <p>
+ * Init parameters :
+ * </p>
+ * <ul>
+ * <li><code>minContentLength</code> and <code>minInterval</code> : compatibility profile applied to every URL. Requests of at least
+ * <code>minContentLength</code> bytes are allowed once every <code>minInterval</code> ms per client.</li>
+ * <li><code>limits</code> : optional per URL prefix limits, separated by commas or new lines, with the format
+ * <code>prefix=maxRequests/periodInMs[/minContentLength]</code>. The longest matching prefix wins over the compatibility profile.</li>
+ * <li><code>cleanInterval</code> : interval in seconds between two purges of the expired buckets (default 60).</li>
+ * </ul>
+ * <p>
+ * The filter is exposed as a servlet context attribute named after its class so its counters can be read.
+ * </p>
  */
 public class DosGuardFilter implements Filter
 {
-    // Initial capacity of the HashMap
-    private static final int INITIAL_CAPACITY = 100;
-
-    // The size under which requests are allowed systematically
-    private int _nMinContentLength;
-
-    // The minimum interval allowed between two requests from the same client
-    private int _nMinInterval;
-
-    // The HashMap used to store IP/time entries
-    private Map<String, Long> _mapLastRequestTimes;
-
-    // The LinkedList used to store entries in their order of arrival (to speed
-    // up cleaning the HashMap)
-    private LinkedList<Entry> _listOrderedRequests;
+    /** The servlet context attribute holding the filter instance */
+    public static final String ATTRIBUTE_DOS_GUARD_FILTER = DosGuardFilter.class.getName( );
+
+    private static final String PARAMETER_MIN_CONTENT_LENGTH = "minContentLength";
+    private static final String PARAMETER_MIN_INTERVAL = "minInterval";
+    private static final String PARAMETER_LIMITS = "limits";
+    private static final String PARAMETER_CLEAN_INTERVAL = "cleanInterval";
+    private static final String THREAD_NAME = "Lutece-DosGuard-Cleaner";
+    private static final String LIMITS_SEPARATORS = ",\n\r";
+    private static final String LIMIT_PREFIX_SEPARATOR = "=";
+    private static final String LIMIT_VALUES_SEPARATOR = "/";
+    private static final String COMPATIBILITY_PREFIX = "";
+    private static final long DEFAULT_CLEAN_INTERVAL = 60;
+
+    // The limits sorted by decreasing prefix length, the compatibility profile being the last one
+    private final List<RateLimit> _listLimits = new ArrayList<>( );
+
+    // The buckets of each limit per client IP
+    private final ConcurrentMap<BucketKey, TokenBucket> _mapBuckets = new ConcurrentHashMap<>( );
+    private ScheduledExecutorService _cleanExecutor;
 
     /**
      * {@inheritDoc}
@@ -78,23 +107,47 @@ public class DosGuardFilter implements Filter
     @Override
     public void init( FilterConfig config ) throws ServletException
     {
-        _mapLastRequestTimes = new HashMap<>( INITIAL_CAPACITY );
-        _listOrderedRequests = new LinkedList<>( );
+        long lCleanInterval = DEFAULT_CLEAN_INTERVAL;
 
         try
         {
-            String paramValue = config.getInitParameter( "minContentLength" );
+            int nMinContentLength = 0;
+            int nMinInterval = 0;
+            String paramValue = config.getInitParameter( PARAMETER_MIN_CONTENT_LENGTH );
+
+            if ( paramValue != null )
+            {
+                nMinContentLength = Integer.parseInt( paramValue.trim( ) );
+            }
+
+            paramValue = config.getInitParameter( PARAMETER_MIN_INTERVAL );
 
             if ( paramValue != null )
             {
-                _nMinContentLength = Integer.parseInt( paramValue );
+                nMinInterval = Integer.parseInt( paramValue.trim( ) );
             }
 
-            paramValue = config.getInitParameter( "minInterval" );
+            paramValue = config.getInitParameter( PARAMETER_CLEAN_INTERVAL );
 
             if ( paramValue != null )
             {
-                _nMinInterval = Integer.parseInt( paramValue );
+                lCleanInterval = Long.parseLong( paramValue.trim( ) );
+            }
+
+            for ( String strLimit : StringUtils.split( StringUtils.defaultString( config.getInitParameter( PARAMETER_LIMITS ) ), LIMITS_SEPARATORS ) )
+            {
+                if ( StringUtils.isNotBlank( strLimit ) )
+                {
+                    _listLimits.add( parseLimit( strLimit.trim( ) ) );
+                }
+            }
+
+            _listLimits.sort( Comparator.comparingInt( ( RateLimit limit ) -> limit.getPrefix( ).length( ) ).reversed( ) );
+
+            // Compatibility profile : one request every minInterval ms
+            if ( nMinInterval > 0 )
+            {
+                _listLimits.add( new RateLimit( COMPATIBILITY_PREFIX, 1, nMinInterval, nMinContentLength ) );
             }
         }
         catch( NumberFormatException ex )
@@ -103,6 +156,57 @@ public class DosGuardFilter implements Filter
             servletEx.initCause( ex );
             throw servletEx;
         }
+
+        if ( lCleanInterval > 0 )
+        {
+            _cleanExecutor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+                Thread thread = new Thread( runnable, THREAD_NAME );
+                thread.setDaemon( true );
+
+                return thread;
+            } );
+            _cleanExecutor.scheduleWithFixedDelay( this::cleanExpiredBuckets, lCleanInterval, lCleanInterval, TimeUnit.SECONDS );
+        }
+
+        if ( config.getServletContext( ) != null )
+        {
+            config.getServletContext( ).setAttribute( ATTRIBUTE_DOS_GUARD_FILTER, this );
+        }
+    }
+
+    /**
+     * Parses a limit definition
+     *
+     * @param strLimit
+     *            The limit definition : prefix=maxRequests/periodInMs[/minContentLength]
+     * @return The limit
+     */
+    private static RateLimit parseLimit( String strLimit )
+    {
+        int nIndex = strLimit.lastIndexOf( LIMIT_PREFIX_SEPARATOR );
+
+        if ( nIndex < 0 )
+        {
+            throw new NumberFormatException( "DOS Guard : invalid limit '" + strLimit + "'" );
+        }
+
+        String [ ] values = StringUtils.split( strLimit.substring( nIndex + 1 ), LIMIT_VALUES_SEPARATOR );
+
+        if ( values.length < 2 || values.length > 3 )
+        {
+            throw new NumberFormatException( "DOS Guard : invalid limit '" + strLimit + "'" );
+        }
+
+        int nMaxRequests = Integer.parseInt( values [0].trim( ) );
+        long lPeriod = Long.parseLong( values [1].trim( ) );
+        int nMinContentLength = ( values.length == 3 ) ? Integer.parseInt( values [2].trim( ) ) : 0;
+
+        if ( nMaxRequests <= 0 || lPeriod <= 0 )
+        {
+            throw new NumberFormatException( "DOS Guard : invalid limit '" + strLimit + "'" );
+        }
+
+        return new RateLimit( strLimit.substring( 0, nIndex ).trim( ), nMaxRequests, lPeriod, nMinContentLength );
     }
 
     /**
@@ -111,7 +215,12 @@ public class DosGuardFilter implements Filter
     @Override
     public void destroy( )
     {
-        // Do nothing
+        if ( _cleanExecutor != null )
+        {
+            _cleanExecutor.shutdownNow( );
+        }
+
+        _mapBuckets.clear( );
     }
 
     /**
@@ -120,8 +229,16 @@ public class DosGuardFilter implements Filter
     @Override
     public void doFilter( ServletRequest request, ServletResponse response, FilterChain chain ) throws IOException, ServletException
     {
+        String strPath = COMPATIBILITY_PREFIX;
+
+        if ( request instanceof HttpServletRequest )
+        {
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            strPath = httpRequest.getRequestURI( ).substring( httpRequest.getContextPath( ).length( ) );
+        }
+
         // DOS check
-        if ( this.isAllowed( request.getRemoteAddr( ), request.getContentLength( ) ) )
+        if ( isAllowed( request.getRemoteAddr( ), request.getContentLength( ), strPath ) )
         {
             chain.doFilter( request, response );
         }
@@ -132,7 +249,7 @@ public class DosGuardFilter implements Filter
     }
 
     /**
-     * Checks if a client is allowed to make a request at the present time.
+     * Checks if a client is allowed to make a request at the present time, using the compatibility profile.
      *
      * @param strRemoteAddr
      *            the IP address of the client
@@ -140,145 +257,281 @@ public class DosGuardFilter implements Filter
      *            the size of the request
      * @return true if allowed, false otherwize
      */
-    public synchronized boolean isAllowed( String strRemoteAddr, int iContentLength )
+    public boolean isAllowed( String strRemoteAddr, int iContentLength )
     {
-        AppLogService.debug( "DosGuard : isAllowed({}, {})", strRemoteAddr, iContentLength );
+        return isAllowed( strRemoteAddr, iContentLength, COMPATIBILITY_PREFIX );
+    }
+
+    /**
+     * Checks if a client is allowed to make a request on a given path at the present time.
+     *
+     * @param strRemoteAddr
+     *            the IP address of the client
+     * @param iContentLength
+     *            the size of the request
+     * @param strPath
+     *            the path of the request, relative to the webapp context
+     * @return true if allowed, false otherwize
+     */
+    public boolean isAllowed( String strRemoteAddr, int iContentLength, String strPath )
+    {
+        return isAllowed( strRemoteAddr, iContentLength, strPath, TimeUnit.NANOSECONDS.toMillis( System.nanoTime( ) ) );
+    }
+
+    /**
+     * Checks if a client is allowed to make a request on a given path at a given time.
+     *
+     * @param strRemoteAddr
+     *            the IP address of the client
+     * @param iContentLength
+     *            the size of the request
+     * @param strPath
+     *            the path of the request, relative to the webapp context
+     * @param lNow
+     *            the current time in ms, from a monotonic clock
+     * @return true if allowed, false otherwize
+     */
+    boolean isAllowed( String strRemoteAddr, int iContentLength, String strPath, long lNow )
+    {
+        RateLimit limit = findLimit( strPath );
 
         // Ignore the requests under the minimum size
-        if ( iContentLength < _nMinContentLength )
+        if ( limit == null || iContentLength < limit.getMinContentLength( ) )
         {
-            AppLogService.debug( "ContentLength is below minimum, ignored" );
-
             return true;
         }
 
-        // Record the time of this request
-        long lRequestTime = System.currentTimeMillis( );
-        AppLogService.debug( "Request time : {}", lRequestTime );
+        TokenBucket bucket = _mapBuckets.computeIfAbsent( new BucketKey( limit, strRemoteAddr ), key -> new TokenBucket( ) );
+        boolean bAllowed = bucket.tryConsume( limit, lNow );
 
-        // Test if IP was previously recorded
-        Long previousRequestTime = _mapLastRequestTimes.get( strRemoteAddr );
-        AppLogService.debug( "Previous request time : {}", previousRequestTime );
-
-        if ( previousRequestTime != null )
+        if ( bAllowed )
         {
-            AppLogService.debug( "IP is in the map" );
-
-            // Test if IP is allowed to make a new request
-            if ( lRequestTime > ( previousRequestTime.longValue( ) + _nMinInterval ) )
-            {
-                AppLogService.debug( "IP is allowed to make a new request" );
+            limit.getAllowedCounter( ).increment( );
+        }
+        else
+        {
+            limit.getRejectedCounter( ).increment( );
+            AppLogService.debug( "DosGuard : request rejected for IP {} on {} (limit '{}')", strRemoteAddr, strPath, limit.getPrefix( ) );
+        }
 
-                // Clean up
-                this.cleanExpiredEntries( );
+        return bAllowed;
+    }
 
-                // Update the map with the new time
-                _mapLastRequestTimes.put( strRemoteAddr, Long.valueOf( lRequestTime ) );
+    /**
+     * Finds the limit applying to a path
+     *
+     * @param strPath
+     *            the path
+     * @return the limit with the longest matching prefix, or null if none applies
+     */
+    private RateLimit findLimit( String strPath )
+    {
+        for ( RateLimit limit : _listLimits )
+        {
+            if ( strPath.startsWith( limit.getPrefix( ) ) )
+            {
+                return limit;
+            }
+        }
 
-                // Add a new entry in the list
-                _listOrderedRequests.addFirst( new Entry( strRemoteAddr, lRequestTime ) );
+        return null;
+    }
 
-                return true;
-            }
+    /**
+     * Removes the buckets that are full again : they hold no more information than a new one.
+     */
+    void cleanExpiredBuckets( )
+    {
+        long lNow = TimeUnit.NANOSECONDS.toMillis( System.nanoTime( ) );
 
-            AppLogService.debug( "IP is not allowed to make a new request" );
+        // A request racing with the removal may update a detached bucket, which at worst lets one extra request through
+        _mapBuckets.entrySet( ).removeIf( entry -> entry.getValue( ).isFull( lNow ) );
 
-            return false;
-        }
+        AppLogService.debug( "DosGuard : {} active buckets", _mapBuckets.size( ) );
+    }
 
-        AppLogService.debug( "IP is not in the map" );
+    /**
+     * Gets the number of requests allowed by the limits
+     *
+     * @return the allowed requests count
+     */
+    public long getAllowedCount( )
+    {
+        return _listLimits.stream( ).mapToLong( limit -> limit.getAllowedCounter( ).sum( ) ).sum( );
+    }
 
-        // Clean up
-        this.cleanExpiredEntries( );
+    /**
+     * Gets the number of requests rejected by the limits
+     *
+     * @return the rejected requests count
+     */
+    public long getRejectedCount( )
+    {
+        return _listLimits.stream( ).mapToLong( limit -> limit.getRejectedCounter( ).sum( ) ).sum( );
+    }
 
-        // Add the IP and the time to the map
-        _mapLastRequestTimes.put( strRemoteAddr, Long.valueOf( lRequestTime ) );
+    /**
+     * Gets the counters of each limit
+     *
+     * @return the statistics
+     */
+    public String getStatistics( )
+    {
+        StringBuilder sbStats = new StringBuilder( );
+        sbStats.append( "activeBuckets = " ).append( _mapBuckets.size( ) );
 
-        // Add a new entry in the list
-        _listOrderedRequests.addFirst( new Entry( strRemoteAddr, lRequestTime ) );
+        for ( RateLimit limit : _listLimits )
+        {
+            sbStats.append( "\n[" ).append( limit.getPrefix( ) ).append( "] allowed = " ).append( limit.getAllowedCounter( ).sum( ) )
+                    .append( ", rejected = " ).append( limit.getRejectedCounter( ).sum( ) );
+        }
 
-        return true;
+        return sbStats.toString( );
     }
 
     /**
-     * Cleans the internal map from expired entries.
+     * A rate limit applying to the URLs starting with a prefix
      */
-    private void cleanExpiredEntries( )
+    private static final class RateLimit
     {
-        AppLogService.debug( "DosGuard.class : cleanExpiredEntries()" );
+        private final String _strPrefix;
+        private final long _lEmissionInterval;
+        private final long _lTolerance;
+        private final int _nMinContentLength;
+        private final LongAdder _counterAllowed = new LongAdder( );
+        private final LongAdder _counterRejected = new LongAdder( );
 
-        if ( CollectionUtils.isNotEmpty( _listOrderedRequests ) )
+        /**
+         * Constructor
+         *
+         * @param strPrefix
+         *            The URL prefix
+         * @param nMaxRequests
+         *            The bucket capacity
+         * @param lPeriod
+         *            The period in ms during which the bucket is fully refilled
+         * @param nMinContentLength
+         *            The size under which requests are allowed systematically
+         */
+        RateLimit( String strPrefix, int nMaxRequests, long lPeriod, int nMinContentLength )
         {
-            // Expired entries are those where the IP can't be blocked anymore
-            long lMinTime = System.currentTimeMillis( ) - _nMinInterval;
+            _strPrefix = strPrefix;
+            _lEmissionInterval = Math.max( 1, lPeriod / nMaxRequests );
+            _lTolerance = _lEmissionInterval * ( nMaxRequests - 1 );
+            _nMinContentLength = nMinContentLength;
+        }
 
-            AppLogService.debug( "Min time : {}", lMinTime );
+        String getPrefix( )
+        {
+            return _strPrefix;
+        }
 
-            // Read entries from the list, remove them as long as they are expired
-            boolean bDone = false;
+        long getEmissionInterval( )
+        {
+            return _lEmissionInterval;
+        }
+
+        long getTolerance( )
+        {
+            return _lTolerance;
+        }
+
+        int getMinContentLength( )
+        {
+            return _nMinContentLength;
+        }
+
+        LongAdder getAllowedCounter( )
+        {
+            return _counterAllowed;
+        }
 
-            while ( !bDone && CollectionUtils.isNotEmpty( _listOrderedRequests ) )
+        LongAdder getRejectedCounter( )
+        {
+            return _counterRejected;
+        }
+    }
+
+    /**
+     * Token bucket stored as the single time at which it will be full again, so that it can be updated with a compare-and-set.
+     */
+    private static final class TokenBucket
+    {
+        private final AtomicLong _lFullTime = new AtomicLong( Long.MIN_VALUE );
+
+        /**
+         * Consumes a token if one is available
+         *
+         * @param limit
+         *            The limit of the bucket
+         * @param lNow
+         *            The current time in ms
+         * @return true if a token has been consumed
+         */
+        boolean tryConsume( RateLimit limit, long lNow )
+        {
+            while ( true )
             {
-                // The list is ordered by arrival time, so the last one is the
-                // oldest
-                Entry lastEntry = _listOrderedRequests.getLast( );
+                long lFullTime = _lFullTime.get( );
+                long lStart = Math.max( lFullTime, lNow );
 
-                if ( lastEntry.getRequestTime( ) < lMinTime )
+                // Each consumed token pushes the full time one emission interval further
+                if ( lStart - lNow > limit.getTolerance( ) )
                 {
-                    // The entry is expired, remove it from the map and the list
-                    _mapLastRequestTimes.remove( lastEntry.getRemoteAddr( ) );
-                    _listOrderedRequests.removeLast( );
-
-                    AppLogService.debug( "Removing [{}, {}]", lastEntry.getRemoteAddr( ), lastEntry.getRequestTime( ) );
+                    return false;
                 }
-                else
+
+                if ( _lFullTime.compareAndSet( lFullTime, lStart + limit.getEmissionInterval( ) ) )
                 {
-                    bDone = true;
+                    return true;
                 }
             }
         }
+
+        /**
+         * Checks if the bucket is full
+         *
+         * @param lNow
+         *            The current time in ms
+         * @return true if the bucket is full
+         */
+        boolean isFull( long lNow )
+        {
+            return _lFullTime.get( ) <= lNow;
+        }
     }
 
     /**
-     * Utility class used to store entries in the list.
+     * Key of a bucket : a limit and a client IP
      */
-    private static class Entry
+    private static final class BucketKey
     {
-        private String _strRemoteAddr;
-        private long _lRequestTime;
+        private final RateLimit _limit;
+        private final String _strRemoteAddr;
 
-        /**
-         * Constructor
-         * 
-         * @param strRemoteAddr
-         *            The remote address
-         * @param lRequestTime
-         *            The request time
-         */
-        public Entry( String strRemoteAddr, long lRequestTime )
+        BucketKey( RateLimit limit, String strRemoteAddr )
         {
-            this._strRemoteAddr = strRemoteAddr;
-            this._lRequestTime = lRequestTime;
+            _limit = limit;
+            _strRemoteAddr = strRemoteAddr;
         }
 
-        /**
-         * Gets the remote address
-         * 
-         * @return The remote address
-         */
-        public String getRemoteAddr( )
+        @Override
+        public boolean equals( Object obj )
         {
-            return _strRemoteAddr;
+            if ( !( obj instanceof BucketKey ) )
+            {
+                return false;
+            }
+
+            BucketKey other = (BucketKey) obj;
+
+            return _limit == other._limit && _strRemoteAddr.equals( other._strRemoteAddr );
         }
 
-        /**
-         * Gets the request time
-         * 
-         * @return The request time
-         */
-        public long getRequestTime( )
+        @Override
+        public int hashCode( )
         {
-            return _lRequestTime;
+            return 31 * System.identityHashCode( _limit ) + _strRemoteAddr.hashCode( );
         }
     }
 }
@@ -39,7 +39,6 @@ import java.io.PrintWriter;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -59,6 +58,7 @@ import fr.paris.lutece.portal.business.right.LevelHome;
 import fr.paris.lutece.portal.business.right.Right;
 import fr.paris.lutece.portal.business.right.RightHome;
 import fr.paris.lutece.portal.business.user.AdminUser;
+import fr.paris.lutece.portal.business.user.AdminUserFilter;
 import fr.paris.lutece.portal.business.user.AdminUserHome;
 import fr.paris.lutece.portal.business.user.PasswordUpdateMode;
 import fr.paris.lutece.portal.business.user.attribute.IAttribute;
@@ -101,7 +101,7 @@ import fr.paris.lutece.portal.web.dashboard.AdminDashboardJspBean;
 import fr.paris.lutece.portal.web.l10n.LocaleService;
 import fr.paris.lutece.portal.web.pluginaction.DefaultPluginActionResult;
 import fr.paris.lutece.portal.web.upload.MultipartHttpServletRequest;
-import fr.paris.lutece.portal.web.util.LocalizedPaginator;
+import fr.paris.lutece.portal.web.util.LocalizedDelegatePaginator;
 import fr.paris.lutece.util.ReferenceItem;
 import fr.paris.lutece.util.ReferenceList;
 import fr.paris.lutece.util.date.DateUtil;
@@ -110,7 +110,6 @@ import fr.paris.lutece.util.html.AbstractPaginator;
 import fr.paris.lutece.util.html.HtmlTemplate;
 import fr.paris.lutece.util.html.ItemNavigator;
 import fr.paris.lutece.util.password.PasswordUtil;
-import fr.paris.lutece.util.sort.AttributeComparator;
 import fr.paris.lutece.util.string.StringUtil;
 import fr.paris.lutece.util.url.UrlItem;
 import fr.paris.lutece.util.xml.XmlUtil;
@@ -415,31 +414,18 @@ public class AdminUserJspBean extends AdminFeaturesPageJspBean
         String strURL = getHomeUrl( request );
         UrlItem url = new UrlItem( strURL );
 
-        Collection<AdminUser> listUsers = AdminUserHome.findUserList( );
-        listUsers = AdminWorkgroupService.getAuthorizedCollection( listUsers, getUser( ) );
-
-        List<AdminUser> availableUsers = AdminUserService.getFilteredUsersInterface( listUsers, request, model, url );
-        List<AdminUser> listDisplayUsers = new ArrayList<>( );
-
-        for ( AdminUser user : availableUsers )
-        {
-            if ( isUserAuthorizedToModifyUser( currentUser, user ) )
-            {
-                listDisplayUsers.add( user );
-            }
-        }
+        // FILTER : the workgroup and level restrictions are applied by the database
+        AdminUserFilter auFilter = AdminUserService.getManageableUsersFilter( request, model, url );
 
         // SORT
         String strSortedAttributeName = request.getParameter( Parameters.SORTED_ATTRIBUTE_NAME );
         String strAscSort = null;
+        boolean bIsAscSort = true;
 
         if ( strSortedAttributeName != null )
         {
             strAscSort = request.getParameter( Parameters.SORTED_ASC );
-
-            boolean bIsAscSort = Boolean.parseBoolean( strAscSort );
-
-            Collections.sort( listDisplayUsers, new AttributeComparator( strSortedAttributeName, bIsAscSort ) );
+            bIsAscSort = Boolean.parseBoolean( strAscSort );
         }
 
         _strCurrentPageIndex = AbstractPaginator.getPageIndex( request, AbstractPaginator.PARAMETER_PAGE_INDEX, _strCurrentPageIndex );
@@ -456,9 +442,15 @@ public class AdminUserJspBean extends AdminFeaturesPageJspBean
             url.addParameter( Parameters.SORTED_ASC, strAscSort );
         }
 
-        // PAGINATOR
-        LocalizedPaginator<AdminUser> paginator = new LocalizedPaginator<>( listDisplayUsers, _nItemsPerPage, url.getUrl( ),
-                AbstractPaginator.PARAMETER_PAGE_INDEX, _strCurrentPageIndex, getLocale( ) );
+        // PAGINATOR : only the users of the current page are loaded
+        int nUsersCount = AdminUserHome.countUserByFilter( auFilter );
+        int nPageIndex = getPageIndex( _strCurrentPageIndex, _nItemsPerPage, nUsersCount );
+        _strCurrentPageIndex = String.valueOf( nPageIndex );
+
+        List<AdminUser> listPageUsers = AdminUserService.getFilteredUsersPage( auFilter, strSortedAttributeName, bIsAscSort,
+                ( nPageIndex - 1 ) * _nItemsPerPage, _nItemsPerPage, model );
+        LocalizedDelegatePaginator<AdminUser> paginator = new LocalizedDelegatePaginator<>( listPageUsers, _nItemsPerPage, url.getUrl( ),
+                AbstractPaginator.PARAMETER_PAGE_INDEX, _strCurrentPageIndex, nUsersCount, getLocale( ) );
 
         // USER LEVEL
         Collection<Level> filteredLevels = new ArrayList<>( );
@@ -2695,6 +2687,40 @@ public class AdminUserJspBean extends AdminFeaturesPageJspBean
         _itemNavigator = null;
     }
 
+    /**
+     * Get the index of the page to display, the first page being used for an invalid or out of range index as the paginators do
+     * 
+     * @param strPageIndex
+     *            The requested page index
+     * @param nItemsPerPage
+     *            The number of items per page
+     * @param nItemsCount
+     *            The total number of items
+     * @return The page index, starting from 1
+     */
+    private static int getPageIndex( String strPageIndex, int nItemsPerPage, int nItemsCount )
+    {
+        int nPageIndex;
+
+        try
+        {
+            nPageIndex = Integer.parseInt( strPageIndex );
+        }
+        catch( NumberFormatException e )
+        {
+            nPageIndex = 1;
+        }
+
+        int nPagesCount = ( ( nItemsCount - 1 ) / Math.max( nItemsPerPage, 1 ) ) + 1;
+
+        if ( ( nPageIndex < 1 ) || ( nPageIndex > nPagesCount ) )
+        {
+            nPageIndex = 1;
+        }
+
+        return nPageIndex;
+    }
+
     /**
      * Check if a user is authorized to modify another user
      * 
@@ -35,12 +35,13 @@ package fr.paris.lutece.portal.web.xpages;
 
 import fr.paris.lutece.portal.business.XmlContent;
 import fr.paris.lutece.portal.business.page.Page;
-import fr.paris.lutece.portal.business.page.PageHome;
 import fr.paris.lutece.portal.business.portalcomponent.PortalComponentHome;
 import fr.paris.lutece.portal.business.style.ModeHome;
 import fr.paris.lutece.portal.business.stylesheet.StyleSheet;
 import fr.paris.lutece.portal.service.html.XmlTransformerService;
 import fr.paris.lutece.portal.service.i18n.I18nService;
+import fr.paris.lutece.portal.service.page.PageTree;
+import fr.paris.lutece.portal.service.page.PageTreeService;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.portal.PortalService;
 import fr.paris.lutece.portal.service.security.LuteceUser;
@@ -197,7 +198,7 @@ public class SiteMapApp implements XPageApplication
         strArborescenceXml.append( XmlUtil.getXmlHeader( ) );
 
         int nLevel = 0;
-        findPages( strArborescenceXml, PortalService.getRootPageId( ), nLevel, new HashSet<>( ), request );
+        findPages( strArborescenceXml, PageTreeService.getPageTree( ), PortalService.getRootPageId( ), nLevel, new HashSet<>( ), request );
 
         // Added in v1.3
         // Use the same stylesheet for normal or admin mode
@@ -243,6 +244,8 @@ public class SiteMapApp implements XPageApplication
      * 
      * @param strXmlArborescence
      *            The buffer in which adding the current page of the arborescence
+     * @param tree
+     *            The page tree
      * @param nPageId
      *            The current page of the recursive course
      * @param nLevel
@@ -250,16 +253,16 @@ public class SiteMapApp implements XPageApplication
      * @param request
      *            The HttpServletRequest
      */
-    private void findPages( StringBuffer strXmlArborescence, int nPageId, int nLevel, Set<Integer> seenPages, HttpServletRequest request )
+    private void findPages( StringBuffer strXmlArborescence, PageTree tree, int nPageId, int nLevel, Set<Integer> seenPages, HttpServletRequest request )
     {
         if ( !seenPages.add( nPageId ) )
         {
             AppLogService.error( "SiteMapApp : A cycle exists in pages; page id {} was already processed", nPageId );
             return;
         }
-        Page page = PageHome.getPage( nPageId );
+        Page page = tree.getPage( nPageId );
 
-        if ( page.isVisible( request ) )
+        if ( ( page != null ) && page.isVisible( request ) )
         {
             XmlUtil.beginElement( strXmlArborescence, XmlContent.TAG_PAGE );
             XmlUtil.addElement( strXmlArborescence, XmlContent.TAG_PAGE_ID, page.getId( ) );
@@ -269,22 +272,17 @@ public class SiteMapApp implements XPageApplication
 
             AdminPageJspBean adminPage = new AdminPageJspBean( );
 
-            if ( page.getImageContent( ) != null )
+            if ( tree.hasImage( nPageId ) )
             {
-                int nImageLength = page.getImageContent( ).length;
-
-                if ( nImageLength >= 1 )
-                {
-                    String strPageId = Integer.toString( page.getId( ) );
-                    XmlUtil.addElement( strXmlArborescence, XmlContent.TAG_PAGE_IMAGE, adminPage.getResourceImagePage( page, strPageId ) );
-                }
+                String strPageId = Integer.toString( page.getId( ) );
+                XmlUtil.addElement( strXmlArborescence, XmlContent.TAG_PAGE_IMAGE, adminPage.getResourceImagePage( page, strPageId ) );
             }
 
             XmlUtil.beginElement( strXmlArborescence, XmlContent.TAG_CHILD_PAGES_LIST );
 
-            for ( Page pageChild : PageHome.getChildPagesMinimalData( nPageId ) )
+            for ( Page pageChild : tree.getChildPages( nPageId ) )
             {
-                findPages( strXmlArborescence, pageChild.getId( ), nLevel + 1, seenPages, request );
+                findPages( strXmlArborescence, tree, pageChild.getId( ), nLevel + 1, seenPages, request );
             }
 
             XmlUtil.endElement( strXmlArborescence, XmlContent.TAG_CHILD_PAGES_LIST );
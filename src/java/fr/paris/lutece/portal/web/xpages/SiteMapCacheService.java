@@ -33,7 +33,13 @@
  */
 package fr.paris.lutece.portal.web.xpages;
 
+import java.util.Collection;
+import java.util.Collections;
+
+import fr.paris.lutece.portal.business.page.Page;
 import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
+import fr.paris.lutece.portal.service.cache.EntityChangeListener;
 import fr.paris.lutece.portal.service.page.PageEvent;
 import fr.paris.lutece.portal.service.page.PageEventListener;
 import fr.paris.lutece.portal.service.page.PageService;
@@ -41,7 +47,7 @@ import fr.paris.lutece.portal.service.page.PageService;
 /**
  * SiteMapCacheService
  */
-public final class SiteMapCacheService extends AbstractCacheableService implements PageEventListener
+public final class SiteMapCacheService extends AbstractCacheableService implements PageEventListener, EntityChangeListener
 {
     private static final String SERVICE_NAME = "SiteMapService";
     private static SiteMapCacheService _instance = new SiteMapCacheService( );
@@ -82,4 +88,23 @@ public final class SiteMapCacheService extends AbstractCacheableService implemen
         // page was added, removed or updated; clear cache
         resetCache( );
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<String> getEntityDependencies( )
+    {
+        return Collections.singletonList( Page.RESOURCE_TYPE );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void processEntityChange( EntityChangeEvent event )
+    {
+        // the site map contains the whole page tree
+        resetCache( );
+    }
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.bean;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiled read accessor of a bean property. The getter of a given class and property is looked up once and kept as a method handle, so that reading the
+ * property of many objects doesn't pay the cost of the reflection lookup and checks on each call.
+ * 
+ * @since 7.0.11
+ */
+public final class PropertyAccessor
+{
+    /** Prefix of the getters */
+    public static final String PREFIX_GET = "get";
+
+    /** Prefix of the boolean getters */
+    public static final String PREFIX_IS = "is";
+
+    // The accessors are bound to the class so that they don't prevent plugin classes from being unloaded
+    private static final ClassValue<ConcurrentMap<String, Optional<PropertyAccessor>>> ACCESSORS = new ClassValue<ConcurrentMap<String, Optional<PropertyAccessor>>>( )
+    {
+        @Override
+        protected ConcurrentMap<String, Optional<PropertyAccessor>> computeValue( Class<?> clazz )
+        {
+            return new ConcurrentHashMap<>( );
+        }
+    };
+    private static final MethodType GENERIC_GETTER_TYPE = MethodType.methodType( Object.class, Object.class );
+    private final Method _method;
+    private final MethodHandle _methodHandle;
+
+    /**
+     * Constructor
+     * 
+     * @param method
+     *            The getter
+     * @param methodHandle
+     *            The method handle of the getter, or null if the getter can only be invoked by reflection
+     */
+    private PropertyAccessor( Method method, MethodHandle methodHandle )
+    {
+        _method = method;
+        _methodHandle = methodHandle;
+    }
+
+    /**
+     * Get the accessor of a property
+     * 
+     * @param clazz
+     *            The class of the bean
+     * @param strPropertyName
+     *            The name of the property, for example "title" for the getter "getTitle"
+     * @param strPrefix
+     *            The prefix of the getter : {@link #PREFIX_GET} or {@link #PREFIX_IS}
+     * @return The accessor, or null if the class has no such public getter
+     */
+    public static PropertyAccessor getAccessor( Class<?> clazz, String strPropertyName, String strPrefix )
+    {
+        String strMethodName = getMethodName( strPropertyName, strPrefix );
+
+        return ACCESSORS.get( clazz ).computeIfAbsent( strMethodName, name -> Optional.ofNullable( compile( clazz, name ) ) ).orElse( null );
+    }
+
+    /**
+     * Read the property of an object
+     * 
+     * @param obj
+     *            The object
+     * @return The value of the property
+     * @throws InvocationTargetException
+     *             If the getter failed or can't be invoked on this object
+     */
+    public Object getValue( Object obj ) throws InvocationTargetException
+    {
+        try
+        {
+            if ( _methodHandle != null )
+            {
+                return (Object) _methodHandle.invokeExact( obj );
+            }
+
+            return _method.invoke( obj );
+        }
+        catch( InvocationTargetException e )
+        {
+            throw e;
+        }
+        catch( Error e )
+        {
+            throw e;
+        }
+        catch( Throwable e )
+        {
+            throw new InvocationTargetException( e, "Unable to read property with " + _method.getName( ) );
+        }
+    }
+
+    /**
+     * Get the type of the property
+     * 
+     * @return The return type of the getter
+     */
+    public Class<?> getReturnType( )
+    {
+        return _method.getReturnType( );
+    }
+
+    /**
+     * Build the name of a getter
+     * 
+     * @param strPropertyName
+     *            The name of the property
+     * @param strPrefix
+     *            The prefix of the getter
+     * @return The name of the getter
+     */
+    private static String getMethodName( String strPropertyName, String strPrefix )
+    {
+        return strPrefix + strPropertyName.substring( 0, 1 ).toUpperCase( Locale.ENGLISH ) + strPropertyName.substring( 1 );
+    }
+
+    /**
+     * Look up a getter and compile it into a method handle
+     * 
+     * @param clazz
+     *            The class of the bean
+     * @param strMethodName
+     *            The name of the getter
+     * @return The accessor, or null if the class has no such public getter
+     */
+    private static PropertyAccessor compile( Class<?> clazz, String strMethodName )
+    {
+        Method method;
+
+        try
+        {
+            method = clazz.getMethod( strMethodName );
+        }
+        catch( NoSuchMethodException e )
+        {
+            return null;
+        }
+
+        MethodHandle methodHandle = null;
+
+        try
+        {
+            methodHandle = MethodHandles.publicLookup( ).unreflect( method ).asType( GENERIC_GETTER_TYPE );
+        }
+        catch( IllegalAccessException e )
+        {
+            // The getter is public but its class isn't accessible : keep the reflective call
+        }
+
+        return new PropertyAccessor( method, methodHandle );
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory cache bounded by the total weight of its values, the least recently used values being evicted first. Reads are lock-free : each entry records
+ * the tick of its last access, and the eviction runs under a lock that the readers never take. <br>
+ * A value is loaded outside of the cache, which can be invalidated meanwhile. The caller reads the generation of the key before loading the value and gives
+ * it to {@link #put(Object, Object, long)} : the value is not cached if the key has been invalidated since. The generations are striped by key, so that an
+ * invalidation only drops the loads of the keys sharing its stripe.
+ *
+ * @param <K>
+ *            The type of the keys
+ * @param <V>
+ *            The type of the values
+ * @since 7.0.11
+ */
+public final class BoundedCache<K, V>
+{
+    private static final int GENERATION_STRIPES = 256;
+    private final long _lMaxWeight;
+    private final ToLongFunction<V> _weigher;
+    private final long _lTimeToLive;
+    private final Map<K, Entry<V>> _mapEntries = new ConcurrentHashMap<>( );
+    private final AtomicLongArray _generations = new AtomicLongArray( GENERATION_STRIPES );
+    private final AtomicLong _lWeight = new AtomicLong( );
+    private final AtomicLong _lClock = new AtomicLong( );
+    private final AtomicLong _lEvictionCount = new AtomicLong( );
+    private final ReentrantLock _lockEviction = new ReentrantLock( );
+
+    /**
+     * Constructor
+     *
+     * @param lMaxWeight
+     *            The maximum total weight of the values
+     * @param weigher
+     *            The function giving the weight of a value
+     * @param lTimeToLive
+     *            The time to live of the values in milliseconds, 0 if they don't expire
+     */
+    public BoundedCache( long lMaxWeight, ToLongFunction<V> weigher, long lTimeToLive )
+    {
+        _lMaxWeight = lMaxWeight;
+        _weigher = weigher;
+        _lTimeToLive = lTimeToLive;
+    }
+
+    /**
+     * Constructor of a cache bounded by its number of values, whose values don't expire
+     *
+     * @param nMaxSize
+     *            The maximum number of values
+     */
+    public BoundedCache( int nMaxSize )
+    {
+        this( nMaxSize, value -> 1L, 0L );
+    }
+
+    /**
+     * Gets a value
+     *
+     * @param key
+     *            The key
+     * @return The value, or null if it is not cached or has expired
+     */
+    public V get( K key )
+    {
+        Entry<V> entry = _mapEntries.get( key );
+
+        if ( entry == null )
+        {
+            return null;
+        }
+
+        if ( ( _lTimeToLive > 0 ) && ( ( System.currentTimeMillis( ) - entry._lCreationTime ) > _lTimeToLive ) )
+        {
+            removeEntry( key, entry );
+
+            return null;
+        }
+
+        entry._lLastAccess = _lClock.incrementAndGet( );
+
+        return entry._value;
+    }
+
+    /**
+     * Gets the current generation of a key. It must be read before loading the value and given to {@link #put(Object, Object, long)}.
+     *
+     * @param key
+     *            The key
+     * @return The generation
+     */
+    public long getGeneration( K key )
+    {
+        return _generations.get( getStripe( key ) );
+    }
+
+    /**
+     * Puts a value in the cache, unless the key has been invalidated since the given generation, or the value is heavier than the cache
+     *
+     * @param key
+     *            The key
+     * @param value
+     *            The value
+     * @param lGeneration
+     *            The generation of the key read before loading the value
+     * @return true if the value has been cached
+     */
+    public boolean put( K key, V value, long lGeneration )
+    {
+        long lValueWeight = _weigher.applyAsLong( value );
+
+        if ( lValueWeight > _lMaxWeight )
+        {
+            return false;
+        }
+
+        Entry<V> entry = new Entry<>( value, lValueWeight, _lClock.incrementAndGet( ), System.currentTimeMillis( ) );
+        int nStripe = getStripe( key );
+
+        // The invalidations increment the generation before removing the key : the check is atomic with the removal
+        Entry<V> cached = _mapEntries.compute( key, ( k, previous ) -> {
+            if ( _generations.get( nStripe ) != lGeneration )
+            {
+                return previous;
+            }
+
+            _lWeight.addAndGet( lValueWeight - ( ( previous != null ) ? previous._lWeight : 0L ) );
+
+            return entry;
+        } );
+
+        if ( cached != entry )
+        {
+            return false;
+        }
+
+        if ( _lWeight.get( ) > _lMaxWeight )
+        {
+            evict( );
+        }
+
+        return true;
+    }
+
+    /**
+     * Invalidates a key : its value is removed, and the values loaded before are not cached
+     *
+     * @param key
+     *            The key
+     */
+    public void remove( K key )
+    {
+        _generations.incrementAndGet( getStripe( key ) );
+
+        Entry<V> entry = _mapEntries.get( key );
+
+        if ( entry != null )
+        {
+            removeEntry( key, entry );
+        }
+    }
+
+    /**
+     * Invalidates the keys matching a predicate
+     *
+     * @param predicate
+     *            The predicate
+     */
+    public void removeIf( Predicate<K> predicate )
+    {
+        for ( K key : _mapEntries.keySet( ) )
+        {
+            if ( predicate.test( key ) )
+            {
+                remove( key );
+            }
+        }
+    }
+
+    /**
+     * Invalidates all the keys
+     */
+    public void clear( )
+    {
+        for ( int i = 0; i < GENERATION_STRIPES; i++ )
+        {
+            _generations.incrementAndGet( i );
+        }
+
+        for ( Map.Entry<K, Entry<V>> entry : _mapEntries.entrySet( ) )
+        {
+            removeEntry( entry.getKey( ), entry.getValue( ) );
+        }
+    }
+
+    /**
+     * Gets the number of values
+     *
+     * @return The number of values
+     */
+    public int size( )
+    {
+        return _mapEntries.size( );
+    }
+
+    /**
+     * Gets the total weight of the values
+     *
+     * @return The weight
+     */
+    public long getWeight( )
+    {
+        return _lWeight.get( );
+    }
+
+    /**
+     * Gets the keys, from the least to the most recently used
+     *
+     * @return The list of keys
+     */
+    public List<K> getKeys( )
+    {
+        return _mapEntries.entrySet( ).stream( ).sorted( Comparator.comparingLong( e -> e.getValue( )._lLastAccess ) ).map( Map.Entry::getKey )
+                .collect( Collectors.toList( ) );
+    }
+
+    /**
+     * Gets the number of values evicted because the cache was full
+     *
+     * @return The eviction count
+     */
+    public long getEvictionCount( )
+    {
+        return _lEvictionCount.get( );
+    }
+
+    /**
+     * Removes an entry if it is still the value of its key
+     *
+     * @param key
+     *            The key
+     * @param entry
+     *            The entry
+     * @return true if the entry has been removed
+     */
+    private boolean removeEntry( K key, Entry<V> entry )
+    {
+        if ( _mapEntries.remove( key, entry ) )
+        {
+            _lWeight.addAndGet( -entry._lWeight );
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Evicts the least recently used values until the weight of the cache is within its bound. The entries are sorted once by last access, then removed
+     * in this order.
+     */
+    private void evict( )
+    {
+        _lockEviction.lock( );
+
+        try
+        {
+            while ( _lWeight.get( ) > _lMaxWeight )
+            {
+                List<Map.Entry<K, Entry<V>>> listEntries = new ArrayList<>( _mapEntries.entrySet( ) );
+
+                if ( listEntries.isEmpty( ) )
+                {
+                    break;
+                }
+
+                listEntries.sort( Comparator.comparingLong( e -> e.getValue( )._lLastAccess ) );
+
+                for ( Map.Entry<K, Entry<V>> eldest : listEntries )
+                {
+                    if ( _lWeight.get( ) <= _lMaxWeight )
+                    {
+                        break;
+                    }
+
+                    if ( removeEntry( eldest.getKey( ), eldest.getValue( ) ) )
+                    {
+                        _lEvictionCount.incrementAndGet( );
+                    }
+                }
+            }
+        }
+        finally
+        {
+            _lockEviction.unlock( );
+        }
+    }
+
+    /**
+     * Gets the generation stripe of a key
+     *
+     * @param key
+     *            The key
+     * @return The stripe
+     */
+    private static int getStripe( Object key )
+    {
+        return ( key.hashCode( ) & Integer.MAX_VALUE ) % GENERATION_STRIPES;
+    }
+
+    /**
+     * Cached value with its weight and the tick of its last access
+     *
+     * @param <V>
+     *            The type of the value
+     */
+    private static final class Entry<V>
+    {
+        private final V _value;
+        private final long _lWeight;
+        private final long _lCreationTime;
+        private volatile long _lLastAccess;
+
+        /**
+         * Constructor
+         *
+         * @param value
+         *            The value
+         * @param lWeight
+         *            The weight of the value
+         * @param lLastAccess
+         *            The tick of the creation
+         * @param lCreationTime
+         *            The creation time in milliseconds
+         */
+        Entry( V value, long lWeight, long lLastAccess, long lCreationTime )
+        {
+            _value = value;
+            _lWeight = lWeight;
+            _lLastAccess = lLastAccess;
+            _lCreationTime = lCreationTime;
+        }
+    }
+}
@@ -35,11 +35,10 @@ package fr.paris.lutece.util.datatable;
 
 import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -56,6 +55,7 @@ import fr.paris.lutece.portal.web.util.LocalizedDelegatePaginator;
 import fr.paris.lutece.portal.web.util.LocalizedPaginator;
 import fr.paris.lutece.util.ReferenceList;
 import fr.paris.lutece.util.UniqueIDGenerator;
+import fr.paris.lutece.util.bean.PropertyAccessor;
 import fr.paris.lutece.util.html.AbstractPaginator;
 import fr.paris.lutece.util.html.IPaginator;
 import fr.paris.lutece.util.sort.AttributeComparator;
@@ -73,8 +73,6 @@ public class DataTableManager<T> implements Serializable
      * Serial version UID
      */
     private static final long serialVersionUID = -3906455886374172029L;
-    private static final String CONSTANT_GET = "get";
-    private static final String CONSTANT_IS = "is";
     private static final String CONSTANT_DATA_TABLE_MANAGER_ID_PREFIX = "dataTableManager";
     private String _strSortUrl;
     private List<DataTableColumn> _listColumn = new ArrayList<>( );
@@ -258,12 +256,115 @@ public class DataTableManager<T> implements Serializable
      */
     public void filterSortAndPaginate( HttpServletRequest request, List<T> items )
     {
-        List<T> filteredSortedPaginatedItems = new ArrayList<>( items );
+        // FILTER
+        List<DataTableFilter> listActiveFilters = updateFilters( request );
+        List<T> filteredSortedPaginatedItems;
 
-        boolean bSubmitedDataTable = hasDataTableFormBeenSubmited( request );
+        if ( listActiveFilters.isEmpty( ) )
+        {
+            filteredSortedPaginatedItems = new ArrayList<>( items );
+        }
+        else
+        {
+            // All the filters are checked in a single pass on the items
+            filteredSortedPaginatedItems = new ArrayList<>( );
 
+            for ( T item : items )
+            {
+                if ( matchesFilters( item, listActiveFilters ) )
+                {
+                    filteredSortedPaginatedItems.add( item );
+                }
+            }
+        }
+
+        // SORT
+        DataTableSort sort = getAndUpdateSort( request );
+
+        // We sort the items
+        if ( sort.getSortKey( ) != null )
+        {
+            new AttributeComparator( sort.getSortKey( ), sort.getAscSort( ) ).sort( filteredSortedPaginatedItems );
+        }
+
+        // PAGINATION
+        updatePagination( request, filteredSortedPaginatedItems.size( ) );
+
+        if ( request != null )
+        {
+            // We paginate create the new paginator
+            _paginator = new LocalizedPaginator<>( filteredSortedPaginatedItems, _nItemsPerPage, getSortUrl( ), AbstractPaginator.PARAMETER_PAGE_INDEX,
+                    _strCurrentPageIndex, request.getLocale( ) );
+        }
+    }
+
+    /**
+     * Apply filters, sort and pagination on items loaded page by page by a provider. Unlike
+     * {@link DataTableManager#filterSortAndPaginate(HttpServletRequest, List) filterSortAndPaginate( request, items )}, only the items of the current page are
+     * loaded : the provider is in charge of filtering and sorting them, for example in its SQL query.
+     * 
+     * @param request
+     *            The request
+     * @param provider
+     *            The provider of the items
+     * @since 7.0.11
+     */
+    public void filterSortAndPaginate( HttpServletRequest request, IDataTableItemsProvider<T> provider )
+    {
         // FILTER
+        Map<String, String> mapFilters = new LinkedHashMap<>( );
+
+        for ( DataTableFilter filter : updateFilters( request ) )
+        {
+            mapFilters.put( filter.getParameterName( ), filter.getValue( ) );
+        }
+
+        // SORT
+        DataTableSort sort = getAndUpdateSort( request );
+
+        // PAGINATION
+        int nTotalItemsNumber = provider.getItemsCount( mapFilters );
+        updatePagination( request, nTotalItemsNumber );
+
+        int nPageIndex = 1;
+
+        if ( StringUtils.isNumeric( _strCurrentPageIndex ) )
+        {
+            nPageIndex = Integer.parseInt( _strCurrentPageIndex );
+        }
+
+        // Same rule as the paginators : a page out of range falls back to the first page
+        if ( ( nPageIndex < 1 ) || ( _nItemsPerPage <= 0 ) || ( ( (long) ( nPageIndex - 1 ) * _nItemsPerPage ) >= nTotalItemsNumber ) )
+        {
+            nPageIndex = 1;
+        }
+
+        _strCurrentPageIndex = Integer.toString( nPageIndex );
+
+        List<T> listItems = new ArrayList<>( );
+
+        if ( ( nTotalItemsNumber > 0 ) && ( _nItemsPerPage > 0 ) )
+        {
+            listItems = provider.getItems( mapFilters, sort, ( nPageIndex - 1 ) * _nItemsPerPage, _nItemsPerPage );
+        }
+
+        _locale = ( request != null ) ? request.getLocale( ) : LocaleService.getDefault( );
+        setItems( listItems, nTotalItemsNumber );
+    }
+
+    /**
+     * Update the values of the filters with the request if the filter form has been submitted
+     * 
+     * @param request
+     *            The request
+     * @return The filters that have a value
+     */
+    private List<DataTableFilter> updateFilters( HttpServletRequest request )
+    {
+        boolean bSubmitedDataTable = hasDataTableFormBeenSubmited( request );
+
         Collection<DataTableFilter> listFilters = _filterPanel.getListFilter( );
+        List<DataTableFilter> listActiveFilters = new ArrayList<>( );
         boolean bUpdateFilter = false;
         boolean bResetFilter = false;
 
@@ -304,61 +405,64 @@ public class DataTableManager<T> implements Serializable
 
             if ( StringUtils.isNotBlank( strFilterValue ) )
             {
-                List<T> bufferList = new ArrayList<>( );
-
-                for ( T item : filteredSortedPaginatedItems )
-                {
-                    Method method = getMethod( item, filter.getParameterName( ), CONSTANT_GET );
-
-                    if ( ( method == null ) && ( filter.getFilterType( ) == DataTableFilterType.BOOLEAN ) )
-                    {
-                        method = getMethod( item, filter.getParameterName( ), CONSTANT_IS );
-                    }
-
-                    if ( method != null )
-                    {
-                        try
-                        {
-                            Object value = method.invoke( item );
-
-                            if ( ( value != null ) && strFilterValue.equals( value.toString( ) ) )
-                            {
-                                bufferList.add( item );
-                            }
-                        }
-                        catch( Exception e )
-                        {
-                            AppLogService.error( e.getMessage( ), e );
-                        }
-                    }
-                }
-
-                filteredSortedPaginatedItems.retainAll( bufferList );
+                listActiveFilters.add( filter );
             }
         }
 
-        // SORT
-        if ( bSubmitedDataTable )
+        return listActiveFilters;
+    }
+
+    /**
+     * Check if an item matches all the active filters
+     * 
+     * @param item
+     *            The item
+     * @param listActiveFilters
+     *            The filters that have a value
+     * @return True if the item matches every filter, false otherwise
+     */
+    private boolean matchesFilters( T item, List<DataTableFilter> listActiveFilters )
+    {
+        for ( DataTableFilter filter : listActiveFilters )
         {
-            // We update the sort parameters
-            String strSortedAttributeName = request.getParameter( Parameters.SORTED_ATTRIBUTE_NAME );
+            PropertyAccessor accessor = getAccessor( item, filter );
 
-            if ( strSortedAttributeName != null )
+            if ( accessor == null )
             {
-                // We update sort properties
-                _strSortedAttributeName = strSortedAttributeName;
-                _bIsAscSort = Boolean.parseBoolean( request.getParameter( Parameters.SORTED_ASC ) );
+                return false;
             }
-        }
 
-        // We sort the items
-        if ( _strSortedAttributeName != null )
-        {
-            Collections.sort( filteredSortedPaginatedItems, new AttributeComparator( _strSortedAttributeName, _bIsAscSort ) );
+            try
+            {
+                Object value = accessor.getValue( item );
+
+                if ( ( value == null ) || !filter.getValue( ).equals( value.toString( ) ) )
+                {
+                    return false;
+                }
+            }
+            catch( InvocationTargetException e )
+            {
+                AppLogService.error( e.getMessage( ), e );
+
+                return false;
+            }
         }
 
-        // PAGINATION
-        if ( bSubmitedDataTable )
+        return true;
+    }
+
+    /**
+     * Update the pagination properties with the request if the data table form has been submitted
+     * 
+     * @param request
+     *            The request
+     * @param nTotalItemsNumber
+     *            The total number of items
+     */
+    private void updatePagination( HttpServletRequest request, int nTotalItemsNumber )
+    {
+        if ( hasDataTableFormBeenSubmited( request ) )
         {
             // We update the pagination properties
             if ( _bEnablePaginator )
@@ -380,16 +484,9 @@ public class DataTableManager<T> implements Serializable
             else
             {
                 _strCurrentPageIndex = Integer.toString( 1 );
-                _nItemsPerPage = filteredSortedPaginatedItems.size( );
+                _nItemsPerPage = nTotalItemsNumber;
             }
         }
-
-        if ( request != null )
-        {
-            // We paginate create the new paginator
-            _paginator = new LocalizedPaginator<>( filteredSortedPaginatedItems, _nItemsPerPage, getSortUrl( ), AbstractPaginator.PARAMETER_PAGE_INDEX,
-                    _strCurrentPageIndex, request.getLocale( ) );
-        }
     }
 
     /**
@@ -687,33 +784,30 @@ public class DataTableManager<T> implements Serializable
     }
 
     /**
-     * Return the getter method of the object obj for the attribute <i>strAttributName</i>
+     * Return the accessor of the attribute filtered by <i>filter</i> for the object obj. The "is" getter is used for boolean filters if there is no "get"
+     * getter.
      * 
      * @param obj
      *            the object
-     * @param strAttributName
-     *            The name of the attribute to get the getter
-     * @param strMethodPrefix
-     *            Prefix of the name of the method
-     * @return method Method of the object obj for the attribute <i>strAttributName</i>
+     * @param filter
+     *            The filter
+     * @return The accessor, or null if the object has no getter for the attribute
      */
-    private Method getMethod( Object obj, String strAttributName, String strMethodPrefix )
+    private PropertyAccessor getAccessor( Object obj, DataTableFilter filter )
     {
-        Method method = null;
-        String strFirstLetter = strAttributName.substring( 0, 1 ).toUpperCase( );
+        PropertyAccessor accessor = PropertyAccessor.getAccessor( obj.getClass( ), filter.getParameterName( ), PropertyAccessor.PREFIX_GET );
 
-        String strMethodName = strMethodPrefix + strFirstLetter + strAttributName.substring( 1, strAttributName.length( ) );
-
-        try
+        if ( ( accessor == null ) && ( filter.getFilterType( ) == DataTableFilterType.BOOLEAN ) )
         {
-            method = obj.getClass( ).getMethod( strMethodName );
+            accessor = PropertyAccessor.getAccessor( obj.getClass( ), filter.getParameterName( ), PropertyAccessor.PREFIX_IS );
         }
-        catch( Exception e )
+
+        if ( accessor == null )
         {
-            AppLogService.debug( e.getMessage( ), e );
+            AppLogService.debug( "No getter found for the attribute {} of the class {}", filter.getParameterName( ), obj.getClass( ).getName( ) );
         }
 
-        return method;
+        return accessor;
     }
 
     /**
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.datatable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Source of the items of a data table that loads only the requested page, for example from the database. Used by
+ * {@link DataTableManager#filterSortAndPaginate(javax.servlet.http.HttpServletRequest, IDataTableItemsProvider)} instead of a full in-memory list.
+ * 
+ * @param <T>
+ *            Type of data to display
+ * @since 7.0.11
+ */
+public interface IDataTableItemsProvider<T>
+{
+    /**
+     * Get the total number of items matching the filters
+     * 
+     * @param mapFilters
+     *            The values of the active filters, by parameter name
+     * @return The number of items
+     */
+    int getItemsCount( Map<String, String> mapFilters );
+
+    /**
+     * Get a page of the items matching the filters
+     * 
+     * @param mapFilters
+     *            The values of the active filters, by parameter name
+     * @param sort
+     *            The sort to apply. Its sort key is null if the items are not sorted
+     * @param nStartIndex
+     *            The index of the first item to return, starting at 0
+     * @param nItemsCount
+     *            The maximum number of items to return
+     * @return The items of the page
+     */
+    List<T> getItems( Map<String, String> mapFilters, DataTableSort sort, int nStartIndex, int nItemsCount );
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.pool.service;
+
+import fr.paris.lutece.util.env.EnvUtil;
+
+import java.sql.Driver;
+import java.sql.DriverManager;
+
+import java.util.Map;
+
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Base class of the connection services based on a Lutece pool. It reads the parameters shared by the Lutece pools (<code>url</code>, <code>user</code>,
+ * <code>password</code>, <code>driver</code>, <code>maxconns</code>, <code>initconns</code> and <code>logintimeout</code>) and registers the JDBC driver.
+ */
+public abstract class AbstractLuteceConnectionService implements ConnectionService
+{
+    private static final String PARAMETER_URL = ".url";
+    private static final String PARAMETER_USER = ".user";
+    private static final String PARAMETER_PASSWORD = ".password";
+    private static final String PARAMETER_DRIVER = ".driver";
+    private static final String PARAMETER_MAX_CONNS = ".maxconns";
+    private static final String PARAMETER_INIT_CONNS = ".initconns";
+    private static final String PARAMETER_LOGIN_TIMEOUT = ".logintimeout";
+    private static final int DEFAULT_LOGIN_TIMEOUT = 5;
+    private String _strPoolName;
+    private Logger _logger;
+
+    /**
+     * Sets the pool name
+     * 
+     * @param strPoolName
+     *            The pool name
+     */
+    @Override
+    public void setPoolName( String strPoolName )
+    {
+        _strPoolName = strPoolName;
+    }
+
+    /**
+     * Returns the pool name
+     * 
+     * @return The pool name
+     */
+    @Override
+    public String getPoolName( )
+    {
+        return _strPoolName;
+    }
+
+    /**
+     * Sets the logger
+     * 
+     * @param logger
+     *            The logger
+     */
+    @Override
+    public void setLogger( Logger logger )
+    {
+        _logger = logger;
+    }
+
+    /**
+     * Gets the pool logger
+     * 
+     * @return The logger
+     */
+    @Override
+    public Logger getLogger( )
+    {
+        return _logger;
+    }
+
+    /**
+     * Initializes the connection pool
+     * 
+     * @param htParamsConnectionPool
+     *            Pool parameters
+     */
+    @Override
+    public void init( Map<String, String> htParamsConnectionPool )
+    {
+        String url = getEnvParameter( htParamsConnectionPool, PARAMETER_URL, "No URL specified for the pool {}" );
+        String user = getEnvParameter( htParamsConnectionPool, PARAMETER_USER, "No user specified for the pool {}" );
+        String password = getEnvParameter( htParamsConnectionPool, PARAMETER_PASSWORD, "No password specified for the pool {}" );
+
+        registerDriver( htParamsConnectionPool.get( getPoolName( ) + PARAMETER_DRIVER ) );
+
+        int maxConns = getIntParameter( htParamsConnectionPool, PARAMETER_MAX_CONNS, 0 );
+        int initConns = getIntParameter( htParamsConnectionPool, PARAMETER_INIT_CONNS, 0 );
+        int timeOut = getIntParameter( htParamsConnectionPool, PARAMETER_LOGIN_TIMEOUT, DEFAULT_LOGIN_TIMEOUT );
+
+        initPool( htParamsConnectionPool, url, user, password, maxConns, initConns, timeOut );
+    }
+
+    /**
+     * Creates the connection pool
+     * 
+     * @param htParamsConnectionPool
+     *            Pool parameters, for the parameters specific to the pool
+     * @param strUrl
+     *            The JDBC URL
+     * @param strUser
+     *            The database user
+     * @param strPassword
+     *            The database password
+     * @param nMaxConns
+     *            The maximum number of connections
+     * @param nInitConns
+     *            The number of connections opened at startup
+     * @param nTimeOut
+     *            The login timeout in seconds
+     */
+    protected abstract void initPool( Map<String, String> htParamsConnectionPool, String strUrl, String strUser, String strPassword, int nMaxConns,
+            int nInitConns, int nTimeOut );
+
+    /**
+     * Reads an integer parameter of the pool
+     * 
+     * @param htParamsConnectionPool
+     *            Pool parameters
+     * @param strParameter
+     *            The parameter suffix (ie: <code>.maxconns</code>)
+     * @param nDefault
+     *            The default value
+     * @return The value of the parameter or the default value if it is not defined
+     */
+    protected int getIntParameter( Map<String, String> htParamsConnectionPool, String strParameter, int nDefault )
+    {
+        String strValue = htParamsConnectionPool.get( getPoolName( ) + strParameter );
+
+        return ( strValue == null ) ? nDefault : Integer.parseInt( strValue );
+    }
+
+    /**
+     * Reads a parameter of the pool that may reference environment variables
+     * 
+     * @param htParamsConnectionPool
+     *            Pool parameters
+     * @param strParameter
+     *            The parameter suffix (ie: <code>.url</code>)
+     * @param strMissingMessage
+     *            The message logged if the parameter is not defined
+     * @return The evaluated value of the parameter or null if it is not defined
+     */
+    private String getEnvParameter( Map<String, String> htParamsConnectionPool, String strParameter, String strMissingMessage )
+    {
+        String strValue = htParamsConnectionPool.get( getPoolName( ) + strParameter );
+
+        if ( strValue == null )
+        {
+            _logger.error( strMissingMessage, getPoolName( ) );
+
+            return null;
+        }
+
+        return EnvUtil.evaluate( strValue, EnvUtil.PREFIX_ENV );
+    }
+
+    /**
+     * Registers the JDBC driver
+     * 
+     * @param strDriverClassName
+     *            The class name of the driver
+     */
+    private void registerDriver( String strDriverClassName )
+    {
+        if ( strDriverClassName == null )
+        {
+            _logger.error( "Can't register JDBC driver for the pool {} because the property driver is not defined", getPoolName( ) );
+
+            return;
+        }
+
+        try
+        {
+            Driver driver = (Driver) Class.forName( strDriverClassName ).getDeclaredConstructor( ).newInstance( );
+            DriverManager.registerDriver( driver );
+            _logger.info( "Registered JDBC driver {}", strDriverClassName );
+        }
+        catch( Exception e )
+        {
+            _logger.error( "Can't register JDBC driver: {}", strDriverClassName, e );
+        }
+    }
+}
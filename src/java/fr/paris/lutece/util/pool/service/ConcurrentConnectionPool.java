@@ -0,0 +1,669 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.pool.service;
+
+import fr.paris.lutece.portal.service.util.AppException;
+
+import org.apache.logging.log4j.Logger;
+
+import java.io.PrintWriter;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+/**
+ * This class manages a database connection pool without a global lock. <br>
+ * Idle connections are kept in a lock-free deque and the number of borrowed connections is bounded by a fair semaphore, so that waiting threads are served
+ * in arrival order. Idle connections are validated by a background task with {@link Connection#isValid(int)} instead of a query on every borrow. <br>
+ * Connections are wrapped by a {@link LuteceConnection} : {@link Connection#close()} returns them to this pool.
+ * 
+ * @see ConnectionPool
+ */
+public class ConcurrentConnectionPool implements DataSource
+{
+    private static final long [ ] WAIT_BUCKETS_MS = {
+            1L, 5L, 10L, 50L, 100L, 500L, 1000L, 5000L
+    };
+    private static final String THREAD_NAME_PREFIX = "Lutece-ConnectionPool-Validation-";
+    private final String _strName;
+    private final String _strUrl;
+    private final String _strUser;
+    private final String _strPassword;
+    private final int _nMaxConns;
+    private final int _nTimeOut;
+    private final int _nValidationTimeOut;
+    private final Logger _logger;
+    private final Semaphore _semaphore;
+    private final Deque<Connection> _dequeIdleConnections = new ConcurrentLinkedDeque<>( );
+    private final Set<Connection> _setBusyConnections = ConcurrentHashMap.newKeySet( );
+    private final AtomicInteger _nConnectionCount = new AtomicInteger( );
+    private final AtomicLongArray _borrowWaitHistogram = new AtomicLongArray( WAIT_BUCKETS_MS.length + 1 );
+    private final LongAdder _counterTimeOuts = new LongAdder( );
+    private final ScheduledExecutorService _validationExecutor;
+    private volatile boolean _bReleased;
+    private PrintWriter _logWriter;
+
+    /**
+     * Constructor.
+     *
+     * @param strName
+     *            The pool name
+     * @param strUrl
+     *            JDBC Data source URL
+     * @param strUser
+     *            SQL User
+     * @param strPassword
+     *            SQL Password
+     * @param nMaxConns
+     *            Max connections (0 for no limit)
+     * @param nInitConns
+     *            Initials connections
+     * @param nTimeOut
+     *            Timeout in seconds to get a connection
+     * @param nValidationInterval
+     *            Interval in seconds between two validations of the idle connections (0 to disable the validation)
+     * @param nValidationTimeOut
+     *            Timeout in seconds of the validation of a connection
+     * @param logger
+     *            the Logger object
+     */
+    public ConcurrentConnectionPool( String strName, String strUrl, String strUser, String strPassword, int nMaxConns, int nInitConns, int nTimeOut,
+            int nValidationInterval, int nValidationTimeOut, Logger logger )
+    {
+        _strName = strName;
+        _strUrl = strUrl;
+        _strUser = strUser;
+        _strPassword = strPassword;
+        _nMaxConns = nMaxConns;
+        _nTimeOut = ( nTimeOut > 0 ) ? nTimeOut : 5;
+        _nValidationTimeOut = ( nValidationTimeOut > 0 ) ? nValidationTimeOut : 2;
+        _logger = logger;
+        _semaphore = ( nMaxConns > 0 ) ? new Semaphore( nMaxConns, true ) : null;
+        initPool( nInitConns );
+
+        if ( nValidationInterval > 0 )
+        {
+            _validationExecutor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+                Thread thread = new Thread( runnable, THREAD_NAME_PREFIX + strName );
+                thread.setDaemon( true );
+
+                return thread;
+            } );
+            _validationExecutor.scheduleWithFixedDelay( this::validateIdleConnections, nValidationInterval, nValidationInterval, TimeUnit.SECONDS );
+        }
+        else
+        {
+            _validationExecutor = null;
+        }
+
+        _logger.info( "New pool created : {}", strName );
+        _logger.debug( "url={} user={} initconns={} maxConns={} logintimeout={} validationinterval={}", strUrl, _strUser, nInitConns, _nMaxConns, _nTimeOut,
+                nValidationInterval );
+    }
+
+    /**
+     * Initializes the pool
+     *
+     * @param nInitConns
+     *            Number of connections to create at the initialisation
+     */
+    private void initPool( int nInitConns )
+    {
+        for ( int i = 0; i < nInitConns; i++ )
+        {
+            try
+            {
+                _dequeIdleConnections.offerLast( newConnection( ) );
+            }
+            catch( SQLException e )
+            {
+                throw new AppException( "SQL Error executing command : " + e.toString( ), e );
+            }
+        }
+    }
+
+    /**
+     * Returns a connection from the pool.
+     *
+     * @return An open connection
+     * @throws SQLException
+     *             The SQL exception
+     */
+    @Override
+    public Connection getConnection( ) throws SQLException
+    {
+        long lStart = System.nanoTime( );
+
+        if ( _semaphore != null )
+        {
+            boolean bAcquired;
+
+            try
+            {
+                bAcquired = _semaphore.tryAcquire( _nTimeOut, TimeUnit.SECONDS );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+                throw new SQLException( "Interrupted while waiting for a connection", e );
+            }
+
+            if ( !bAcquired )
+            {
+                recordBorrowWait( lStart );
+                _counterTimeOuts.increment( );
+                _logger.error( "Time-out while waiting for a connection of the pool {}. {}", _strName, getStats( ) );
+                throw new SQLException( "getConnection() timed-out" );
+            }
+        }
+
+        try
+        {
+            Connection conn = pollIdleConnection( );
+
+            if ( conn == null )
+            {
+                conn = newConnection( );
+            }
+
+            _setBusyConnections.add( conn );
+            recordBorrowWait( lStart );
+            _logger.debug( "Delivered connection from pool" );
+
+            return conn;
+        }
+        catch( SQLException | RuntimeException e )
+        {
+            releasePermit( );
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a connection to pool.
+     *
+     * @param conn
+     *            The released connection to return to pool
+     */
+    public void freeConnection( Connection conn )
+    {
+        if ( !_setBusyConnections.remove( conn ) )
+        {
+            _logger.warn( "A connection that is not borrowed from the pool {} has been released", _strName );
+
+            return;
+        }
+
+        if ( _bReleased )
+        {
+            discard( conn );
+        }
+        else
+        {
+            // LIFO : the most recently used connections are reused first
+            _dequeIdleConnections.offerFirst( conn );
+        }
+
+        releasePermit( );
+        _logger.debug( "Returned connection to pool" );
+    }
+
+    /**
+     * Releases the pool by closing all its idle connections. Busy connections are closed when they are returned to the pool.
+     */
+    public void release( )
+    {
+        _bReleased = true;
+
+        if ( _validationExecutor != null )
+        {
+            _validationExecutor.shutdownNow( );
+        }
+
+        Connection conn;
+
+        while ( ( conn = _dequeIdleConnections.pollFirst( ) ) != null )
+        {
+            discard( conn );
+        }
+
+        _logger.info( "Pool {} released. Borrow wait histogram : {}", _strName, getBorrowWaitHistogram( ) );
+    }
+
+    /**
+     * Gets an idle connection
+     *
+     * @return An idle connection or null if there is none
+     */
+    private Connection pollIdleConnection( )
+    {
+        Connection conn;
+
+        while ( ( conn = _dequeIdleConnections.pollFirst( ) ) != null )
+        {
+            if ( !isClosed( conn ) )
+            {
+                return conn;
+            }
+
+            _logger.error( "Removed closed connection from pool" );
+            discard( conn );
+        }
+
+        return null;
+    }
+
+    /**
+     * Validates the idle connections. A connection is validated only if it can be taken out of the pool without exceeding the max connections. The
+     * connections are validated one at a time : each one is put back in the pool, and its permit released, before the next one is taken.
+     */
+    void validateIdleConnections( )
+    {
+        int nIdle = _dequeIdleConnections.size( );
+
+        for ( int i = 0; ( i < nIdle ) && !_bReleased; i++ )
+        {
+            if ( ( _semaphore != null ) && !_semaphore.tryAcquire( ) )
+            {
+                // All the connections are in use
+                break;
+            }
+
+            try
+            {
+                // The least recently used connections are at the end of the deque
+                Connection conn = _dequeIdleConnections.pollLast( );
+
+                if ( conn == null )
+                {
+                    break;
+                }
+
+                if ( isValid( conn ) )
+                {
+                    // Put back at the head, so that the next poll at the end takes a connection not yet validated. The permit is released only
+                    // once the connection is back in the pool, otherwise a borrower could find the pool empty and exceed the max connections
+                    _dequeIdleConnections.offerFirst( conn );
+                }
+                else
+                {
+                    _logger.error( "Removed invalid idle connection from pool {}", _strName );
+                    discard( conn );
+                }
+            }
+            finally
+            {
+                releasePermit( );
+            }
+        }
+
+        _logger.debug( "Idle connections of pool {} validated. {} Borrow wait histogram : {}", _strName, getStats( ), getBorrowWaitHistogram( ) );
+    }
+
+    /**
+     * Creates a new connection. <br>
+     * The connection is wrapped by {@link LuteceConnection}
+     *
+     * @return The new created connection
+     * @throws SQLException
+     *             The SQL exception
+     */
+    private Connection newConnection( ) throws SQLException
+    {
+        Connection conn;
+
+        if ( _strUser == null )
+        {
+            conn = DriverManager.getConnection( _strUrl );
+        }
+        else
+        {
+            conn = DriverManager.getConnection( _strUrl, _strUser, _strPassword );
+        }
+
+        _logger.info( "New connection created. Connections count is : {}", _nConnectionCount.incrementAndGet( ) );
+
+        // wrap connection so this connection pool is used when conn.close() is called
+        return LuteceConnectionFactory.newInstance( this::freeConnection, conn );
+    }
+
+    /**
+     * Closes a connection and removes it from the count
+     *
+     * @param conn
+     *            The connection
+     */
+    private void discard( Connection conn )
+    {
+        _nConnectionCount.decrementAndGet( );
+
+        try
+        {
+            if ( conn instanceof LuteceConnection )
+            {
+                ( (LuteceConnection) conn ).closeConnection( );
+            }
+            else
+            {
+                conn.close( );
+            }
+
+            _logger.debug( "Closed connection" );
+        }
+        catch( SQLException | RuntimeException e )
+        {
+            _logger.error( "Couldn't close connection", e );
+        }
+    }
+
+    /**
+     * Checks if a connection is closed
+     *
+     * @param conn
+     *            The connection
+     * @return true if the connection is closed or if its state can't be read
+     */
+    private boolean isClosed( Connection conn )
+    {
+        try
+        {
+            return conn.isClosed( );
+        }
+        catch( SQLException e )
+        {
+            return true;
+        }
+    }
+
+    /**
+     * Checks if a connection is still alive
+     *
+     * @param conn
+     *            The connection
+     * @return true if the connection is valid
+     */
+    private boolean isValid( Connection conn )
+    {
+        try
+        {
+            return conn.isValid( _nValidationTimeOut );
+        }
+        catch( SQLException e )
+        {
+            _logger.error( "Pooled Connection was not okay", e );
+
+            return false;
+        }
+    }
+
+    /**
+     * Release a permit of the semaphore
+     */
+    private void releasePermit( )
+    {
+        if ( _semaphore != null )
+        {
+            _semaphore.release( );
+        }
+    }
+
+    /**
+     * Records the time waited by a borrower
+     *
+     * @param lStart
+     *            The start of the wait given by {@link System#nanoTime()}
+     */
+    private void recordBorrowWait( long lStart )
+    {
+        long lWait = TimeUnit.NANOSECONDS.toMillis( System.nanoTime( ) - lStart );
+        int nBucket = 0;
+
+        while ( ( nBucket < WAIT_BUCKETS_MS.length ) && ( lWait >= WAIT_BUCKETS_MS [nBucket] ) )
+        {
+            nBucket++;
+        }
+
+        _borrowWaitHistogram.incrementAndGet( nBucket );
+    }
+
+    /**
+     * Returns the histogram of the times waited by the borrowers of connections. Keys are the upper bounds of the buckets.
+     *
+     * @return The number of borrows for each bucket
+     */
+    public Map<String, Long> getBorrowWaitHistogram( )
+    {
+        Map<String, Long> mapHistogram = new LinkedHashMap<>( );
+
+        for ( int i = 0; i < WAIT_BUCKETS_MS.length; i++ )
+        {
+            mapHistogram.put( "<" + WAIT_BUCKETS_MS [i] + "ms", _borrowWaitHistogram.get( i ) );
+        }
+
+        mapHistogram.put( ">=" + WAIT_BUCKETS_MS [WAIT_BUCKETS_MS.length - 1] + "ms", _borrowWaitHistogram.get( WAIT_BUCKETS_MS.length ) );
+
+        return mapHistogram;
+    }
+
+    /**
+     * Returns the number of borrows that timed out
+     *
+     * @return The number of time-outs
+     */
+    public long getTimeOutCount( )
+    {
+        return _counterTimeOuts.sum( );
+    }
+
+    /**
+     * Returns stats on pool's connections
+     *
+     * @return Stats as String.
+     */
+    private String getStats( )
+    {
+        return "Total connections: " + getConnectionCount( ) + " Available: " + getFreeConnectionCount( ) + " Checked-out: " + getBusyConnectionCount( );
+    }
+
+    /**
+     * Returns the number of connections opened by the pool (available or busy)
+     * 
+     * @return A connection count
+     */
+    public int getConnectionCount( )
+    {
+        return _nConnectionCount.get( );
+    }
+
+    /**
+     * Returns the number of free connections of the pool
+     * 
+     * @return A connection count
+     */
+    public int getFreeConnectionCount( )
+    {
+        return Math.max( 0, getConnectionCount( ) - getBusyConnectionCount( ) );
+    }
+
+    /**
+     * Returns the number of busy connections of the pool
+     * 
+     * @return A connection count
+     */
+    public int getBusyConnectionCount( )
+    {
+        return _setBusyConnections.size( );
+    }
+
+    /**
+     * Returns the maximum number of connections of the pool
+     * 
+     * @return A connection count
+     */
+    public int getMaxConnectionCount( )
+    {
+        return _nMaxConns;
+    }
+
+    /**
+     * Returns the connection of the pool.
+     *
+     * @param username
+     *            the username
+     * @param password
+     *            the password
+     * @return A connection
+     * @throws SQLException
+     *             the sQL exception
+     */
+    @Override
+    public Connection getConnection( String username, String password ) throws SQLException
+    {
+        return getConnection( );
+    }
+
+    /**
+     * Get the log.
+     *
+     * @return A log writer
+     * @throws SQLException
+     *             the sQL exception
+     */
+    @Override
+    public PrintWriter getLogWriter( ) throws SQLException
+    {
+        return _logWriter;
+    }
+
+    /**
+     * Set the log.
+     *
+     * @param out
+     *            the new log writer
+     * @throws SQLException
+     *             the sQL exception
+     */
+    @Override
+    public void setLogWriter( PrintWriter out ) throws SQLException
+    {
+        _logWriter = out;
+    }
+
+    /**
+     * Set Login Timeout.
+     *
+     * @param seconds
+     *            the new login timeout
+     * @throws SQLException
+     *             the sQL exception
+     */
+    @Override
+    public void setLoginTimeout( int seconds ) throws SQLException
+    {
+        // Do nothing
+    }
+
+    /**
+     * Get loging timeout.
+     *
+     * @return A time out
+     * @throws SQLException
+     *             the sQL exception
+     */
+    @Override
+    public int getLoginTimeout( ) throws SQLException
+    {
+        return _nTimeOut;
+    }
+
+    /**
+     * Get the unwrap.
+     *
+     * @param <T>
+     *            the generic type
+     * @param iface
+     *            the iface
+     * @return null
+     * @throws SQLException
+     *             the sQL exception
+     */
+    @Override
+    public <T> T unwrap( Class<T> iface ) throws SQLException
+    {
+        return null;
+    }
+
+    /**
+     * Get the wrapper.
+     *
+     * @param iface
+     *            the iface
+     * @return false
+     * @throws SQLException
+     *             the sQL exception
+     */
+    @Override
+    public boolean isWrapperFor( Class<?> iface ) throws SQLException
+    {
+        return false;
+    }
+
+    /**
+     * Implementation of JDBC 4.1's getParentLogger method (Java 7)
+     *
+     * @return the parent logger
+     */
+    @Override
+    public java.util.logging.Logger getParentLogger( )
+    {
+        return java.util.logging.Logger.getLogger( java.util.logging.Logger.GLOBAL_LOGGER_NAME );
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.pool.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+/**
+ * Connection Service based on {@link ConcurrentConnectionPool}. <br>
+ * Besides the parameters of {@link LuteceConnectionService}, the pool accepts the parameters <code>validationinterval</code> (delay in seconds between two
+ * validations of the idle connections, default 30, 0 to disable) and <code>validationtimeout</code> (timeout in seconds of the validation of a connection,
+ * default 2). The parameter <code>checkvalidconnectionsql</code> is ignored : connections are validated using the JDBC driver.
+ */
+public class ConcurrentConnectionService extends AbstractLuteceConnectionService
+{
+    private static final int DEFAULT_VALIDATION_INTERVAL = 30;
+    private static final int DEFAULT_VALIDATION_TIMEOUT = 2;
+    private ConcurrentConnectionPool _connPool;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void initPool( Map<String, String> htParamsConnectionPool, String strUrl, String strUser, String strPassword, int nMaxConns,
+            int nInitConns, int nTimeOut )
+    {
+        int validationInterval = getIntParameter( htParamsConnectionPool, ".validationinterval", DEFAULT_VALIDATION_INTERVAL );
+        int validationTimeOut = getIntParameter( htParamsConnectionPool, ".validationtimeout", DEFAULT_VALIDATION_TIMEOUT );
+
+        _connPool = new ConcurrentConnectionPool( getPoolName( ), strUrl, strUser, strPassword, nMaxConns, nInitConns, nTimeOut, validationInterval,
+                validationTimeOut, getLogger( ) );
+    }
+
+    /**
+     * Get a connection
+     * 
+     * @return A connection
+     */
+    @Override
+    public Connection getConnection( )
+    {
+        try
+        {
+            return _connPool.getConnection( );
+        }
+        catch( SQLException e )
+        {
+            getLogger( ).error( e.getMessage( ), e );
+
+            return null;
+        }
+    }
+
+    /**
+     * Free the connection
+     * 
+     * @param conn
+     *            The connection to release
+     */
+    @Override
+    public void freeConnection( Connection conn )
+    {
+        _connPool.freeConnection( conn );
+    }
+
+    /**
+     * Release the pool
+     */
+    @Override
+    public void release( )
+    {
+        _connPool.release( );
+    }
+
+    /**
+     * Returns the connection pool
+     * 
+     * @return the connection pool
+     */
+    public ConcurrentConnectionPool getConnectionPool( )
+    {
+        return _connPool;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getCurrentConnections( )
+    {
+        return _connPool.getConnectionCount( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMaxConnections( )
+    {
+        return _connPool.getMaxConnectionCount( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getPoolProvider( )
+    {
+        return "Lutece Concurrent";
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public DataSource getDataSource( )
+    {
+        return getConnectionPool( );
+    }
+}
@@ -37,6 +37,8 @@ import java.lang.reflect.Proxy;
 
 import java.sql.Connection;
 
+import java.util.function.Consumer;
+
 /**
  *
  * Factory to create LuteceConnection
@@ -72,4 +74,19 @@ public final class LuteceConnectionFactory
         return (LuteceConnection) Proxy.newProxyInstance( LuteceConnection.class.getClassLoader( ), PROXY_INTERFACES,
                 new LuteceConnectionProxy( pool, connection ) );
     }
+
+    /**
+     * Builds a new proxied instance of the connection for a pool other than {@link ConnectionPool}
+     * 
+     * @param releaser
+     *            the function returning the connection to its pool when the connection is closed
+     * @param connection
+     *            the actual connection
+     * @return a proxy implementing {@link LuteceConnection}
+     */
+    static LuteceConnection newInstance( Consumer<Connection> releaser, Connection connection )
+    {
+        return (LuteceConnection) Proxy.newProxyInstance( LuteceConnection.class.getClassLoader( ), PROXY_INTERFACES,
+                new LuteceConnectionProxy( releaser, connection ) );
+    }
 }
@@ -39,6 +39,8 @@ import java.lang.reflect.Method;
 
 import java.sql.Connection;
 
+import java.util.function.Consumer;
+
 /**
  *
  * LuteceConnectionProxy : proxy implementation of {@link LuteceConnection} This class should be removed when java5 support is dropped.
@@ -55,11 +57,11 @@ public class LuteceConnectionProxy implements InvocationHandler
      * Close connection method name (from {@link LuteceConnection}
      */
     private static final String METHOD_CLOSE_CONNECTION = "closeConnection";
-    private ConnectionPool _pool;
+    private Consumer<Connection> _releaser;
     private Connection _connection;
 
     /**
-     * Private constructor
+     * Creates a proxy returning the connection to a {@link ConnectionPool}
      * 
      * @param pool
      *            the pool to use
@@ -68,7 +70,20 @@ public class LuteceConnectionProxy implements InvocationHandler
      */
     LuteceConnectionProxy( ConnectionPool pool, Connection connection )
     {
-        _pool = pool;
+        this( pool::freeConnection, connection );
+    }
+
+    /**
+     * Creates a proxy returning the connection to its pool with the given function
+     * 
+     * @param releaser
+     *            the function returning the connection to its pool
+     * @param connection
+     *            the actual connection
+     */
+    LuteceConnectionProxy( Consumer<Connection> releaser, Connection connection )
+    {
+        _releaser = releaser;
         _connection = connection;
     }
 
@@ -92,7 +107,7 @@ public class LuteceConnectionProxy implements InvocationHandler
 
         if ( METHOD_CLOSE.equals( method.getName( ) ) )
         {
-            _pool.freeConnection( (Connection) proxy );
+            _releaser.accept( (Connection) proxy );
             oReturn = null;
         }
         else
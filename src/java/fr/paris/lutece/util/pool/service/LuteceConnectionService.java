@@ -33,147 +33,32 @@
  */
 package fr.paris.lutece.util.pool.service;
 
-import fr.paris.lutece.util.env.EnvUtil;
-
 import java.sql.Connection;
-import java.sql.Driver;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 import java.util.Map;
 
 import javax.sql.DataSource;
 
-import org.apache.logging.log4j.Logger;
-
 /**
  * Lutece Connection Service
  */
-public class LuteceConnectionService implements ConnectionService
+public class LuteceConnectionService extends AbstractLuteceConnectionService
 {
-    private String _strPoolName;
-    private Logger _logger;
     private ConnectionPool _connPool;
 
     /**
-     * Sets the pool name
-     * 
-     * @param strPoolName
-     *            The pool name
-     */
-    @Override
-    public void setPoolName( String strPoolName )
-    {
-        _strPoolName = strPoolName;
-    }
-
-    /**
-     * Returns the pool name
-     * 
-     * @return The pool name
-     */
-    @Override
-    public String getPoolName( )
-    {
-        return _strPoolName;
-    }
-
-    /**
-     * Sets the logger
-     * 
-     * @param logger
-     *            The logger
-     */
-    @Override
-    public void setLogger( Logger logger )
-    {
-        _logger = logger;
-    }
-
-    /**
-     * Gets the pool logger
-     * 
-     * @return The logger
-     */
-    @Override
-    public Logger getLogger( )
-    {
-        return _logger;
-    }
-
-    /**
-     * Initializes the connection pool
-     * 
-     * @param htParamsConnectionPool
-     *            Pool parameters
+     * {@inheritDoc}
      */
     @Override
-    public void init( Map<String, String> htParamsConnectionPool )
+    protected void initPool( Map<String, String> htParamsConnectionPool, String strUrl, String strUser, String strPassword, int nMaxConns,
+            int nInitConns, int nTimeOut )
     {
-        String url = htParamsConnectionPool.get( getPoolName( ) + ".url" );
-
-        if ( url == null )
-        {
-            _logger.error( "No URL specified for the pool {}", getPoolName( ) );
-        }
-        else
-        {
-            url = EnvUtil.evaluate( url, EnvUtil.PREFIX_ENV );
-        }
-
-        String user = htParamsConnectionPool.get( getPoolName( ) + ".user" );
-
-        if ( user == null )
-        {
-            _logger.error( "No user specified for the pool {}", getPoolName( ) );
-        }
-        else
-        {
-            user = EnvUtil.evaluate( user, EnvUtil.PREFIX_ENV );
-        }
-
-        String password = htParamsConnectionPool.get( getPoolName( ) + ".password" );
-
-        if ( password == null )
-        {
-            _logger.error( "No password specified for the pool " + getPoolName( ) );
-        }
-        else
-        {
-            password = EnvUtil.evaluate( password, EnvUtil.PREFIX_ENV );
-        }
-
-        // load of the driver
-        String strDiverClassName = htParamsConnectionPool.get( getPoolName( ) + ".driver" );
-
-        try
-        {
-            Driver driver = (Driver) Class.forName( strDiverClassName ).newInstance( );
-            DriverManager.registerDriver( driver );
-            _logger.info( "Registered JDBC driver {}", strDiverClassName );
-        }
-        catch( NullPointerException e )
-        {
-            _logger.error( "Can't register JDBC driver: {} because the property driver is not defined", strDiverClassName, e );
-        }
-        catch( Exception e )
-        {
-            _logger.error( "Can't register JDBC driver: {}", strDiverClassName, e );
-        }
-
-        int maxConns = ( htParamsConnectionPool.get( getPoolName( ) + ".maxconns" ) == null ) ? 0
-                : Integer.parseInt( htParamsConnectionPool.get( getPoolName( ) + ".maxconns" ) );
-
-        int initConns = ( htParamsConnectionPool.get( getPoolName( ) + ".initconns" ) == null ) ? 0
-                : Integer.parseInt( htParamsConnectionPool.get( getPoolName( ) + ".initconns" ) );
-
-        int timeOut = ( htParamsConnectionPool.get( getPoolName( ) + ".logintimeout" ) == null ) ? 5
-                : Integer.parseInt( htParamsConnectionPool.get( getPoolName( ) + ".logintimeout" ) );
-
         String checkValidConnectionSql = ( htParamsConnectionPool.get( getPoolName( ) + ".checkvalidconnectionsql" ) == null ) ? ""
                 : htParamsConnectionPool.get( getPoolName( ) + ".checkvalidconnectionsql" );
 
-        _connPool = new ConnectionPool( getPoolName( ), url, user, password, maxConns, initConns, timeOut, _logger, checkValidConnectionSql );
+        _connPool = new ConnectionPool( getPoolName( ), strUrl, strUser, strPassword, nMaxConns, nInitConns, nTimeOut, getLogger( ),
+                checkValidConnectionSql );
     }
 
     /**
@@ -190,7 +75,7 @@ public class LuteceConnectionService implements ConnectionService
         }
         catch( SQLException e )
         {
-            _logger.error( e.getMessage( ), e );
+            getLogger( ).error( e.getMessage( ), e );
 
             return null;
         }
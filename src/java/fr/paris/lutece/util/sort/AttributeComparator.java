@@ -34,13 +34,15 @@
 package fr.paris.lutece.util.sort;
 
 import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.util.bean.PropertyAccessor;
 
 import java.io.Serializable;
 
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -92,19 +94,19 @@ public class AttributeComparator implements Comparator<Object>, Serializable
     {
         int nStatus = 0;
 
-        Method method1 = getMethod( o1 );
-        Method method2 = getMethod( o2 );
+        PropertyAccessor accessor1 = getAccessor( o1 );
+        PropertyAccessor accessor2 = getAccessor( o2 );
 
-        if ( method1 == null || method2 == null || method1.getReturnType( ) != method2.getReturnType( ) )
+        if ( accessor1 == null || accessor2 == null || accessor1.getReturnType( ) != accessor2.getReturnType( ) )
         {
             return 0;
         }
 
         try
         {
-            nStatus = compareReturnTypes( o1, o2, method1, method2 );
+            nStatus = compareValues( accessor1.getValue( o1 ), accessor2.getValue( o2 ), accessor1.getReturnType( ) );
         }
-        catch( IllegalArgumentException | IllegalAccessException | InvocationTargetException e )
+        catch( InvocationTargetException e )
         {
             AppLogService.error( e.getMessage( ), e );
         }
@@ -117,14 +119,72 @@ public class AttributeComparator implements Comparator<Object>, Serializable
         return nStatus;
     }
 
-    private int compareReturnTypes( Object o1, Object o2, Method method1, Method method2 ) throws IllegalAccessException, InvocationTargetException
+    /**
+     * Sort a list the same way as this comparator, but reading the sorted attribute of each object only once.
+     * 
+     * @param <T>
+     *            The type of the objects
+     * @param list
+     *            The list to sort
+     * @since 7.0.11
+     */
+    public <T> void sort( List<T> list )
     {
-        int nStatus = 0;
-        Object oRet1 = method1.invoke( o1 );
-        Object oRet2 = method2.invoke( o2 );
+        List<SortKey<T>> listKeys = new ArrayList<>( list.size( ) );
+
+        for ( T item : list )
+        {
+            PropertyAccessor accessor = getAccessor( item );
+            Object value = null;
+
+            if ( accessor != null )
+            {
+                try
+                {
+                    value = accessor.getValue( item );
+                }
+                catch( InvocationTargetException e )
+                {
+                    // Same as a comparison failure : the object is considered equal to the others
+                    accessor = null;
+                    AppLogService.error( e.getMessage( ), e );
+                }
+            }
+
+            listKeys.add( new SortKey<>( item, accessor, value ) );
+        }
+
+        listKeys.sort( ( key1, key2 ) -> {
+            if ( key1._accessor == null || key2._accessor == null || key1._accessor.getReturnType( ) != key2._accessor.getReturnType( ) )
+            {
+                return 0;
+            }
+
+            int nStatus = compareValues( key1._value, key2._value, key1._accessor.getReturnType( ) );
+
+            return _bIsASC ? nStatus : ( nStatus * ( -1 ) );
+        } );
+
+        for ( int i = 0; i < listKeys.size( ); i++ )
+        {
+            list.set( i, listKeys.get( i )._item );
+        }
+    }
 
-        String strReturnType = method1.getReturnType( ).getName( );
-        Class<?> returnType = method1.getReturnType( );
+    /**
+     * Compare two attribute values
+     * 
+     * @param oRet1
+     *            The first value
+     * @param oRet2
+     *            The second value
+     * @param returnType
+     *            The type of the attribute
+     * @return the comparison of the values, in the ascending order
+     */
+    private int compareValues( Object oRet1, Object oRet2, Class<?> returnType )
+    {
+        int nStatus = 0;
 
         if ( oRet1 == null )
         {
@@ -145,7 +205,7 @@ public class AttributeComparator implements Comparator<Object>, Serializable
             }
             else
             {
-                if ( strReturnType.equals( "java.lang.String" ) )
+                if ( returnType == String.class )
                 {
                     nStatus = ( (String) oRet1 ).toLowerCase( Locale.ENGLISH ).compareTo( ( (String) oRet2 ).toLowerCase( Locale.ENGLISH ) );
                 }
@@ -166,29 +226,27 @@ public class AttributeComparator implements Comparator<Object>, Serializable
     }
 
     /**
-     * Return the getter method of the object obj for the attribute _strSortedAttribute
+     * Return the getter of the object obj for the attribute _strSortedAttribute
      * 
      * @param obj
      *            the object
-     * @return method Method of the object obj for the attribute _strSortedAttribute
+     * @return the accessor of the attribute _strSortedAttribute, or null if the object has no such getter
      */
-    private Method getMethod( Object obj )
+    private PropertyAccessor getAccessor( Object obj )
     {
-        Method method = null;
-        String strFirstLetter = _strSortedAttribute.substring( 0, 1 ).toUpperCase( );
-
-        String strMethodName = "get" + strFirstLetter + _strSortedAttribute.substring( 1, _strSortedAttribute.length( ) );
-
-        try
+        if ( obj == null )
         {
-            method = obj.getClass( ).getMethod( strMethodName );
+            return null;
         }
-        catch( Exception e )
+
+        PropertyAccessor accessor = PropertyAccessor.getAccessor( obj.getClass( ), _strSortedAttribute, PropertyAccessor.PREFIX_GET );
+
+        if ( accessor == null )
         {
-            AppLogService.error( e.getMessage( ), e );
+            AppLogService.error( "No getter found for the attribute {} of the class {}", _strSortedAttribute, obj.getClass( ).getName( ) );
         }
 
-        return method;
+        return accessor;
     }
 
     /**
@@ -219,4 +277,34 @@ public class AttributeComparator implements Comparator<Object>, Serializable
 
         return false;
     }
+
+    /**
+     * An object to sort with the value of its sorted attribute
+     * 
+     * @param <T>
+     *            The type of the object
+     */
+    private static final class SortKey<T>
+    {
+        private final T _item;
+        private final PropertyAccessor _accessor;
+        private final Object _value;
+
+        /**
+         * Constructor
+         * 
+         * @param item
+         *            The object
+         * @param accessor
+         *            The accessor of the sorted attribute
+         * @param value
+         *            The value of the sorted attribute
+         */
+        SortKey( T item, PropertyAccessor accessor, Object value )
+        {
+            _item = item;
+            _accessor = accessor;
+            _value = value;
+        }
+    }
 }
@@ -35,16 +35,17 @@ package fr.paris.lutece.util.xml;
 
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.util.cache.BoundedCache;
 
 import java.io.StringWriter;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
@@ -57,26 +58,38 @@ import javax.xml.transform.TransformerFactoryConfigurationError;
 import javax.xml.transform.stream.StreamResult;
 
 /**
- * This class provides methods to transform XML documents using XSLT with cache
+ * This class provides methods to transform XML documents using XSLT with cache.
+ *
+ * Compiled stylesheets ( {@link Templates} ) are thread-safe : each stylesheet is compiled once and the same instance is shared by all the threads. The
+ * cache is bounded and the least recently used stylesheets are evicted first. Reading the cache takes no lock.
  */
 public final class XmlTransformer
 {
     private static final String ERROR_MESSAGE_XLST = "Error transforming document XSLT : ";
+
+    /**
+     * @deprecated the templates are now shared between threads, use {@link #PROPERTY_TEMPLATES_CACHE_SIZE}
+     */
+    @Deprecated
     public static final String PROPERTY_TRANSFORMER_POOL_SIZE = "service.xmlTransformer.transformerPoolSize";
+
+    /**
+     * @deprecated the templates are now shared between threads, use {@link #TEMPLATES_CACHE_SIZE}
+     */
+    @Deprecated
     public static final int TRANSFORMER_POOL_SIZE = AppPropertiesService.getPropertyInt( PROPERTY_TRANSFORMER_POOL_SIZE, 2 );
     public static final int MAX_TRANSFORMER_SIZE = 1000;
-    private static final List<ConcurrentMap<String, Templates>> transformersPoolList = new ArrayList<>( TRANSFORMER_POOL_SIZE );
-
-    static
-    {
-        for ( int i = 0; i < TRANSFORMER_POOL_SIZE; i++ )
-        {
-            transformersPoolList.add( new ConcurrentHashMap<String, Templates>( MAX_TRANSFORMER_SIZE ) );
-        }
-    }
+    public static final String PROPERTY_TEMPLATES_CACHE_SIZE = "service.xmlTransformer.templatesCacheSize";
+    public static final int TEMPLATES_CACHE_SIZE = AppPropertiesService.getPropertyInt( PROPERTY_TEMPLATES_CACHE_SIZE,
+            ( TRANSFORMER_POOL_SIZE > 0 ) ? MAX_TRANSFORMER_SIZE : 0 );
+    private static final BoundedCache<String, Templates> _cacheTemplates = new BoundedCache<>( TEMPLATES_CACHE_SIZE );
+    private static final ConcurrentMap<String, Object> _mapCompileLocks = new ConcurrentHashMap<>( );
+    private static final AtomicLong _lHitCount = new AtomicLong( );
+    private static final AtomicLong _lCompileCount = new AtomicLong( );
 
     /**
-     * This method try to get a templates instance from cache or create a new one if can't.
+     * This method gets the compiled templates from cache or compiles the stylesheet if it is not yet cached. Concurrent requests for the same stylesheet
+     * wait for a single compilation.
      *
      * Previously (before 6.0.0) it returned directly a transformer, now it returns a templates which can create transformers cheaply.
      * 
@@ -89,42 +102,49 @@ public final class XmlTransformer
      */
     private Templates getTemplates( Source stylesheet, String strStyleSheetId ) throws TransformerException
     {
-        Templates result = null;
+        if ( ( TEMPLATES_CACHE_SIZE <= 0 ) || ( strStyleSheetId == null ) )
+        {
+            return compileTemplates( stylesheet, strStyleSheetId );
+        }
+
+        Templates result = getCachedTemplates( strStyleSheetId );
 
-        if ( TRANSFORMER_POOL_SIZE > 0 )
+        if ( result != null )
         {
-            int nTransformerListIndex = 0;
+            return result;
+        }
 
-            do
-            {
-                result = transformersPoolList.get( nTransformerListIndex ).remove( strStyleSheetId );
-                nTransformerListIndex++;
-            }
-            while ( ( result == null ) && ( nTransformerListIndex < TRANSFORMER_POOL_SIZE ) );
+        Object newLock = new Object( );
+        Object lock = _mapCompileLocks.putIfAbsent( strStyleSheetId, newLock );
+        boolean bOwner = lock == null;
+
+        if ( bOwner )
+        {
+            lock = newLock;
         }
 
-        if ( result == null )
+        try
         {
-            // only one thread can use transformer
-            try
-            {
-                result = TransformerFactory.newInstance( ).newTemplates( stylesheet );
-                AppLogService.debug( " --  XML Templates instantiation : strStyleSheetId= {}", strStyleSheetId );
-            }
-            catch( TransformerConfigurationException e )
+            synchronized( lock )
             {
-                String strMessage = e.getMessage( );
+                // The stylesheet may have been compiled by another thread while waiting
+                result = getCachedTemplates( strStyleSheetId );
 
-                if ( e.getLocationAsString( ) != null )
+                if ( result == null )
                 {
-                    strMessage += ( "- location : " + e.getLocationAsString( ) );
+                    // a stylesheet invalidated during its compilation is not cached
+                    long lGeneration = _cacheTemplates.getGeneration( strStyleSheetId );
+                    result = compileTemplates( stylesheet, strStyleSheetId );
+                    _cacheTemplates.put( strStyleSheetId, result, lGeneration );
                 }
-
-                throw new TransformerException( ERROR_MESSAGE_XLST + strMessage, e.getCause( ) );
             }
-            catch( TransformerFactoryConfigurationError e )
+        }
+        finally
+        {
+            // only the thread that created the lock removes it : the threads waiting for it still share it with the new ones
+            if ( bOwner )
             {
-                throw new TransformerException( ERROR_MESSAGE_XLST + e.getMessage( ), e );
+                _mapCompileLocks.remove( strStyleSheetId, lock );
             }
         }
 
@@ -132,69 +152,135 @@ public final class XmlTransformer
     }
 
     /**
-     * Remove all Templates instance from cache. Previously (before 6.0.0) the cache stored transformers, now it stores templates.
+     * Gets the cached templates of a stylesheet
+     * 
+     * @param strStyleSheetId
+     *            The StyleSheet Id
+     * @return The templates or null if the stylesheet is not cached
      */
-    public static void cleanTransformerList( )
+    private static Templates getCachedTemplates( String strStyleSheetId )
     {
-        for ( ConcurrentMap<String, Templates> transformerList : transformersPoolList )
+        Templates result = _cacheTemplates.get( strStyleSheetId );
+
+        if ( result != null )
         {
-            transformerList.clear( );
+            _lHitCount.incrementAndGet( );
         }
+
+        return result;
     }
 
     /**
-     * Gets the number of templates. Previously (before 6.0.0) the cache stored transformers, now it stores templates.
+     * Compiles a stylesheet
      * 
-     * @return the transformers count
+     * @param stylesheet
+     *            The XSL source
+     * @param strStyleSheetId
+     *            The StyleSheet Id
+     * @return The compiled templates
+     * @throws TransformerException
+     *             if the stylesheet can't be compiled
      */
-    public static int getTransformersCount( )
+    private static Templates compileTemplates( Source stylesheet, String strStyleSheetId ) throws TransformerException
     {
-        int nCount = 0;
+        try
+        {
+            // the factory isn't thread-safe and the compilations are rare : a factory is created for each one
+            Templates result = TransformerFactory.newInstance( ).newTemplates( stylesheet );
+            _lCompileCount.incrementAndGet( );
+            AppLogService.debug( " --  XML Templates instantiation : strStyleSheetId= {}", strStyleSheetId );
 
-        for ( ConcurrentMap<String, Templates> transformerList : transformersPoolList )
+            return result;
+        }
+        catch( TransformerConfigurationException e )
         {
-            nCount += transformerList.size( );
+            String strMessage = e.getMessage( );
+
+            if ( e.getLocationAsString( ) != null )
+            {
+                strMessage += ( "- location : " + e.getLocationAsString( ) );
+            }
+
+            throw new TransformerException( ERROR_MESSAGE_XLST + strMessage, e.getCause( ) );
+        }
+        catch( TransformerFactoryConfigurationError e )
+        {
+            throw new TransformerException( ERROR_MESSAGE_XLST + e.getMessage( ), e );
         }
+    }
 
-        return nCount;
+    /**
+     * Remove all Templates instance from cache. Previously (before 6.0.0) the cache stored transformers, now it stores templates.
+     */
+    public static void cleanTransformerList( )
+    {
+        _cacheTemplates.clear( );
     }
 
     /**
-     * Release Transformer instance in cache. Previously (before 6.0.0) the cache stored transformers, now it stores templates.
+     * Remove the Templates of a given stylesheet from cache
      * 
-     * @param templates
-     *            The XML templates
      * @param strStyleSheetId
      *            The StyleSheet Id
+     * @since 7.0.11
      */
-    private void releaseTemplates( Templates templates, String strStyleSheetId )
+    public static void removeTemplates( String strStyleSheetId )
     {
-        if ( TRANSFORMER_POOL_SIZE > 0 )
-        {
-            Templates result = null;
-            ConcurrentMap<String, Templates> transformerList = null;
-            int nTransformerListIndex = 0;
+        _cacheTemplates.remove( strStyleSheetId );
+    }
 
-            do
-            {
-                transformerList = transformersPoolList.get( nTransformerListIndex );
-                nTransformerListIndex++;
+    /**
+     * Gets the number of templates. Previously (before 6.0.0) the cache stored transformers, now it stores templates.
+     * 
+     * @return the transformers count
+     */
+    public static int getTransformersCount( )
+    {
+        return _cacheTemplates.size( );
+    }
 
-                // This set of action is not performed atomically but it can not cause problems
-                if ( transformerList.size( ) < MAX_TRANSFORMER_SIZE )
-                {
-                    result = transformerList.putIfAbsent( strStyleSheetId, templates );
-                }
-                else
-                {
-                    // Aggressive release ( speed up GC )
-                    transformerList.clear( );
+    /**
+     * Gets the ids of the cached stylesheets, from the least to the most recently used
+     * 
+     * @return The list of stylesheet ids
+     * @since 7.0.11
+     */
+    public static List<String> getStyleSheetIds( )
+    {
+        return _cacheTemplates.getKeys( );
+    }
 
-                    AppLogService.info( "XmlTransformer : cache is full, you may need to increase cache size." );
-                }
-            }
-            while ( ( result != null ) && ( nTransformerListIndex < TRANSFORMER_POOL_SIZE ) );
-        }
+    /**
+     * Gets the number of transformations served by an already compiled stylesheet
+     * 
+     * @return The hit count
+     * @since 7.0.11
+     */
+    public static long getHitCount( )
+    {
+        return _lHitCount.get( );
+    }
+
+    /**
+     * Gets the number of stylesheet compilations
+     * 
+     * @return The compile count
+     * @since 7.0.11
+     */
+    public static long getCompileCount( )
+    {
+        return _lCompileCount.get( );
+    }
+
+    /**
+     * Gets the number of compiled stylesheets evicted because the cache was full
+     * 
+     * @return The eviction count
+     * @since 7.0.11
+     */
+    public static long getEvictionCount( )
+    {
+        return _cacheTemplates.getEvictionCount( );
     }
 
     /**
@@ -253,10 +339,6 @@ public final class XmlTransformer
 
             throw new TransformerException( ERROR_MESSAGE_XLST + strMessage, e.getCause( ) );
         }
-        finally
-        {
-            this.releaseTemplates( templates, strStyleSheetId );
-        }
 
         return sw.toString( );
     }
@@ -135,6 +135,22 @@ CREATE TABLE core_admin_workgroup_user (
 	PRIMARY KEY (workgroup_key,id_user)
 );
 
+--
+-- Table structure for table core_cache_invalidation
+--
+DROP TABLE IF EXISTS core_cache_invalidation;
+CREATE TABLE core_cache_invalidation (
+	id_invalidation int AUTO_INCREMENT NOT NULL,
+	node_id varchar(100) NOT NULL,
+	entity_type varchar(100) NOT NULL,
+	entity_id varchar(255) default NULL,
+	event_type int default 0 NOT NULL,
+	date_creation timestamp default CURRENT_TIMESTAMP NOT NULL,
+	PRIMARY KEY (id_invalidation)
+);
+
+CREATE INDEX index_cache_invalidation_date ON core_cache_invalidation (date_creation);
+
 --
 -- Table structure for table core_connections_log
 --
@@ -192,9 +208,22 @@ CREATE TABLE core_file (
 	mime_type VARCHAR(255) DEFAULT NULL,
 	date_creation timestamp default NULL NULL,
 	origin VARCHAR(255) DEFAULT NULL,
+	content_hash VARCHAR(64) DEFAULT NULL,
 	PRIMARY KEY (id_file)
 );
 
+CREATE INDEX index_file_content_hash ON core_file (content_hash);
+
+--
+-- Table structure for table core_file_content
+--
+DROP TABLE IF EXISTS core_file_content;
+CREATE TABLE core_file_content (
+	content_hash VARCHAR(64) NOT NULL,
+	date_lock timestamp default NULL NULL,
+	PRIMARY KEY (content_hash)
+);
+
 --
 -- Table structure for table core_indexer_action
 --
@@ -242,6 +271,29 @@ CREATE TABLE core_mail_item (
 	PRIMARY KEY (id_mail_queue)
 );
 
+--
+-- Table structure for table core_mail_attachment
+--
+DROP TABLE IF EXISTS core_mail_attachment;
+CREATE TABLE core_mail_attachment (
+	content_hash varchar(64) NOT NULL,
+	attachment_data long varbinary,
+	last_used timestamp NULL,
+	PRIMARY KEY (content_hash)
+);
+
+--
+-- Table structure for table core_mail_item_attachment
+--
+DROP TABLE IF EXISTS core_mail_item_attachment;
+CREATE TABLE core_mail_item_attachment (
+	id_mail_queue int default 0 NOT NULL,
+	content_hash varchar(64) NOT NULL,
+	PRIMARY KEY (id_mail_queue, content_hash)
+);
+
+CREATE INDEX index_mail_item_attachment_hash ON core_mail_item_attachment (content_hash);
+
 
 --
 -- Table structure for table core_mode
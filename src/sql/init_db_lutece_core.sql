@@ -249,9 +249,9 @@ INSERT INTO core_admin_mailinglist (name,description,workgroup) VALUES( 'admin',
 INSERT INTO core_admin_mailinglist_filter VALUES( '1', 'all', 'super_admin' );
 
 INSERT INTO core_xsl_export VALUES (125,'Core - Export users to a CSV file','Export back office users to a CSV file','csv',125,'core');
-INSERT INTO core_file VALUES (125,'export_users_csv.xml',125,2523,'application/xml','2005-10-10 10:10:10','INIT_CORE');
+INSERT INTO core_file VALUES (125,'export_users_csv.xml',125,2523,'application/xml','2005-10-10 10:10:10','INIT_CORE',NULL);
 INSERT INTO core_physical_file VALUES (125,0x3C3F786D6C2076657273696F6E3D22312E30223F3E0D0A3C78736C3A7374796C6573686565742076657273696F6E3D22312E302220786D6C6E733A78736C3D22687474703A2F2F7777772E77332E6F72672F313939392F58534C2F5472616E73666F726D223E0D0A093C78736C3A6F7574707574206D6574686F643D2274657874222F3E0D0A090D0A093C78736C3A74656D706C617465206D617463683D227573657273223E0D0A09093C78736C3A6170706C792D74656D706C617465732073656C6563743D227573657222202F3E0D0A093C2F78736C3A74656D706C6174653E0D0A090D0A093C78736C3A74656D706C617465206D617463683D2275736572223E0D0A09093C78736C3A746578743E223C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D226163636573735F636F646522202F3E0D0A09093C78736C3A746578743E223B223C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D226C6173745F6E616D6522202F3E0D0A09093C78736C3A746578743E223B223C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D2266697273745F6E616D6522202F3E0D0A09093C78736C3A746578743E223B223C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D22656D61696C22202F3E0D0A09093C78736C3A746578743E223B223C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D2273746174757322202F3E0D0A09093C78736C3A746578743E223B223C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D226C6F63616C6522202F3E0D0A09093C78736C3A746578743E223B223C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D226C6576656C22202F3E0D0A09093C78736C3A746578743E223B223C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D226D7573745F6368616E67655F70617373776F726422202F3E0D0A09093C78736C3A746578743E223B223C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D226163636573736962696C6974795F6D6F646522202F3E0D0A09093C78736C3A746578743E223B223C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D2270617373776F72645F6D61785F76616C69645F6461746522202F3E0D0A09093C78736C3A746578743E223B223C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D226163636F756E745F6D61785F76616C69645F6461746522202F3E0D0A09093C78736C3A746578743E223B223C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D22646174655F6C6173745F6C6F67696E22202F3E0D0A09093C78736C3A746578743E223C2F78736C3A746578743E0D0A09093C78736C3A6170706C792D74656D706C617465732073656C6563743D22726F6C657322202F3E0D0A09093C78736C3A6170706C792D74656D706C617465732073656C6563743D2272696768747322202F3E0D0A09093C78736C3A6170706C792D74656D706C617465732073656C6563743D22776F726B67726F75707322202F3E0D0A09093C78736C3A6170706C792D74656D706C617465732073656C6563743D226174747269627574657322202F3E0D0A09093C78736C3A746578743E262331303B3C2F78736C3A746578743E0D0A093C2F78736C3A74656D706C6174653E0D0A090D0A093C78736C3A74656D706C617465206D617463683D22726F6C6573223E0D0A09093C78736C3A6170706C792D74656D706C617465732073656C6563743D22726F6C6522202F3E0D0A093C2F78736C3A74656D706C6174653E0D0A090D0A093C78736C3A74656D706C617465206D617463683D22726F6C65223E0D0A09093C78736C3A746578743E3B22726F6C653A3C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D2263757272656E74282922202F3E0D0A09093C78736C3A746578743E223C2F78736C3A746578743E0D0A093C2F78736C3A74656D706C6174653E0D0A090D0A093C78736C3A74656D706C617465206D617463683D22726967687473223E0D0A09093C78736C3A6170706C792D74656D706C617465732073656C6563743D22726967687422202F3E0D0A093C2F78736C3A74656D706C6174653E0D0A090D0A093C78736C3A74656D706C617465206D617463683D227269676874223E0D0A09093C78736C3A746578743E3B2272696768743A3C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D2263757272656E74282922202F3E0D0A09093C78736C3A746578743E223C2F78736C3A746578743E0D0A093C2F78736C3A74656D706C6174653E0D0A090D0A093C78736C3A74656D706C617465206D617463683D22776F726B67726F757073223E0D0A09093C78736C3A6170706C792D74656D706C617465732073656C6563743D22776F726B67726F757022202F3E0D0A093C2F78736C3A74656D706C6174653E0D0A090D0A093C78736C3A74656D706C617465206D617463683D22776F726B67726F7570223E0D0A09093C78736C3A746578743E3B22776F726B67726F75703A3C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D2263757272656E74282922202F3E0D0A09093C78736C3A746578743E223C2F78736C3A746578743E0D0A093C2F78736C3A74656D706C6174653E0D0A090D0A093C78736C3A74656D706C617465206D617463683D2261747472696275746573223E0D0A09093C78736C3A6170706C792D74656D706C617465732073656C6563743D2261747472696275746522202F3E0D0A093C2F78736C3A74656D706C6174653E0D0A090D0A093C78736C3A74656D706C617465206D617463683D22617474726962757465223E0D0A09093C78736C3A746578743E3B223C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D226174747269627574652D696422202F3E0D0A09093C78736C3A746578743E3A3C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D226174747269627574652D6669656C642D696422202F3E0D0A09093C78736C3A746578743E3A3C2F78736C3A746578743E0D0A09093C78736C3A76616C75652D6F662073656C6563743D226174747269627574652D76616C756522202F3E0D0A09093C78736C3A746578743E223C2F78736C3A746578743E0D0A093C2F78736C3A74656D706C6174653E0D0A090D0A3C2F78736C3A7374796C6573686565743E);
 
 INSERT INTO core_xsl_export VALUES (126,'Core - Export users to a XML file','Export back office users to a XML file','xml',126,'core');
-INSERT INTO core_file VALUES (126,'export_users_xml.xml',126,259,'application/xml','2005-10-10 10:10:10','INIT_CORE');
+INSERT INTO core_file VALUES (126,'export_users_xml.xml',126,259,'application/xml','2005-10-10 10:10:10','INIT_CORE',NULL);
 INSERT INTO core_physical_file VALUES (126,0x3C3F786D6C2076657273696F6E3D22312E3022203F3E0D0A3C78736C3A7374796C6573686565742076657273696F6E3D22312E302220786D6C6E733A78736C3D22687474703A2F2F7777772E77332E6F72672F313939392F58534C2F5472616E73666F726D223E0D0A093C78736C3A74656D706C617465206D617463683D222F207C20402A207C206E6F64652829223E0D0A09093C78736C3A636F70793E0D0A0909093C78736C3A6170706C792D74656D706C617465732073656C6563743D22402A207C206E6F6465282922202F3E0D0A09093C2F78736C3A636F70793E0D0A093C2F78736C3A74656D706C6174653E0D0A3C2F78736C3A7374796C6573686565743E);
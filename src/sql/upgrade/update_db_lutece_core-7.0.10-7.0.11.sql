@@ -0,0 +1,44 @@
+--
+-- Content hash of the files stored by the file system file store provider
+--
+ALTER TABLE core_file ADD COLUMN content_hash VARCHAR(64) DEFAULT NULL;
+CREATE INDEX index_file_content_hash ON core_file (content_hash);
+
+CREATE TABLE core_file_content (
+	content_hash VARCHAR(64) NOT NULL,
+	date_lock timestamp default NULL NULL,
+	PRIMARY KEY (content_hash)
+);
+
+--
+-- Attachments shared by the mail items of the database queue
+--
+CREATE TABLE core_mail_attachment (
+	content_hash varchar(64) NOT NULL,
+	attachment_data long varbinary,
+	last_used timestamp NULL,
+	PRIMARY KEY (content_hash)
+);
+
+CREATE TABLE core_mail_item_attachment (
+	id_mail_queue int default 0 NOT NULL,
+	content_hash varchar(64) NOT NULL,
+	PRIMARY KEY (id_mail_queue, content_hash)
+);
+
+CREATE INDEX index_mail_item_attachment_hash ON core_mail_item_attachment (content_hash);
+
+--
+-- Cache invalidation log shared by the nodes of a cluster
+--
+CREATE TABLE core_cache_invalidation (
+	id_invalidation int AUTO_INCREMENT NOT NULL,
+	node_id varchar(100) NOT NULL,
+	entity_type varchar(100) NOT NULL,
+	entity_id varchar(255) default NULL,
+	event_type int default 0 NOT NULL,
+	date_creation timestamp default CURRENT_TIMESTAMP NOT NULL,
+	PRIMARY KEY (id_invalidation)
+);
+
+CREATE INDEX index_cache_invalidation_date ON core_cache_invalidation (date_creation);
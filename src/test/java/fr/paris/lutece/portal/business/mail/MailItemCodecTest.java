@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.mail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import fr.paris.lutece.portal.service.mail.MailItem;
+import fr.paris.lutece.test.LuteceTestCase;
+import fr.paris.lutece.util.mail.FileAttachment;
+import fr.paris.lutece.util.mail.UrlAttachment;
+
+public class MailItemCodecTest extends LuteceTestCase
+{
+    private static final int THRESHOLD = 1024;
+
+    private MailItem createMailItem( byte [ ] largeData ) throws IOException
+    {
+        MailItem mail = new MailItem( );
+        mail.setRecipientsTo( "user1@lutece.fr;user2@lutece.fr" );
+        mail.setSenderName( "Lutece" );
+        mail.setSenderEmail( "noreply@lutece.fr" );
+        mail.setSubject( "Subject" );
+        mail.setMessage( "<p>Message</p>" );
+        mail.setFormat( MailItem.FORMAT_MULTIPART_HTML );
+        mail.setUniqueRecipientTo( true );
+        mail.setUrlsAttachement( new ArrayList<>( Arrays.asList( new UrlAttachment( "logo", new URL( "http://localhost/logo.png" ) ) ) ) );
+        mail.setFilesAttachement( new ArrayList<>( Arrays.asList( new FileAttachment( "large.bin", largeData, "application/octet-stream" ),
+                new FileAttachment( "small.txt", "small".getBytes( ), "text/plain" ),
+                new FileAttachment( "copy.bin", largeData.clone( ), "application/octet-stream" ) ) ) );
+
+        return mail;
+    }
+
+    public void testEncodeDecode( ) throws IOException
+    {
+        byte [ ] largeData = new byte [ 4 * THRESHOLD];
+        Arrays.fill( largeData, (byte) 7 );
+        MailItem mail = createMailItem( largeData );
+
+        Map<String, byte [ ]> mapReferencedData = new HashMap<>( );
+        byte [ ] encoded = MailItemCodec.encode( mail, THRESHOLD, mapReferencedData );
+
+        // both copies of the large attachment share the same reference
+        assertEquals( 1, mapReferencedData.size( ) );
+
+        MailItem decoded = MailItemCodec.decode( new ByteArrayInputStream( encoded ), mapReferencedData::get );
+
+        assertEquals( mail.getRecipientsTo( ), decoded.getRecipientsTo( ) );
+        assertNull( decoded.getRecipientsCc( ) );
+        assertEquals( mail.getSenderName( ), decoded.getSenderName( ) );
+        assertEquals( mail.getMessage( ), decoded.getMessage( ) );
+        assertEquals( MailItem.FORMAT_MULTIPART_HTML, decoded.getFormat( ) );
+        assertTrue( decoded.isUniqueRecipientTo( ) );
+        assertEquals( "http://localhost/logo.png", decoded.getUrlsAttachement( ).get( 0 ).getUrlData( ).toExternalForm( ) );
+        assertEquals( 3, decoded.getFilesAttachement( ).size( ) );
+        assertTrue( Arrays.equals( largeData, decoded.getFilesAttachement( ).get( 0 ).getData( ) ) );
+        assertEquals( "small", new String( decoded.getFilesAttachement( ).get( 1 ).getData( ) ) );
+        assertEquals( "copy.bin", decoded.getFilesAttachement( ).get( 2 ).getFileName( ) );
+    }
+
+    public void testDecodeJavaSerialization( ) throws IOException
+    {
+        MailItem mail = createMailItem( new byte [ 10] );
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream( );
+
+        try ( ObjectOutputStream objectOutputStream = new ObjectOutputStream( byteArrayOutputStream ) )
+        {
+            objectOutputStream.writeObject( mail );
+        }
+
+        MailItem decoded = MailItemCodec.decode( new ByteArrayInputStream( byteArrayOutputStream.toByteArray( ) ), strHash -> null );
+
+        assertEquals( mail.getSubject( ), decoded.getSubject( ) );
+        assertEquals( 3, decoded.getFilesAttachement( ).size( ) );
+    }
+
+    public void testMissingAttachment( ) throws IOException
+    {
+        byte [ ] encoded = MailItemCodec.encode( createMailItem( new byte [ 2 * THRESHOLD] ), THRESHOLD, new HashMap<>( ) );
+
+        try
+        {
+            MailItemCodec.decode( new ByteArrayInputStream( encoded ), strHash -> null );
+            fail( "A missing attachment should be reported" );
+        }
+        catch( IOException e )
+        {
+            // expected
+        }
+    }
+}
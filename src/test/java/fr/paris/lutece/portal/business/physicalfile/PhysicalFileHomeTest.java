@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.physicalfile;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * PhysicalFile Test
+ */
+public class PhysicalFileHomeTest extends LuteceTestCase
+{
+    // larger than the transfer buffer, so that the content is copied in several chunks
+    private static final int CONTENT_SIZE = 100000;
+
+    /**
+     * Test that a content streamed to the database is streamed back unchanged
+     */
+    public void testStreamRoundTrip( )
+    {
+        byte [ ] content = new byte [ CONTENT_SIZE];
+        new Random( CONTENT_SIZE ).nextBytes( content );
+
+        int nIdPhysicalFile = PhysicalFileHome.create( new ByteArrayInputStream( content ) );
+        assertTrue( nIdPhysicalFile > 0 );
+
+        try
+        {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream( );
+            long lCount = PhysicalFileHome.copyValue( nIdPhysicalFile, outputStream );
+
+            assertEquals( CONTENT_SIZE, lCount );
+            assertTrue( Arrays.equals( content, outputStream.toByteArray( ) ) );
+
+            // the content written by stream is also read by the non streaming finder
+            assertTrue( Arrays.equals( content, PhysicalFileHome.findByPrimaryKey( nIdPhysicalFile ).getValue( ) ) );
+        }
+        finally
+        {
+            PhysicalFileHome.remove( nIdPhysicalFile );
+        }
+
+        assertEquals( -1, PhysicalFileHome.copyValue( nIdPhysicalFile, new ByteArrayOutputStream( ) ) );
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.portlet;
+
+import java.util.List;
+
+import fr.paris.lutece.portal.business.page.Page;
+import fr.paris.lutece.portal.business.page.PageHome;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * PortletHomeTest Test Class
+ */
+public class PortletHomeTest extends LuteceTestCase
+{
+    public void testFindByPageId( )
+    {
+        for ( Page page : PageHome.getAllPages( ) )
+        {
+            List<Portlet> listPortlets = PortletHome.findByPageId( page.getId( ) );
+            int nOrder = Integer.MIN_VALUE;
+
+            for ( Portlet portlet : listPortlets )
+            {
+                Portlet expected = PortletHome.findByPrimaryKey( portlet.getId( ) );
+
+                assertEquals( page.getId( ), portlet.getPageId( ) );
+                assertEquals( expected.getClass( ), portlet.getClass( ) );
+                assertEquals( expected.getName( ), portlet.getName( ) );
+                assertEquals( expected.getPortletTypeId( ), portlet.getPortletTypeId( ) );
+                assertEquals( expected.getColumn( ), portlet.getColumn( ) );
+                assertEquals( expected.getStatus( ), portlet.getStatus( ) );
+                assertTrue( portlet.getOrder( ) >= nOrder );
+                nOrder = portlet.getOrder( );
+
+                if ( portlet instanceof AliasPortlet )
+                {
+                    assertEquals( ( (AliasPortlet) expected ).getAliasId( ), ( (AliasPortlet) portlet ).getAliasId( ) );
+                }
+            }
+        }
+    }
+
+    public void testFindByPageIdNoPortlet( )
+    {
+        assertTrue( PortletHome.findByPageId( -1 ).isEmpty( ) );
+    }
+}
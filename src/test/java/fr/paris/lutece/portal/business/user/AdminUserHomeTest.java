@@ -34,7 +34,9 @@
 package fr.paris.lutece.portal.business.user;
 
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.context.ApplicationContext;
@@ -118,4 +120,22 @@ public class AdminUserHomeTest extends LuteceTestCase
         assertFalse( strToken.equals( strTokenUpdatedPassword ) );
     }
 
+    public void testFindUserByFilterPaginated( )
+    {
+        AdminUserFilter auFilter = new AdminUserFilter( );
+        auFilter.init( );
+        auFilter.setLastName( user.getLastName( ) );
+        auFilter.setVisibleWorkgroups( new ArrayList<>( ) );
+
+        assertEquals( 1, AdminUserHome.countUserByFilter( auFilter ) );
+
+        List<AdminUser> listUsers = AdminUserHome.findUserByFilter( auFilter, "accessCode", false, 0, 10 );
+        assertEquals( 1, listUsers.size( ) );
+        assertEquals( user.getUserId( ), listUsers.get( 0 ).getUserId( ) );
+        assertTrue( AdminUserHome.findUserByFilter( auFilter, null, true, 1, 10 ).isEmpty( ) );
+
+        auFilter.setManagerUserLevel( user.getUserLevel( ) );
+        assertEquals( 0, AdminUserHome.countUserByFilter( auFilter ) );
+        assertTrue( AdminUserHome.findUserByFilter( auFilter, null, true, 0, 10 ).isEmpty( ) );
+    }
 }
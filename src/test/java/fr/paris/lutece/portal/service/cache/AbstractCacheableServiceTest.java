@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * AbstractCacheableService Test
+ */
+public class AbstractCacheableServiceTest extends LuteceTestCase
+{
+    private static final String CACHE_NAME = "junit tagged cache";
+
+    private TestCacheService _service;
+
+    @Override
+    protected void setUp( ) throws Exception
+    {
+        super.setUp( );
+        _service = new TestCacheService( );
+        _service.initCache( );
+        _service.resetCache( );
+    }
+
+    @Override
+    protected void tearDown( ) throws Exception
+    {
+        _service.resetCache( );
+        super.tearDown( );
+    }
+
+    public void testRemoveByTag( )
+    {
+        _service.putInCache( "key1", "value1", Arrays.asList( "portlet:1", "page:1" ) );
+        _service.putInCache( "key2", "value2", Arrays.asList( "portlet:2", "page:1" ) );
+        _service.putInCache( "key3", "value3", Collections.singleton( "portlet:3" ) );
+        _service.putInCache( "key4", "value4" );
+
+        assertEquals( 2, _service.getKeysByTag( "page:1" ).size( ) );
+
+        assertEquals( 1, _service.removeByTag( "portlet:1" ) );
+        assertNull( _service.getFromCache( "key1" ) );
+        assertEquals( "value2", _service.getFromCache( "key2" ) );
+        assertEquals( Collections.singleton( "key2" ), _service.getKeysByTag( "page:1" ) );
+
+        assertEquals( 1, _service.removeByTag( "page:1" ) );
+        assertNull( _service.getFromCache( "key2" ) );
+        assertTrue( _service.getKeysByTag( "portlet:2" ).isEmpty( ) );
+        assertEquals( "value3", _service.getFromCache( "key3" ) );
+        assertEquals( "value4", _service.getFromCache( "key4" ) );
+
+        assertEquals( 0, _service.removeByTag( "portlet:unknown" ) );
+    }
+
+    public void testTagsFollowCacheRemovals( )
+    {
+        _service.putInCache( "key1", "value1", Collections.singleton( "portlet:1" ) );
+        _service.removeKey( "key1" );
+        assertTrue( _service.getKeysByTag( "portlet:1" ).isEmpty( ) );
+
+        _service.putInCache( "key1", "value1", Collections.singleton( "portlet:1" ) );
+        _service.putInCache( "key1", "value1 updated" );
+        assertTrue( _service.getKeysByTag( "portlet:1" ).isEmpty( ) );
+
+        _service.putInCache( "key2", "value2", Collections.singleton( "portlet:2" ) );
+        _service.resetCache( );
+        assertTrue( _service.getKeysByTag( "portlet:2" ).isEmpty( ) );
+    }
+
+    public void testConcurrentPutAndRemoveByTag( ) throws Exception
+    {
+        int nThreads = 4;
+        int nKeys = 200;
+        ExecutorService executor = Executors.newFixedThreadPool( nThreads + 1 );
+        List<Future<?>> listFutures = new ArrayList<>( );
+
+        try
+        {
+            for ( int t = 0; t < nThreads; t++ )
+            {
+                listFutures.add( executor.submit( ( ) -> {
+                    for ( int i = 0; i < nKeys; i++ )
+                    {
+                        _service.putInCache( "key" + i, "value" + i, Collections.singleton( "page:" + ( i % 5 ) ) );
+                    }
+                } ) );
+            }
+
+            listFutures.add( executor.submit( ( ) -> {
+                for ( int i = 0; i < nKeys; i++ )
+                {
+                    _service.removeByTag( "page:" + ( i % 5 ) );
+                }
+            } ) );
+
+            for ( Future<?> future : listFutures )
+            {
+                future.get( 30, TimeUnit.SECONDS );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow( );
+        }
+
+        // every object left in the cache can still be removed by its tag
+        for ( String strKey : _service.getKeys( ) )
+        {
+            int nIndex = Integer.parseInt( strKey.substring( 3 ) );
+            assertTrue( strKey, _service.getKeysByTag( "page:" + ( nIndex % 5 ) ).contains( strKey ) );
+        }
+
+        for ( int i = 0; i < 5; i++ )
+        {
+            _service.removeByTag( "page:" + i );
+        }
+
+        assertEquals( 0, _service.getCacheSize( ) );
+    }
+
+    /**
+     * Cache service used for the test
+     */
+    private static class TestCacheService extends AbstractCacheableService
+    {
+        @Override
+        public String getName( )
+        {
+            return CACHE_NAME;
+        }
+    }
+}
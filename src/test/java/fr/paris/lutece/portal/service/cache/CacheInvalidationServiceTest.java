@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class CacheInvalidationServiceTest extends LuteceTestCase
+{
+    private static final String NODE_A = "junit-node-a";
+    private static final String NODE_B = "junit-node-b";
+
+    public void testCoalescing( )
+    {
+        Set<EntityChangeEvent> setEvents = new HashSet<>( );
+        setEvents.add( new EntityChangeEvent( "junit", "1", EntityChangeEvent.ENTITY_UPDATED ) );
+        setEvents.add( new EntityChangeEvent( "junit", "1", EntityChangeEvent.ENTITY_UPDATED ) );
+        setEvents.add( new EntityChangeEvent( "junit", "1", EntityChangeEvent.ENTITY_REMOVED ) );
+        setEvents.add( new EntityChangeEvent( "junit", "2", EntityChangeEvent.ENTITY_UPDATED ) );
+        setEvents.add( new EntityChangeEvent( "junit", null, EntityChangeEvent.ENTITY_UPDATED ) );
+        setEvents.add( new EntityChangeEvent( "junit", null, EntityChangeEvent.ENTITY_UPDATED ) );
+        assertEquals( 4, setEvents.size( ) );
+    }
+
+    public void testDatabaseBroadcaster( )
+    {
+        ICacheInvalidationBroadcaster broadcasterA = new DatabaseCacheInvalidationBroadcaster( );
+        ICacheInvalidationBroadcaster broadcasterB = new DatabaseCacheInvalidationBroadcaster( );
+
+        // the first call only sets the position of the node in the log
+        broadcasterA.receive( NODE_A );
+        broadcasterB.receive( NODE_B );
+
+        List<EntityChangeEvent> listEvents = Arrays.asList( new EntityChangeEvent( "junit", "1", EntityChangeEvent.ENTITY_UPDATED ),
+                new EntityChangeEvent( "junit", null, EntityChangeEvent.ENTITY_REMOVED ) );
+        broadcasterA.broadcast( NODE_A, listEvents );
+
+        Collection<EntityChangeEvent> listReceived = broadcasterB.receive( NODE_B );
+        assertEquals( listEvents, new ArrayList<>( listReceived ) );
+        assertTrue( broadcasterB.receive( NODE_B ).isEmpty( ) );
+
+        // a node does not receive its own changes
+        assertTrue( broadcasterA.receive( NODE_A ).isEmpty( ) );
+    }
+
+    public void testProcessRemoteEntityChanges( )
+    {
+        String strEntityType = "junit-" + System.nanoTime( );
+        List<EntityChangeEvent> listProcessed = new ArrayList<>( );
+        CacheService.registerEntityChangeListener( new EntityChangeListener( )
+        {
+            @Override
+            public Collection<String> getEntityDependencies( )
+            {
+                return Collections.singletonList( strEntityType );
+            }
+
+            @Override
+            public void processEntityChange( EntityChangeEvent event )
+            {
+                listProcessed.add( event );
+            }
+        } );
+
+        EntityChangeEvent event = new EntityChangeEvent( strEntityType, "1", EntityChangeEvent.ENTITY_UPDATED );
+        CacheService.processRemoteEntityChanges( Arrays.asList( event, new EntityChangeEvent( "junit-other", "1", EntityChangeEvent.ENTITY_UPDATED ) ) );
+        assertEquals( Collections.singletonList( event ), listProcessed );
+    }
+}
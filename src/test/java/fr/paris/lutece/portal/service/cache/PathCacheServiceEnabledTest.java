@@ -35,6 +35,7 @@ package fr.paris.lutece.portal.service.cache;
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -211,6 +212,41 @@ public class PathCacheServiceEnabledTest extends LuteceTestCase
         }
     }
 
+    public void testProcessEntityChange( )
+    {
+        String key = service.getKey( "junit", 0, null );
+        service.putInCache( key, "junit" );
+        CacheService.notifyEntityChange( Page.RESOURCE_TYPE, "1", EntityChangeEvent.ENTITY_CREATED );
+        assertEquals( "junit", service.getFromCache( key ) );
+        CacheService.notifyEntityChange( "junit", "1", EntityChangeEvent.ENTITY_REMOVED );
+        assertEquals( "junit", service.getFromCache( key ) );
+        for ( int nEventType : new int [ ] {
+                EntityChangeEvent.ENTITY_UPDATED, EntityChangeEvent.ENTITY_REMOVED
+        } )
+        {
+            service.putInCache( key, "junit" );
+            CacheService.notifyEntityChange( Page.RESOURCE_TYPE, "1", nEventType );
+            assertNull( service.getFromCache( key ) );
+        }
+    }
+
+    public void testProcessRemoteEntityChanges( )
+    {
+        String key = service.getKey( "junit", 0, null );
+        String keyOtherPage = service.getKey( "junit", 1, null );
+        service.putInCache( key, "junit" );
+        service.putInCache( keyOtherPage, "junit" );
+        CacheService.processRemoteEntityChanges(
+                Collections.singletonList( new EntityChangeEvent( Page.RESOURCE_TYPE, "1", EntityChangeEvent.ENTITY_CREATED ) ) );
+        assertEquals( "junit", service.getFromCache( key ) );
+
+        // a page changed on another node evicts all the paths that may contain it
+        CacheService.processRemoteEntityChanges(
+                Collections.singletonList( new EntityChangeEvent( Page.RESOURCE_TYPE, "1", EntityChangeEvent.ENTITY_UPDATED ) ) );
+        assertNull( service.getFromCache( key ) );
+        assertNull( service.getFromCache( keyOtherPage ) );
+    }
+
     public void testRegisteredPageEventListener( )
     {
         String key = service.getKey( "junit", 0, null );
@@ -223,11 +259,7 @@ public class PathCacheServiceEnabledTest extends LuteceTestCase
         pageService.createPage( page );
         try
         {
-            // FIXME : change when LUTECE-1834 Adding or removing a page blows up all caches
-            // is fixed
-            // assertEquals( "junit", service.getFromCache( key ) );
-            assertNull( service.getFromCache( key ) );
-            service.putInCache( key, "junit" );
+            assertEquals( "junit", service.getFromCache( key ) );
             page.setDescription( page.getName( ) + page.getName( ) );
             pageService.updatePage( page );
             assertNull( service.getFromCache( key ) );
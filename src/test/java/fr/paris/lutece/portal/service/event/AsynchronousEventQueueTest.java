@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import fr.paris.lutece.portal.business.event.LuteceUserEvent;
+import fr.paris.lutece.portal.service.security.MokeLuteceAuthentication;
+import fr.paris.lutece.portal.service.security.MokeLuteceUser;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * AsynchronousEventQueue Test Class
+ */
+public class AsynchronousEventQueueTest extends LuteceTestCase
+{
+    private static final int EVENTS_PER_KEY = 200;
+    private static final int KEYS = 5;
+
+    public void testOrderPerKey( ) throws InterruptedException
+    {
+        AsynchronousEventQueue queue = new AsynchronousEventQueue( "junit-order", 3, 10, 5000L );
+        List<List<Integer>> listReceived = new ArrayList<>( );
+        CountDownLatch latch = new CountDownLatch( EVENTS_PER_KEY * KEYS );
+
+        for ( int nKey = 0; nKey < KEYS; nKey++ )
+        {
+            listReceived.add( Collections.synchronizedList( new ArrayList<>( ) ) );
+        }
+
+        try
+        {
+            for ( int i = 0; i < EVENTS_PER_KEY; i++ )
+            {
+                for ( int nKey = 0; nKey < KEYS; nKey++ )
+                {
+                    final int nEvent = i;
+                    final List<Integer> list = listReceived.get( nKey );
+                    assertTrue( queue.submit( "key" + nKey, nEvent, ( ) -> {
+                        list.add( nEvent );
+                        latch.countDown( );
+                    } ) );
+                }
+            }
+
+            assertTrue( latch.await( 10, TimeUnit.SECONDS ) );
+
+            for ( List<Integer> list : listReceived )
+            {
+                assertEquals( EVENTS_PER_KEY, list.size( ) );
+
+                for ( int i = 0; i < EVENTS_PER_KEY; i++ )
+                {
+                    assertEquals( Integer.valueOf( i ), list.get( i ) );
+                }
+            }
+        }
+        finally
+        {
+            queue.shutdown( );
+        }
+    }
+
+    public void testBackpressure( ) throws InterruptedException
+    {
+        AsynchronousEventQueue queue = new AsynchronousEventQueue( "junit-full", 1, 1, 10L );
+        CountDownLatch latchBlocked = new CountDownLatch( 1 );
+        CountDownLatch latchRelease = new CountDownLatch( 1 );
+
+        try
+        {
+            // the worker is blocked by the first event, the second one fills the lane
+            assertTrue( queue.submit( null, "first", ( ) -> {
+                latchBlocked.countDown( );
+                awaitQuietly( latchRelease );
+            } ) );
+            assertTrue( latchBlocked.await( 5, TimeUnit.SECONDS ) );
+            assertTrue( queue.submit( null, "second", ( ) -> {
+            } ) );
+            assertFalse( queue.submit( null, "third", ( ) -> {
+            } ) );
+            assertTrue( queue.getStatistics( ).contains( "rejected = 1" ) );
+        }
+        finally
+        {
+            latchRelease.countDown( );
+            queue.shutdown( );
+        }
+
+        assertFalse( queue.submit( null, "fourth", ( ) -> {
+        } ) );
+    }
+
+    public void testFailingListener( ) throws InterruptedException
+    {
+        AsynchronousEventQueue queue = new AsynchronousEventQueue( "junit-failure", 1, 10, 1000L );
+        CountDownLatch latch = new CountDownLatch( 1 );
+
+        try
+        {
+            queue.submit( null, "failure", ( ) -> {
+                throw new IllegalStateException( "junit" );
+            } );
+            queue.submit( null, "success", latch::countDown );
+
+            // the worker survives a failing listener
+            assertTrue( latch.await( 5, TimeUnit.SECONDS ) );
+            assertTrue( queue.getStatistics( ).contains( "failed = 1" ) );
+        }
+        finally
+        {
+            queue.shutdown( );
+        }
+    }
+
+    public void testAsynchronousListener( ) throws InterruptedException
+    {
+        CountDownLatch latch = new CountDownLatch( 1 );
+        List<Thread> listThreads = new ArrayList<>( );
+        LuteceUserEventManager manager = LuteceUserEventManager.getInstance( );
+        manager.register( "junit-async", event -> {
+            listThreads.add( Thread.currentThread( ) );
+            latch.countDown( );
+        }, true );
+
+        try
+        {
+            MokeLuteceUser user = new MokeLuteceUser( "user-test", new MokeLuteceAuthentication( ) );
+            manager.notifyListeners( new LuteceUserEvent( user, LuteceUserEvent.EventType.LOGOUT ) );
+
+            assertTrue( latch.await( 5, TimeUnit.SECONDS ) );
+            assertNotSame( Thread.currentThread( ), listThreads.get( 0 ) );
+        }
+        finally
+        {
+            manager.register( "junit-async", event -> {
+            } );
+        }
+    }
+
+    private static void awaitQuietly( CountDownLatch latch )
+    {
+        try
+        {
+            latch.await( 5, TimeUnit.SECONDS );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+    }
+}
@@ -35,12 +35,15 @@ package fr.paris.lutece.portal.service.file;
 
 import fr.paris.lutece.portal.business.file.File;
 import fr.paris.lutece.portal.business.physicalfile.PhysicalFile;
+import fr.paris.lutece.portal.business.physicalfile.PhysicalFileHome;
 import fr.paris.lutece.portal.business.user.AdminUser;
 import fr.paris.lutece.portal.service.admin.AccessDeniedException;
 import fr.paris.lutece.portal.service.admin.AdminAuthenticationService;
+import fr.paris.lutece.portal.service.file.implementation.LocalFileSystemFileService;
 import fr.paris.lutece.portal.service.security.UserNotSignedException;
 import fr.paris.lutece.test.LuteceTestCase;
 import fr.paris.lutece.util.date.DateUtil;
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -48,15 +51,19 @@ import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
 import javax.servlet.http.HttpServletRequest;
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.http.NameValuePair;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.http.client.utils.URLEncodedUtils;
 import org.springframework.mock.web.MockHttpServletRequest;
 
@@ -201,6 +208,120 @@ public class FileServiceTest extends LuteceTestCase
 
     }
 
+    /**
+     * test the file system provider : contents are deduplicated and kept until the last file using them is deleted
+     * 
+     * @throws IOException
+     */
+    public void testFileSystemProvider( ) throws IOException
+    {
+        IFileStoreServiceProvider provider = getFileSystemProvider( );
+
+        byte [ ] content = "file system provider content".getBytes( "UTF-8" );
+
+        String strFileId1 = provider.storeBytes( content );
+        String strFileId2 = provider.storeBytes( content );
+        assertFalse( strFileId1.equals( strFileId2 ) );
+
+        File file1 = provider.getFileMetaData( strFileId1 );
+        File file2 = provider.getFileMetaData( strFileId2 );
+        assertEquals( file1.getContentHash( ), file2.getContentHash( ) );
+        assertEquals( content.length, file1.getSize( ) );
+
+        provider.delete( strFileId1 );
+        assertNull( provider.getFile( strFileId1 ) );
+
+        try ( InputStream inputStream = provider.getInputStream( strFileId2 ) )
+        {
+            assertTrue( Arrays.equals( content, IOUtils.toByteArray( inputStream ) ) );
+        }
+
+        assertTrue( Arrays.equals( content, provider.getFile( strFileId2 ).getPhysicalFile( ).getValue( ) ) );
+
+        provider.delete( strFileId2 );
+        assertNull( provider.getFile( strFileId2 ) );
+    }
+
+    /**
+     * test that the files whose content has been moved to the file system are still read and deleted through the database provider
+     * 
+     * @throws IOException
+     */
+    public void testMigratedFileReadByDatabaseProvider( ) throws IOException
+    {
+        LocalFileSystemFileService fileSystemStore = getFileSystemProvider( );
+        IFileStoreServiceProvider provider = FileService.getInstance( ).getFileStoreServiceProvider( "defaultDatabaseFileStoreProvider" );
+
+        byte [ ] content = "migrated content".getBytes( "UTF-8" );
+        String strFileId = provider.storeBytes( content );
+        int nIdPhysicalFile = provider.getFileMetaData( strFileId ).getPhysicalFile( ).getIdPhysicalFile( );
+
+        assertTrue( fileSystemStore.importPhysicalFile( Integer.parseInt( strFileId ) ) );
+        assertNull( PhysicalFileHome.findByPrimaryKey( nIdPhysicalFile ) );
+
+        File file = provider.getFile( strFileId );
+        assertNotNull( file );
+        assertTrue( Arrays.equals( content, file.getPhysicalFile( ).getValue( ) ) );
+
+        try ( InputStream inputStream = provider.getInputStream( strFileId ) )
+        {
+            assertTrue( Arrays.equals( content, IOUtils.toByteArray( inputStream ) ) );
+        }
+
+        // still a file of the database provider
+        assertNull( fileSystemStore.getFile( strFileId ) );
+
+        provider.delete( strFileId );
+        assertNull( provider.getFile( strFileId ) );
+    }
+
+    /**
+     * test the database provider streaming : contents stored from a stream are read back unchanged, in memory below the memory threshold and spooled
+     * to a temporary file above it
+     * 
+     * @throws IOException
+     */
+    public void testDatabaseProviderStreaming( ) throws IOException
+    {
+        IFileStoreServiceProvider provider = FileService.getInstance( ).getFileStoreServiceProvider( "defaultDatabaseFileStoreProvider" );
+        assertNotNull( provider );
+
+        for ( int nSize : new int [ ] {
+                1000, 3 * 1024 * 1024
+        } )
+        {
+            byte [ ] content = new byte [ nSize];
+            new Random( nSize ).nextBytes( content );
+
+            String strFileId = provider.storeInputStream( new ByteArrayInputStream( content ) );
+
+            assertEquals( nSize, provider.getFileMetaData( strFileId ).getSize( ) );
+
+            try ( InputStream inputStream = provider.getInputStream( strFileId ) )
+            {
+                assertTrue( Arrays.equals( content, IOUtils.toByteArray( inputStream ) ) );
+            }
+
+            provider.delete( strFileId );
+            assertNull( provider.getInputStream( strFileId ) );
+        }
+    }
+
+    /**
+     * get the file system provider, storing its contents in a temporary directory
+     * 
+     * @return the provider
+     * @throws IOException
+     */
+    private LocalFileSystemFileService getFileSystemProvider( ) throws IOException
+    {
+        LocalFileSystemFileService provider = (LocalFileSystemFileService) FileService.getInstance( ).getFileStoreServiceProvider( "fileSystemFileStoreProvider" );
+        provider.setRootDirectory( Files.createTempDirectory( "lutece-files" ).toString( ) );
+        provider.init( );
+
+        return provider;
+    }
+
     /**
      * get lutece test file
      * 
@@ -33,6 +33,10 @@
  */
 package fr.paris.lutece.portal.service.filter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import fr.paris.lutece.test.LuteceTestCase;
 
 /**
@@ -57,4 +61,42 @@ public class MainFilterTest extends LuteceTestCase
         assertTrue( instance.matchFilterUrl( "*.jsp", "/jsp/site/Portal.jsp" ) );
         assertFalse( instance.matchFilterUrl( "/jsp/site/*.jsp", "/jsp/site/Portal.png" ) );
     }
+
+    /**
+     * Test that the dispatch table selects the same filters as matchFilterUrl, in the same order
+     */
+    public void testFilterDispatcher( )
+    {
+        String [ ] patterns = {
+                "/*", "/jsp/*", "/jsp/site/*", "*.jsp", "*.png", "/jsp/site/Portal.jsp", "/jsp/site/*.jsp", "//*", "jsp/*", null
+        };
+        String [ ] paths = {
+                "/images/test.png", "/jsp/site/Portal.jsp", "/jsp", "/jsp/", "/jspaz/", "/jsp/site", "/jsp/site/Portal.png", "/", "//x", "", "/a.", "/x.jsp/y"
+        };
+
+        List<LuteceFilter> listFilters = new ArrayList<>( );
+
+        for ( int i = 0; i < patterns.length; i++ )
+        {
+            listFilters.add( new LuteceFilter( "filter" + i, null, patterns [i], null, null ) );
+        }
+
+        MainFilter instance = new MainFilter( );
+        FilterDispatcher dispatcher = new FilterDispatcher( listFilters );
+
+        for ( String strPath : paths )
+        {
+            List<LuteceFilter> listExpected = new ArrayList<>( );
+
+            for ( LuteceFilter filter : listFilters )
+            {
+                if ( instance.matchFilterUrl( filter.getMappingUrlPattern( ), strPath ) )
+                {
+                    listExpected.add( filter );
+                }
+            }
+
+            assertEquals( strPath, listExpected, Arrays.asList( dispatcher.getFilters( strPath ) ) );
+        }
+    }
 }
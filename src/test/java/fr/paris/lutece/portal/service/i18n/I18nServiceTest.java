@@ -90,6 +90,21 @@ public class I18nServiceTest extends LuteceTestCase
         assertEquals( expResult, result );
     }
 
+    /**
+     * Test of getLocalizedString method with more locales than the cache holds
+     */
+    public void testGetLocalizedStringManyLocales( )
+    {
+        String strKey = "portal.util.labelCancel";
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            assertEquals( "Annuler", I18nService.getLocalizedString( strKey, new Locale( "fr", "X" + i ) ) );
+        }
+
+        assertEquals( "Annuler", I18nService.getLocalizedString( strKey, Locale.FRENCH ) );
+    }
+
     /**
      * Test of getLocalizedDate method, of class fr.paris.lutece.portal.service.i18n.I18nService.
      */
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.image;
+
+import fr.paris.lutece.portal.business.page.Page;
+import fr.paris.lutece.portal.service.cache.CacheService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
+import fr.paris.lutece.test.LuteceTestCase;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * ImageServlet Test Class
+ */
+public class ImageServletTest extends LuteceTestCase
+{
+    private static final String RESOURCE_TYPE = "test_image_servlet";
+    private static final int RESOURCE_ID = 1;
+    private static final byte [ ] CONTENT = new byte [ ] {
+            1, 2, 3, 4, 5, 6, 7, 8
+    };
+    private static final byte [ ] CONTENT_MODIFIED = new byte [ ] {
+            8, 7, 6, 5, 4, 3, 2, 1
+    };
+    private TestImageResourceProvider _provider;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void setUp( ) throws Exception
+    {
+        super.setUp( );
+        ImageResourceCacheService.getInstance( ).enableCache( true );
+        _provider = new TestImageResourceProvider( );
+        ImageResourceManager.registerProvider( _provider );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void tearDown( ) throws Exception
+    {
+        ImageResourceManager.invalidateImageResources( RESOURCE_TYPE );
+        super.tearDown( );
+    }
+
+    public void testETag( )
+    {
+        MockHttpServletResponse response = getImage( null, null );
+
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus( ) );
+        assertEquals( CONTENT.length, response.getContentAsByteArray( ).length );
+
+        String strETag = response.getHeader( "ETag" );
+        assertNotNull( strETag );
+
+        response = getImage( strETag, null );
+        assertEquals( HttpServletResponse.SC_NOT_MODIFIED, response.getStatus( ) );
+        assertEquals( 0, response.getContentAsByteArray( ).length );
+    }
+
+    public void testRange( )
+    {
+        MockHttpServletResponse response = getImage( null, "bytes=2-4" );
+        assertEquals( HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus( ) );
+        assertEquals( "bytes 2-4/8", response.getHeader( "Content-Range" ) );
+        assertEquals( 3, response.getContentAsByteArray( ).length );
+        assertEquals( 3, response.getContentAsByteArray( ) [0] );
+
+        response = getImage( null, "bytes=-2" );
+        assertEquals( HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus( ) );
+        assertEquals( "bytes 6-7/8", response.getHeader( "Content-Range" ) );
+
+        response = getImage( null, "bytes=20-" );
+        assertEquals( HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatus( ) );
+
+        response = getImage( null, "bytes=0-1,4-5" );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus( ) );
+        assertEquals( CONTENT.length, response.getContentAsByteArray( ).length );
+    }
+
+    public void testCacheHit( )
+    {
+        MockHttpServletResponse response = getImage( null, null );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus( ) );
+        assertEquals( 1, _provider.getLoadCount( ) );
+
+        response = getImage( null, null );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus( ) );
+        assertEquals( CONTENT.length, response.getContentAsByteArray( ).length );
+        assertEquals( 1, _provider.getLoadCount( ) );
+        assertNotNull( ImageResourceCacheService.getInstance( ).get( RESOURCE_TYPE, RESOURCE_ID ) );
+    }
+
+    public void testInvalidation( )
+    {
+        String strETag = getImage( null, null ).getHeader( "ETag" );
+        assertEquals( 1, _provider.getLoadCount( ) );
+
+        _provider.setContent( CONTENT_MODIFIED );
+        ImageResourceManager.invalidateImageResource( RESOURCE_TYPE, RESOURCE_ID );
+        assertNull( ImageResourceCacheService.getInstance( ).get( RESOURCE_TYPE, RESOURCE_ID ) );
+
+        MockHttpServletResponse response = getImage( strETag, null );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus( ) );
+        assertEquals( 2, _provider.getLoadCount( ) );
+        assertEquals( CONTENT_MODIFIED [0], response.getContentAsByteArray( ) [0] );
+        assertFalse( strETag.equals( response.getHeader( "ETag" ) ) );
+    }
+
+    public void testStalePutAfterInvalidation( )
+    {
+        ImageResourceCacheService cache = ImageResourceCacheService.getInstance( );
+        long lGeneration = cache.getGeneration( RESOURCE_TYPE, RESOURCE_ID );
+
+        // The image is invalidated while an outdated version is being loaded
+        ImageResourceManager.invalidateImageResource( RESOURCE_TYPE, RESOURCE_ID );
+        assertFalse( cache.put( RESOURCE_TYPE, RESOURCE_ID, new ImageResourceCacheService.CachedImage( CONTENT, "image/png" ), lGeneration ) );
+        assertNull( cache.get( RESOURCE_TYPE, RESOURCE_ID ) );
+
+        lGeneration = cache.getGeneration( RESOURCE_TYPE, RESOURCE_ID );
+        assertTrue( cache.put( RESOURCE_TYPE, RESOURCE_ID, new ImageResourceCacheService.CachedImage( CONTENT, "image/png" ), lGeneration ) );
+        assertNotNull( cache.get( RESOURCE_TYPE, RESOURCE_ID ) );
+    }
+
+    public void testRemotePageChange( )
+    {
+        ImageResourceCacheService cache = ImageResourceCacheService.getInstance( );
+        ImageResourceCacheService.CachedImage image = new ImageResourceCacheService.CachedImage( CONTENT, "image/png" );
+        cache.put( Page.IMAGE_RESOURCE_TYPE_ID, RESOURCE_ID, image, cache.getGeneration( Page.IMAGE_RESOURCE_TYPE_ID, RESOURCE_ID ) );
+        assertNotNull( cache.get( Page.IMAGE_RESOURCE_TYPE_ID, RESOURCE_ID ) );
+
+        // A page created on another node does not change its thumbnail
+        CacheService.processRemoteEntityChanges( Collections.singletonList(
+                new EntityChangeEvent( Page.RESOURCE_TYPE, String.valueOf( RESOURCE_ID ), EntityChangeEvent.ENTITY_CREATED ) ) );
+        assertNotNull( cache.get( Page.IMAGE_RESOURCE_TYPE_ID, RESOURCE_ID ) );
+
+        CacheService.processRemoteEntityChanges( Collections.singletonList(
+                new EntityChangeEvent( Page.RESOURCE_TYPE, String.valueOf( RESOURCE_ID ), EntityChangeEvent.ENTITY_UPDATED ) ) );
+        assertNull( cache.get( Page.IMAGE_RESOURCE_TYPE_ID, RESOURCE_ID ) );
+        assertTrue( cache.getTimeToLive( ) > 0 );
+    }
+
+    /**
+     * Request the test image
+     * 
+     * @param strIfNoneMatch
+     *            The If-None-Match header, or null
+     * @param strRange
+     *            The Range header, or null
+     * @return the response
+     */
+    private MockHttpServletResponse getImage( String strIfNoneMatch, String strRange )
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.addParameter( ImageServlet.PARAMETER_RESOURCE_TYPE, RESOURCE_TYPE );
+        request.addParameter( ImageServlet.PARAMETER_ID, String.valueOf( RESOURCE_ID ) );
+
+        if ( strIfNoneMatch != null )
+        {
+            request.addHeader( "If-None-Match", strIfNoneMatch );
+        }
+
+        if ( strRange != null )
+        {
+            request.addHeader( "Range", strRange );
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse( );
+        new ImageServlet( ).processRequest( request, response );
+
+        return response;
+    }
+
+    /**
+     * Provider of a test image
+     */
+    private static final class TestImageResourceProvider implements ImageResourceProvider
+    {
+        private final AtomicInteger _nLoadCount = new AtomicInteger( );
+        private volatile byte [ ] _content = CONTENT;
+
+        /**
+         * Gets the number of images loaded by the provider
+         * 
+         * @return the load count
+         */
+        int getLoadCount( )
+        {
+            return _nLoadCount.get( );
+        }
+
+        /**
+         * Sets the content of the image
+         * 
+         * @param content
+         *            the content
+         */
+        void setContent( byte [ ] content )
+        {
+            _content = content;
+        }
+
+        @Override
+        public String getResourceTypeId( )
+        {
+            return RESOURCE_TYPE;
+        }
+
+        @Override
+        public ImageResource getImageResource( int nIdResource )
+        {
+            _nLoadCount.incrementAndGet( );
+
+            ImageResource image = new ImageResource( );
+            image.setImage( _content );
+            image.setMimeType( "image/png" );
+
+            return image;
+        }
+
+        @Override
+        public boolean isImageResourceCacheable( )
+        {
+            return true;
+        }
+    }
+}
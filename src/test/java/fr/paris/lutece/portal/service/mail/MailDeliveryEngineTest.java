@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.mail;
+
+import java.util.Properties;
+
+import javax.mail.Session;
+
+import org.apache.logging.log4j.LogManager;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class MailDeliveryEngineTest extends LuteceTestCase
+{
+    private static final int MAIL_COUNT = 50;
+
+    private Session _session;
+    private MockSmtpTransport.Server _server;
+
+    @Override
+    protected void setUp( ) throws Exception
+    {
+        super.setUp( );
+        _session = Session.getInstance( new Properties( ) );
+        _server = new MockSmtpTransport.Server( );
+    }
+
+    private MailDeliveryEngine createEngine( int nThreads, int nMaxAttempts )
+    {
+        return new MailDeliveryEngine( _session, _server.getTransportProvider( _session ), nThreads, 10, nMaxAttempts, 1,
+                LogManager.getLogger( "lutece.mail" ) );
+    }
+
+    private IMailQueue createQueue( int nCount )
+    {
+        IMailQueue queue = new MemoryQueue( );
+
+        for ( int i = 0; i < nCount; i++ )
+        {
+            MailItem mail = new MailItem( );
+            mail.setFormat( MailItem.FORMAT_TEXT );
+            mail.setRecipientsTo( "user" + i + "@lutece.fr" );
+            mail.setSenderEmail( "noreply@lutece.fr" );
+            mail.setSenderName( "Lutece" );
+            mail.setSubject( "Subject " + i );
+            mail.setMessage( "Message " + i );
+            queue.send( mail );
+        }
+
+        return queue;
+    }
+
+    public void testDeliver( )
+    {
+        IMailQueue queue = createQueue( MAIL_COUNT );
+
+        MailDeliveryEngine.DeliveryReport report = createEngine( 4, 1 ).deliver( queue, 1000, new StringBuilder( ) );
+
+        assertEquals( 0, queue.size( ) );
+        assertEquals( MAIL_COUNT, _server.getMessages( ).size( ) );
+        assertEquals( MAIL_COUNT, report.getSentCount( ) );
+        assertEquals( 0, report.getFailedCount( ) );
+        assertFalse( report.isAborted( ) );
+        assertTrue( _server.getConnections( ).get( ) <= 4 );
+    }
+
+    public void testDeliverMaxMails( )
+    {
+        IMailQueue queue = createQueue( MAIL_COUNT );
+
+        MailDeliveryEngine.DeliveryReport report = createEngine( 2, 1 ).deliver( queue, 15, new StringBuilder( ) );
+
+        assertEquals( 15, report.getClaimedCount( ) );
+        assertEquals( 15, _server.getMessages( ).size( ) );
+        assertEquals( MAIL_COUNT - 15, queue.size( ) );
+    }
+
+    public void testUniqueRecipientTo( )
+    {
+        IMailQueue queue = createQueue( 1 );
+        MailItem mail = queue.consume( );
+        mail.setRecipientsTo( "user1@lutece.fr;user2@lutece.fr;user3@lutece.fr" );
+        mail.setUniqueRecipientTo( true );
+        queue.send( mail );
+
+        MailDeliveryEngine.DeliveryReport report = createEngine( 1, 1 ).deliver( queue, 1000, new StringBuilder( ) );
+
+        assertEquals( 3, _server.getMessages( ).size( ) );
+        assertEquals( 3, report.getSentCount( ) );
+    }
+
+    public void testRetry( )
+    {
+        IMailQueue queue = createQueue( MAIL_COUNT );
+        _server.getFailures( ).set( 2 );
+
+        MailDeliveryEngine.DeliveryReport report = createEngine( 1, 3 ).deliver( queue, 1000, new StringBuilder( ) );
+
+        assertFalse( report.isAborted( ) );
+        assertEquals( 2, report.getRetryCount( ) );
+        assertEquals( MAIL_COUNT, _server.getMessages( ).size( ) );
+        assertEquals( 3, _server.getConnections( ).get( ) );
+    }
+
+    public void testAbort( )
+    {
+        IMailQueue queue = createQueue( MAIL_COUNT );
+        _server.getFailures( ).set( Integer.MAX_VALUE );
+
+        MailDeliveryEngine.DeliveryReport report = createEngine( 4, 2 ).deliver( queue, 1000, new StringBuilder( ) );
+
+        assertTrue( report.isAborted( ) );
+        assertEquals( 0, _server.getMessages( ).size( ) );
+        assertEquals( report.getClaimedCount( ), report.getRequeuedCount( ) );
+        assertEquals( MAIL_COUNT, queue.size( ) );
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.mail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.URLName;
+
+/**
+ * Local SMTP stand-in : the messages are kept in memory instead of being sent, and connection errors can be simulated
+ */
+public class MockSmtpTransport extends Transport
+{
+    private final Server _server;
+
+    /**
+     * Constructor
+     * 
+     * @param session
+     *            the mail session
+     * @param server
+     *            the server receiving the messages
+     */
+    public MockSmtpTransport( Session session, Server server )
+    {
+        super( session, new URLName( "smtp", "localhost", 25, null, null, null ) );
+        _server = server;
+    }
+
+    @Override
+    protected boolean protocolConnect( String strHost, int nPort, String strUser, String strPassword )
+    {
+        _server.getConnections( ).incrementAndGet( );
+
+        return true;
+    }
+
+    @Override
+    public void sendMessage( Message message, Address [ ] addresses ) throws MessagingException
+    {
+        if ( _server.getFailures( ).getAndDecrement( ) > 0 )
+        {
+            close( );
+            throw new MessagingException( "Connection lost" );
+        }
+
+        _server.getMessages( ).add( message );
+    }
+
+    /**
+     * In memory SMTP server shared by the transports
+     */
+    public static class Server
+    {
+        private final List<Message> _listMessages = Collections.synchronizedList( new ArrayList<>( ) );
+        private final AtomicInteger _nFailures = new AtomicInteger( );
+        private final AtomicInteger _nConnections = new AtomicInteger( );
+
+        /**
+         * @return the messages received
+         */
+        public List<Message> getMessages( )
+        {
+            return _listMessages;
+        }
+
+        /**
+         * @return the number of messages to reject with a connection error
+         */
+        public AtomicInteger getFailures( )
+        {
+            return _nFailures;
+        }
+
+        /**
+         * @return the number of connections opened
+         */
+        public AtomicInteger getConnections( )
+        {
+            return _nConnections;
+        }
+
+        /**
+         * Creates a transport provider connecting to this server
+         * 
+         * @param session
+         *            the mail session
+         * @return the transport provider
+         */
+        public MailDeliveryEngine.ITransportProvider getTransportProvider( Session session )
+        {
+            return ( ) -> {
+                Transport transport = new MockSmtpTransport( session, this );
+                transport.connect( );
+
+                return transport;
+            };
+        }
+    }
+}
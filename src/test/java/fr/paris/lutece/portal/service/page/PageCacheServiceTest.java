@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.page;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * PageCacheService Test
+ */
+public class PageCacheServiceTest extends LuteceTestCase
+{
+    private static final String CACHE_NAME = "junit page cache";
+    private static final String KEY = "page:junit";
+
+    private PageCacheService _service;
+    private ExecutorService _executor;
+
+    @Override
+    protected void setUp( ) throws Exception
+    {
+        super.setUp( );
+        _service = new PageCacheService( );
+        _service.initCache( CACHE_NAME );
+        _service.enableCache( true );
+        _service.resetCache( );
+        _executor = Executors.newCachedThreadPool( );
+    }
+
+    @Override
+    protected void tearDown( ) throws Exception
+    {
+        _executor.shutdownNow( );
+        _service.resetCache( );
+        super.tearDown( );
+    }
+
+    /**
+     * Tests that concurrent requests for a page that is not in the cache are served with a single build
+     * 
+     * @throws Exception
+     */
+    public void testCoalescing( ) throws Exception
+    {
+        AtomicInteger nBuilds = new AtomicInteger( );
+        CountDownLatch latchStarted = new CountDownLatch( 1 );
+        CountDownLatch latchRelease = new CountDownLatch( 1 );
+
+        Future<String> first = _executor.submit( ( ) -> _service.getPage( KEY, ( ) -> {
+            nBuilds.incrementAndGet( );
+            latchStarted.countDown( );
+            awaitRelease( latchRelease );
+
+            return putPage( "content" );
+        } ) );
+
+        assertTrue( latchStarted.await( 5, TimeUnit.SECONDS ) );
+
+        List<Future<String>> listWaiters = new ArrayList<>( );
+
+        for ( int i = 0; i < 4; i++ )
+        {
+            listWaiters.add( _executor.submit( ( ) -> _service.getPage( KEY, ( ) -> {
+                nBuilds.incrementAndGet( );
+
+                return putPage( "content" );
+            } ) ) );
+        }
+
+        Thread.sleep( 200 );
+        latchRelease.countDown( );
+
+        assertEquals( "content", first.get( 5, TimeUnit.SECONDS ) );
+
+        for ( Future<String> waiter : listWaiters )
+        {
+            assertEquals( "content", waiter.get( 5, TimeUnit.SECONDS ) );
+        }
+
+        assertEquals( 1, nBuilds.get( ) );
+    }
+
+    /**
+     * Tests that a request waiting for the build of a page by another request builds it itself after the timeout
+     * 
+     * @throws Exception
+     */
+    public void testBuildWaitTimeout( ) throws Exception
+    {
+        _service.setBuildWaitTimeout( 100L );
+
+        CountDownLatch latchStarted = new CountDownLatch( 1 );
+        CountDownLatch latchRelease = new CountDownLatch( 1 );
+
+        Future<String> first = _executor.submit( ( ) -> _service.getPage( KEY, ( ) -> {
+            latchStarted.countDown( );
+            awaitRelease( latchRelease );
+
+            return putPage( "slow" );
+        } ) );
+
+        try
+        {
+            assertTrue( latchStarted.await( 5, TimeUnit.SECONDS ) );
+
+            Future<String> second = _executor.submit( ( ) -> _service.getPage( KEY, ( ) -> "fallback" ) );
+
+            assertEquals( "fallback", second.get( 5, TimeUnit.SECONDS ) );
+        }
+        finally
+        {
+            latchRelease.countDown( );
+        }
+
+        assertEquals( "slow", first.get( 5, TimeUnit.SECONDS ) );
+    }
+
+    /**
+     * Tests that a stale page is served while one request rebuilds it
+     * 
+     * @throws Exception
+     */
+    public void testStaleWhileRevalidate( ) throws Exception
+    {
+        _service.setSoftTimeToLive( 1L );
+        assertEquals( "v1", _service.getPage( KEY, ( ) -> putPage( "v1" ) ) );
+
+        Thread.sleep( 1100 );
+
+        CountDownLatch latchStarted = new CountDownLatch( 1 );
+        CountDownLatch latchRelease = new CountDownLatch( 1 );
+
+        Future<String> revalidation = _executor.submit( ( ) -> _service.getPage( KEY, ( ) -> {
+            latchStarted.countDown( );
+            awaitRelease( latchRelease );
+
+            return putPage( "v2" );
+        } ) );
+
+        try
+        {
+            assertTrue( latchStarted.await( 5, TimeUnit.SECONDS ) );
+
+            // served with the stale page without building it
+            assertEquals( "v1", _service.getPage( KEY, ( ) -> {
+                fail( "The stale page should be served" );
+
+                return null;
+            } ) );
+        }
+        finally
+        {
+            latchRelease.countDown( );
+        }
+
+        assertEquals( "v2", revalidation.get( 5, TimeUnit.SECONDS ) );
+        assertEquals( "v2", _service.getPage( KEY, ( ) -> putPage( "v3" ) ) );
+        assertTrue( _service.getStatistics( ).contains( "revalidations = 1" ) );
+    }
+
+    /**
+     * Waits for the release of a build
+     * 
+     * @param latchRelease
+     *            The latch
+     */
+    private static void awaitRelease( CountDownLatch latchRelease )
+    {
+        try
+        {
+            latchRelease.await( 5, TimeUnit.SECONDS );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+    }
+
+    /**
+     * Puts a page in the cache
+     * 
+     * @param strPage
+     *            The page
+     * @return The page
+     */
+    private String putPage( String strPage )
+    {
+        _service.putInCache( KEY, strPage, Collections.singleton( PageCacheService.getPageTag( "junit" ) ) );
+
+        return strPage;
+    }
+}
@@ -33,7 +33,15 @@
  */
 package fr.paris.lutece.portal.service.page;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -41,6 +49,8 @@ import org.junit.Test;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
+import fr.paris.lutece.portal.business.portlet.AliasPortlet;
+import fr.paris.lutece.portal.business.portlet.Portlet;
 import fr.paris.lutece.portal.service.cache.CacheService;
 import fr.paris.lutece.portal.service.cache.CacheableService;
 import fr.paris.lutece.portal.service.message.SiteMessageException;
@@ -120,4 +130,141 @@ public class PageServiceTest extends LuteceTestCase
         pageContent = pageService.getPage( request, 0 );
         assertTrue( pageContent.contains( "<base href=\"http://junit/\">" ) );
     }
+
+    /**
+     * Tests that the contents rendered concurrently are appended in the order of the portlets, whatever the order of completion of the tasks
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testCollectPortletContentsOrder( ) throws Exception
+    {
+        List<Portlet> listPortlets = new ArrayList<>( );
+        List<PortletRequestWrapper> listRequests = new ArrayList<>( );
+        List<CompletableFuture<String>> listFutures = new ArrayList<>( );
+
+        for ( int i = 0; i < 4; i++ )
+        {
+            listPortlets.add( createPortlet( i, ( i % 2 ) + 1 ) );
+            listRequests.add( new PortletRequestWrapper( new MockHttpServletRequest( ) ) );
+            listFutures.add( new CompletableFuture<>( ) );
+        }
+
+        // the tasks complete in the reverse order of the portlets
+        ExecutorService executor = Executors.newSingleThreadExecutor( );
+        executor.submit( ( ) -> {
+            for ( int i = listFutures.size( ) - 1; i >= 0; i-- )
+            {
+                Thread.sleep( 20 );
+                listFutures.get( i ).complete( "[" + i + "]" );
+            }
+
+            return null;
+        } );
+
+        String [ ] arrayContent = new String [ ] {
+                "", "", ""
+        };
+
+        try
+        {
+            boolean bComplete = PageService.collectPortletContents( listPortlets, listRequests, new ArrayList<Future<String>>( listFutures ), 5000L,
+                    portlet -> "fallback", arrayContent );
+
+            assertTrue( bComplete );
+            assertEquals( "[0][2]", arrayContent [0] );
+            assertEquals( "[1][3]", arrayContent [1] );
+            assertEquals( "", arrayContent [2] );
+        }
+        finally
+        {
+            executor.shutdownNow( );
+        }
+    }
+
+    /**
+     * Tests that a portlet not rendered within the timeout is replaced by its fallback content and that its task is not interrupted
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testCollectPortletContentsTimeout( ) throws Exception
+    {
+        CountDownLatch latchRelease = new CountDownLatch( 1 );
+        CountDownLatch latchDone = new CountDownLatch( 1 );
+        AtomicBoolean bInterrupted = new AtomicBoolean( false );
+        ExecutorService executor = Executors.newSingleThreadExecutor( );
+
+        Future<String> slowFuture = executor.submit( ( ) -> {
+            try
+            {
+                latchRelease.await( );
+            }
+            catch( InterruptedException e )
+            {
+                bInterrupted.set( true );
+            }
+            finally
+            {
+                latchDone.countDown( );
+            }
+
+            return "slow";
+        } );
+
+        List<Portlet> listPortlets = new ArrayList<>( );
+        listPortlets.add( createPortlet( 1, 1 ) );
+        listPortlets.add( createPortlet( 2, 1 ) );
+
+        List<PortletRequestWrapper> listRequests = new ArrayList<>( );
+        listRequests.add( new PortletRequestWrapper( new MockHttpServletRequest( ) ) );
+        listRequests.add( new PortletRequestWrapper( new MockHttpServletRequest( ) ) );
+
+        List<Future<String>> listFutures = new ArrayList<>( );
+        listFutures.add( CompletableFuture.completedFuture( "fast" ) );
+        listFutures.add( slowFuture );
+
+        String [ ] arrayContent = new String [ ] {
+                ""
+        };
+
+        try
+        {
+            boolean bComplete = PageService.collectPortletContents( listPortlets, listRequests, listFutures, 100L,
+                    portlet -> "fallback" + portlet.getId( ), arrayContent );
+
+            assertFalse( bComplete );
+            assertEquals( "fastfallback2", arrayContent [0] );
+            assertTrue( slowFuture.isCancelled( ) );
+
+            // the running task is left to finish without being interrupted
+            latchRelease.countDown( );
+            assertTrue( latchDone.await( 5, TimeUnit.SECONDS ) );
+            assertFalse( bInterrupted.get( ) );
+        }
+        finally
+        {
+            latchRelease.countDown( );
+            executor.shutdownNow( );
+        }
+    }
+
+    /**
+     * Creates a portlet
+     * 
+     * @param nId
+     *            The portlet id
+     * @param nColumn
+     *            The column of the portlet
+     * @return The portlet
+     */
+    private Portlet createPortlet( int nId, int nColumn )
+    {
+        Portlet portlet = new AliasPortlet( );
+        portlet.setId( nId );
+        portlet.setPageId( 1 );
+        portlet.setColumn( nColumn );
+
+        return portlet;
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.page;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import fr.paris.lutece.portal.business.page.Page;
+import fr.paris.lutece.portal.business.page.PageHome;
+import fr.paris.lutece.portal.service.cache.CacheService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * PageTree Test Class
+ */
+public class PageTreeTest extends LuteceTestCase
+{
+    private static Page newPage( int nId, int nParentId, int nOrder )
+    {
+        Page page = new Page( );
+        page.setId( nId );
+        page.setParentPageId( nParentId );
+        page.setOrder( nOrder );
+        page.setName( "page" + nId );
+
+        return page;
+    }
+
+    public void testTree( )
+    {
+        PageTree tree = new PageTree( Arrays.asList( newPage( 1, 0, 1 ), newPage( 3, 1, 2 ), newPage( 2, 1, 1 ), newPage( 4, 3, 1 ) ),
+                Collections.singletonList( 3 ) );
+
+        assertEquals( 4, tree.size( ) );
+        assertEquals( "page4", tree.getPage( 4 ).getName( ) );
+        assertNull( tree.getPage( 5 ) );
+        assertTrue( tree.hasImage( 3 ) );
+        assertFalse( tree.hasImage( 4 ) );
+
+        List<Page> listChildPages = tree.getChildPages( 1 );
+        assertEquals( 2, listChildPages.size( ) );
+        assertEquals( 2, listChildPages.get( 0 ).getId( ) );
+        assertEquals( 3, listChildPages.get( 1 ).getId( ) );
+        assertTrue( tree.getChildPages( 4 ).isEmpty( ) );
+
+        List<Page> listPath = tree.getPagePath( 4 );
+        assertEquals( 3, listPath.size( ) );
+        assertEquals( 1, listPath.get( 0 ).getId( ) );
+        assertEquals( 3, listPath.get( 1 ).getId( ) );
+        assertEquals( 4, listPath.get( 2 ).getId( ) );
+        assertTrue( tree.getPagePath( 5 ).isEmpty( ) );
+
+        // the returned pages are copies
+        tree.getPage( 4 ).setName( "junit" );
+        assertEquals( "page4", tree.getPage( 4 ).getName( ) );
+    }
+
+    public void testCycle( )
+    {
+        PageTree tree = new PageTree( Arrays.asList( newPage( 1, 2, 1 ), newPage( 2, 1, 1 ) ), Collections.emptyList( ) );
+
+        assertEquals( 2, tree.getPagePath( 1 ).size( ) );
+    }
+
+    public void testPageTreeService( )
+    {
+        PageTree tree = PageTreeService.getPageTree( );
+        assertSame( tree, PageTreeService.getPageTree( ) );
+        assertEquals( PageHome.getAllPagesMinimalData( ).size( ), tree.size( ) );
+
+        CacheService.notifyEntityChange( Page.RESOURCE_TYPE, "1", EntityChangeEvent.ENTITY_UPDATED );
+        assertNotSame( tree, PageTreeService.getPageTree( ) );
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.page;
+
+import java.util.Collections;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * PortletRequestWrapper Test Class
+ */
+public class PortletRequestWrapperTest extends LuteceTestCase
+{
+    public void testAttributesAreIsolated( )
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.setAttribute( "shared", "value" );
+        request.setAttribute( "removed", "value" );
+
+        PortletRequestWrapper wrapper = new PortletRequestWrapper( request );
+        wrapper.setAttribute( "portlet", "content" );
+        wrapper.removeAttribute( "removed" );
+
+        assertEquals( "value", wrapper.getAttribute( "shared" ) );
+        assertEquals( "content", wrapper.getAttribute( "portlet" ) );
+        assertNull( wrapper.getAttribute( "removed" ) );
+        assertFalse( Collections.list( wrapper.getAttributeNames( ) ).contains( "removed" ) );
+
+        assertNull( request.getAttribute( "portlet" ) );
+        assertEquals( "value", request.getAttribute( "removed" ) );
+    }
+
+    public void testApplyAttributes( )
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.setAttribute( "removed", "value" );
+
+        PortletRequestWrapper wrapper = new PortletRequestWrapper( request );
+        wrapper.setAttribute( "portlet", "content" );
+        wrapper.setAttribute( "removed", null );
+        wrapper.applyAttributes( );
+
+        assertEquals( "content", request.getAttribute( "portlet" ) );
+        assertNull( request.getAttribute( "removed" ) );
+    }
+}
@@ -45,6 +45,8 @@ import org.junit.Test;
 import fr.paris.lutece.api.user.User;
 import fr.paris.lutece.portal.business.rbac.RBAC;
 import fr.paris.lutece.portal.business.rbac.RBACHome;
+import fr.paris.lutece.portal.service.cache.CacheService;
+import fr.paris.lutece.portal.service.cache.EntityChangeEvent;
 import fr.paris.lutece.test.LuteceTestCase;
 import fr.paris.lutece.util.ReferenceList;
 
@@ -517,4 +519,42 @@ public class RBACServiceTest extends LuteceTestCase
         } );
     }
 
+    @Test
+    public void testIsAuthorized( )
+    {
+        assertTrue( RBACService.isAuthorized( "JUNITTYPE1", "JUNITID1", "JUNITPERM1", new TestUser( "JUNITROLE1" ) ) );
+        assertFalse( RBACService.isAuthorized( "JUNITTYPE1", "JUNITID1", "JUNITPERM2", new TestUser( "JUNITROLE1" ) ) );
+        assertFalse( RBACService.isAuthorized( "JUNITTYPE1", "JUNITID2", "JUNITPERM1", new TestUser( "JUNITROLE1" ) ) );
+        assertFalse( RBACService.isAuthorized( "JUNITTYPE1", "JUNITID1", "JUNITPERM1", new TestUser( "JUNITROLE2" ) ) );
+        assertTrue( RBACService.isAuthorized( "JUNITTYPE2", "JUNITID_ANY", "JUNITPERM2", new TestUser( "JUNITROLE2" ) ) );
+        assertTrue( RBACService.isAuthorized( "JUNITTYPE3", "JUNITID3", "JUNITPERM_ANY", new TestUser( "JUNITROLE3" ) ) );
+        assertTrue( RBACService.isAuthorized( "JUNITTYPE6", "JUNITID_ANY", "JUNITPERM6_TER", new TestUser( "JUNITROLE1", "JUNITROLE7" ) ) );
+    }
+
+    @Test
+    public void testIsAuthorizedAfterRemove( )
+    {
+        User user = new TestUser( "JUNITROLE1" );
+        assertTrue( RBACService.isAuthorized( "JUNITTYPE1", "JUNITID1", "JUNITPERM1", user ) );
+
+        RBAC rbac = rbacs.iterator( ).next( );
+        RBACHome.remove( rbac.getRBACId( ) );
+        assertFalse( RBACService.isAuthorized( "JUNITTYPE1", "JUNITID1", "JUNITPERM1", user ) );
+
+        RBACHome.create( rbac );
+        assertTrue( RBACService.isAuthorized( "JUNITTYPE1", "JUNITID1", "JUNITPERM1", user ) );
+    }
+
+    @Test
+    public void testIndexDroppedByRemoteChange( )
+    {
+        RBACIndex index = RBACCacheService.getIndex( );
+        assertNotNull( index );
+        assertSame( index, RBACCacheService.getIndex( ) );
+
+        // A change of the RBAC entries made on another node of the cluster
+        CacheService.processRemoteEntityChanges(
+                Collections.singletonList( new EntityChangeEvent( RBACCacheService.ENTITY_TYPE, null, EntityChangeEvent.ENTITY_UPDATED ) ) );
+        assertNotSame( index, RBACCacheService.getIndex( ) );
+    }
 }
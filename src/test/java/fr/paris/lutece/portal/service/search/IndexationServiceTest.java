@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.search;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * IndexationService Test of the full indexing with a pool of workers
+ */
+public class IndexationServiceTest extends LuteceTestCase
+{
+    private static final String PROPERTY_PARALLEL_ENABLED = "search.lucene.fullIndexing.parallel.enabled";
+    private static final String TYPE_JUNIT = "junitparallel";
+    private static final String ERROR_MESSAGE = "junit indexing task failure";
+    private static final int DOCUMENTS_COUNT = 200;
+
+    private TestIndexer _indexer;
+
+    @Override
+    protected void setUp( ) throws Exception
+    {
+        super.setUp( );
+        _indexer = new TestIndexer( );
+        IndexationService.registerIndexer( _indexer );
+    }
+
+    @Override
+    protected void tearDown( ) throws Exception
+    {
+        IndexationService.unregisterIndexer( _indexer );
+        setParallelIndexing( false );
+        IndexationService.processIndexing( true );
+        super.tearDown( );
+    }
+
+    /**
+     * Tests that the documents produced by the workers of a parallel full indexing are all indexed once, and that the index can then be updated
+     * incrementally
+     * 
+     * @throws Exception
+     */
+    public void testParallelFullIndexing( ) throws Exception
+    {
+        setParallelIndexing( true );
+
+        IndexationService.processIndexing( true );
+
+        assertEquals( DOCUMENTS_COUNT, countDocuments( TYPE_JUNIT ) );
+        assertTrue( "The documents should be produced by the indexing threads",
+                _indexer.getThreadNames( ).stream( ).allMatch( strName -> strName.startsWith( "Lutece-Indexing-" ) ) );
+
+        // the main writer is not replaced by the writer of the build
+        IndexationService.processIndexing( false );
+        assertEquals( DOCUMENTS_COUNT, countDocuments( TYPE_JUNIT ) );
+    }
+
+    /**
+     * Tests that the failure of a task is reported and does not prevent the other documents from being indexed
+     * 
+     * @throws Exception
+     */
+    public void testParallelFullIndexingTaskFailure( ) throws Exception
+    {
+        setParallelIndexing( true );
+        _indexer.setFailingTask( 10 );
+
+        String strLogs = IndexationService.processIndexing( true );
+
+        assertTrue( strLogs.contains( ERROR_MESSAGE ) );
+        assertEquals( DOCUMENTS_COUNT - 1, countDocuments( TYPE_JUNIT ) );
+    }
+
+    /**
+     * Tests that the tasks are run by the calling thread when the full indexing is not parallel
+     * 
+     * @throws Exception
+     */
+    public void testSequentialFullIndexing( ) throws Exception
+    {
+        setParallelIndexing( false );
+
+        IndexationService.processIndexing( true );
+
+        assertEquals( DOCUMENTS_COUNT, countDocuments( TYPE_JUNIT ) );
+        assertEquals( Collections.singleton( Thread.currentThread( ).getName( ) ), _indexer.getThreadNames( ) );
+    }
+
+    /**
+     * Counts the documents of a type in the index
+     * 
+     * @param strType
+     *            The type
+     * @return The number of documents
+     * @throws IOException
+     *             if an error occurs
+     */
+    private int countDocuments( String strType ) throws IOException
+    {
+        IndexSearcher searcher = IndexationService.acquireSearcher( );
+        assertNotNull( searcher );
+
+        try
+        {
+            return searcher.count( new TermQuery( new Term( SearchItem.FIELD_TYPE, strType ) ) );
+        }
+        finally
+        {
+            IndexationService.releaseSearcher( searcher );
+        }
+    }
+
+    /**
+     * Sets the parallel indexing property
+     * 
+     * @param bEnabled
+     *            true to enable the parallel full indexing
+     * @throws IOException
+     *             if an error occurs
+     */
+    private void setParallelIndexing( boolean bEnabled ) throws IOException
+    {
+        File searchProperties = new File( getResourcesDir( ), "WEB-INF/conf/search.properties" );
+        Properties props = new Properties( );
+
+        try ( InputStream is = new FileInputStream( searchProperties ) )
+        {
+            props.load( is );
+        }
+
+        props.setProperty( PROPERTY_PARALLEL_ENABLED, String.valueOf( bEnabled ) );
+
+        try ( OutputStream os = new FileOutputStream( searchProperties ) )
+        {
+            props.store( os, "saved for junit " + this.getClass( ).getCanonicalName( ) );
+        }
+
+        AppPropertiesService.reloadAll( );
+    }
+
+    /**
+     * Indexer producing its documents with indexing tasks
+     */
+    private static final class TestIndexer implements SearchIndexer
+    {
+        private final Set<String> _setThreadNames = ConcurrentHashMap.newKeySet( );
+        private int _nFailingTask = -1;
+
+        void setFailingTask( int nFailingTask )
+        {
+            _nFailingTask = nFailingTask;
+        }
+
+        Set<String> getThreadNames( )
+        {
+            return _setThreadNames;
+        }
+
+        @Override
+        public void indexDocuments( ) throws IOException, InterruptedException
+        {
+            List<Future<?>> listTasks = new ArrayList<>( );
+
+            for ( int i = 0; i < DOCUMENTS_COUNT; i++ )
+            {
+                int nDocument = i;
+
+                listTasks.add( IndexationService.submitIndexingTask( ( ) -> {
+                    _setThreadNames.add( Thread.currentThread( ).getName( ) );
+
+                    if ( nDocument == _nFailingTask )
+                    {
+                        throw new IOException( ERROR_MESSAGE );
+                    }
+
+                    Document doc = new Document( );
+                    doc.add( new StringField( SearchItem.FIELD_UID, "junit-" + nDocument, Field.Store.YES ) );
+                    doc.add( new StringField( SearchItem.FIELD_TYPE, TYPE_JUNIT, Field.Store.YES ) );
+                    IndexationService.write( doc );
+                } ) );
+            }
+
+            IndexationService.waitForIndexingTasks( this, listTasks );
+        }
+
+        @Override
+        public List<Document> getDocuments( String strIdDocument )
+        {
+            return Collections.emptyList( );
+        }
+
+        @Override
+        public String getName( )
+        {
+            return "JunitParallelIndexer";
+        }
+
+        @Override
+        public String getVersion( )
+        {
+            return "1.0.0";
+        }
+
+        @Override
+        public String getDescription( )
+        {
+            return "Junit parallel indexer";
+        }
+
+        @Override
+        public boolean isEnable( )
+        {
+            return true;
+        }
+
+        @Override
+        public List<String> getListType( )
+        {
+            return Collections.singletonList( TYPE_JUNIT );
+        }
+
+        @Override
+        public String getSpecificSearchAppUrl( )
+        {
+            return "";
+        }
+    }
+}
@@ -131,6 +131,22 @@ public class LuceneSearchEngineTest extends LuteceTestCase
         assertTrue( "The search results list should have no elements. Got : " + listResults, listResults != null && listResults.size( ) == 0 );
     }
 
+    public void testSearchPaginated( ) throws Exception
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        PaginatedSearchResults results = _engine.getSearchResults( "lutecefoo lutecebaz", request, 0, 1 );
+        assertEquals( 2, results.getTotalCount( ) );
+        assertEquals( 1, results.getResults( ).size( ) );
+
+        results = _engine.getSearchResults( "lutecefoo lutecebaz", request, 1, 1 );
+        assertEquals( 2, results.getTotalCount( ) );
+        assertEquals( 1, results.getResults( ).size( ) );
+
+        results = _engine.getSearchResults( "lutecefoo lutecebaz", request, 2, 1 );
+        assertEquals( 2, results.getTotalCount( ) );
+        assertTrue( results.getResults( ).isEmpty( ) );
+    }
+
     public void testSearchDateMatch( ) throws Exception
     {
         MockHttpServletRequest request = new MockHttpServletRequest( );
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.search;
+
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+
+import fr.paris.lutece.portal.business.indexeraction.IndexerAction;
+import fr.paris.lutece.portal.business.indexeraction.IndexerActionHome;
+import fr.paris.lutece.portal.business.page.Page;
+import fr.paris.lutece.portal.business.page.PageHome;
+import fr.paris.lutece.portal.business.page.PageTemplateHome;
+import fr.paris.lutece.portal.service.page.IPageService;
+import fr.paris.lutece.portal.service.portal.PortalService;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * PageIndexer Test
+ */
+public class PageIndexerTest extends LuteceTestCase
+{
+    private IPageService _pageService;
+    private Page _page;
+
+    @Override
+    protected void setUp( ) throws Exception
+    {
+        super.setUp( );
+        _pageService = SpringContextService.getBean( "pageService" );
+        _page = new Page( );
+        _page.setParentPageId( PortalService.getRootPageId( ) );
+        _page.setPageTemplateId( PageTemplateHome.getPageTemplatesList( ).get( 0 ).getId( ) );
+        _page.setName( getRandomName( ) );
+        _page.setDescription( _page.getName( ) );
+        _page.setMetaKeywords( "" );
+        _page.setMetaDescription( "" );
+        _page.setNodeStatus( 1 );
+        _page.setDateUpdate( new Timestamp( System.currentTimeMillis( ) ) );
+        _page.setDisplayDateUpdate( true );
+        _page.setIsManualDateUpdate( true );
+    }
+
+    @Override
+    protected void tearDown( ) throws Exception
+    {
+        if ( ( _page.getId( ) != 0 ) && ( PageHome.findByPrimaryKey( _page.getId( ) ) != null ) )
+        {
+            _pageService.removePage( _page.getId( ) );
+            IndexationService.processIndexing( false );
+        }
+
+        super.tearDown( );
+    }
+
+    /**
+     * Tests that the page events are recorded once as indexer actions, whatever the number of indexer instances
+     */
+    public void testPageEventRecordedOnce( )
+    {
+        new PageIndexer( );
+        new PageIndexer( );
+
+        _pageService.createPage( _page );
+
+        List<IndexerAction> listActions = getPageActions( );
+        assertEquals( 1, listActions.size( ) );
+        assertEquals( IndexerAction.TASK_CREATE, listActions.get( 0 ).getIdTask( ) );
+    }
+
+    /**
+     * Tests that the incremental indexing reindexes a modified page
+     * 
+     * @throws Exception
+     */
+    public void testIncrementalReindexOfModifiedPage( ) throws Exception
+    {
+        _pageService.createPage( _page );
+        IndexationService.processIndexing( false );
+
+        assertTrue( getPageActions( ).isEmpty( ) );
+
+        List<Document> listDocuments = getPageDocuments( );
+        assertEquals( 1, listDocuments.size( ) );
+        assertEquals( _page.getName( ), listDocuments.get( 0 ).get( SearchItem.FIELD_TITLE ) );
+
+        String strNewName = getRandomName( );
+        _page.setName( strNewName );
+        _pageService.updatePage( _page );
+
+        List<IndexerAction> listActions = getPageActions( );
+        assertEquals( 1, listActions.size( ) );
+        assertEquals( IndexerAction.TASK_MODIFY, listActions.get( 0 ).getIdTask( ) );
+
+        IndexationService.processIndexing( false );
+
+        assertTrue( getPageActions( ).isEmpty( ) );
+
+        // the document of the page is replaced, not added
+        listDocuments = getPageDocuments( );
+        assertEquals( 1, listDocuments.size( ) );
+        assertEquals( strNewName, listDocuments.get( 0 ).get( SearchItem.FIELD_TITLE ) );
+
+        _pageService.removePage( _page.getId( ) );
+        IndexationService.processIndexing( false );
+
+        assertTrue( getPageDocuments( ).isEmpty( ) );
+    }
+
+    /**
+     * Gets the pending indexer actions of the test page
+     * 
+     * @return The actions
+     */
+    private List<IndexerAction> getPageActions( )
+    {
+        String strIdPage = String.valueOf( _page.getId( ) );
+
+        return IndexerActionHome.getList( ).stream( )
+                .filter( action -> PageIndexer.INDEXER_NAME.equals( action.getIndexerName( ) ) && strIdPage.equals( action.getIdDocument( ) ) )
+                .collect( Collectors.toList( ) );
+    }
+
+    /**
+     * Gets the indexed documents of the test page
+     * 
+     * @return The documents
+     * @throws Exception
+     */
+    private List<Document> getPageDocuments( ) throws Exception
+    {
+        BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder( );
+        queryBuilder.add( new TermQuery( new Term( SearchItem.FIELD_UID, String.valueOf( _page.getId( ) ) ) ), BooleanClause.Occur.MUST );
+        queryBuilder.add( new TermQuery( new Term( SearchItem.FIELD_TYPE, PageIndexer.INDEX_TYPE_PAGE ) ), BooleanClause.Occur.MUST );
+
+        IndexSearcher searcher = IndexationService.acquireSearcher( );
+        assertNotNull( searcher );
+
+        try
+        {
+            List<Document> listDocuments = new ArrayList<>( );
+
+            for ( ScoreDoc scoreDoc : searcher.search( queryBuilder.build( ), 10 ).scoreDocs )
+            {
+                listDocuments.add( searcher.doc( scoreDoc.doc ) );
+            }
+
+            return listDocuments;
+        }
+        finally
+        {
+            IndexationService.releaseSearcher( searcher );
+        }
+    }
+
+    /**
+     * Gets a random page name
+     * 
+     * @return The name
+     */
+    private static String getRandomName( )
+    {
+        return "page" + new SecureRandom( ).nextLong( );
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.template;
+
+import java.util.Locale;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * TemplateKeysReplacer Test Class
+ */
+public class TemplateKeysReplacerTest extends LuteceTestCase
+{
+    public void testReplaceLocalizationKeys( )
+    {
+        String strResult = TemplateKeysReplacer.replaceKeys( "<a>#i18n{portal.util.labelCancel}</a>#i18n{portal.util.labelCancel}", Locale.FRENCH, false );
+        assertEquals( "<a>Annuler</a>Annuler", strResult );
+    }
+
+    public void testNoKeys( )
+    {
+        String strSource = "<p>#no key {here}</p>";
+        assertSame( strSource, TemplateKeysReplacer.replaceKeys( strSource, Locale.FRENCH, true ) );
+        assertNull( TemplateKeysReplacer.replaceKeys( null, Locale.FRENCH, true ) );
+    }
+
+    public void testKeysLeftUnchanged( )
+    {
+        // no locale
+        assertEquals( "#i18n{portal.util.labelCancel}", TemplateKeysReplacer.replaceKeys( "#i18n{portal.util.labelCancel}", null, false ) );
+        // not terminated
+        assertEquals( "a #i18n{portal.util.labelCancel", TemplateKeysReplacer.replaceKeys( "a #i18n{portal.util.labelCancel", Locale.FRENCH, false ) );
+        // multi-line
+        assertEquals( "#i18n{portal.util.\nlabelCancel}", TemplateKeysReplacer.replaceKeys( "#i18n{portal.util.\nlabelCancel}", Locale.FRENCH, false ) );
+        // datastore keys not requested
+        assertEquals( "#dskey{portal.site.site_property.name}",
+                TemplateKeysReplacer.replaceKeys( "#dskey{portal.site.site_property.name}", Locale.FRENCH, false ) );
+    }
+}
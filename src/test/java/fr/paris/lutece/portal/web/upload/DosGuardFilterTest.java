@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.web.upload;
+
+import javax.servlet.ServletException;
+
+import org.springframework.mock.web.MockFilterConfig;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class DosGuardFilterTest extends LuteceTestCase
+{
+    private static final String IP_1 = "10.0.0.1";
+    private static final String IP_2 = "10.0.0.2";
+
+    private DosGuardFilter createFilter( String strMinContentLength, String strMinInterval, String strLimits ) throws ServletException
+    {
+        MockFilterConfig config = new MockFilterConfig( );
+        config.addInitParameter( "minContentLength", strMinContentLength );
+        config.addInitParameter( "minInterval", strMinInterval );
+        config.addInitParameter( "cleanInterval", "0" );
+
+        if ( strLimits != null )
+        {
+            config.addInitParameter( "limits", strLimits );
+        }
+
+        DosGuardFilter filter = new DosGuardFilter( );
+        filter.init( config );
+
+        return filter;
+    }
+
+    public void testCompatibilityProfile( ) throws ServletException
+    {
+        DosGuardFilter filter = createFilter( "1000", "2000", null );
+
+        assertTrue( filter.isAllowed( IP_1, 10, "/jsp/site/Portal.jsp", 0 ) );
+        assertTrue( filter.isAllowed( IP_1, 10, "/jsp/site/Portal.jsp", 0 ) );
+        assertTrue( filter.isAllowed( IP_1, 5000, "/jsp/site/Portal.jsp", 0 ) );
+        assertFalse( filter.isAllowed( IP_1, 5000, "/jsp/site/Portal.jsp", 1999 ) );
+        assertTrue( filter.isAllowed( IP_2, 5000, "/jsp/site/Portal.jsp", 1999 ) );
+        assertTrue( filter.isAllowed( IP_1, 5000, "/jsp/site/Portal.jsp", 2000 ) );
+
+        assertEquals( 3, filter.getAllowedCount( ) );
+        assertEquals( 1, filter.getRejectedCount( ) );
+        filter.destroy( );
+    }
+
+    public void testUrlPrefixLimits( ) throws ServletException
+    {
+        DosGuardFilter filter = createFilter( "1000", "2000", "/rest/=3/300, /rest/admin/=1/1000/0" );
+
+        // Burst up to the capacity then one token every 100 ms
+        assertTrue( filter.isAllowed( IP_1, 10, "/rest/items", 0 ) );
+        assertTrue( filter.isAllowed( IP_1, 10, "/rest/items", 0 ) );
+        assertTrue( filter.isAllowed( IP_1, 10, "/rest/items", 0 ) );
+        assertFalse( filter.isAllowed( IP_1, 10, "/rest/items", 50 ) );
+        assertTrue( filter.isAllowed( IP_1, 10, "/rest/items", 100 ) );
+
+        // The longest prefix wins
+        assertTrue( filter.isAllowed( IP_1, 10, "/rest/admin/users", 100 ) );
+        assertFalse( filter.isAllowed( IP_1, 10, "/rest/admin/users", 200 ) );
+
+        // Other URLs keep the compatibility profile
+        assertTrue( filter.isAllowed( IP_1, 10, "/jsp/site/Portal.jsp", 200 ) );
+        filter.destroy( );
+    }
+
+    public void testCleanExpiredBuckets( ) throws ServletException
+    {
+        DosGuardFilter filter = createFilter( "0", "1", null );
+
+        assertTrue( filter.isAllowed( IP_1, 10 ) );
+        filter.cleanExpiredBuckets( );
+        assertTrue( filter.getStatistics( ).startsWith( "activeBuckets = " ) );
+        filter.destroy( );
+    }
+
+    public void testInvalidLimit( )
+    {
+        try
+        {
+            createFilter( "0", "0", "/rest/=abc" );
+            fail( "An invalid limit should be rejected" );
+        }
+        catch( ServletException e )
+        {
+            // expected
+        }
+    }
+}
@@ -33,9 +33,12 @@
  */
 package fr.paris.lutece.util;
 
+import fr.paris.lutece.util.bean.PropertyAccessorTest;
+import fr.paris.lutece.util.datatable.DataTableManagerTest;
 import fr.paris.lutece.util.filesystem.FileSystemUtilTest;
 import fr.paris.lutece.util.filesystem.UploadUtilTest;
 import fr.paris.lutece.util.html.PaginatorTest;
+import fr.paris.lutece.util.sort.AttributeComparatorTest;
 import fr.paris.lutece.util.string.StringUtilTest;
 import fr.paris.lutece.util.url.UrlItemTest;
 import junit.framework.Test;
@@ -68,6 +71,9 @@ public final class AllTests
         suite.addTest( new TestSuite( FileSystemUtilTest.class ) );
         suite.addTest( new TestSuite( UploadUtilTest.class ) );
         suite.addTest( new TestSuite( PaginatorTest.class ) );
+        suite.addTest( new TestSuite( AttributeComparatorTest.class ) );
+        suite.addTest( new TestSuite( PropertyAccessorTest.class ) );
+        suite.addTest( new TestSuite( DataTableManagerTest.class ) );
         suite.addTest( new TestSuite( UrlItemTest.class ) );
         suite.addTest( new TestSuite( PropertiesServiceTest.class ) );
         suite.addTest( new TestSuite( ReferenceListTest.class ) );
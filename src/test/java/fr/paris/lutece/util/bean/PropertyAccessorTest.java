@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.bean;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * PropertyAccessor Test Class
+ */
+public class PropertyAccessorTest extends LuteceTestCase
+{
+    public void testGetter( ) throws InvocationTargetException
+    {
+        PropertyAccessor accessor = PropertyAccessor.getAccessor( TestBean.class, "name", PropertyAccessor.PREFIX_GET );
+        assertNotNull( accessor );
+        assertEquals( String.class, accessor.getReturnType( ) );
+        assertEquals( "name", accessor.getValue( new TestBean( "name", 1, true ) ) );
+        assertSame( accessor, PropertyAccessor.getAccessor( TestBean.class, "name", PropertyAccessor.PREFIX_GET ) );
+
+        PropertyAccessor accessorCount = PropertyAccessor.getAccessor( TestBean.class, "count", PropertyAccessor.PREFIX_GET );
+        assertEquals( int.class, accessorCount.getReturnType( ) );
+        assertEquals( 1, accessorCount.getValue( new TestBean( "name", 1, true ) ) );
+    }
+
+    public void testBooleanGetter( ) throws InvocationTargetException
+    {
+        PropertyAccessor accessor = PropertyAccessor.getAccessor( TestBean.class, "enabled", PropertyAccessor.PREFIX_IS );
+        assertNotNull( accessor );
+        assertEquals( Boolean.TRUE, accessor.getValue( new TestBean( "name", 1, true ) ) );
+        assertEquals( Boolean.FALSE, accessor.getValue( new TestBean( "name", 1, false ) ) );
+
+        // the boolean property has no "get" getter
+        assertNull( PropertyAccessor.getAccessor( TestBean.class, "enabled", PropertyAccessor.PREFIX_GET ) );
+    }
+
+    public void testMissingProperty( )
+    {
+        assertNull( PropertyAccessor.getAccessor( TestBean.class, "missing", PropertyAccessor.PREFIX_GET ) );
+        assertNull( PropertyAccessor.getAccessor( TestBean.class, "missing", PropertyAccessor.PREFIX_GET ) );
+
+        // a getter that is not public is not a property
+        assertNull( PropertyAccessor.getAccessor( TestBean.class, "hidden", PropertyAccessor.PREFIX_GET ) );
+    }
+
+    public void testInheritedGetter( ) throws InvocationTargetException
+    {
+        PropertyAccessor accessor = PropertyAccessor.getAccessor( TestSubBean.class, "name", PropertyAccessor.PREFIX_GET );
+        assertNotNull( accessor );
+        assertEquals( "sub", accessor.getValue( new TestSubBean( "sub" ) ) );
+
+        // an accessor of the parent class reads the objects of the sub class
+        assertEquals( "sub", PropertyAccessor.getAccessor( TestBean.class, "name", PropertyAccessor.PREFIX_GET ).getValue( new TestSubBean( "sub" ) ) );
+
+        // an overridden getter is invoked on the objects of the sub class
+        assertEquals( 2, PropertyAccessor.getAccessor( TestBean.class, "count", PropertyAccessor.PREFIX_GET ).getValue( new TestSubBean( "sub" ) ) );
+    }
+
+    public void testFailingGetter( )
+    {
+        PropertyAccessor accessor = PropertyAccessor.getAccessor( TestBean.class, "failure", PropertyAccessor.PREFIX_GET );
+
+        try
+        {
+            accessor.getValue( new TestBean( "name", 1, true ) );
+            fail( "An InvocationTargetException should have been thrown" );
+        }
+        catch( InvocationTargetException e )
+        {
+            assertTrue( e.getCause( ) instanceof IllegalStateException );
+        }
+    }
+
+    /**
+     * Bean read by the tests
+     */
+    public static class TestBean
+    {
+        private final String _strName;
+        private final int _nCount;
+        private final boolean _bEnabled;
+
+        /**
+         * Constructor
+         * 
+         * @param strName
+         *            the name
+         * @param nCount
+         *            the count
+         * @param bEnabled
+         *            the enabled flag
+         */
+        public TestBean( String strName, int nCount, boolean bEnabled )
+        {
+            _strName = strName;
+            _nCount = nCount;
+            _bEnabled = bEnabled;
+        }
+
+        /**
+         * @return the name
+         */
+        public String getName( )
+        {
+            return _strName;
+        }
+
+        /**
+         * @return the count
+         */
+        public int getCount( )
+        {
+            return _nCount;
+        }
+
+        /**
+         * @return the enabled flag
+         */
+        public boolean isEnabled( )
+        {
+            return _bEnabled;
+        }
+
+        /**
+         * @return never
+         */
+        public String getFailure( )
+        {
+            throw new IllegalStateException( );
+        }
+
+        /**
+         * @return the name
+         */
+        String getHidden( )
+        {
+            return _strName;
+        }
+    }
+
+    /**
+     * Sub class inheriting the getters
+     */
+    public static class TestSubBean extends TestBean
+    {
+        /**
+         * Constructor
+         * 
+         * @param strName
+         *            the name
+         */
+        public TestSubBean( String strName )
+        {
+            super( strName, 1, true );
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getCount( )
+        {
+            return 2;
+        }
+    }
+}
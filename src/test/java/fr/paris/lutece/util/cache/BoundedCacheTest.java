@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests of the bounded cache
+ */
+public class BoundedCacheTest
+{
+    /**
+     * Tests that the least recently used values are evicted when the cache is full
+     */
+    @Test
+    public void testLruBound( )
+    {
+        BoundedCache<String, String> cache = new BoundedCache<>( 2 );
+
+        assertTrue( cache.put( "a", "A", cache.getGeneration( "a" ) ) );
+        assertTrue( cache.put( "b", "B", cache.getGeneration( "b" ) ) );
+
+        // a becomes the most recently used
+        assertEquals( "A", cache.get( "a" ) );
+        assertEquals( Arrays.asList( "b", "a" ), cache.getKeys( ) );
+
+        assertTrue( cache.put( "c", "C", cache.getGeneration( "c" ) ) );
+
+        assertEquals( 2, cache.size( ) );
+        assertEquals( 1, cache.getEvictionCount( ) );
+        assertNull( cache.get( "b" ) );
+        assertEquals( "A", cache.get( "a" ) );
+        assertEquals( "C", cache.get( "c" ) );
+        assertEquals( Arrays.asList( "a", "c" ), cache.getKeys( ) );
+    }
+
+    /**
+     * Tests that the cache is bounded by the weight of its values
+     */
+    @Test
+    public void testWeightBound( )
+    {
+        BoundedCache<String, byte [ ]> cache = new BoundedCache<>( 10, value -> value.length, 0L );
+
+        assertTrue( cache.put( "a", new byte [ 4], cache.getGeneration( "a" ) ) );
+        assertTrue( cache.put( "b", new byte [ 4], cache.getGeneration( "b" ) ) );
+        assertEquals( 8, cache.getWeight( ) );
+
+        // heavier than the cache
+        assertFalse( cache.put( "c", new byte [ 11], cache.getGeneration( "c" ) ) );
+
+        // a is evicted to make room
+        assertTrue( cache.put( "c", new byte [ 6], cache.getGeneration( "c" ) ) );
+        assertNull( cache.get( "a" ) );
+        assertEquals( 10, cache.getWeight( ) );
+
+        // the weight follows the replacements and the removals
+        assertTrue( cache.put( "c", new byte [ 2], cache.getGeneration( "c" ) ) );
+        assertEquals( 6, cache.getWeight( ) );
+        cache.remove( "b" );
+        assertEquals( 2, cache.getWeight( ) );
+    }
+
+    /**
+     * Tests that a value loaded before an invalidation is not put back in the cache
+     */
+    @Test
+    public void testInvalidationDuringLoad( )
+    {
+        BoundedCache<String, String> cache = new BoundedCache<>( 10 );
+
+        long lGeneration = cache.getGeneration( "a" );
+        cache.remove( "a" );
+        assertFalse( cache.put( "a", "stale", lGeneration ) );
+        assertNull( cache.get( "a" ) );
+
+        lGeneration = cache.getGeneration( "a" );
+        cache.clear( );
+        assertFalse( cache.put( "a", "stale", lGeneration ) );
+        assertEquals( 0, cache.size( ) );
+
+        lGeneration = cache.getGeneration( "a" );
+        cache.removeIf( key -> key.startsWith( "a" ) );
+        assertFalse( cache.put( "a", "stale", lGeneration ) );
+
+        assertTrue( cache.put( "a", "fresh", cache.getGeneration( "a" ) ) );
+        assertEquals( "fresh", cache.get( "a" ) );
+    }
+
+    /**
+     * Tests that the invalidation of a key doesn't drop the values loaded for the keys of other stripes
+     */
+    @Test
+    public void testInvalidationOfAnotherKey( )
+    {
+        BoundedCache<Integer, String> cache = new BoundedCache<>( 10 );
+
+        // the integers 1 and 2 are in different stripes
+        long lGeneration = cache.getGeneration( 1 );
+        cache.remove( 2 );
+        assertTrue( cache.put( 1, "one", lGeneration ) );
+        assertEquals( "one", cache.get( 1 ) );
+    }
+
+    /**
+     * Tests that the values expire after their time to live
+     * 
+     * @throws InterruptedException
+     */
+    @Test
+    public void testTimeToLive( ) throws InterruptedException
+    {
+        BoundedCache<String, String> cache = new BoundedCache<>( 10, value -> 1L, 50L );
+
+        assertTrue( cache.put( "a", "A", cache.getGeneration( "a" ) ) );
+        assertEquals( "A", cache.get( "a" ) );
+
+        Thread.sleep( 100L );
+        assertNull( cache.get( "a" ) );
+        assertEquals( 0, cache.size( ) );
+        assertEquals( 0, cache.getWeight( ) );
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.datatable;
+
+import fr.paris.lutece.portal.web.constants.Parameters;
+import fr.paris.lutece.test.LuteceTestCase;
+import fr.paris.lutece.util.html.AbstractPaginator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * DataTableManager Test Class
+ */
+public class DataTableManagerTest extends LuteceTestCase
+{
+    private static final String FILTER_NAME = "name";
+    private static final int ITEMS_COUNT = 25;
+
+    public void testPageableProvider( )
+    {
+        DataTableManager<String> manager = new DataTableManager<>( "jsp/test.jsp", "jsp/test.jsp", 10, true );
+        manager.addFilter( DataTableFilterType.STRING, FILTER_NAME, "filter" );
+        TestItemsProvider provider = new TestItemsProvider( );
+
+        MockHttpServletRequest request = getRequest( manager );
+        request.addParameter( AbstractPaginator.PARAMETER_PAGE_INDEX, "2" );
+        request.addParameter( Parameters.SORTED_ATTRIBUTE_NAME, FILTER_NAME );
+        request.addParameter( Parameters.SORTED_ASC, "true" );
+        request.addParameter( FilterPanel.PARAM_FILTER_PANEL_PREFIX + FilterPanel.PARAM_UPDATE_FILTERS, "true" );
+        request.addParameter( FilterPanel.PARAM_FILTER_PANEL_PREFIX + FILTER_NAME, "value" );
+
+        manager.filterSortAndPaginate( request, provider );
+
+        // only the second page is loaded, with the active filters and the sort
+        assertEquals( Collections.singletonMap( FILTER_NAME, "value" ), provider._mapFilters );
+        assertEquals( FILTER_NAME, provider._sort.getSortKey( ) );
+        assertTrue( provider._sort.getAscSort( ) );
+        assertEquals( 10, provider._nStartIndex );
+        assertEquals( 10, provider._nItemsCount );
+        assertEquals( 10, manager.getItems( ).size( ) );
+        assertEquals( "item10", manager.getItems( ).get( 0 ) );
+        assertEquals( ITEMS_COUNT, manager.getPaginator( ).getItemsCount( ) );
+        assertEquals( 2, manager.getPaginator( ).getPageCurrent( ) );
+    }
+
+    public void testPageableProviderOutOfRange( )
+    {
+        DataTableManager<String> manager = new DataTableManager<>( "jsp/test.jsp", "jsp/test.jsp", 10, true );
+        TestItemsProvider provider = new TestItemsProvider( );
+
+        MockHttpServletRequest request = getRequest( manager );
+        request.addParameter( AbstractPaginator.PARAMETER_PAGE_INDEX, "4" );
+
+        manager.filterSortAndPaginate( request, provider );
+
+        // a page out of range falls back to the first page
+        assertTrue( provider._mapFilters.isEmpty( ) );
+        assertNull( provider._sort.getSortKey( ) );
+        assertEquals( 0, provider._nStartIndex );
+        assertEquals( "item0", manager.getItems( ).get( 0 ) );
+        assertEquals( 1, manager.getPaginator( ).getPageCurrent( ) );
+    }
+
+    public void testPageableProviderEmpty( )
+    {
+        DataTableManager<String> manager = new DataTableManager<>( "jsp/test.jsp", "jsp/test.jsp", 10, true );
+        TestItemsProvider provider = new TestItemsProvider( 0 );
+
+        manager.filterSortAndPaginate( getRequest( manager ), provider );
+
+        // no page is loaded when no item matches
+        assertEquals( -1, provider._nStartIndex );
+        assertTrue( manager.getItems( ).isEmpty( ) );
+        assertEquals( 0, manager.getPaginator( ).getItemsCount( ) );
+    }
+
+    /**
+     * Builds a request submitting the data table form
+     * 
+     * @param manager
+     *            the data table manager
+     * @return the request
+     */
+    private MockHttpServletRequest getRequest( DataTableManager<String> manager )
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        request.addParameter( manager.getId( ), manager.getId( ) );
+
+        return request;
+    }
+
+    /**
+     * Provider recording the page requested by the data table manager
+     */
+    private static final class TestItemsProvider implements IDataTableItemsProvider<String>
+    {
+        private final int _nTotalItemsCount;
+        private Map<String, String> _mapFilters;
+        private DataTableSort _sort;
+        private int _nStartIndex = -1;
+        private int _nItemsCount = -1;
+
+        /**
+         * Constructor
+         */
+        TestItemsProvider( )
+        {
+            this( ITEMS_COUNT );
+        }
+
+        /**
+         * Constructor
+         * 
+         * @param nTotalItemsCount
+         *            the number of items of the provider
+         */
+        TestItemsProvider( int nTotalItemsCount )
+        {
+            _nTotalItemsCount = nTotalItemsCount;
+        }
+
+        @Override
+        public int getItemsCount( Map<String, String> mapFilters )
+        {
+            _mapFilters = mapFilters;
+
+            return _nTotalItemsCount;
+        }
+
+        @Override
+        public List<String> getItems( Map<String, String> mapFilters, DataTableSort sort, int nStartIndex, int nItemsCount )
+        {
+            _sort = sort;
+            _nStartIndex = nStartIndex;
+            _nItemsCount = nItemsCount;
+
+            List<String> listItems = new ArrayList<>( );
+
+            for ( int i = nStartIndex; i < Math.min( nStartIndex + nItemsCount, _nTotalItemsCount ); i++ )
+            {
+                listItems.add( "item" + i );
+            }
+
+            return listItems;
+        }
+    }
+}
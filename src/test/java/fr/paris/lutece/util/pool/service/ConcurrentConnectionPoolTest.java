@@ -0,0 +1,387 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.pool.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.apache.logging.log4j.LogManager;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * ConcurrentConnectionPool Test. The pool is tested with a JDBC driver providing in-memory connections.
+ */
+public class ConcurrentConnectionPoolTest
+{
+    private static final String URL = "jdbc:junitpool:test";
+    private static final TestDriver DRIVER = new TestDriver( );
+
+    private ConcurrentConnectionPool _pool;
+
+    @BeforeClass
+    public static void registerDriver( ) throws SQLException
+    {
+        DriverManager.registerDriver( DRIVER );
+    }
+
+    @AfterClass
+    public static void deregisterDriver( ) throws SQLException
+    {
+        DriverManager.deregisterDriver( DRIVER );
+    }
+
+    @Before
+    public void setUp( )
+    {
+        DRIVER.reset( );
+    }
+
+    @After
+    public void tearDown( )
+    {
+        if ( _pool != null )
+        {
+            _pool.release( );
+        }
+    }
+
+    /**
+     * Tests that a released connection is reused by the next borrower
+     * 
+     * @throws SQLException
+     */
+    @Test
+    public void testBorrowAndRelease( ) throws SQLException
+    {
+        _pool = createPool( 2, 1 );
+        assertEquals( 0, _pool.getConnectionCount( ) );
+
+        Connection conn = _pool.getConnection( );
+        assertEquals( 1, _pool.getConnectionCount( ) );
+        assertEquals( 1, _pool.getBusyConnectionCount( ) );
+
+        conn.close( );
+        assertEquals( 0, _pool.getBusyConnectionCount( ) );
+        assertEquals( 1, _pool.getFreeConnectionCount( ) );
+
+        Connection connReused = _pool.getConnection( );
+        assertSame( conn, connReused );
+        assertEquals( 1, DRIVER.getOpenedCount( ) );
+        connReused.close( );
+    }
+
+    /**
+     * Tests that a borrower waits for a connection when the pool is full and times out if none is released
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testMaxConnectionsAndTimeOut( ) throws Exception
+    {
+        _pool = createPool( 1, 1 );
+
+        Connection conn = _pool.getConnection( );
+        long lStart = System.nanoTime( );
+
+        try
+        {
+            _pool.getConnection( );
+            fail( "The pool should be exhausted" );
+        }
+        catch( SQLException e )
+        {
+            assertTrue( TimeUnit.NANOSECONDS.toMillis( System.nanoTime( ) - lStart ) >= 900L );
+        }
+
+        assertEquals( 1, _pool.getTimeOutCount( ) );
+        assertEquals( 1, _pool.getConnectionCount( ) );
+
+        // a waiting borrower gets the released connection
+        ExecutorService executor = Executors.newSingleThreadExecutor( );
+
+        try
+        {
+            Future<Connection> waiter = executor.submit( ( ) -> _pool.getConnection( ) );
+            Thread.sleep( 100 );
+            assertFalse( waiter.isDone( ) );
+
+            conn.close( );
+            Connection connWaiter = waiter.get( 5, TimeUnit.SECONDS );
+            assertSame( conn, connWaiter );
+            connWaiter.close( );
+        }
+        finally
+        {
+            executor.shutdownNow( );
+        }
+    }
+
+    /**
+     * Tests that a connection that fails the validation is discarded and that its slot is given back to the borrowers
+     * 
+     * @throws SQLException
+     */
+    @Test
+    public void testReleaseAfterFailedValidation( ) throws SQLException
+    {
+        _pool = createPool( 1, 1 );
+
+        Connection conn = _pool.getConnection( );
+        conn.close( );
+
+        DRIVER.setValid( false );
+        _pool.validateIdleConnections( );
+        assertEquals( 0, _pool.getConnectionCount( ) );
+        assertEquals( 1, DRIVER.getClosedCount( ) );
+
+        DRIVER.setValid( true );
+
+        Connection connNew = _pool.getConnection( );
+        assertNotSame( conn, connNew );
+        assertEquals( 1, _pool.getConnectionCount( ) );
+        assertEquals( 2, DRIVER.getOpenedCount( ) );
+        connNew.close( );
+    }
+
+    /**
+     * Tests that concurrent borrowers never get more connections than the maximum and never share a connection
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentBorrowers( ) throws Exception
+    {
+        int nMaxConns = 4;
+        int nThreads = 16;
+        _pool = createPool( nMaxConns, 5 );
+
+        Set<Connection> setBorrowed = ConcurrentHashMap.newKeySet( );
+        AtomicInteger nBorrowed = new AtomicInteger( );
+        AtomicInteger nMaxBorrowed = new AtomicInteger( );
+        AtomicBoolean bShared = new AtomicBoolean( );
+        ExecutorService executor = Executors.newFixedThreadPool( nThreads );
+        List<Future<?>> listFutures = new ArrayList<>( );
+
+        try
+        {
+            for ( int t = 0; t < nThreads; t++ )
+            {
+                listFutures.add( executor.submit( ( ) -> {
+                    for ( int i = 0; i < 50; i++ )
+                    {
+                        try ( Connection conn = _pool.getConnection( ) )
+                        {
+                            if ( !setBorrowed.add( conn ) )
+                            {
+                                bShared.set( true );
+                            }
+
+                            nMaxBorrowed.accumulateAndGet( nBorrowed.incrementAndGet( ), Math::max );
+                            Thread.yield( );
+                            nBorrowed.decrementAndGet( );
+                            setBorrowed.remove( conn );
+                        }
+                    }
+
+                    return null;
+                } ) );
+            }
+
+            for ( Future<?> future : listFutures )
+            {
+                future.get( 30, TimeUnit.SECONDS );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow( );
+        }
+
+        assertFalse( bShared.get( ) );
+        assertTrue( nMaxBorrowed.get( ) <= nMaxConns );
+        assertTrue( _pool.getConnectionCount( ) <= nMaxConns );
+        assertEquals( 0, _pool.getBusyConnectionCount( ) );
+        assertEquals( 0, _pool.getTimeOutCount( ) );
+    }
+
+    /**
+     * Creates a pool without background validation
+     * 
+     * @param nMaxConns
+     *            The maximum number of connections
+     * @param nTimeOut
+     *            The timeout in seconds to get a connection
+     * @return The pool
+     */
+    private static ConcurrentConnectionPool createPool( int nMaxConns, int nTimeOut )
+    {
+        return new ConcurrentConnectionPool( "junit", URL, null, null, nMaxConns, 0, nTimeOut, 0, 1, LogManager.getLogger( "lutece.pool.junit" ) );
+    }
+
+    /**
+     * JDBC driver providing in-memory connections
+     */
+    private static final class TestDriver implements Driver
+    {
+        private final AtomicInteger _nOpened = new AtomicInteger( );
+        private final AtomicInteger _nClosed = new AtomicInteger( );
+        private volatile boolean _bValid = true;
+
+        void reset( )
+        {
+            _nOpened.set( 0 );
+            _nClosed.set( 0 );
+            _bValid = true;
+        }
+
+        void setValid( boolean bValid )
+        {
+            _bValid = bValid;
+        }
+
+        int getOpenedCount( )
+        {
+            return _nOpened.get( );
+        }
+
+        int getClosedCount( )
+        {
+            return _nClosed.get( );
+        }
+
+        @Override
+        public Connection connect( String strUrl, Properties info )
+        {
+            if ( !acceptsURL( strUrl ) )
+            {
+                return null;
+            }
+
+            _nOpened.incrementAndGet( );
+
+            AtomicBoolean bClosed = new AtomicBoolean( );
+
+            return (Connection) Proxy.newProxyInstance( Connection.class.getClassLoader( ), new Class<?> [ ] {
+                    Connection.class
+            }, ( proxy, method, args ) -> {
+                switch( method.getName( ) )
+                {
+                    case "close":
+                        if ( bClosed.compareAndSet( false, true ) )
+                        {
+                            _nClosed.incrementAndGet( );
+                        }
+
+                        return null;
+                    case "isClosed":
+                        return bClosed.get( );
+                    case "isValid":
+                        return _bValid && !bClosed.get( );
+                    case "hashCode":
+                        return System.identityHashCode( proxy );
+                    case "equals":
+                        return proxy == args [0];
+                    case "toString":
+                        return "junit connection";
+                    default:
+                        throw new SQLFeatureNotSupportedException( method.getName( ) );
+                }
+            } );
+        }
+
+        @Override
+        public boolean acceptsURL( String strUrl )
+        {
+            return URL.equals( strUrl );
+        }
+
+        @Override
+        public DriverPropertyInfo [ ] getPropertyInfo( String strUrl, Properties info )
+        {
+            return new DriverPropertyInfo [ 0];
+        }
+
+        @Override
+        public int getMajorVersion( )
+        {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion( )
+        {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant( )
+        {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger( ) throws SQLFeatureNotSupportedException
+        {
+            throw new SQLFeatureNotSupportedException( );
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.sort;
+
+import fr.paris.lutece.portal.business.right.Right;
+import fr.paris.lutece.test.LuteceTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * AttributeComparator Test Class
+ *
+ */
+public class AttributeComparatorTest extends LuteceTestCase
+{
+    public void testSort( )
+    {
+        List<Right> list = new ArrayList<>( );
+
+        for ( String strId : Arrays.asList( "b", "C", "a" ) )
+        {
+            Right right = new Right( );
+            right.setId( strId );
+            list.add( right );
+        }
+
+        new AttributeComparator( "id", true ).sort( list );
+        assertEquals( "a", list.get( 0 ).getId( ) );
+        assertEquals( "b", list.get( 1 ).getId( ) );
+        assertEquals( "C", list.get( 2 ).getId( ) );
+
+        List<Right> listSortedWithComparator = new ArrayList<>( list );
+        listSortedWithComparator.sort( new AttributeComparator( "id", false ) );
+        new AttributeComparator( "id", false ).sort( list );
+        assertEquals( listSortedWithComparator, list );
+        assertEquals( "C", list.get( 0 ).getId( ) );
+    }
+}
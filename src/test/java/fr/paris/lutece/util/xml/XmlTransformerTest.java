@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+/**
+ * Tests of the cache of compiled stylesheets of the XmlTransformer
+ */
+public class XmlTransformerTest
+{
+    private static final String XSL = "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+            + "<xsl:output method=\"text\"/><xsl:template match=\"/\">%s<xsl:value-of select=\"/root\"/></xsl:template></xsl:stylesheet>";
+    private static final String XML = "<root>content</root>";
+
+    /**
+     * Tests that the transformer compiles a stylesheet once, and again after its invalidation
+     * 
+     * @throws TransformerException
+     */
+    @Test
+    public void testTransformerInvalidation( ) throws TransformerException
+    {
+        XmlTransformer transformer = new XmlTransformer( );
+        String strStyleSheetId = "junit-templates-cache-" + System.nanoTime( );
+
+        long lCompileCount = XmlTransformer.getCompileCount( );
+        assertEquals( "v1content", transform( transformer, strStyleSheetId, "v1" ) );
+        assertEquals( "v1content", transform( transformer, strStyleSheetId, "v2" ) );
+        assertEquals( lCompileCount + 1, XmlTransformer.getCompileCount( ) );
+
+        XmlTransformer.removeTemplates( strStyleSheetId );
+        assertFalse( XmlTransformer.getStyleSheetIds( ).contains( strStyleSheetId ) );
+
+        assertEquals( "v2content", transform( transformer, strStyleSheetId, "v2" ) );
+        assertEquals( lCompileCount + 2, XmlTransformer.getCompileCount( ) );
+        assertTrue( XmlTransformer.getStyleSheetIds( ).contains( strStyleSheetId ) );
+    }
+
+    /**
+     * Transforms the test document
+     * 
+     * @param transformer
+     *            The transformer
+     * @param strStyleSheetId
+     *            The StyleSheet Id
+     * @param strPrefix
+     *            The prefix of the output of the stylesheet
+     * @return The output
+     * @throws TransformerException
+     */
+    private static String transform( XmlTransformer transformer, String strStyleSheetId, String strPrefix ) throws TransformerException
+    {
+        return transformer.transform( new StreamSource( new StringReader( XML ) ), new StreamSource( new StringReader( String.format( XSL, strPrefix ) ) ),
+                strStyleSheetId, null, null );
+    }
+}